@@ -0,0 +1,182 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.jmh;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.defaults.AbstractSingleWrapperState;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractStateWithLocation;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractWrapperState;
+import org.sosy_lab.cpachecker.core.interfaces.CPAFactory;
+import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysis;
+import org.sosy_lab.cpachecker.core.interfaces.StateSpacePartition;
+import org.sosy_lab.cpachecker.cpa.arg.ARGState;
+import org.sosy_lab.cpachecker.cpa.callstack.CallstackCPA;
+import org.sosy_lab.cpachecker.cpa.composite.CompositeCPA;
+import org.sosy_lab.cpachecker.cpa.functionpointer.FunctionPointerCPA;
+import org.sosy_lab.cpachecker.cpa.location.LocationCPA;
+import org.sosy_lab.cpachecker.cpa.value.ValueAnalysisCPA;
+import org.sosy_lab.cpachecker.cpa.value.ValueAnalysisState;
+import org.sosy_lab.cpachecker.util.AbstractStates;
+
+/**
+ * Compares {@link AbstractStates#extractStateByType(AbstractState, Class)}, which uses the layout
+ * index of the composite states created by {@link CompositeCPA}, with the search through all
+ * wrapped states that it did before ("traversal" benchmarks).
+ *
+ * <p>The states have the structure of a typical value-analysis configuration: an {@link ARGState}
+ * that wraps a composite state of location, callstack, function-pointer, and value-analysis
+ * states. There is one state for each CFA node of the program.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class AbstractStatesBenchmark {
+
+  @Param({BenchmarkPrograms.SSH_CLIENT})
+  public String program;
+
+  private final List<AbstractState> states = new ArrayList<>();
+
+  @Setup
+  public void setup() throws Exception {
+    Configuration config = BenchmarkPrograms.createConfiguration();
+    CFA cfa = BenchmarkPrograms.parse(program, config);
+    List<ConfigurableProgramAnalysis> components = new ArrayList<>();
+    for (CPAFactory factory :
+        ImmutableList.of(
+            LocationCPA.factory(),
+            CallstackCPA.factory(),
+            FunctionPointerCPA.factory(),
+            ValueAnalysisCPA.factory())) {
+      components.add(createCpa(factory, config, cfa));
+    }
+    ConfigurableProgramAnalysis compositeCpa =
+        createCpa(CompositeCPA.factory().setChildren(components), config, cfa);
+
+    for (CFANode node : cfa.getAllNodes()) {
+      AbstractState composite =
+          compositeCpa.getInitialState(node, StateSpacePartition.getDefaultPartition());
+      states.add(new ARGState(composite, null));
+    }
+  }
+
+  private static ConfigurableProgramAnalysis createCpa(
+      CPAFactory pFactory, Configuration pConfig, CFA pCfa) throws Exception {
+    return pFactory
+        .setConfiguration(pConfig)
+        .setLogger(BenchmarkPrograms.LOGGER)
+        .setShutdownNotifier(BenchmarkPrograms.SHUTDOWN_NOTIFIER)
+        .set(pCfa, CFA.class)
+        .createInstance();
+  }
+
+  /** The implementation of {@link AbstractStates#extractStateByType} without layout index. */
+  private static <T extends AbstractState> T extractByTraversal(
+      AbstractState pState, Class<T> pType) {
+    if (pType.isInstance(pState)) {
+      return pType.cast(pState);
+
+    } else if (pState instanceof AbstractSingleWrapperState) {
+      AbstractState wrapped = ((AbstractSingleWrapperState) pState).getWrappedState();
+      return extractByTraversal(wrapped, pType);
+
+    } else if (pState instanceof AbstractWrapperState) {
+      for (AbstractState wrapped : ((AbstractWrapperState) pState).getWrappedStates()) {
+        T result = extractByTraversal(wrapped, pType);
+        if (result != null) {
+          return result;
+        }
+      }
+    }
+
+    return null;
+  }
+
+  @Benchmark
+  public void extractLocation(Blackhole blackhole) {
+    for (AbstractState state : states) {
+      blackhole.consume(AbstractStates.extractStateByType(state, AbstractStateWithLocation.class));
+    }
+  }
+
+  @Benchmark
+  public void extractLocationTraversal(Blackhole blackhole) {
+    for (AbstractState state : states) {
+      blackhole.consume(extractByTraversal(state, AbstractStateWithLocation.class));
+    }
+  }
+
+  @Benchmark
+  public void extractValueState(Blackhole blackhole) {
+    for (AbstractState state : states) {
+      blackhole.consume(AbstractStates.extractStateByType(state, ValueAnalysisState.class));
+    }
+  }
+
+  @Benchmark
+  public void extractValueStateTraversal(Blackhole blackhole) {
+    for (AbstractState state : states) {
+      blackhole.consume(extractByTraversal(state, ValueAnalysisState.class));
+    }
+  }
+
+  /** A type that no component has, which requires a search through all components. */
+  @Benchmark
+  public void extractMissing(Blackhole blackhole) {
+    for (AbstractState state : states) {
+      blackhole.consume(AbstractStates.extractStateByType(state, ExampleMissingState.class));
+    }
+  }
+
+  @Benchmark
+  public void extractMissingTraversal(Blackhole blackhole) {
+    for (AbstractState state : states) {
+      blackhole.consume(extractByTraversal(state, ExampleMissingState.class));
+    }
+  }
+
+  private interface ExampleMissingState extends AbstractState {}
+}
@@ -0,0 +1,96 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.jmh;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.ConfigurationBuilder;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.cfa.CFACreator;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.util.CFAUtils;
+import org.sosy_lab.cpachecker.util.test.TestDataTools;
+
+/**
+ * Fixed inputs for the benchmarks. All benchmarks work on CFAs of programs from {@code
+ * test/programs}, such that results of different runs are comparable. The benchmarks have to be
+ * started from the root directory of CPAchecker.
+ */
+final class BenchmarkPrograms {
+
+  /** A program with many branches and integer assignments. */
+  static final String SSH_CLIENT = "test/programs/simple/ssh_s3_clnt_errorpath.c";
+
+  /** A program with arrays, pointers and loops. */
+  static final String POINTER_ANALYSIS = "test/programs/simple/pointerAnalysis.cil.c";
+
+  static final LogManager LOGGER = LogManager.createNullLogManager();
+  static final ShutdownNotifier SHUTDOWN_NOTIFIER = ShutdownNotifier.createDummy();
+
+  private BenchmarkPrograms() {}
+
+  /** Create a configuration that does not write output files and uses a Java-based solver. */
+  static Configuration createConfiguration() throws InvalidConfigurationException {
+    ConfigurationBuilder builder = TestDataTools.configurationForTest();
+    builder.setOption("solver.solver", "SMTINTERPOL");
+    return builder.build();
+  }
+
+  static CFA parse(String program, Configuration config) throws Exception {
+    CFACreator creator = new CFACreator(config, LOGGER, SHUTDOWN_NOTIFIER);
+    return creator.parseFileAndCreateCFA(ImmutableList.of(program));
+  }
+
+  /**
+   * Return all edges that are reachable from the main function, ordered by a breadth-first
+   * traversal of the CFA. The order is fixed for a given CFA.
+   */
+  static List<CFAEdge> edgesInBfsOrder(CFA cfa) {
+    List<CFAEdge> edges = new ArrayList<>();
+    Set<CFANode> visited = new HashSet<>();
+    Deque<CFANode> waitlist = new ArrayDeque<>();
+    waitlist.add(cfa.getMainFunction());
+    visited.add(cfa.getMainFunction());
+    while (!waitlist.isEmpty()) {
+      CFANode node = waitlist.poll();
+      for (CFAEdge edge : CFAUtils.leavingEdges(node)) {
+        edges.add(edge);
+        if (visited.add(edge.getSuccessor())) {
+          waitlist.add(edge.getSuccessor());
+        }
+      }
+    }
+    return edges;
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.jmh;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sosy_lab.cpachecker.cpa.invariants.BitVectorInfo;
+import org.sosy_lab.cpachecker.cpa.invariants.BitVectorInterval;
+import org.sosy_lab.cpachecker.cpa.invariants.CompoundBitVectorInterval;
+import org.sosy_lab.cpachecker.cpa.invariants.OverflowEventHandler;
+
+/**
+ * Measures the operations of {@link CompoundBitVectorInterval} that dominate the invariants
+ * analysis: union, intersection, inclusion checks, and arithmetic with constants.
+ *
+ * <p>The inputs are synthetic compound intervals with the given number of disjoint intervals.
+ * The type "unsigned long" exercises bounds that do not fit into a long; run with "-prof gc" to
+ * compare the allocation rates of both representations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class InvariantsIntervalBenchmark {
+
+  private static final int OPERANDS = 100;
+
+  @Param({"int", "unsigned long"})
+  public String type;
+
+  @Param({"1", "10"})
+  public int intervalsPerOperand;
+
+  private BitVectorInfo info;
+  private CompoundBitVectorInterval[] operands;
+  private BigInteger[] constants;
+
+  @Setup
+  public void setup() {
+    info = type.equals("int") ? BitVectorInfo.from(32, true) : BitVectorInfo.from(64, false);
+    Random random = new Random(0);
+    operands = new CompoundBitVectorInterval[OPERANDS];
+    constants = new BigInteger[OPERANDS];
+    BigInteger offset = type.equals("int") ? BigInteger.ZERO : info.getMaxValue().shiftRight(1);
+    for (int i = 0; i < OPERANDS; i++) {
+      CompoundBitVectorInterval operand = CompoundBitVectorInterval.bottom(info);
+      for (int j = 0; j < intervalsPerOperand; j++) {
+        long lower = random.nextInt(10000);
+        BigInteger lowerBound = offset.add(BigInteger.valueOf(lower));
+        BigInteger upperBound = lowerBound.add(BigInteger.valueOf(random.nextInt(100)));
+        operand = operand.unionWith(BitVectorInterval.of(info, lowerBound, upperBound));
+      }
+      operands[i] = operand;
+      constants[i] = BigInteger.valueOf(random.nextInt(100));
+    }
+  }
+
+  @Benchmark
+  public CompoundBitVectorInterval unionWith() {
+    CompoundBitVectorInterval result = CompoundBitVectorInterval.bottom(info);
+    for (CompoundBitVectorInterval operand : operands) {
+      result = result.unionWith(operand);
+    }
+    return result;
+  }
+
+  @Benchmark
+  public int intersectWith() {
+    int intervals = 0;
+    for (int i = 1; i < OPERANDS; i++) {
+      intervals += operands[i - 1].intersectWith(operands[i]).getNumberOfIntervals();
+    }
+    return intervals;
+  }
+
+  @Benchmark
+  public int contains() {
+    int contained = 0;
+    for (int i = 1; i < OPERANDS; i++) {
+      if (operands[i - 1].contains(operands[i])) {
+        contained++;
+      }
+      if (operands[i].contains(constants[i])) {
+        contained++;
+      }
+    }
+    return contained;
+  }
+
+  @Benchmark
+  public int addAndMultiply() {
+    int intervals = 0;
+    for (int i = 0; i < OPERANDS; i++) {
+      intervals +=
+          operands[i]
+              .add(constants[i], true, OverflowEventHandler.EMPTY)
+              .multiply(constants[i], true, OverflowEventHandler.EMPTY)
+              .getNumberOfIntervals();
+    }
+    return intervals;
+  }
+}
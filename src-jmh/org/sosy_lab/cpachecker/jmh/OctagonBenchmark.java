@@ -0,0 +1,139 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.jmh;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sosy_lab.cpachecker.util.octagon.JavaOctagonManager;
+import org.sosy_lab.cpachecker.util.octagon.NumArray;
+import org.sosy_lab.cpachecker.util.octagon.Octagon;
+import org.sosy_lab.cpachecker.util.octagon.OctagonIntManager;
+import org.sosy_lab.cpachecker.util.octagon.OctagonManager;
+
+/**
+ * Compares the native octagon library with {@link JavaOctagonManager} on the operations that the
+ * octagon analysis uses most: adding constraints from assumptions, assignments, and the inclusion
+ * check and join at loop heads.
+ *
+ * <p>The inputs are synthetic such that the number of variables can be scaled: a fixed sequence
+ * of random constraints between two variables and random assignments of the form x = y + c.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class OctagonBenchmark {
+
+  private static final int OPERATIONS = 200;
+
+  @Param({"NATIVE", "JAVA"})
+  public String implementation;
+
+  @Param({"10", "50"})
+  public int variables;
+
+  private OctagonManager manager;
+
+  private NumArray[] constraints;
+  private int[] assignedVariables;
+  private NumArray[] assignments;
+
+  private Octagon left;
+  private Octagon right;
+
+  @Setup
+  public void setup() {
+    manager =
+        implementation.equals("JAVA") ? JavaOctagonManager.forIntegers() : new OctagonIntManager();
+    Random random = new Random(0);
+
+    constraints = new NumArray[OPERATIONS];
+    assignedVariables = new int[OPERATIONS];
+    assignments = new NumArray[OPERATIONS];
+    for (int i = 0; i < OPERATIONS; i++) {
+      constraints[i] = manager.init_num_t(4);
+      manager.num_set_int(constraints[i], 0, random.nextInt(6));
+      manager.num_set_int(constraints[i], 1, random.nextInt(variables));
+      manager.num_set_int(constraints[i], 2, random.nextInt(variables));
+      manager.num_set_int(constraints[i], 3, 100 + random.nextInt(100));
+
+      assignedVariables[i] = random.nextInt(variables);
+      assignments[i] = manager.init_num_t(variables + 1);
+      for (int j = 0; j < variables; j++) {
+        manager.num_set_int(assignments[i], j, 0);
+      }
+      manager.num_set_int(assignments[i], random.nextInt(variables), 1);
+      manager.num_set_int(assignments[i], variables, random.nextInt(10));
+    }
+
+    left = addConstraints(manager.universe(variables), 0, OPERATIONS / 2);
+    right = addConstraints(manager.universe(variables), OPERATIONS / 2, OPERATIONS);
+  }
+
+  private Octagon addConstraints(Octagon oct, int from, int to) {
+    Octagon result = oct;
+    for (int i = from; i < to; i++) {
+      result = manager.addBinConstraint(result, 1, constraints[i]);
+    }
+    return result;
+  }
+
+  @Benchmark
+  public Octagon addConstraints() {
+    return addConstraints(manager.universe(variables), 0, OPERATIONS);
+  }
+
+  @Benchmark
+  public Octagon assignAndAddConstraints() {
+    Octagon result = manager.universe(variables);
+    for (int i = 0; i < OPERATIONS; i++) {
+      result = manager.assingVar(result, assignedVariables[i], assignments[i]);
+      result = manager.addBinConstraint(result, 1, constraints[i]);
+    }
+    return result;
+  }
+
+  @Benchmark
+  public int isIncludedIn() {
+    return manager.isIncludedInLazy(left, right) + manager.isIncludedInLazy(right, left);
+  }
+
+  @Benchmark
+  public Octagon union() {
+    return manager.union(left, right);
+  }
+}
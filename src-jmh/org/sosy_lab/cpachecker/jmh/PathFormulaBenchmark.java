@@ -0,0 +1,132 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.jmh;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sosy_lab.common.collect.MapsDifference;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.AnalysisDirection;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormula;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormulaManager;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormulaManagerImpl;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.SSAMap;
+import org.sosy_lab.cpachecker.util.predicates.smt.Solver;
+
+/**
+ * Benchmarks for the encoding of CFA edges into formulas (i.e., the {@code CtoFormulaConverter})
+ * and for merging {@link SSAMap}s, which happens for each merge of two path formulas.
+ *
+ * <p>The inputs are computed once: For each edge we store the first path formula that was
+ * computed for its predecessor. For each CFA node with several incoming edges we store the pairs
+ * of SSA maps that need to be merged.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class PathFormulaBenchmark {
+
+  @Param({BenchmarkPrograms.SSH_CLIENT, BenchmarkPrograms.POINTER_ANALYSIS})
+  public String program;
+
+  private Solver solver;
+  private PathFormulaManager pfmgr;
+
+  private final List<PathFormula> predecessors = new ArrayList<>();
+  private final List<CFAEdge> edges = new ArrayList<>();
+
+  private final List<SSAMap> mergeLeft = new ArrayList<>();
+  private final List<SSAMap> mergeRight = new ArrayList<>();
+
+  @Setup
+  public void setup() throws Exception {
+    Configuration config = BenchmarkPrograms.createConfiguration();
+    CFA cfa = BenchmarkPrograms.parse(program, config);
+    solver = Solver.create(config, BenchmarkPrograms.LOGGER, BenchmarkPrograms.SHUTDOWN_NOTIFIER);
+    pfmgr =
+        new PathFormulaManagerImpl(
+            solver.getFormulaManager(),
+            config,
+            BenchmarkPrograms.LOGGER,
+            BenchmarkPrograms.SHUTDOWN_NOTIFIER,
+            cfa,
+            AnalysisDirection.FORWARD);
+
+    Map<CFANode, PathFormula> formulasAtNodes = new HashMap<>();
+    formulasAtNodes.put(cfa.getMainFunction(), pfmgr.makeEmptyPathFormula());
+    for (CFAEdge edge : BenchmarkPrograms.edgesInBfsOrder(cfa)) {
+      PathFormula predecessor = formulasAtNodes.get(edge.getPredecessor());
+      predecessors.add(predecessor);
+      edges.add(edge);
+      PathFormula successor = pfmgr.makeAnd(predecessor, edge);
+      PathFormula existing = formulasAtNodes.putIfAbsent(edge.getSuccessor(), successor);
+      if (existing != null) {
+        mergeLeft.add(existing.getSsa());
+        mergeRight.add(successor.getSsa());
+      }
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    solver.close();
+  }
+
+  @Benchmark
+  public void encodeEdges(Blackhole blackhole) throws Exception {
+    for (int i = 0; i < edges.size(); i++) {
+      blackhole.consume(pfmgr.makeAnd(predecessors.get(i), edges.get(i)));
+    }
+  }
+
+  @Benchmark
+  public void mergeSsaMaps(Blackhole blackhole) {
+    for (int i = 0; i < mergeLeft.size(); i++) {
+      blackhole.consume(
+          SSAMap.merge(mergeLeft.get(i), mergeRight.get(i), MapsDifference.ignoreMapsDifference()));
+    }
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.jmh;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.cfa.types.c.CNumericTypes;
+import org.sosy_lab.cpachecker.core.defaults.SingletonPrecision;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.interfaces.StateSpacePartition;
+import org.sosy_lab.cpachecker.core.reachedset.PartitionedReachedSet;
+import org.sosy_lab.cpachecker.core.waitlist.ReversePostorderSortedWaitlist;
+import org.sosy_lab.cpachecker.core.waitlist.Waitlist;
+import org.sosy_lab.cpachecker.core.waitlist.Waitlist.TraversalMethod;
+import org.sosy_lab.cpachecker.core.waitlist.Waitlist.WaitlistFactory;
+import org.sosy_lab.cpachecker.cpa.composite.CompositeState;
+import org.sosy_lab.cpachecker.cpa.location.LocationCPA;
+import org.sosy_lab.cpachecker.cpa.value.ValueAnalysisState;
+import org.sosy_lab.cpachecker.cpa.value.type.NumericValue;
+import org.sosy_lab.cpachecker.util.states.MemoryLocation;
+
+/**
+ * Benchmarks for the reached set and the waitlist, i.e., the operations that the CPA algorithm
+ * executes for each abstract state.
+ *
+ * <p>The states are composite states of a location and a value-analysis state, such that the
+ * reached set is partitioned by location. For each CFA node there are {@link #statesPerLocation}
+ * states with different values.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ReachedSetBenchmark {
+
+  @Param({BenchmarkPrograms.SSH_CLIENT})
+  public String program;
+
+  @Param({"1", "10"})
+  public int statesPerLocation;
+
+  private final Precision precision = SingletonPrecision.getInstance();
+  private final WaitlistFactory waitlistFactory =
+      ReversePostorderSortedWaitlist.factory(TraversalMethod.DFS);
+
+  private final List<AbstractState> states = new ArrayList<>();
+  private PartitionedReachedSet filledReachedSet;
+
+  @Setup
+  public void setup() throws Exception {
+    Configuration config = BenchmarkPrograms.createConfiguration();
+    CFA cfa = BenchmarkPrograms.parse(program, config);
+    LocationCPA locationCpa =
+        (LocationCPA)
+            LocationCPA.factory().set(cfa, CFA.class).setConfiguration(config).createInstance();
+    MemoryLocation variable = MemoryLocation.valueOf("main", "x");
+
+    for (CFANode node : cfa.getAllNodes()) {
+      for (int i = 0; i < statesPerLocation; i++) {
+        ValueAnalysisState valueState = new ValueAnalysisState(cfa.getMachineModel());
+        valueState.assignConstant(variable, new NumericValue(i), CNumericTypes.INT);
+        states.add(
+            new CompositeState(
+                ImmutableList.of(
+                    locationCpa.getInitialState(node, StateSpacePartition.getDefaultPartition()),
+                    valueState)));
+      }
+    }
+
+    filledReachedSet = new PartitionedReachedSet(waitlistFactory);
+    for (AbstractState state : states) {
+      filledReachedSet.add(state, precision);
+    }
+  }
+
+  @Benchmark
+  public PartitionedReachedSet add() {
+    PartitionedReachedSet reached = new PartitionedReachedSet(waitlistFactory);
+    for (AbstractState state : states) {
+      reached.add(state, precision);
+    }
+    return reached;
+  }
+
+  @Benchmark
+  public void getReached(Blackhole blackhole) {
+    for (AbstractState state : states) {
+      blackhole.consume(filledReachedSet.getReached(state));
+    }
+  }
+
+  /** The sorted waitlist is filled and emptied again, because we can only pop a filled waitlist. */
+  @Benchmark
+  public void waitlistAddAndPop(Blackhole blackhole) {
+    Waitlist waitlist = waitlistFactory.createWaitlistInstance();
+    for (AbstractState state : states) {
+      waitlist.add(state);
+    }
+    while (!waitlist.isEmpty()) {
+      blackhole.consume(waitlist.pop());
+    }
+  }
+}
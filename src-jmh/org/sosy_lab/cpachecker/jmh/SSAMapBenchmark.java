@@ -0,0 +1,239 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.jmh;
+
+import com.google.common.base.Equivalence;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sosy_lab.common.collect.MapsDifference;
+import org.sosy_lab.common.collect.PathCopyingPersistentTreeMap;
+import org.sosy_lab.common.collect.PersistentSortedMap;
+import org.sosy_lab.common.collect.PersistentSortedMaps;
+import org.sosy_lab.cpachecker.cfa.types.c.CNumericTypes;
+import org.sosy_lab.cpachecker.cfa.types.c.CType;
+import org.sosy_lab.cpachecker.cfa.types.c.CTypes;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.SSAMap;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.SSAMap.SSAMapBuilder;
+
+/**
+ * Compares {@link SSAMap} with the representation it used before, i.e., two {@link
+ * PersistentSortedMap}s with string keys for indices and types ("sortedMap" benchmarks).
+ *
+ * <p>The inputs are synthetic such that the number of variables can be scaled: a base map with
+ * the given number of variables, a fixed sequence of random index updates, and pairs of maps that
+ * were derived from the base map with a few updates each (as it is typical for merges of path
+ * formulas).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SSAMapBenchmark {
+
+  private static final int UPDATES = 1000;
+  private static final int MERGES = 100;
+  private static final int UPDATES_PER_MERGE_SIDE = 20;
+
+  @Param({"100", "1000", "10000"})
+  public int variables;
+
+  /** The representation of SSAMap before variable names were interned. */
+  private static final class SortedMapSSA {
+    private final PersistentSortedMap<String, Integer> vars;
+    private final PersistentSortedMap<String, CType> types;
+
+    private SortedMapSSA(
+        PersistentSortedMap<String, Integer> pVars, PersistentSortedMap<String, CType> pTypes) {
+      vars = pVars;
+      types = pTypes;
+    }
+
+    private SortedMapSSA setIndex(String name, CType type, int idx) {
+      Integer oldIdx = vars.get(name);
+      PersistentSortedMap<String, CType> newTypes = types;
+      if (types.get(name) == null) {
+        newTypes = types.putAndCopy(name, type);
+      }
+      if (oldIdx == null || idx > oldIdx) {
+        return new SortedMapSSA(vars.putAndCopy(name, idx), newTypes);
+      }
+      return new SortedMapSSA(vars, newTypes);
+    }
+
+    private static SortedMapSSA merge(
+        SortedMapSSA s1, SortedMapSSA s2, MapsDifference.Visitor<String, Integer> differences) {
+      return new SortedMapSSA(
+          PersistentSortedMaps.merge(
+              s1.vars,
+              s2.vars,
+              Equivalence.equals(),
+              PersistentSortedMaps.getMaximumMergeConflictHandler(),
+              differences),
+          PersistentSortedMaps.merge(
+              s1.types,
+              s2.types,
+              CTypes.canonicalTypeEquivalence(),
+              PersistentSortedMaps.getExceptionMergeConflictHandler(),
+              MapsDifference.ignoreMapsDifference()));
+    }
+  }
+
+  private final List<String> names = new ArrayList<>();
+  private final List<String> updateNames = new ArrayList<>();
+  private final List<Integer> updateIndices = new ArrayList<>();
+
+  private SSAMap baseSsa;
+  private SortedMapSSA baseSortedMap;
+
+  private final List<SSAMap> mergeLeft = new ArrayList<>();
+  private final List<SSAMap> mergeRight = new ArrayList<>();
+  private final List<SortedMapSSA> mergeLeftSortedMap = new ArrayList<>();
+  private final List<SortedMapSSA> mergeRightSortedMap = new ArrayList<>();
+
+  @Setup
+  public void setup() {
+    Random random = new Random(0);
+    SSAMapBuilder builder = SSAMap.emptySSAMap().builder();
+    SortedMapSSA sortedMap =
+        new SortedMapSSA(PathCopyingPersistentTreeMap.of(), PathCopyingPersistentTreeMap.of());
+    for (int i = 0; i < variables; i++) {
+      String name = "main::var_" + i;
+      names.add(name);
+      builder.setIndex(name, CNumericTypes.INT, 1);
+      sortedMap = sortedMap.setIndex(name, CNumericTypes.INT, 1);
+    }
+    baseSsa = builder.build();
+    baseSortedMap = sortedMap;
+
+    Map<String, Integer> currentIndices = new HashMap<>();
+    for (int i = 0; i < UPDATES; i++) {
+      String name = names.get(random.nextInt(variables));
+      updateNames.add(name);
+      updateIndices.add(currentIndices.merge(name, 2, (a, b) -> a + 1));
+    }
+
+    for (int i = 0; i < MERGES; i++) {
+      mergeLeft.add(derive(random));
+      mergeRight.add(derive(random));
+      mergeLeftSortedMap.add(toSortedMap(mergeLeft.get(i)));
+      mergeRightSortedMap.add(toSortedMap(mergeRight.get(i)));
+    }
+  }
+
+  private SSAMap derive(Random random) {
+    SSAMapBuilder builder = baseSsa.builder();
+    for (int i = 0; i < UPDATES_PER_MERGE_SIDE; i++) {
+      String name = names.get(random.nextInt(variables));
+      builder.setIndex(name, CNumericTypes.INT, builder.getIndex(name) + 1 + random.nextInt(3));
+    }
+    return builder.build();
+  }
+
+  /** Convert an SSAMap derived from baseSsa such that the result shares structure with it. */
+  private SortedMapSSA toSortedMap(SSAMap ssa) {
+    SortedMapSSA result = baseSortedMap;
+    for (String name : names) {
+      if (ssa.getIndex(name) != baseSsa.getIndex(name)) {
+        result = result.setIndex(name, ssa.getType(name), ssa.getIndex(name));
+      }
+    }
+    return result;
+  }
+
+  @Benchmark
+  public SSAMap setIndex() {
+    SSAMapBuilder builder = baseSsa.builder();
+    for (int i = 0; i < UPDATES; i++) {
+      builder.setIndex(updateNames.get(i), CNumericTypes.INT, updateIndices.get(i));
+    }
+    return builder.build();
+  }
+
+  @Benchmark
+  public Object setIndexSortedMap() {
+    SortedMapSSA result = baseSortedMap;
+    for (int i = 0; i < UPDATES; i++) {
+      result = result.setIndex(updateNames.get(i), CNumericTypes.INT, updateIndices.get(i));
+    }
+    return result;
+  }
+
+  @Benchmark
+  public void getIndex(Blackhole blackhole) {
+    for (String name : names) {
+      blackhole.consume(baseSsa.getIndex(name));
+    }
+  }
+
+  @Benchmark
+  public void getIndexSortedMap(Blackhole blackhole) {
+    for (String name : names) {
+      blackhole.consume(baseSortedMap.vars.get(name));
+    }
+  }
+
+  @Benchmark
+  public void merge(Blackhole blackhole) {
+    for (int i = 0; i < MERGES; i++) {
+      List<MapsDifference.Entry<String, Integer>> differences = new ArrayList<>();
+      blackhole.consume(
+          SSAMap.merge(
+              mergeLeft.get(i),
+              mergeRight.get(i),
+              MapsDifference.collectMapsDifferenceTo(differences)));
+      blackhole.consume(differences);
+    }
+  }
+
+  @Benchmark
+  public void mergeSortedMap(Blackhole blackhole) {
+    for (int i = 0; i < MERGES; i++) {
+      List<MapsDifference.Entry<String, Integer>> differences = new ArrayList<>();
+      blackhole.consume(
+          SortedMapSSA.merge(
+              mergeLeftSortedMap.get(i),
+              mergeRightSortedMap.get(i),
+              MapsDifference.collectMapsDifferenceTo(differences)));
+      blackhole.consume(differences);
+    }
+  }
+}
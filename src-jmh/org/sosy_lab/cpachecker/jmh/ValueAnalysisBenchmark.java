@@ -0,0 +1,135 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.jmh;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.interfaces.StateSpacePartition;
+import org.sosy_lab.cpachecker.cpa.value.ValueAnalysisCPA;
+import org.sosy_lab.cpachecker.cpa.value.ValueAnalysisState;
+import org.sosy_lab.cpachecker.cpa.value.ValueAnalysisTransferRelation;
+
+/**
+ * Benchmarks for the transfer relation and the join of the value analysis.
+ *
+ * <p>The inputs are computed once by a simple exploration of the CFA: For each edge we store the
+ * first state that was computed for its predecessor. For each CFA node with several incoming
+ * edges we store the pairs of states that need to be joined.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ValueAnalysisBenchmark {
+
+  @Param({BenchmarkPrograms.SSH_CLIENT, BenchmarkPrograms.POINTER_ANALYSIS})
+  public String program;
+
+  private ValueAnalysisTransferRelation transferRelation;
+  private Precision precision;
+
+  private final List<AbstractState> predecessors = new ArrayList<>();
+  private final List<CFAEdge> edges = new ArrayList<>();
+
+  private final List<ValueAnalysisState> joinLeft = new ArrayList<>();
+  private final List<ValueAnalysisState> joinRight = new ArrayList<>();
+
+  @Setup
+  public void setup() throws Exception {
+    Configuration config = BenchmarkPrograms.createConfiguration();
+    CFA cfa = BenchmarkPrograms.parse(program, config);
+    ValueAnalysisCPA cpa =
+        (ValueAnalysisCPA)
+            ValueAnalysisCPA.factory()
+                .setConfiguration(config)
+                .setLogger(BenchmarkPrograms.LOGGER)
+                .setShutdownNotifier(BenchmarkPrograms.SHUTDOWN_NOTIFIER)
+                .set(cfa, CFA.class)
+                .createInstance();
+    transferRelation = cpa.getTransferRelation();
+
+    StateSpacePartition partition = StateSpacePartition.getDefaultPartition();
+    CFANode main = cfa.getMainFunction();
+    precision = cpa.getInitialPrecision(main, partition);
+
+    Map<CFANode, ValueAnalysisState> statesAtNodes = new HashMap<>();
+    statesAtNodes.put(main, (ValueAnalysisState) cpa.getInitialState(main, partition));
+    for (CFAEdge edge : BenchmarkPrograms.edgesInBfsOrder(cfa)) {
+      ValueAnalysisState predecessor = statesAtNodes.get(edge.getPredecessor());
+      if (predecessor == null) {
+        continue; // predecessor is unreachable for the value analysis
+      }
+      predecessors.add(predecessor);
+      edges.add(edge);
+      for (AbstractState successor :
+          transferRelation.getAbstractSuccessorsForEdge(predecessor, precision, edge)) {
+        ValueAnalysisState existing =
+            statesAtNodes.putIfAbsent(edge.getSuccessor(), (ValueAnalysisState) successor);
+        if (existing != null) {
+          joinLeft.add(existing);
+          joinRight.add((ValueAnalysisState) successor);
+        }
+      }
+    }
+  }
+
+  @Benchmark
+  public void transfer(Blackhole blackhole) throws Exception {
+    for (int i = 0; i < edges.size(); i++) {
+      blackhole.consume(
+          transferRelation.getAbstractSuccessorsForEdge(
+              predecessors.get(i), precision, edges.get(i)));
+    }
+  }
+
+  @Benchmark
+  public void join(Blackhole blackhole) {
+    for (int i = 0; i < joinLeft.size(); i++) {
+      blackhole.consume(joinLeft.get(i).join(joinRight.get(i)));
+    }
+  }
+}
@@ -0,0 +1,358 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cfa;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.MoreFiles;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.ObjectStreamField;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import javax.annotation.Nullable;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.core.CPAchecker;
+
+/**
+ * Persistent cache for fully post-processed CFAs, such that repeated runs on the same program
+ * with the same CFA-related configuration can skip parsing and CFA construction.
+ *
+ * <p>Each entry is stored in its own file, whose name is a hash over the CPAchecker version, all
+ * configuration options that influence CFA creation, and the names and contents of the program
+ * files. The file format (version {@value #FORMAT_VERSION}) consists of
+ *
+ * <ul>
+ *   <li>a header with a magic string, the format version and the full key,
+ *   <li>a class table with the name and a fingerprint of each class in the payload,
+ *   <li>the length and the CRC32 checksum of the payload, and
+ *   <li>the payload, i.e., the gzipped serialized {@link ImmutableCFA}.
+ * </ul>
+ *
+ * <p>The header and the class table are checked before the payload is deserialized. Entries from
+ * other format versions, entries with classes whose serialized form has changed since the entry
+ * was written, and corrupt entries are treated as cache misses. The payload may only contain the
+ * classes from the class table. Thus a cache directory can be shared between runs and versions.
+ */
+final class CFACache {
+
+  private static final String MAGIC = "CPAchecker-CFA-cache";
+  private static final int FORMAT_VERSION = 2;
+  private static final String FILE_SUFFIX = ".cfa.gz";
+
+  /** Prefixes of all options that (may) have an influence on the created CFA. */
+  private static final ImmutableList<String> RELEVANT_OPTION_PREFIXES =
+      ImmutableList.of(
+          "analysis.entryFunction",
+          "analysis.functionPointer",
+          "analysis.interprocedural",
+          "analysis.machineModel",
+          "analysis.matchAssignedFunctionPointers",
+          "analysis.summaryEdges",
+          "analysis.useGlobalVars",
+          "analysis.useLoopStructure",
+          "cfa.",
+          "dependenceGraph.",
+          "dependencegraph.",
+          "java.",
+          "language",
+          "liveVar.",
+          "parser.");
+
+  /** Options that match {@link #RELEVANT_OPTION_PREFIXES} but only concern output or caching. */
+  private static final ImmutableList<String> IGNORED_OPTION_PREFIXES =
+      ImmutableList.of(
+          "cfa.cache.",
+          "cfa.callgraph.",
+          "cfa.export",
+          "cfa.file",
+          "cfa.pixelGraphicFile",
+          "cfa.serialize",
+          "java.exportTypeHierarchy",
+          "java.typeHierarchyFile");
+
+  private final Path directory;
+  private final LogManager logger;
+
+  CFACache(Path pDirectory, LogManager pLogger) {
+    directory = pDirectory;
+    logger = pLogger;
+  }
+
+  /**
+   * Compute the cache key for the given program files and configuration, or return an empty
+   * Optional if the input cannot be cached (e.g., because the program is not given as files).
+   */
+  Optional<String> computeKey(List<String> pSourceFiles, Configuration pConfig)
+      throws IOException {
+    Hasher hasher = Hashing.sha256().newHasher();
+    hasher.putInt(FORMAT_VERSION);
+    hasher.putString(CPAchecker.getCPAcheckerVersion(), UTF_8);
+
+    for (String line : Splitter.on('\n').split(pConfig.asPropertiesString())) {
+      if (isRelevantOption(line)) {
+        hasher.putString(line, UTF_8).putChar('\n');
+      }
+    }
+
+    for (String sourceFile : pSourceFiles) {
+      Path file = Paths.get(sourceFile);
+      if (!Files.isRegularFile(file)) {
+        return Optional.empty();
+      }
+      hasher.putString(sourceFile, UTF_8).putChar('\0');
+      hasher.putBytes(MoreFiles.asByteSource(file).hash(Hashing.sha256()).asBytes());
+    }
+    return Optional.of(hasher.hash().toString());
+  }
+
+  private static boolean isRelevantOption(String pLine) {
+    return RELEVANT_OPTION_PREFIXES.stream().anyMatch(pLine::startsWith)
+        && IGNORED_OPTION_PREFIXES.stream().noneMatch(pLine::startsWith);
+  }
+
+  private Path getFile(String pKey) {
+    return directory.resolve(pKey + FILE_SUFFIX);
+  }
+
+  /** Load the CFA stored for the given key, or return null if there is no usable entry. */
+  @Nullable ImmutableCFA load(String pKey) {
+    Path file = getFile(pKey);
+    if (!Files.isRegularFile(file)) {
+      return null;
+    }
+
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (!MAGIC.equals(in.readUTF())) {
+        logger.log(Level.INFO, "Ignoring file without CFA cache header", file);
+        return null;
+      }
+      if (in.readInt() != FORMAT_VERSION || !pKey.equals(in.readUTF())) {
+        logger.log(Level.INFO, "Ignoring incompatible CFA cache entry", file);
+        return null;
+      }
+
+      Map<String, Long> classes = new HashMap<>();
+      int classCount = in.readInt();
+      for (int i = 0; i < classCount; i++) {
+        classes.put(in.readUTF(), in.readLong());
+      }
+      Optional<String> staleClass =
+          classes.entrySet().stream()
+              .filter(e -> !e.getValue().equals(getLocalFingerprint(e.getKey())))
+              .map(Map.Entry::getKey)
+              .findAny();
+      if (staleClass.isPresent()) {
+        logger.log(
+            Level.INFO, "Ignoring stale CFA cache entry", file, "because class", staleClass.get(),
+            "has changed");
+        return null;
+      }
+
+      long length = in.readLong();
+      long checksum = in.readLong();
+      if (length < 0 || length > Math.min(Files.size(file), Integer.MAX_VALUE)) {
+        throw new IOException("invalid payload length " + length);
+      }
+      byte[] payload = new byte[(int) length];
+      in.readFully(payload);
+      CRC32 crc = new CRC32();
+      crc.update(payload);
+      if (crc.getValue() != checksum || in.read() != -1) {
+        throw new IOException("checksum mismatch");
+      }
+
+      try (ObjectInputStream objectIn =
+          new RestrictedObjectInputStream(
+              new GZIPInputStream(new ByteArrayInputStream(payload)), classes.keySet())) {
+        return (ImmutableCFA) objectIn.readObject();
+      }
+
+    } catch (IOException | ClassNotFoundException | ClassCastException e) {
+      logger.logUserException(Level.WARNING, e, "Could not read CFA from cache file " + file);
+      return null;
+    }
+  }
+
+  /**
+   * Store the given CFA for the given key. The file is written to a temporary location first and
+   * moved into place afterwards, such that concurrent runs never see partially written entries.
+   */
+  void store(String pKey, ImmutableCFA pCfa) {
+    Path file = getFile(pKey);
+    Path tmpFile = null;
+    try {
+      ByteArrayOutputStream payload = new ByteArrayOutputStream();
+      Set<Class<?>> classes;
+      try (ClassRecordingObjectOutputStream objectOut =
+          new ClassRecordingObjectOutputStream(new GZIPOutputStream(payload))) {
+        objectOut.writeObject(pCfa);
+        classes = objectOut.classes;
+      }
+      CRC32 crc = new CRC32();
+      crc.update(payload.toByteArray());
+
+      Files.createDirectories(directory);
+      tmpFile = Files.createTempFile(directory, pKey, ".tmp");
+      try (DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+        out.writeUTF(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeUTF(pKey);
+        out.writeInt(classes.size());
+        for (Class<?> cls : classes) {
+          out.writeUTF(cls.getName());
+          out.writeLong(getFingerprint(cls));
+        }
+        out.writeLong(payload.size());
+        out.writeLong(crc.getValue());
+        payload.writeTo(out);
+      }
+      Files.move(tmpFile, file, StandardCopyOption.ATOMIC_MOVE);
+      tmpFile = null;
+
+    } catch (IOException e) {
+      logger.logUserException(Level.WARNING, e, "Could not write CFA to cache file " + file);
+    } finally {
+      if (tmpFile != null) {
+        try {
+          Files.deleteIfExists(tmpFile);
+        } catch (IOException e) {
+          logger.logDebugException(e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Compute a fingerprint of the serialized form of a class: its name, its serialVersionUID, its
+   * serialized fields, and for enums the names of the constants. An entry is only used if all its
+   * classes still have the same fingerprint, such that changed classes are detected even if the
+   * CPAchecker version did not change.
+   */
+  @VisibleForTesting
+  static long getFingerprint(Class<?> pClass) {
+    Hasher hasher = Hashing.sha256().newHasher();
+    hasher.putString(pClass.getName(), UTF_8);
+    ObjectStreamClass desc = ObjectStreamClass.lookupAny(pClass);
+    hasher.putLong(desc.getSerialVersionUID());
+    for (ObjectStreamField field : desc.getFields()) {
+      hasher.putChar(field.getTypeCode()).putString(field.getName(), UTF_8);
+      if (field.getTypeString() != null) {
+        hasher.putString(field.getTypeString(), UTF_8);
+      }
+    }
+    if (pClass.isEnum()) {
+      for (Object constant : pClass.getEnumConstants()) {
+        hasher.putString(((Enum<?>) constant).name(), UTF_8);
+      }
+    }
+    return hasher.hash().asLong();
+  }
+
+  /** Return the fingerprint of the local class with the given name, or null if it is missing. */
+  private static @Nullable Long getLocalFingerprint(String pClassName) {
+    try {
+      return getFingerprint(Class.forName(pClassName, false, CFACache.class.getClassLoader()));
+    } catch (ClassNotFoundException | LinkageError e) {
+      return null;
+    }
+  }
+
+  /** Records all classes whose descriptors are written to the stream. */
+  private static class ClassRecordingObjectOutputStream extends ObjectOutputStream {
+
+    private final Set<Class<?>> classes = new LinkedHashSet<>();
+
+    ClassRecordingObjectOutputStream(OutputStream pOut) throws IOException {
+      super(pOut);
+    }
+
+    @Override
+    protected void annotateClass(Class<?> pClass) {
+      classes.add(pClass);
+    }
+
+    @Override
+    protected void annotateProxyClass(Class<?> pClass) throws IOException {
+      throw new NotSerializableException("proxy classes are not supported: " + pClass);
+    }
+  }
+
+  /** Only resolves the classes that are listed in the header of the cache entry. */
+  private static class RestrictedObjectInputStream extends ObjectInputStream {
+
+    private final Set<String> allowedClasses;
+
+    RestrictedObjectInputStream(InputStream pIn, Set<String> pAllowedClasses) throws IOException {
+      super(pIn);
+      allowedClasses = pAllowedClasses;
+    }
+
+    @Override
+    protected Class<?> resolveClass(ObjectStreamClass pDesc)
+        throws IOException, ClassNotFoundException {
+      if (!allowedClasses.contains(pDesc.getName())) {
+        throw new InvalidClassException(pDesc.getName(), "class not listed in cache header");
+      }
+      return super.resolveClass(pDesc);
+    }
+
+    @Override
+    protected Class<?> resolveProxyClass(String[] pInterfaces) throws IOException {
+      throw new InvalidClassException("proxy classes are not supported");
+    }
+  }
+}
@@ -0,0 +1,282 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cfa;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Iterables;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.ast.ASimpleDeclaration;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.util.CFAUtils;
+import org.sosy_lab.cpachecker.util.LiveVariables;
+import org.sosy_lab.cpachecker.util.test.TestDataTools;
+
+public class CFACacheTest {
+
+  private static final String PROGRAM =
+      "int g;\n"
+          + "int inc(int a) { return a + 1; }\n"
+          + "int main() {\n"
+          + "  int x = 0;\n"
+          + "  while (x < 10) { x = inc(x); }\n"
+          + "  g = x;\n"
+          + "  if (g != 10) { ERROR: return 1; }\n"
+          + "  return 0;\n"
+          + "}\n";
+
+  @Rule public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private final LogManager logger = LogManager.createTestLogManager();
+
+  private Configuration config;
+  private List<String> programFiles;
+  private CFACache cache;
+
+  @Before
+  public void setUp() throws Exception {
+    Path programFile = tempFolder.newFile("program.c").toPath();
+    Files.write(programFile, PROGRAM.getBytes(UTF_8));
+    programFiles = ImmutableList.of(programFile.toString());
+    config =
+        TestDataTools.configurationForTest().setOption("cfa.findLiveVariables", "true").build();
+    cache = new CFACache(tempFolder.newFolder("cache").toPath(), logger);
+  }
+
+  private ImmutableCFA createCFA() throws Exception {
+    CFACreator creator = new CFACreator(config, logger, ShutdownNotifier.createDummy());
+    return (ImmutableCFA) creator.parseFileAndCreateCFA(programFiles);
+  }
+
+  private String computeKey() throws IOException {
+    return cache.computeKey(programFiles, config).get();
+  }
+
+  /** Store a CFA and return the file of the cache entry. */
+  private Path storeEntry(String key) throws Exception {
+    cache.store(key, createCFA());
+    Path file = Iterables.getOnlyElement(listCacheDirectory());
+    assertThat(cache.load(key)).isNotNull();
+    return file;
+  }
+
+  private List<Path> listCacheDirectory() throws IOException {
+    List<Path> files = new ArrayList<>();
+    Files.newDirectoryStream(tempFolder.getRoot().toPath().resolve("cache")).forEach(files::add);
+    return files;
+  }
+
+  @Test
+  public void roundTrip() throws Exception {
+    ImmutableCFA cfa = createCFA();
+    String key = computeKey();
+    assertThat(cache.load(key)).isNull();
+
+    cache.store(key, cfa);
+    ImmutableCFA loaded = cache.load(key);
+
+    assertThat(loaded).isNotNull();
+    assertThat(loaded).isNotSameAs(cfa);
+    assertThat(loaded.getLanguage()).isEqualTo(cfa.getLanguage());
+    assertThat(loaded.getMachineModel()).isEqualTo(cfa.getMachineModel());
+    assertThat(loaded.getMainFunction().getNodeNumber())
+        .isEqualTo(cfa.getMainFunction().getNodeNumber());
+    assertThat(loaded.getAllFunctionNames()).isEqualTo(cfa.getAllFunctionNames());
+    assertThat(describeEdges(loaded)).isEqualTo(describeEdges(cfa));
+
+    assertThat(loaded.getLoopStructure().isPresent()).isTrue();
+    assertThat(loaded.getLoopStructure().get().getCount())
+        .isEqualTo(cfa.getLoopStructure().get().getCount());
+    assertThat(nodeNumbers(loaded.getAllLoopHeads().get()))
+        .isEqualTo(nodeNumbers(cfa.getAllLoopHeads().get()));
+
+    assertThat(loaded.getVarClassification().isPresent())
+        .isEqualTo(cfa.getVarClassification().isPresent());
+    if (cfa.getVarClassification().isPresent()) {
+      assertThat(loaded.getVarClassification().get().getIntBoolVars())
+          .isEqualTo(cfa.getVarClassification().get().getIntBoolVars());
+      assertThat(loaded.getVarClassification().get().getIntAddVars())
+          .isEqualTo(cfa.getVarClassification().get().getIntAddVars());
+    }
+
+    assertThat(loaded.getLiveVariables().isPresent()).isTrue();
+    assertThat(describeLiveVariables(loaded)).isEqualTo(describeLiveVariables(cfa));
+  }
+
+  @Test
+  public void keyDependsOnProgramAndRelevantOptions() throws Exception {
+    String key = computeKey();
+    assertThat(computeKey()).isEqualTo(key);
+
+    Configuration exportConfig =
+        Configuration.builder().copyFrom(config).setOption("cfa.export", "false").build();
+    assertThat(cache.computeKey(programFiles, exportConfig)).isEqualTo(Optional.of(key));
+
+    Configuration otherConfig =
+        Configuration.builder().copyFrom(config).setOption("cfa.simplifyCfa", "false").build();
+    assertThat(cache.computeKey(programFiles, otherConfig).get()).isNotEqualTo(key);
+
+    Files.write(Paths.get(programFiles.get(0)), (PROGRAM + "\n").getBytes(UTF_8));
+    assertThat(computeKey()).isNotEqualTo(key);
+  }
+
+  @Test
+  public void missingProgramFileIsNotCached() throws IOException {
+    assertThat(cache.computeKey(ImmutableList.of("does-not-exist.c"), config))
+        .isEqualTo(Optional.empty());
+  }
+
+  @Test
+  public void entryForOtherKeyIsRejected() throws Exception {
+    Path file = storeEntry("a");
+    Files.copy(file, file.resolveSibling("b" + file.getFileName().toString().substring(1)));
+    assertThat(cache.load("b")).isNull();
+  }
+
+  @Test
+  public void otherFormatVersionIsRejected() throws Exception {
+    Path file = storeEntry("a");
+    byte[] content = Files.readAllBytes(file);
+    HeaderReader header = new HeaderReader(content);
+    header.in.readUTF(); // magic
+    int versionOffset = header.offset();
+    content[versionOffset + Integer.BYTES - 1]++;
+    Files.write(file, content);
+
+    assertThat(cache.load("a")).isNull();
+  }
+
+  @Test
+  public void changedClassIsRejected() throws Exception {
+    Path file = storeEntry("a");
+    byte[] content = Files.readAllBytes(file);
+    HeaderReader header = new HeaderReader(content);
+    header.in.readUTF(); // magic
+    header.in.readInt(); // format version
+    header.in.readUTF(); // key
+    assertThat(header.in.readInt()).isGreaterThan(0);
+    header.in.readUTF(); // name of the first class
+    int fingerprintOffset = header.offset();
+    content[fingerprintOffset] ^= 1;
+    Files.write(file, content);
+
+    assertThat(cache.load("a")).isNull();
+  }
+
+  @Test
+  public void corruptPayloadIsRejected() throws Exception {
+    Path file = storeEntry("a");
+    byte[] content = Files.readAllBytes(file);
+    content[content.length - 10] ^= 1;
+    Files.write(file, content);
+
+    assertThat(cache.load("a")).isNull();
+  }
+
+  @Test
+  public void truncatedEntryIsRejected() throws Exception {
+    Path file = storeEntry("a");
+    byte[] content = Files.readAllBytes(file);
+    Files.write(file, Arrays.copyOf(content, content.length - 10));
+
+    assertThat(cache.load("a")).isNull();
+  }
+
+  @Test
+  public void garbageIsRejected() throws Exception {
+    Path file = storeEntry("a");
+    Files.write(file, "not a CFA".getBytes(UTF_8));
+
+    assertThat(cache.load("a")).isNull();
+  }
+
+  private static List<String> describeEdges(CFA pCfa) {
+    List<String> edges = new ArrayList<>();
+    for (CFANode node : ImmutableSortedSet.copyOf(pCfa.getAllNodes())) {
+      for (CFAEdge edge : CFAUtils.allLeavingEdges(node)) {
+        edges.add(edge.getEdgeType() + " " + edge + " @" + edge.getFileLocation());
+      }
+    }
+    return edges;
+  }
+
+  private static List<String> describeLiveVariables(CFA pCfa) {
+    LiveVariables liveVariables = pCfa.getLiveVariables().get();
+    List<String> result = new ArrayList<>();
+    for (CFANode node : ImmutableSortedSet.copyOf(pCfa.getAllNodes())) {
+      List<String> names = new ArrayList<>();
+      for (ASimpleDeclaration decl : liveVariables.getLiveVariablesForNode(node)) {
+        names.add(decl.getQualifiedName());
+      }
+      names.sort(null);
+      result.add(node + ": " + names);
+    }
+    return result;
+  }
+
+  private static List<Integer> nodeNumbers(Iterable<CFANode> pNodes) {
+    List<Integer> numbers = new ArrayList<>();
+    pNodes.forEach(node -> numbers.add(node.getNodeNumber()));
+    numbers.sort(null);
+    return numbers;
+  }
+
+  /** Reads the header of a cache entry and tracks the current offset. */
+  private static class HeaderReader {
+
+    private final ByteArrayInputStream bytes;
+    private final DataInputStream in;
+    private final int length;
+
+    HeaderReader(byte[] pContent) {
+      bytes = new ByteArrayInputStream(pContent);
+      in = new DataInputStream(bytes);
+      length = pContent.length;
+    }
+
+    int offset() {
+      return length - bytes.available();
+    }
+  }
+}
@@ -195,6 +195,18 @@ public class CFACreator {
   @FileOption(FileOption.Type.OUTPUT_FILE)
   private Path serializeCfaFile = Paths.get("cfa.ser.gz");
 
+  @Option(
+    secure = true,
+    name = "cfa.cache.directory",
+    description =
+        "Directory for caching fully processed CFAs between runs. If a CFA for the same program"
+            + " files and the same CFA-related options is found there, parsing and CFA creation"
+            + " are skipped. Use an absolute path to share the cache between runs with different"
+            + " output directories. If set to 'null', no cache is used."
+  )
+  @FileOption(FileOption.Type.OUTPUT_DIRECTORY)
+  private @Nullable Path cacheDirectory = null;
+
   @Option(
     secure = true,
     name = "cfa.pixelGraphicFile",
@@ -281,6 +293,8 @@ private boolean classifyNodes = false;
     private final Timer variableClassificationTime = new Timer();
     private final Timer dependenceGraphConstructionTime = new Timer();
     private final Timer exportTime = new Timer();
+    private final Timer cacheTime = new Timer();
+    private @Nullable Boolean cacheHit = null;
     private @Nullable VariableClassificationStatistics varClassificationStats;
     private Statistics dependenceGraphStats;
 
@@ -293,6 +307,10 @@ private boolean classifyNodes = false;
     public void printStatistics(PrintStream out, Result pResult, UnmodifiableReachedSet pReached) {
       out.println("  Time for loading parser:    " + parserInstantiationTime);
       out.println("  Time for CFA construction:  " + totalTime);
+      if (cacheHit != null) {
+        out.println("    CFA cache:                " + (cacheHit ? "hit" : "miss"));
+        out.println("    Time for CFA cache access:" + cacheTime);
+      }
       out.println("    Time for parsing file(s): " + parsingTime);
       out.println("    Time for AST to CFA:      " + conversionTime);
       out.println("    Time for CFA sanity check:" + checkTime);
@@ -413,6 +431,25 @@ private boolean classifyNodes = false;
 
     stats.totalTime.start();
     try {
+      Optional<String> cacheKey = Optional.empty();
+      CFACache cache = null;
+      if (cacheDirectory != null) {
+        stats.cacheTime.start();
+        try {
+          cache = new CFACache(cacheDirectory, logger);
+          cacheKey = cache.computeKey(sourceFiles, config);
+          ImmutableCFA cachedCfa = cacheKey.isPresent() ? cache.load(cacheKey.get()) : null;
+          stats.cacheHit = cachedCfa != null;
+          if (cachedCfa != null) {
+            logger.log(Level.INFO, "Using CFA from cache directory", cacheDirectory);
+            exportCFAIfNecessary(cachedCfa);
+            return cachedCfa;
+          }
+        } finally {
+          stats.cacheTime.stop();
+        }
+      }
+
       // FIRST, parse file(s) and create CFAs for each function
       logger.log(Level.FINE, "Starting parsing of file(s)");
 
@@ -433,14 +470,24 @@ private boolean classifyNodes = false;
         throw new AssertionError();
       }
 
-      return createCFA(c, mainFunction);
+      ImmutableCFA cfa = createCFA(c, mainFunction);
+
+      if (cache != null && cacheKey.isPresent()) {
+        stats.cacheTime.start();
+        try {
+          cache.store(cacheKey.get(), cfa);
+        } finally {
+          stats.cacheTime.stop();
+        }
+      }
+      return cfa;
 
     } finally {
       stats.totalTime.stop();
     }
   }
 
-  private CFA createCFA(ParseResult pParseResult, FunctionEntryNode pMainFunction) throws InvalidConfigurationException, InterruptedException, ParserException {
+  private ImmutableCFA createCFA(ParseResult pParseResult, FunctionEntryNode pMainFunction) throws InvalidConfigurationException, InterruptedException, ParserException {
 
     FunctionEntryNode mainFunction = pMainFunction;
 
@@ -560,16 +607,20 @@ private boolean classifyNodes = false;
     assert CFACheck.check(mainFunction, null);
     stats.checkTime.stop();
 
+    exportCFAIfNecessary(immutableCFA);
+
+    logger.log(Level.FINE, "DONE, CFA for", immutableCFA.getNumberOfFunctions(), "functions created.");
+
+    return immutableCFA;
+  }
+
+  private void exportCFAIfNecessary(final CFA cfa) {
     if (((exportCfaFile != null) && (exportCfa || exportCfaPerFunction))
         || ((exportFunctionCallsFile != null) && exportFunctionCalls)
         || ((serializeCfaFile != null) && serializeCfa)
         || (exportCfaPixelFile != null)) {
-      exportCFAAsync(immutableCFA);
+      exportCFAAsync(cfa);
     }
-
-    logger.log(Level.FINE, "DONE, CFA for", immutableCFA.getNumberOfFunctions(), "functions created.");
-
-    return immutableCFA;
   }
 
   /**
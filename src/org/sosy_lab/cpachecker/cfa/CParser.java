@@ -26,6 +26,7 @@ package org.sosy_lab.cpachecker.cfa;
 import java.io.IOException;
 import java.util.List;
 import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.IntegerOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.configuration.Option;
 import org.sosy_lab.common.configuration.Options;
@@ -105,9 +106,10 @@ public interface CParser extends Parser {
    *     (before pre-processing).
    * @return The CFA.
    * @throws CParserException If parser or CFA builder cannot handle the C code.
+   * @throws InterruptedException If parsing the code fragments in parallel was interrupted.
    */
   ParseResult parseString(List<FileContentToParse> code, CSourceOriginMapping sourceOriginMapping)
-      throws CParserException;
+      throws CParserException, InterruptedException;
 
   /**
    * Parse the content of a String into a CFA.
@@ -179,11 +181,24 @@ public interface CParser extends Parser {
     @Option(secure=true, description="C dialect for parser")
     private Dialect dialect = Dialect.GNUC;
 
+    @Option(
+      secure = true,
+      description =
+          "Number of threads for parsing several source files in parallel."
+              + " Parsing one file is always done in the calling thread."
+    )
+    @IntegerOption(min = 1)
+    private int threads = 2;
+
     protected ParserOptions() {}
 
     public Dialect getDialect() {
       return dialect;
     }
+
+    public int getThreads() {
+      return threads;
+    }
   }
 
   /**
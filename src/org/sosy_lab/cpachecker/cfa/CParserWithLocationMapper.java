@@ -238,7 +238,7 @@ public class CParserWithLocationMapper implements CParser {
   @Override
   public ParseResult parseString(
       List<FileContentToParse> pCode, CSourceOriginMapping sourceOriginMapping)
-      throws CParserException {
+      throws CParserException, InterruptedException {
 
     List<FileContentToParse> tokenizedFragments = new ArrayList<>(pCode.size());
     for (FileContentToParse f : pCode) {
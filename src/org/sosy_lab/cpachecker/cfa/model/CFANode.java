@@ -257,5 +257,11 @@ public class CFANode implements Comparable<CFANode>, Serializable {
     // leaving and entering edges have to be updated explicitly after reading a node
     leavingEdges = new ArrayList<>(1);
     enteringEdges = new ArrayList<>(1);
+
+    // nodes created after deserialization must not reuse the number of a deserialized node
+    int freshId;
+    do {
+      freshId = idGenerator.getFreshId();
+    } while (freshId < nodeNumber);
   }
 }
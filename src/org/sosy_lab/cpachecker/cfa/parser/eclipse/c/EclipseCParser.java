@@ -28,10 +28,12 @@ import static com.google.common.base.Preconditions.checkArgument;
 import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.io.MoreFiles;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
@@ -43,6 +45,10 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.eclipse.cdt.core.dom.ast.IASTCompoundStatement;
 import org.eclipse.cdt.core.dom.ast.IASTDeclaration;
 import org.eclipse.cdt.core.dom.ast.IASTFunctionDefinition;
@@ -129,6 +135,11 @@ class EclipseCParser implements CParser {
     return FileContent.create(pFileName, pCode.toCharArray());
   }
 
+  private FileContent wrapCodeFragment(String pFileName, FileToParse pContent) {
+    Preconditions.checkArgument(pContent instanceof FileContentToParse);
+    return wrapCode(pFileName, ((FileContentToParse) pContent).getFileContent());
+  }
+
   private FileContent wrapFile(String pFileName) throws IOException {
     String code = MoreFiles.asCharSource(Paths.get(pFileName), Charset.defaultCharset()).read();
     return wrapCode(pFileName, code);
@@ -143,11 +154,48 @@ class EclipseCParser implements CParser {
       CSourceOriginMapping pSourceOriginMapping,
       CProgramScope scope,
       FileParseWrapper pWrapperFunction)
+      throws CParserException, InterruptedException {
+
+    Preconditions.checkNotNull(pInput);
+    Preconditions.checkNotNull(pWrapperFunction);
+    ParseContext parseContext = createParseContext(pInput, pSourceOriginMapping);
+
+    List<IASTTranslationUnit> astUnits;
+    parseTimer.start();
+    try {
+      astUnits = parseTranslationUnits(pInput, pWrapperFunction, parseContext);
+    } finally {
+      parseTimer.stop();
+    }
+
+    return buildCFA(astUnits, parseContext, scope);
+  }
+
+  /**
+   * Parse a single code fragment. This does not need the thread pool of {@link
+   * #parseTranslationUnits} and can thus not be interrupted.
+   */
+  private ParseResult parseSingleFragment(
+      FileContentToParse pInput, CSourceOriginMapping pSourceOriginMapping, CProgramScope scope)
       throws CParserException {
 
     Preconditions.checkNotNull(pInput);
+    ParseContext parseContext = createParseContext(ImmutableList.of(pInput), pSourceOriginMapping);
+
+    IASTTranslationUnit astUnit;
+    parseTimer.start();
+    try {
+      astUnit = parseTranslationUnit(pInput, this::wrapCodeFragment, parseContext);
+    } finally {
+      parseTimer.stop();
+    }
+
+    return buildCFA(ImmutableList.of(astUnit), parseContext, scope);
+  }
+
+  private ParseContext createParseContext(
+      List<? extends FileToParse> pInput, CSourceOriginMapping pSourceOriginMapping) {
     Preconditions.checkNotNull(pSourceOriginMapping);
-    Preconditions.checkNotNull(pWrapperFunction);
 
     Map<String, String> fileNameMapping = new HashMap<>();
     for (FileToParse f : pInput) {
@@ -155,26 +203,68 @@ class EclipseCParser implements CParser {
     }
     FixedPathSourceOriginMapping sourceOriginMapping =
         new FixedPathSourceOriginMapping(pSourceOriginMapping, fileNameMapping);
-    ParseContext parseContext =
-        new ParseContext(createNiceFileNameFunction(fileNameMapping.keySet()), sourceOriginMapping);
+    return new ParseContext(
+        createNiceFileNameFunction(fileNameMapping.keySet()), sourceOriginMapping);
+  }
+
+  /**
+   * Parse all given translation units, in parallel if there are several of them. The result is in
+   * the same order as the input, such that the CFA is built deterministically afterwards.
+   */
+  private List<IASTTranslationUnit> parseTranslationUnits(
+      List<? extends FileToParse> pInput,
+      FileParseWrapper pWrapperFunction,
+      ParseContext parseContext)
+      throws CParserException, InterruptedException {
 
+    int threads = Math.min(pInput.size(), options.getThreads());
     List<IASTTranslationUnit> astUnits = new ArrayList<>(pInput.size());
 
-    for (FileToParse f : pInput) {
-      final String fileName = fixPath(f.getFileName());
+    if (threads <= 1) {
+      for (FileToParse f : pInput) {
+        astUnits.add(parseTranslationUnit(f, pWrapperFunction, parseContext));
+      }
+      return astUnits;
+    }
 
-      try {
-        astUnits.add(parse(pWrapperFunction.wrap(fileName, f), parseContext));
-      } catch (IOException e) {
-        throw new CParserException("IO failed!", e);
+    ExecutorService executor =
+        Executors.newFixedThreadPool(
+            threads, new ThreadFactoryBuilder().setDaemon(true).setNameFormat("c-parser-%d").build());
+    try {
+      List<Future<IASTTranslationUnit>> futures = new ArrayList<>(pInput.size());
+      for (FileToParse f : pInput) {
+        futures.add(executor.submit(() -> parseTranslationUnit(f, pWrapperFunction, parseContext)));
       }
+      for (Future<IASTTranslationUnit> future : futures) {
+        try {
+          astUnits.add(future.get());
+        } catch (ExecutionException e) {
+          Throwables.propagateIfPossible(e.getCause(), CParserException.class);
+          throw new AssertionError("Unexpected checked exception", e.getCause());
+        }
+      }
+      return astUnits;
+
+    } finally {
+      executor.shutdownNow();
     }
+  }
 
-    return buildCFA(astUnits, parseContext, scope);
+  private IASTTranslationUnit parseTranslationUnit(
+      FileToParse f, FileParseWrapper pWrapperFunction, ParseContext parseContext)
+      throws CParserException {
+    final String fileName = fixPath(f.getFileName());
+
+    try {
+      return parse(pWrapperFunction.wrap(fileName, f), parseContext);
+    } catch (IOException e) {
+      throw new CParserException("IO failed!", e);
+    }
   }
 
   @Override
-  public ParseResult parseFile(List<String> pFilenames) throws CParserException, IOException {
+  public ParseResult parseFile(List<String> pFilenames)
+      throws CParserException, IOException, InterruptedException {
 
     return parseSomething(
         Lists.transform(pFilenames, FileToParse::new),
@@ -186,22 +276,16 @@ class EclipseCParser implements CParser {
   @Override
   public ParseResult parseString(
       List<FileContentToParse> pCodeFragments, CSourceOriginMapping sourceOriginMapping)
-      throws CParserException {
+      throws CParserException, InterruptedException {
 
     return parseSomething(
-        pCodeFragments,
-        sourceOriginMapping,
-        CProgramScope.empty(),
-        (pFileName, pContent) -> {
-          Preconditions.checkArgument(pContent instanceof FileContentToParse);
-          return wrapCode(pFileName, ((FileContentToParse) pContent).getFileContent());
-        });
-
+        pCodeFragments, sourceOriginMapping, CProgramScope.empty(), this::wrapCodeFragment);
   }
 
   /** This method parses a single file where no prefix for static variables is needed. */
   @Override
-  public ParseResult parseFile(String pFileName) throws CParserException, IOException {
+  public ParseResult parseFile(String pFileName)
+      throws CParserException, IOException, InterruptedException {
 
     return parseFile(ImmutableList.of(pFileName));
   }
@@ -212,19 +296,21 @@ class EclipseCParser implements CParser {
       String pFileName, String pCode, CSourceOriginMapping sourceOriginMapping, Scope pScope)
       throws CParserException {
 
-    return parseSomething(
-        ImmutableList.of(new FileContentToParse(pFileName, pCode)),
+    return parseSingleFragment(
+        new FileContentToParse(pFileName, pCode),
         sourceOriginMapping,
-        pScope instanceof CProgramScope ? ((CProgramScope) pScope) : CProgramScope.empty(),
-        (fileName, content) -> {
-          Preconditions.checkArgument(content instanceof FileContentToParse);
-          return wrapCode(fileName, ((FileContentToParse) content).getFileContent());
-        });
+        pScope instanceof CProgramScope ? ((CProgramScope) pScope) : CProgramScope.empty());
   }
 
   private IASTStatement[] parseCodeFragmentReturnBody(String pCode) throws CParserException {
     // parse
-    IASTTranslationUnit ast = parse(wrapCode("", pCode), ParseContext.dummy());
+    IASTTranslationUnit ast;
+    parseTimer.start();
+    try {
+      ast = parse(wrapCode("", pCode), ParseContext.dummy());
+    } finally {
+      parseTimer.stop();
+    }
 
     // strip wrapping function header
     IASTDeclaration[] declarations = ast.getDeclarations();
@@ -304,9 +390,9 @@ class EclipseCParser implements CParser {
   // we don't use IASTName#getImageLocation(), so the parser doesn't need to create them
   protected static final int PARSER_OPTIONS = ILanguage.OPTION_NO_IMAGE_LOCATIONS;
 
+  /** Parse a single translation unit. This method may be called concurrently. */
   private IASTTranslationUnit parse(FileContent codeReader, ParseContext parseContext)
       throws CParserException {
-    parseTimer.start();
     try {
       IASTTranslationUnit result = getASTTranslationUnit(codeReader);
 
@@ -333,8 +419,6 @@ class EclipseCParser implements CParser {
 
     } catch (CFAGenerationRuntimeException | CoreException e) {
       throw new CParserException(e);
-    } finally {
-      parseTimer.stop();
     }
   }
 
@@ -586,6 +586,7 @@ public class CPAMain {
       PrintStream statisticsStream =
           makePrintStream(mergeStreams(stream, new WriterOutputStream(statistics)));
       mResult.printStatistics(statisticsStream);
+      statisticsStream.flush();
       stream.println();
 
       // print result
@@ -599,17 +600,23 @@ public class CPAMain {
       }
 
       stream.flush();
+
+      // export report after the result was printed,
+      // and add the time for it to the statistics file, which is still open
+      if (mResult.getResult() != Result.NOT_YET_STARTED) {
+        reportGenerator.generate(mResult.getCfa(), mResult.getReached(), statistics.toString());
+        if (file != null) {
+          PrintStream fileStream = makePrintStream(file);
+          reportGenerator.printStatistics(fileStream);
+          fileStream.flush();
+        }
+      }
     } catch (Throwable t) {
       throw closer.rethrow(t);
 
     } finally {
       closer.close();
     }
-
-    // export report
-    if (mResult.getResult() != Result.NOT_YET_STARTED) {
-      reportGenerator.generate(mResult.getCfa(), mResult.getReached(), statistics.toString());
-    }
   }
 
   @SuppressFBWarnings(value="DM_DEFAULT_ENCODING",
@@ -76,6 +76,7 @@ import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysis;
 import org.sosy_lab.cpachecker.core.interfaces.Graphable;
 import org.sosy_lab.cpachecker.core.interfaces.Statistics;
 import org.sosy_lab.cpachecker.core.reachedset.ForwardingReachedSet;
+import org.sosy_lab.cpachecker.core.reachedset.LocationIndexedReachedSet;
 import org.sosy_lab.cpachecker.core.reachedset.LocationMappedReachedSet;
 import org.sosy_lab.cpachecker.core.reachedset.PartitionedReachedSet;
 import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
@@ -455,6 +456,16 @@ class MainCPAStatistics implements Statistics {
       mostFrequentLocation = (CFANode)maxPartition.getKey();
       mostFrequentLocationCount = maxPartition.getValue().size();
 
+    } else if (reached instanceof LocationIndexedReachedSet) {
+      LocationIndexedReachedSet l = (LocationIndexedReachedSet) reached;
+      locations = l.getLocations();
+
+      Map.Entry<Object, Collection<AbstractState>> maxPartition = l.getMaxPartition();
+      if (maxPartition != null) {
+        mostFrequentLocation = (CFANode) maxPartition.getKey();
+        mostFrequentLocationCount = maxPartition.getValue().size();
+      }
+
     } else {
       Multiset<CFANode> allLocations = HashMultiset.create(from(reached)
                                                                     .transform(EXTRACT_LOCATION)
@@ -24,6 +24,9 @@
 package org.sosy_lab.cpachecker.core.algorithm;
 
 import com.google.common.base.Functions;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -33,9 +36,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import javax.annotation.Nullable;
+import org.sosy_lab.common.Classes.UnexpectedCheckedException;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.configuration.ClassOption;
 import org.sosy_lab.common.configuration.Configuration;
@@ -62,9 +70,19 @@ import org.sosy_lab.cpachecker.core.reachedset.PartitionedReachedSet;
 import org.sosy_lab.cpachecker.core.reachedset.PseudoPartitionedReachedSet;
 import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
 import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
+import org.sosy_lab.cpachecker.cpa.arg.ARGCPA;
 import org.sosy_lab.cpachecker.cpa.arg.ARGMergeJoinCPAEnabledAnalysis;
+import org.sosy_lab.cpachecker.cpa.arg.ARGState;
+import org.sosy_lab.cpachecker.cpa.automaton.ControlAutomatonCPA;
+import org.sosy_lab.cpachecker.cpa.automaton.ObserverAutomatonCPA;
+import org.sosy_lab.cpachecker.cpa.callstack.CallstackCPA;
+import org.sosy_lab.cpachecker.cpa.composite.CompositeCPA;
+import org.sosy_lab.cpachecker.cpa.interval.IntervalAnalysisCPA;
+import org.sosy_lab.cpachecker.cpa.location.LocationCPA;
+import org.sosy_lab.cpachecker.cpa.value.ValueAnalysisCPA;
 import org.sosy_lab.cpachecker.exceptions.CPAException;
 import org.sosy_lab.cpachecker.util.AbstractStates;
+import org.sosy_lab.cpachecker.util.CPAs;
 import org.sosy_lab.cpachecker.util.Pair;
 import org.sosy_lab.cpachecker.util.statistics.AbstractStatValue;
 import org.sosy_lab.cpachecker.util.statistics.StatCounter;
@@ -92,6 +110,9 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
     private int   countMerge        = 0;
     private int   countStop         = 0;
     private int   countBreak        = 0;
+    private int   countBatches      = 0;
+    private long  countBatchedStates = 0;
+    private int   maxBatchSize      = 0;
 
     private Map<String, AbstractStatValue> reachedSetStatistics = new HashMap<>();
 
@@ -120,6 +141,13 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
       out.println("Number of times merged:          " + countMerge);
       out.println("Number of times stopped:         " + countStop);
       out.println("Number of times breaked:         " + countBreak);
+      if (countBatches > 0) {
+        out.println("Number of parallel batches:      " + countBatches);
+        out.println("Max size of parallel batch:      " + maxBatchSize);
+        out.println(
+            "Average size of parallel batch:  "
+                + String.format("%.2f", (double) countBatchedStates / countBatches));
+      }
       out.println();
       out.println("Total time for CPA algorithm:     " + totalTimer + " (Max: " + totalTimer.getMaxTime().formatAs(TimeUnit.SECONDS) + ")");
       out.println("  Time for choose from waitlist:  " + chooseTimer);
@@ -152,6 +180,42 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
         + " Useful for incomplete analysis with no counterexample checking.")
     private boolean reportFalseAsUnknown = false;
 
+    @Option(
+      secure = true,
+      name = "successorThreads",
+      description =
+          "number of threads for computing the successors of waiting states. "
+              + "With 1, states are handled strictly sequentially in waitlist order. "
+              + "Larger values let the algorithm pop a batch of that many states and compute "
+              + "their successors concurrently, the results are then merged into the reached set "
+              + "sequentially in the order the states were popped, such that the analysis stays "
+              + "deterministic for a fixed number of threads. "
+              + "With -1 we use the number of available cores of the machine. "
+              + "This is only supported if the transfer relations of all used CPAs are known "
+              + "to be thread-safe."
+    )
+    private int successorThreads = 1;
+
+    /**
+     * CPAs whose transfer relations do not share mutable state between calls and may thus be
+     * called concurrently for different states. Transfer relations extending {@link
+     * org.sosy_lab.cpachecker.core.defaults.ForwardingTransferRelation} store the current state
+     * in fields and can only be part of this set if each thread uses its own instance, like the
+     * transfer relation of the {@link ValueAnalysisCPA} does. The automaton CPAs use separate
+     * timers for each thread.
+     */
+    private static final ImmutableSet<Class<? extends ConfigurableProgramAnalysis>>
+        THREAD_SAFE_CPAS =
+            ImmutableSet.of(
+                ARGCPA.class,
+                CompositeCPA.class,
+                LocationCPA.class,
+                CallstackCPA.class,
+                ControlAutomatonCPA.class,
+                ObserverAutomatonCPA.class,
+                ValueAnalysisCPA.class,
+                IntervalAnalysisCPA.class);
+
     private final ForcedCovering forcedCovering;
 
     private final ConfigurableProgramAnalysis cpa;
@@ -166,7 +230,33 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
       this.logger = logger;
       this.shutdownNotifier = pShutdownNotifier;
 
+      if (successorThreads == -1) {
+        successorThreads = Runtime.getRuntime().availableProcessors();
+      } else if (successorThreads < 1) {
+        throw new InvalidConfigurationException(
+            "Number of threads for successor computation can only be a positive number or -1.");
+      }
+
+      if (successorThreads > 1) {
+        List<String> unsupportedCpas =
+            CPAs.asIterable(cpa)
+                .filter(c -> !THREAD_SAFE_CPAS.contains(c.getClass()))
+                .transform(c -> c.getClass().getSimpleName())
+                .toList();
+        if (!unsupportedCpas.isEmpty()) {
+          throw new InvalidConfigurationException(
+              "Parallel successor computation is not supported for "
+                  + String.join(", ", unsupportedCpas)
+                  + ", because their transfer relations are not known to be thread-safe."
+                  + " Please set cpa.successorThreads to 1.");
+        }
+      }
+
       if (forcedCoveringClass != null) {
+        if (successorThreads > 1) {
+          throw new InvalidConfigurationException(
+              "Forced covering cannot be used together with parallel successor computation.");
+        }
         forcedCovering = forcedCoveringClass.create(config, logger, cpa);
       } else {
         forcedCovering = null;
@@ -176,7 +266,8 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
 
     @Override
     public CPAAlgorithm newInstance() {
-      return new CPAAlgorithm(cpa, logger, shutdownNotifier, forcedCovering, reportFalseAsUnknown);
+      return new CPAAlgorithm(
+          cpa, logger, shutdownNotifier, forcedCovering, reportFalseAsUnknown, successorThreads);
     }
   }
 
@@ -202,10 +293,14 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
 
   private final AlgorithmStatus status;
 
+  /** Number of states whose successors are computed concurrently, 1 for sequential analysis. */
+  private final int successorThreads;
+
   private CPAAlgorithm(ConfigurableProgramAnalysis cpa, LogManager logger,
       ShutdownNotifier pShutdownNotifier,
       ForcedCovering pForcedCovering,
-      boolean pIsImprecise) {
+      boolean pIsImprecise,
+      int pSuccessorThreads) {
 
     transferRelation = cpa.getTransferRelation();
     mergeOperator = cpa.getMergeOperator();
@@ -215,13 +310,18 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
     this.shutdownNotifier = pShutdownNotifier;
     this.forcedCovering = pForcedCovering;
     status = AlgorithmStatus.SOUND_AND_PRECISE.withPrecise(!pIsImprecise);
+    successorThreads = pSuccessorThreads;
   }
 
   @Override
   public AlgorithmStatus run(final ReachedSet reachedSet) throws CPAException, InterruptedException {
     stats.totalTimer.start();
     try {
-      return run0(reachedSet);
+      if (successorThreads > 1) {
+        return runParallel(reachedSet);
+      } else {
+        return run0(reachedSet);
+      }
     } finally {
       stats.totalTimer.stopIfRunning();
       stats.chooseTimer.stopIfRunning();
@@ -305,6 +405,153 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
     return status;
   }
 
+  /**
+   * Variant of {@link #run0(ReachedSet)} that pops a batch of states from the waitlist,
+   * computes their successors concurrently, and then handles the successors sequentially in the
+   * order in which the states were popped. Only the transfer relation is called from several
+   * threads, all operations on the reached set (precision adjustment, merge, stop) are executed
+   * by the calling thread.
+   */
+  private AlgorithmStatus runParallel(final ReachedSet reachedSet)
+      throws CPAException, InterruptedException {
+    final ExecutorService pool =
+        Executors.newFixedThreadPool(
+            successorThreads,
+            new ThreadFactoryBuilder()
+                .setNameFormat("CPAAlgorithm-worker-%d")
+                .setDaemon(true)
+                .build());
+    try {
+      while (reachedSet.hasWaitingState()) {
+        shutdownNotifier.shutdownIfNecessary();
+
+        stats.chooseTimer.start();
+        final List<Pair<AbstractState, Precision>> batch = new ArrayList<>(successorThreads);
+        while (batch.size() < successorThreads && reachedSet.hasWaitingState()) {
+          stats.countIterations++;
+          int size = reachedSet.getWaitlist().size();
+          if (size >= stats.maxWaitlistSize) {
+            stats.maxWaitlistSize = size;
+          }
+          stats.countWaitlistSize += size;
+
+          AbstractState state = reachedSet.popFromWaitlist();
+          batch.add(Pair.of(state, reachedSet.getPrecision(state)));
+        }
+        stats.chooseTimer.stop();
+
+        stats.countBatches++;
+        stats.countBatchedStates += batch.size();
+        stats.maxBatchSize = Math.max(batch.size(), stats.maxBatchSize);
+        logger.log(Level.FINER, "Retrieved", batch.size(), "states from waitlist");
+
+        int handled = 0;
+        List<Collection<? extends AbstractState>> successors = null;
+        try {
+          successors = computeSuccessorsInParallel(pool, batch);
+
+          for (; handled < batch.size(); handled++) {
+            AbstractState state = batch.get(handled).getFirst();
+            Precision precision = batch.get(handled).getSecond();
+            if (!reachedSet.contains(state)) {
+              // merging a successor of an earlier state of this batch removed this state,
+              // its successors are not needed anymore
+              logger.log(Level.FINER, "State was removed from reached set, skipping it");
+              discardSuccessors(successors.get(handled));
+              continue;
+            }
+            if (handleSuccessors(state, precision, successors.get(handled), reachedSet)) {
+              // Prec operator requested break, states of this batch that were not yet handled
+              // have to go back into the waitlist.
+              reAddRemainingStates(batch, successors, handled + 1, reachedSet);
+              return status;
+            }
+          }
+        } catch (Exception e) {
+          // re-add the old states to the waitlist, there might be unhandled successors left
+          // that otherwise would be forgotten (which would be unsound)
+          if (successors != null && handled < batch.size()) {
+            // the successors of the current state might be partially handled already
+            successors.set(handled, ImmutableSet.of());
+          }
+          reAddRemainingStates(batch, successors, handled, reachedSet);
+          throw e;
+        }
+      }
+
+      return status;
+
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Remove successors that were computed but will not be handled from the ARG, the transfer
+   * relation of the ARG has already linked them to their parent.
+   */
+  private static void discardSuccessors(final Collection<? extends AbstractState> successors) {
+    for (AbstractState successor : successors) {
+      if (successor instanceof ARGState && !((ARGState) successor).isDestroyed()) {
+        ((ARGState) successor).removeFromARG();
+      }
+    }
+  }
+
+  /**
+   * Re-add the states of a batch starting at the given index to the waitlist, unless they were
+   * removed from the reached set in the meantime. Their successors will be computed again, so
+   * the already computed ones are discarded.
+   */
+  private static void reAddRemainingStates(
+      final List<Pair<AbstractState, Precision>> batch,
+      final @Nullable List<Collection<? extends AbstractState>> successors,
+      final int start,
+      final ReachedSet reachedSet) {
+    for (int i = start; i < batch.size(); i++) {
+      if (successors != null) {
+        discardSuccessors(successors.get(i));
+      }
+      AbstractState state = batch.get(i).getFirst();
+      if (reachedSet.contains(state)) {
+        reachedSet.reAddToWaitlist(state);
+      }
+    }
+  }
+
+  private List<Collection<? extends AbstractState>> computeSuccessorsInParallel(
+      final ExecutorService pool, final List<Pair<AbstractState, Precision>> batch)
+      throws CPAException, InterruptedException {
+    stats.transferTimer.start();
+    final List<Future<Collection<? extends AbstractState>>> futures =
+        new ArrayList<>(batch.size());
+    try {
+      for (Pair<AbstractState, Precision> p : batch) {
+        logger.log(Level.ALL, "Current state is", p.getFirst(), "with precision", p.getSecond());
+        futures.add(
+            pool.submit(
+                () -> transferRelation.getAbstractSuccessors(p.getFirst(), p.getSecond())));
+      }
+
+      List<Collection<? extends AbstractState>> result = new ArrayList<>(batch.size());
+      for (Future<Collection<? extends AbstractState>> future : futures) {
+        result.add(future.get());
+      }
+      return result;
+
+    } catch (ExecutionException e) {
+      Throwables.propagateIfPossible(e.getCause(), CPAException.class, InterruptedException.class);
+      // TransferRelation.getAbstractSuccessors() threw unexpected checked exception!
+      throw new UnexpectedCheckedException("transfer relation", e.getCause());
+
+    } finally {
+      for (Future<?> future : futures) {
+        future.cancel(true);
+      }
+      stats.transferTimer.stop();
+    }
+  }
+
   /**
    * Handle one state from the waitlist, i.e., produce successors etc.
    * @param state The abstract state that was taken out of the waitlist
@@ -341,6 +588,25 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
     // TODO When we have a nice way to mark the analysis result as incomplete,
     // we could continue analysis on a CPATransferException with the next state from waitlist.
 
+    return handleSuccessors(state, precision, successors, reachedSet);
+  }
+
+  /**
+   * Handle the successors of one state from the waitlist, i.e., adjust their precision, merge
+   * them into the reached set and add them to the waitlist if they are not covered.
+   *
+   * @param state The abstract state that was taken out of the waitlist
+   * @param precision The precision for this abstract state.
+   * @param successors The successors of the abstract state computed by the transfer relation.
+   * @param reachedSet The reached set.
+   * @return true if analysis should terminate, false if analysis should continue with next state
+   */
+  private boolean handleSuccessors(
+      final AbstractState state,
+      final Precision precision,
+      final Collection<? extends AbstractState> successors,
+      final ReachedSet reachedSet)
+      throws CPAException, InterruptedException {
     int numSuccessors = successors.size();
     logger.log(Level.FINER, "Current state has", numSuccessors, "successors");
     stats.countSuccessors += numSuccessors;
@@ -32,6 +32,7 @@ import java.util.Optional;
 import java.util.concurrent.atomic.AtomicReference;
 import org.sosy_lab.cpachecker.cfa.model.CFANode;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.reachedset.LocationIndexedReachedSet;
 import org.sosy_lab.cpachecker.core.reachedset.LocationMappedReachedSet;
 import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
 import org.sosy_lab.cpachecker.cpa.callstack.CallstackStateEqualsWrapper;
@@ -72,7 +73,8 @@ public class LazyLocationMapping {
   }
 
   public Iterable<AbstractState> get0(CFANode pLocation) {
-    if (reachedSet instanceof LocationMappedReachedSet) {
+    if (reachedSet instanceof LocationMappedReachedSet
+        || reachedSet instanceof LocationIndexedReachedSet) {
       return AbstractStates.filterLocation(reachedSet, pLocation);
     }
     if (statesByLocationRef.get() == null) {
@@ -484,24 +484,23 @@ class ReachedSetExecutor {
     ReachedSet newRs = pBsme.getReachedSet();
     BAMDataManager data = bamcpa.getData();
 
-    synchronized (data) {
-      if (newRs == null) {
-        // We are only synchronized in the current method. Thus, we need to check
-        // the cache again, maybe another thread already created the needed reached-set.
-        final Pair<ReachedSet, Collection<AbstractState>> pair =
-            data.getCache()
-                .get(pBsme.getReducedState(), pBsme.getReducedPrecision(), pBsme.getBlock());
-        newRs = pair.getFirst(); // @Nullable
-      }
-
-      // now we can be sure, whether the sub-reached-set exists or not.
-      if (newRs == null) {
-        // we have not even cached a partly computed reached-set,
-        // so we must compute the subgraph specification from scratch
-        newRs =
-            data.createAndRegisterNewReachedSet(
-                pBsme.getReducedState(), pBsme.getReducedPrecision(), pBsme.getBlock());
-      }
+    if (newRs == null) {
+      // Maybe another thread already created the needed reached-set in the meantime.
+      // The cache guarantees that the reached-set for a block entry is only created once,
+      // i.e., if we have not even cached a partly computed reached-set,
+      // we compute the subgraph specification from scratch.
+      newRs =
+          bamcpa
+              .getCache()
+              .getOrCreateReachedSet(
+                  pBsme.getReducedState(),
+                  pBsme.getReducedPrecision(),
+                  pBsme.getBlock(),
+                  () ->
+                      data.createAndRegisterNewReachedSet(
+                          pBsme.getReducedState(),
+                          pBsme.getReducedPrecision(),
+                          pBsme.getBlock()));
     }
 
     ReachedSetExecutor newSubRse =
@@ -1,5 +1,5 @@
 /**
- * This algorithm executes the sub-analyses of BAM in several threads. The cache data-structures
- * from BAM are synchronized.
+ * This algorithm executes the sub-analyses of BAM in several threads. The BAM cache is a concurrent
+ * data-structure, the remaining data-structures from BAM are synchronized.
  */
 package org.sosy_lab.cpachecker.core.algorithm.parallel_bam;
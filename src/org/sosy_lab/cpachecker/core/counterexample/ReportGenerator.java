@@ -33,8 +33,12 @@ import static org.sosy_lab.cpachecker.util.AbstractStates.IS_TARGET_STATE;
 import com.google.common.base.Charsets;
 import com.google.common.base.Joiner;
 import com.google.common.base.Splitter;
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Ordering;
 import com.google.common.collect.Sets;
 import com.google.common.io.Resources;
 import java.io.BufferedReader;
@@ -48,11 +52,14 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 import javax.annotation.Nullable;
 import org.sosy_lab.common.JSON;
 import org.sosy_lab.common.Optionals;
@@ -64,6 +71,7 @@ import org.sosy_lab.common.configuration.Options;
 import org.sosy_lab.common.io.IO;
 import org.sosy_lab.common.io.PathTemplate;
 import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.common.time.Timer;
 import org.sosy_lab.cpachecker.cfa.CFA;
 import org.sosy_lab.cpachecker.cfa.export.DOTBuilder2;
 import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
@@ -87,6 +95,9 @@ public class ReportGenerator {
   private static final String CSS_TEMPLATE = "report.css";
   private static final String JS_TEMPLATE = "report.js";
 
+  /** Number of ARG states per data file, the same as the graph size used by report.js. */
+  private static final int ARG_CHUNK_SIZE = 700;
+
   private final Configuration config;
   private final LogManager logger;
 
@@ -109,11 +120,38 @@ public class ReportGenerator {
   @FileOption(FileOption.Type.OUTPUT_FILE)
   private PathTemplate counterExampleFiles = PathTemplate.ofFormatString("Counterexample.%d.html");
 
+  @Option(
+    secure = true,
+    name = "report.chunkedData",
+    description =
+        "Write the CFA and ARG data of the report into separate files "
+            + "(one per function and ARG partition) that the report loads only when "
+            + "the function or partition is displayed, "
+            + "instead of including them in the HTML file. Recommended for large programs."
+  )
+  private boolean chunkedData = false;
+
+  @Option(
+    secure = true,
+    name = "report.dataDirectory",
+    description = "Directory for the data files of the report if report.chunkedData is enabled."
+  )
+  @FileOption(FileOption.Type.OUTPUT_DIRECTORY)
+  private Path dataDirectory = Paths.get("report-data");
+
+  private final Timer generationTime = new Timer();
+
   private final @Nullable Path logFile;
   private final ImmutableList<String> sourceFiles;
   private final Map<Integer, Object> argNodes;
   private final Map<String, Object> argEdges;
 
+  // names of the data files and partition of each ARG state if chunkedData is enabled
+  private final Map<String, String> cfaChunks = new LinkedHashMap<>();
+  private final List<String> argChunks = new ArrayList<>();
+  private final List<Integer> argFirstStates = new ArrayList<>();
+  private final Map<Integer, Integer> partitionOfState = new HashMap<>();
+
   public ReportGenerator(
       Configuration pConfig,
       LogManager pLogger,
@@ -149,8 +187,29 @@ public class ReportGenerator {
       return;
     }
 
+    generationTime.start();
+    try {
+      writeReports(pCfa, pReached, counterExamples, pStatistics);
+    } finally {
+      generationTime.stop();
+    }
+  }
+
+  private void writeReports(
+      CFA pCfa,
+      UnmodifiableReachedSet pReached,
+      FluentIterable<CounterexampleInfo> counterExamples,
+      String pStatistics) {
     buildArgGraphData(pReached);
     DOTBuilder2 dotBuilder = new DOTBuilder2(pCfa);
+    if (chunkedData) {
+      try {
+        writeDataChunks(pCfa, dotBuilder);
+      } catch (IOException e) {
+        logger.logUserException(WARNING, e, "Could not create report: Writing data files failed.");
+        return;
+      }
+    }
     PrintStream console = System.out;
     if (counterExamples.isEmpty()) {
       if (reportFile != null) {
@@ -202,7 +261,7 @@ public class ReportGenerator {
         } else if (line.contains("REPORT_CSS")) {
           insertCss(writer);
         } else if (line.contains("REPORT_JS")) {
-          insertJs(writer, cfa, dotBuilder, counterExample);
+          insertJs(writer, reportPath, cfa, dotBuilder, counterExample);
         } else if (line.contains("STATISTICS")) {
           insertStatistics(writer, statistics);
         } else if (line.contains("SOURCE_CONTENT")) {
@@ -226,14 +285,20 @@ public class ReportGenerator {
   }
 
   private void insertJs(
-      Writer writer, CFA cfa, DOTBuilder2 dotBuilder, @Nullable CounterexampleInfo counterExample)
+      Writer writer,
+      Path reportPath,
+      CFA cfa,
+      DOTBuilder2 dotBuilder,
+      @Nullable CounterexampleInfo counterExample)
       throws IOException {
     try (BufferedReader reader =
         Resources.asCharSource(Resources.getResource(getClass(), JS_TEMPLATE), Charsets.UTF_8)
             .openBufferedStream(); ) {
       String line;
       while (null != (line = reader.readLine())) {
-        if (line.contains("CFA_JSON_INPUT")) {
+        if (line.contains("REPORT_DATA_INPUT")) {
+          insertReportData(writer, reportPath, counterExample);
+        } else if (line.contains("CFA_JSON_INPUT")) {
           insertCfaJson(writer, cfa, dotBuilder, counterExample);
         } else if (line.contains("ARG_JSON_INPUT")) {
           insertArgJson(writer);
@@ -263,7 +328,12 @@ public class ReportGenerator {
       if (counterExample != null) {
         insertErrorPathData(counterExample, writer);
       }
-      dotBuilder.writeCfaInfo(writer);
+      if (chunkedData) {
+        // filled from the data files
+        writer.write("\"nodes\":[],\n\"edges\":[]");
+      } else {
+        dotBuilder.writeCfaInfo(writer);
+      }
       writer.write("\n}\n");
     } catch (IOException e) {
       logger.logUserException(WARNING, e, "Could not create report: Inserting CFA Json failed.");
@@ -273,7 +343,7 @@ public class ReportGenerator {
   private void insertArgJson(Writer writer) {
     try {
       writer.write("var argJson = {");
-      if (!argNodes.isEmpty() && !argEdges.isEmpty()) {
+      if (!chunkedData && !argNodes.isEmpty() && !argEdges.isEmpty()) {
         writer.write("\n\"nodes\":");
         JSON.writeJSONString(argNodes.values(), writer);
         writer.write(",\n\"edges\":");
@@ -286,6 +356,130 @@ public class ReportGenerator {
     }
   }
 
+  /**
+   * Write the CFA and ARG data into separate files in {@link #dataDirectory}. Each file is a
+   * script that passes the JSON data of one function or ARG partition to the function
+   * <code>cpacheckerReportChunk</code> in report.js. Scripts are used instead of plain JSON
+   * files because browsers do not allow to fetch local files from a report that was opened
+   * from the file system. The report loads each file only when its function or partition is
+   * displayed.
+   */
+  private void writeDataChunks(CFA cfa, DOTBuilder2 dotBuilder) throws IOException {
+    Files.createDirectories(dataDirectory);
+    cfaChunks.clear();
+    argChunks.clear();
+    argFirstStates.clear();
+    partitionOfState.clear();
+
+    for (String function : cfa.getAllFunctionNames()) {
+      String chunk = "cfa-" + cfaChunks.size() + ".js";
+      writeDataChunk(
+          chunk,
+          writer -> {
+            writer.write("{");
+            dotBuilder.writeCfaInfo(writer, function);
+            writer.write("}");
+          });
+      cfaChunks.put(function, chunk);
+    }
+
+    if (!argNodes.isEmpty() && !argEdges.isEmpty()) {
+      // Partition the ARG by state id. Edges between two partitions are put into both of them,
+      // such that each partition can be displayed on its own.
+      List<Integer> stateIds = Ordering.natural().sortedCopy(argNodes.keySet());
+      List<List<Integer>> partitions = Lists.partition(stateIds, ARG_CHUNK_SIZE);
+      for (int i = 0; i < partitions.size(); i++) {
+        for (Integer stateId : partitions.get(i)) {
+          partitionOfState.put(stateId, i);
+        }
+      }
+      ListMultimap<Integer, Object> edgesOfPartition = ArrayListMultimap.create();
+      for (Object edge : argEdges.values()) {
+        int sourcePartition = partitionOfState.getOrDefault(((Map<?, ?>) edge).get("source"), 0);
+        int targetPartition =
+            partitionOfState.getOrDefault(((Map<?, ?>) edge).get("target"), sourcePartition);
+        edgesOfPartition.put(sourcePartition, edge);
+        if (targetPartition != sourcePartition) {
+          edgesOfPartition.put(targetPartition, edge);
+        }
+      }
+
+      for (int i = 0; i < partitions.size(); i++) {
+        String chunk = "arg-" + i + ".js";
+        List<Object> nodes = Lists.transform(partitions.get(i), argNodes::get);
+        List<Object> edges = edgesOfPartition.get(i);
+        writeDataChunk(
+            chunk,
+            writer -> {
+              writer.write("{\"nodes\":");
+              JSON.writeJSONString(nodes, writer);
+              writer.write(",\n\"edges\":");
+              JSON.writeJSONString(edges, writer);
+              writer.write("}");
+            });
+        argChunks.add(chunk);
+        argFirstStates.add(partitions.get(i).get(0));
+      }
+    }
+  }
+
+  private void writeDataChunk(String chunk, JSONWriter content) throws IOException {
+    try (Writer writer = IO.openOutputFile(dataDirectory.resolve(chunk), Charsets.UTF_8)) {
+      writer.write("cpacheckerReportChunk(\"" + chunk + "\", ");
+      content.write(writer);
+      writer.write(");\n");
+    }
+  }
+
+  @FunctionalInterface
+  private interface JSONWriter {
+    void write(Writer writer) throws IOException;
+  }
+
+  private void insertReportData(
+      Writer writer, Path reportPath, @Nullable CounterexampleInfo counterExample)
+      throws IOException {
+    if (!chunkedData) {
+      writer.write("var reportData = null;\n");
+      return;
+    }
+    Path reportDirectory = reportPath.toAbsolutePath().getParent();
+    String directory =
+        reportDirectory == null
+            ? dataDirectory.toString()
+            : reportDirectory.relativize(dataDirectory.toAbsolutePath()).toString();
+
+    // the first partition and those with states of the error path are loaded right away
+    Set<Integer> initialArgChunks = new TreeSet<>();
+    if (!argChunks.isEmpty()) {
+      initialArgChunks.add(0);
+      if (counterExample != null) {
+        for (ARGState state : counterExample.getTargetPath().asStatesList()) {
+          Integer partition = partitionOfState.get(state.getStateId());
+          if (partition != null) {
+            initialArgChunks.add(partition);
+          }
+        }
+      }
+    }
+
+    Map<String, Object> reportData = new HashMap<>();
+    reportData.put("directory", directory.replace('\\', '/'));
+    reportData.put("cfa", cfaChunks);
+    reportData.put("arg", argChunks);
+    reportData.put("argFirstStates", argFirstStates);
+    reportData.put("initialArg", initialArgChunks);
+    writer.write("var reportData = ");
+    JSON.writeJSONString(reportData, writer);
+    writer.write(";\n");
+  }
+
+  public void printStatistics(PrintStream out) {
+    if (generationTime.getNumberOfIntervals() > 0) {
+      out.println("Time for report generation:         " + generationTime);
+    }
+  }
+
   private void insertCss(Writer writer) throws IOException {
     writer.write("<style>" + "\n");
     Resources.asCharSource(Resources.getResource(getClass(), CSS_TEMPLATE), Charsets.UTF_8)
@@ -274,6 +274,20 @@
         function markCfaEdge(errPathEntry) {
         	var actualSourceAndTarget = getActualSourceAndTarget(errPathEntry);
         	if ($.isEmptyObject(actualSourceAndTarget)) return;
+        	if (reportData !== null && d3.select("#cfa-node" + actualSourceAndTarget.source).empty()) {
+        		// the function of this element was not loaded yet, its ARG state is always loaded
+        		var argNode = argJson.nodes === undefined ? undefined : argJson.nodes.find(function(n) {
+        			return n.index === errPathEntry.argelem;
+        		});
+        		if (argNode !== undefined && !loadedCfaFunctions[argNode.func]) {
+        			var cfaToolbar = $("#cfa-toolbar").scope();
+        			cfaToolbar.selectedCFAFunction = argNode.func;
+        			cfaToolbar.setCFAFunction().then(function() {
+        				markCfaEdge(errPathEntry);
+        			});
+        		}
+        		return;
+        	}
         	if (actualSourceAndTarget.target === undefined) {
         		var selection = d3.select("#cfa-node" + actualSourceAndTarget.source);
     			selection.classed("marked-cfa-node", true);
@@ -477,7 +491,9 @@
 			} else {
 				$scope.functions = functions;
 			}
-			$scope.selectedCFAFunction = $scope.functions[0];
+			// with separate data files, only the main function is loaded when the report is opened
+			$scope.initialCFAFunction = reportData === null ? $scope.functions[0] : functions[0];
+			$scope.selectedCFAFunction = $scope.initialCFAFunction;
     		$scope.zoomEnabled = false;
     	
     		$scope.setCFAFunction = function() {
@@ -487,6 +503,19 @@
     			// FIXME: two-way binding does not update the selected option
     			d3.selectAll("#cfa-toolbar option").attr("selected", null).attr("disabled", null);
     			d3.select("#cfa-toolbar [label=" + $scope.selectedCFAFunction + "]").attr("selected", "selected").attr("disabled", true);
+    			var funcsToDisplay = $scope.selectedCFAFunction === "all" ? functions : [$scope.selectedCFAFunction];
+    			return renderCfaFunctions(funcsToDisplay).then(function() {
+    				$scope.displayCFAFunction();
+    				var firstElRect = d3.select("[display=inline-block] .cfa-node:nth-child(2)").node().getBoundingClientRect();
+    				if (d3.select("#errorpath_section").style("display") !== "none") {
+    					$("#cfa-container").scrollTop(firstElRect.top + $("#cfa-container").scrollTop() - 200).scrollLeft(firstElRect.left - $("#cfa-container").scrollLeft() - d3.select("#externalFiles_section").style("width"));
+    				} else {
+    					$("#cfa-container").scrollTop(firstElRect.top + $("#cfa-container").scrollTop() - 200).scrollLeft(firstElRect.left - $("#cfa-container").scrollLeft());
+    				}
+    			}, reportLoadingFailure);
+    		};
+    		
+    		$scope.displayCFAFunction = function() {
     			if ($scope.selectedCFAFunction === "all") {
     				functions.forEach(function(func) {
     					d3.selectAll(".cfa-svg-" + func).attr("display", "inline-block");
@@ -500,12 +529,6 @@
     				});
     				d3.selectAll(".cfa-svg-" + $scope.selectedCFAFunction).attr("display", "inline-block");
     			}
-    			var firstElRect = d3.select("[display=inline-block] .cfa-node:nth-child(2)").node().getBoundingClientRect();
-    			if (d3.select("#errorpath_section").style("display") !== "none") {
-    				$("#cfa-container").scrollTop(firstElRect.top + $("#cfa-container").scrollTop() - 200).scrollLeft(firstElRect.left - $("#cfa-container").scrollLeft() - d3.select("#externalFiles_section").style("width"));
-    			} else {
-    				$("#cfa-container").scrollTop(firstElRect.top + $("#cfa-container").scrollTop() - 200).scrollLeft(firstElRect.left - $("#cfa-container").scrollLeft());
-    			}
     		};
         
     		$scope.cfaFunctionIsSet = function(value){
@@ -546,7 +569,7 @@
     			if ($scope.zoomEnabled) {
     				$scope.zoomControl();
     			}
-    			$scope.selectedCFAFunction = $scope.functions[0];
+    			$scope.selectedCFAFunction = $scope.initialCFAFunction;
     			cfaSplit = true;
     			var graphCount = 0;
     			cfaJson.functionNames.forEach(function(f) {
@@ -626,6 +649,10 @@
     		};
     		
     		$scope.argRedraw = function() {
+    			if (reportData !== null) {
+    				alert("The ARG of this report is split into partitions of fixed size.");
+    				return;
+    			}
     			var input = $("#arg-split-threshold").val();
     			if (!$scope.validateInput(input)) {
     				alert("Invalid input!");
@@ -670,6 +697,8 @@
 
 })();
 
+var reportData = null; //REPORT_DATA_INPUT
+
 var argJson={};//ARG_JSON_INPUT
 
 var sourceFiles = []; //SOURCE_FILES
@@ -690,12 +719,201 @@ const margin = 20;
 var cfaWorker, argWorker;
 var cfaSplit = false, argTabDisabled = false;
 
+// ======================= Loading of report data from separate files =======================
+/*
+ * If the report was generated with the option report.chunkedData, the nodes and edges of CFA and ARG
+ * are stored in separate files in the directory reportData.directory instead of in this file:
+ * one file for each function of the CFA and for each partition of the ARG.
+ * Each of these files is a script that calls cpacheckerReportChunk with the JSON data,
+ * because browsers do not allow fetching local files.
+ * A file is loaded only when its function or partition is displayed.
+ */
+var pendingChunks = {};
+var loadedCfaFunctions = {}, loadedArgPartitions = {};
+var cfaRendering = Promise.resolve(), argRendering = Promise.resolve();
+var cfaRenderingDone = null, argRenderingDone = null;
+
+function cpacheckerReportChunk(name, data) {
+	pendingChunks[name](data);
+	delete pendingChunks[name];
+}
+
+function loadChunk(name) {
+	return new Promise(function(resolve, reject) {
+		pendingChunks[name] = resolve;
+		var script = document.createElement("script");
+		script.src = reportData.directory + "/" + name;
+		script.onload = function() {
+			document.head.removeChild(script);
+		};
+		script.onerror = function() {
+			document.head.removeChild(script);
+			delete pendingChunks[name];
+			reject(new Error("Could not load " + script.src));
+		};
+		document.head.appendChild(script);
+	});
+}
+
+// Append all elements of source to target, in time linear in the size of source
+function appendAll(target, source) {
+	for (var i = 0; i < source.length; i++) {
+		target.push(source[i]);
+	}
+}
+
+// Load the data of those of the given functions that were not loaded yet, and add it to cfaJson
+function loadCfaFunctions(funcs) {
+	var toLoad = funcs.filter(function(f) {
+		return reportData.cfa[f] !== undefined && !loadedCfaFunctions[f];
+	});
+	return loadChunks(toLoad, loadedCfaFunctions, reportData.cfa).then(function(chunks) {
+		chunks.forEach(function(chunk) {
+			appendAll(cfaJson.nodes, chunk.data.nodes);
+			appendAll(cfaJson.edges, chunk.data.edges);
+		});
+		return chunks;
+	});
+}
+
+// Load the data of those of the given ARG partitions that were not loaded yet, and add it to argJson
+function loadArgPartitions(partitions) {
+	var toLoad = partitions.filter(function(p) {
+		return !loadedArgPartitions[p];
+	});
+	return loadChunks(toLoad, loadedArgPartitions, reportData.arg).then(function(chunks) {
+		if (chunks.length > 0 && argJson.nodes === undefined) {
+			argJson.nodes = [];
+			argJson.edges = [];
+		}
+		chunks.forEach(function(chunk) {
+			appendAll(argJson.nodes, chunk.data.nodes);
+			appendAll(argJson.edges, chunk.data.edges);
+		});
+		return chunks;
+	});
+}
+
+function loadChunks(keys, loaded, files) {
+	keys.forEach(function(key) {
+		loaded[key] = true;
+	});
+	return Promise.all(keys.map(function(key) {
+		return loadChunk(files[key]).then(function(data) {
+			return {"key": key, "data": data};
+		});
+	})).catch(function(e) {
+		keys.forEach(function(key) {
+			delete loaded[key];
+		});
+		throw e;
+	});
+}
+
+// Return the ARG partition that contains the state with the given id
+function getArgPartition(stateId) {
+	var partition = 0;
+	while (partition + 1 < reportData.argFirstStates.length && reportData.argFirstStates[partition + 1] <= stateId) {
+		partition++;
+	}
+	return partition;
+}
+
+// Load the CFA of the given functions if necessary and let the CFA worker build and send their graphs.
+// The returned promise is resolved when all of them are displayed.
+function renderCfaFunctions(funcs) {
+	if (reportData === null) {
+		return Promise.resolve();
+	}
+	var result = cfaRendering.then(function() {
+		return loadCfaFunctions(funcs);
+	}).then(function(chunks) {
+		if (chunks.length === 0) {
+			return;
+		}
+		return new Promise(function(resolve) {
+			cfaRenderingDone = resolve;
+			chunks.forEach(function(chunk) {
+				cfaWorker.postMessage({"functionData" : JSON.stringify(chunk.data), "func" : chunk.key});
+			});
+			cfaWorker.postMessage({"renderer" : "ready"});
+		});
+	});
+	cfaRendering = result.catch(function() {});
+	return result;
+}
+
+// Load the given ARG partitions if necessary and let the ARG worker build and send their graphs.
+// The returned promise is resolved when all of them are displayed.
+function renderArgPartitions(partitions) {
+	var result = argRendering.then(function() {
+		return loadArgPartitions(partitions);
+	}).then(function(chunks) {
+		if (chunks.length === 0) {
+			return;
+		}
+		return new Promise(function(resolve) {
+			argRenderingDone = resolve;
+			postArgPartitions(chunks);
+			argWorker.postMessage({"renderer" : "ready"});
+		});
+	});
+	argRendering = result.catch(function() {});
+	return result;
+}
+
+function postArgPartitions(chunks) {
+	chunks.forEach(function(chunk) {
+		argWorker.postMessage({"partition" : JSON.stringify(chunk.data), "id" : chunk.key});
+	});
+}
+
+// Display the next ARG partition that is not loaded yet, if the complete ARG is displayed
+function renderNextArgPartition() {
+	if (argRenderingDone !== null || d3.select(".arg-graph").style("display") === "none") {
+		return;
+	}
+	var next = reportData.arg.findIndex(function(chunk, partition) {
+		return !loadedArgPartitions[partition];
+	});
+	if (next !== -1) {
+		renderArgPartitions([next]).catch(reportLoadingFailure);
+	}
+}
+
+function reportLoadingFailure(e) {
+	alert("Loading report data failed: " + e.message);
+}
+
+// Load the data that is displayed when the report is opened:
+// the CFA of the main function and the first ARG partition together with those of the error path
+var initialArgPartitions = [];
+
+function loadReportData() {
+	if (reportData === null) {
+		return Promise.resolve();
+	}
+	var cfaData = loadCfaFunctions([cfaJson.functionNames[0]]);
+	var argData = loadArgPartitions(reportData.initialArg).then(function(chunks) {
+		initialArgPartitions = chunks;
+	});
+	return Promise.all([cfaData, argData]);
+}
+
 function init() {
+	loadReportData().then(initGraphs, reportLoadingFailure);
+}
+
+function initGraphs() {
 	
 	// Calculate total count of graphs to display in modal
 	var argTotalGraphCount;
 	if (argJson.nodes) {
-		argTotalGraphCount = Math.ceil(argJson.nodes.length/graphSplitThreshold);
+		if (reportData === null) {
+			argTotalGraphCount = Math.ceil(argJson.nodes.length/graphSplitThreshold);
+		} else {
+			argTotalGraphCount = initialArgPartitions.length;
+		}
 		$("#arg-modal").text("0/" + argTotalGraphCount);
 	} else { // No ARG data -> happens if the AbstractStates are not ARGStates
 		$("#arg-modal").text("0/0");
@@ -756,6 +974,16 @@ function init() {
             } else if (m.data.split !== undefined) {
                 graphSplitThreshold = m.data.split;
                 buildGraphsAndPostResults();
+            } else if (m.data.functionData !== undefined) {
+                // the data of a function that was loaded later, see renderCfaFunctions
+                var functionData = JSON.parse(m.data.functionData);
+                functionData.nodes.forEach(function(n) {
+                    nodes.push(n);
+                });
+                functionData.edges.forEach(function(e) {
+                    edges.push(e);
+                });
+                buildFunctionGraphs(functionData.nodes, m.data.func);
             }
         }, false);
         
@@ -808,15 +1036,22 @@ function init() {
                     var funcNodes = nodes.filter(function(n){
                         return n.func === func;
                     });
-                    if (funcNodes.length > graphSplitThreshold) {
-                        buildMultipleGraphs(funcNodes, func);
-                    } else {
-                        buildSingleGraph(funcNodes, func);
+                    // functions without nodes were not loaded yet
+                    if (funcNodes.length > 0) {
+                        buildFunctionGraphs(funcNodes, func);
                     }
                 });
             }
         }
         
+        function buildFunctionGraphs(funcNodes, func) {
+            if (funcNodes.length > graphSplitThreshold) {
+                buildMultipleGraphs(funcNodes, func);
+            } else {
+                buildSingleGraph(funcNodes, func);
+            }
+        }
+        
         function buildSingleGraph(nodesToSet, funcName) {
             var g = createGraph();
             setGraphNodes(g, nodesToSet);
@@ -1117,12 +1352,24 @@ function init() {
     		var json, nodes, edges, errorPath, errorGraphMap;
     		var graphSplitThreshold = 700;
     		var graphMap = [], graphCounter = 0;
+    		// ids of the graphs in graphMap for ARG partitions that were loaded separately
+    		var partitionIds = [];
+    		var buildingErrorGraph = false;
     		self.addEventListener("message", function(m) {
     			if (m.data.json !== undefined) {
     				json = JSON.parse(m.data.json);
     				nodes = json.nodes;
     				edges = json.edges;
     				buildGraphsAndPrepareResults()
+    			} else if (m.data.partition !== undefined) {
+    				var partition = JSON.parse(m.data.partition);
+    				if (nodes === undefined) {
+    					nodes = [];
+    					edges = [];
+    				}
+    				Array.prototype.push.apply(nodes, partition.nodes);
+    				Array.prototype.push.apply(edges, partition.edges);
+    				buildPartitionGraph(partition, m.data.id);
     			} else if (m.data.errorPath !== undefined) {
     				errorPath = [];
     				JSON.parse(m.data.errorPath).forEach(function(d) {
@@ -1132,7 +1379,8 @@ function init() {
     				});
     			} else if (m.data.renderer !== undefined) {
     				if (graphMap.length > 0) {
-                        self.postMessage({"graph" : JSON.stringify(graphMap[0]), "id" : graphCounter});
+                        var id = partitionIds.length > 0 ? partitionIds.shift() : graphCounter;
+                        self.postMessage({"graph" : JSON.stringify(graphMap[0]), "id" : id});
                         graphMap.shift();
                         graphCounter++;
                     } else {
@@ -1168,6 +1416,7 @@ function init() {
     		
             // After the initial ARG graph has been send to the master script, prepare ARG containing only error path		
     		function prepareErrorGraph() {
+    			buildingErrorGraph = true;
     			var errorNodes = [], errorEdges = [];
     			nodes.forEach(function(n) {
     				if (errorPath.includes(n.index)) {
@@ -1187,6 +1436,30 @@ function init() {
     				setGraphEdges(g, errorEdges, false);
     				errorGraphMap.push(g);
     			}
+    			buildingErrorGraph = false;
+    		}
+    		
+    		// Build the graph of an ARG partition that was loaded separately, see renderArgPartitions.
+    		// The partition contains all edges from and to its nodes, edges to other partitions end in dummy nodes.
+    		function buildPartitionGraph(partition, id) {
+    			var g = createGraph();
+    			var partitionNodes = {};
+    			partition.nodes.forEach(function(n) {
+    				partitionNodes[n.index] = true;
+    			});
+    			setGraphNodes(g, partition.nodes);
+    			setGraphEdges(g, partition.edges, true);
+    			partition.edges.forEach(function(edge) {
+    				if (partitionNodes[edge.source] && !partitionNodes[edge.target]) {
+    					g.setNode("" + edge.source + edge.target + id, {label: "", class: "arg-dummy", id: "dummy-" + edge.target});
+    					g.setEdge(edge.source, "" + edge.source + edge.target + id, {label: edge.label, id: "arg-edge" + edge.source + edge.target, style: "stroke-dasharray: 5, 5;", class: edgeClassDecider(edge)});
+    				} else if (!partitionNodes[edge.source] && partitionNodes[edge.target]) {
+    					g.setNode("" + edge.target + edge.source + id, {label: "", class: "dummy"});
+    					g.setEdge("" + edge.target + edge.source + id, edge.target, {label: "", labelStyle: "font-size: 12px;", id: "arg-edge_" + edge.source + "-" + edge.target, style: "stroke-dasharray: 5, 5;", class: "arg-split-edge"});
+    				}
+    			});
+    			graphMap.push(g);
+    			partitionIds.push(id);
     		}
     		
     		function buildSingleGraph() {
@@ -1342,7 +1615,7 @@ function init() {
         	}
 
             function nodeIdDecider(node) {
-                if (errorGraphMap === undefined)
+                if (!buildingErrorGraph)
                     return "arg-node" + node.index;
                 else 
                     return "arg-error-node" + node.index;
@@ -1419,7 +1692,14 @@ function init() {
 				d3.select(this).attr("width", Math.max(d3.select(this).attr("width"), d3.select(this.parentNode).style("width").split("px")[0]));
 			});
 			d3.selectAll(".cfa-graph").style("visibility", "visible");
-			if (cfaSplit) {
+			if (reportData !== null) {
+				$("#cfa-toolbar").scope().displayCFAFunction();
+			}
+			if (cfaRenderingDone !== null) {
+				var done = cfaRenderingDone;
+				cfaRenderingDone = null;
+				done();
+			} else if (cfaSplit) {
 				$("#renderStateModal").modal("hide");
 			} else {
 				if (!argTabDisabled) {
@@ -1452,7 +1732,18 @@ function init() {
 				}
 				var g = createGraph();
 				g = Object.assign(g, JSON.parse(m.data.graph));
-				d3.select("#arg-container").append("div").attr("id", id).attr("class", argClass);
+				// keep the graphs in the order of their ids, partitions may be loaded in any order
+				var nextGraph = null;
+				if (m.data.errorGraph === undefined) {
+					d3.selectAll(".arg-graph").each(function() {
+						if (nextGraph === null && parseInt(this.id.substring("arg-graph".length)) > m.data.id) {
+							nextGraph = this;
+						}
+					});
+				}
+				d3.select("#arg-container").insert("div", function() {
+					return nextGraph;
+				}).attr("id", id).attr("class", argClass);
 				var svg = d3.select("#" + id).append("svg").attr("id", "arg-svg" + id).attr("class", "arg-svg");
 				var svgGroup = svg.append("g");
 				render(d3.select("#arg-svg" + id + " g"), g);
@@ -1488,6 +1779,11 @@ function init() {
 					}
 				}
 				$("#renderStateModal").modal("hide");
+				if (argRenderingDone !== null) {
+					var done = argRenderingDone;
+					argRenderingDone = null;
+					done();
+				}
 			}
 		}, false);
 		
@@ -1499,7 +1795,18 @@ function init() {
 		if (errorPath !== undefined) {
 			argWorker.postMessage({"errorPath" : JSON.stringify(errorPath)});
 		}
-		argWorker.postMessage({"json" : JSON.stringify(argJson)});
+		if (reportData === null) {
+			argWorker.postMessage({"json" : JSON.stringify(argJson)});
+		} else {
+			postArgPartitions(initialArgPartitions);
+			initialArgPartitions = null;
+			// load further partitions when the end of the displayed ARG is reached
+			$("#arg-container").on("scroll", function() {
+				if (this.scrollTop + this.clientHeight >= this.scrollHeight - 200) {
+					renderNextArgPartition();
+				}
+			});
+		}
 	}
 	
 	// create and return a graph element with a set transition
@@ -1664,13 +1971,15 @@ function init() {
 			}).on("mouseout", function() {
 				hideToolTipBox();
 			}).on("dblclick", function() {
-				if (!d3.select(".marked-arg-node").empty()) {
-					d3.select(".marked-arg-node").classed("marked-arg-node", false);
+				var targetNode = parseInt(d3.select(this).attr("id").split("-")[1]);
+				if (reportData !== null && d3.select("#arg-node" + targetNode).empty()) {
+					// load the partition of the target node first
+					renderArgPartitions([getArgPartition(targetNode)]).then(function() {
+						jumpToArgNode(targetNode);
+					}, reportLoadingFailure);
+				} else {
+					jumpToArgNode(targetNode);
 				}
-				var selection = d3.select("#arg-node" + d3.select(this).attr("id").split("-")[1]);
-				selection.classed("marked-arg-node", true);
-				var boundingRect = selection.node().getBoundingClientRect();
-				$("#arg-container").scrollTop(boundingRect.top + $("#arg-container").scrollTop() - 200).scrollLeft(boundingRect.left + $("#arg-container").scrollLeft() - $("#errorpath_section").width() - 2 * boundingRect.width);
 			});
 		d3.selectAll(".arg-edge")
 			.on("mouseover", function(d) {
@@ -1706,6 +2015,16 @@ function init() {
 			});
 	}
 	
+	function jumpToArgNode(nodeIndex) {
+		if (!d3.select(".marked-arg-node").empty()) {
+			d3.select(".marked-arg-node").classed("marked-arg-node", false);
+		}
+		var selection = d3.select("#arg-node" + nodeIndex);
+		selection.classed("marked-arg-node", true);
+		var boundingRect = selection.node().getBoundingClientRect();
+		$("#arg-container").scrollTop(boundingRect.top + $("#arg-container").scrollTop() - 200).scrollLeft(boundingRect.left + $("#arg-container").scrollLeft() - $("#errorpath_section").width() - 2 * boundingRect.width);
+	}
+	
 	// Use D3 zoom behavior to add pan event
 	function addPanEvent(itemsToSelect) {
 		d3.selectAll(itemsToSelect).each(function(d, i) {
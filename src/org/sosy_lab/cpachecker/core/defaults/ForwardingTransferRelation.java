@@ -600,7 +600,7 @@ public abstract class ForwardingTransferRelation<S, T extends AbstractState, P e
     return false;
   }
 
-  protected static Pair<AExpression, Boolean> simplifyAssumption(AExpression pExpression, boolean pAssumeTruth) {
+  public static Pair<AExpression, Boolean> simplifyAssumption(AExpression pExpression, boolean pAssumeTruth) {
     if (isBooleanExpression(pExpression)) {
       if (pExpression instanceof CBinaryExpression) {
         CBinaryExpression binExp = (CBinaryExpression) pExpression;
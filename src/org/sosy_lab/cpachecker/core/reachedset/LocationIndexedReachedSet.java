@@ -0,0 +1,272 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.reachedset;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import javax.annotation.Nullable;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.waitlist.Waitlist.WaitlistFactory;
+import org.sosy_lab.cpachecker.util.AbstractStates;
+
+/**
+ * Implementation of ReachedSet that groups states by location, like {@link
+ * LocationMappedReachedSet}, but stores the partitions in an array indexed by {@link
+ * CFANode#getNodeNumber()} instead of a hash-based multimap.
+ *
+ * <p>Each partition is a compact array of states in insertion order, so adding a state and
+ * retrieving the states for a location does not need any hashing besides the one in {@link
+ * DefaultReachedSet}. Removing a single state is linear in the size of its partition, but {@link
+ * #removeAll(Iterable)} removes all given states from a partition in one pass.
+ */
+public class LocationIndexedReachedSet extends DefaultReachedSet {
+
+  private static final int INITIAL_PARTITION_CAPACITY = 4;
+
+  /** Partitions indexed by node number, null for locations that were never queried. */
+  private Partition[] partitions = new Partition[128];
+
+  public LocationIndexedReachedSet(WaitlistFactory waitlistFactory) {
+    super(waitlistFactory);
+  }
+
+  @Override
+  public void add(AbstractState pState, Precision pPrecision) {
+    int previousSize = size();
+    super.add(pState, pPrecision);
+
+    if (size() > previousSize) {
+      getPartition(getLocation(pState)).append(pState);
+    }
+  }
+
+  @Override
+  public void remove(AbstractState pState) {
+    super.remove(pState);
+
+    Partition partition = getExistingPartition(getLocation(pState));
+    if (partition != null) {
+      partition.delete(pState);
+    }
+  }
+
+  @Override
+  public void removeAll(Iterable<? extends AbstractState> pToRemove) {
+    Map<Partition, Set<AbstractState>> removedPerPartition = new IdentityHashMap<>();
+    for (AbstractState state : pToRemove) {
+      super.remove(state);
+
+      Partition partition = getExistingPartition(getLocation(state));
+      if (partition != null) {
+        removedPerPartition.computeIfAbsent(partition, p -> new HashSet<>()).add(state);
+      }
+    }
+
+    for (Map.Entry<Partition, Set<AbstractState>> entry : removedPerPartition.entrySet()) {
+      entry.getKey().deleteAll(entry.getValue());
+    }
+  }
+
+  @Override
+  public void clear() {
+    super.clear();
+
+    for (Partition partition : partitions) {
+      if (partition != null) {
+        partition.deleteAll();
+      }
+    }
+  }
+
+  @Override
+  public Collection<AbstractState> getReached(AbstractState pState) {
+    return getPartition(getLocation(pState));
+  }
+
+  @Override
+  public Collection<AbstractState> getReached(CFANode location) {
+    return getPartition(location);
+  }
+
+  public int getNumberOfPartitions() {
+    int count = 0;
+    for (Partition partition : partitions) {
+      if (partition != null && !partition.isEmpty()) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  public @Nullable Map.Entry<Object, Collection<AbstractState>> getMaxPartition() {
+    Partition maxPartition = null;
+    for (Partition partition : partitions) {
+      if (partition != null && (maxPartition == null || partition.size > maxPartition.size)) {
+        maxPartition = partition;
+      }
+    }
+    if (maxPartition == null || maxPartition.isEmpty()) {
+      return null;
+    }
+    return Maps.immutableEntry(maxPartition.location, maxPartition);
+  }
+
+  public Set<CFANode> getLocations() {
+    ImmutableSet.Builder<CFANode> locations = ImmutableSet.builder();
+    for (Partition partition : partitions) {
+      if (partition != null && !partition.isEmpty()) {
+        locations.add(partition.location);
+      }
+    }
+    return locations.build();
+  }
+
+  private static CFANode getLocation(AbstractState pState) {
+    CFANode location = AbstractStates.extractLocation(pState);
+    assert location != null : "Location information necessary for LocationIndexedReachedSet";
+    return location;
+  }
+
+  private @Nullable Partition getExistingPartition(CFANode location) {
+    int index = location.getNodeNumber();
+    return index < partitions.length ? partitions[index] : null;
+  }
+
+  /**
+   * Return the partition for a location. Partitions are created on demand and never discarded,
+   * such that a returned partition stays a live view of the reached states at its location.
+   */
+  private Partition getPartition(CFANode location) {
+    int index = location.getNodeNumber();
+    if (index >= partitions.length) {
+      partitions = Arrays.copyOf(partitions, Math.max(index + 1, partitions.length * 2));
+    }
+    Partition partition = partitions[index];
+    if (partition == null) {
+      partition = new Partition(location);
+      partitions[index] = partition;
+    }
+    return partition;
+  }
+
+  /**
+   * The states of one location, stored in an array in insertion order. Instances are handed out
+   * as unmodifiable views, all modifications happen through the private methods of this class.
+   */
+  private static final class Partition extends AbstractCollection<AbstractState> {
+
+    private final CFANode location;
+    private AbstractState[] states = new AbstractState[INITIAL_PARTITION_CAPACITY];
+    private int size = 0;
+    private int modCount = 0;
+
+    private Partition(CFANode pLocation) {
+      location = pLocation;
+    }
+
+    private void append(AbstractState pState) {
+      if (size == states.length) {
+        states = Arrays.copyOf(states, size + (size >> 1) + 1);
+      }
+      states[size++] = pState;
+      modCount++;
+    }
+
+    private void delete(AbstractState pState) {
+      for (int i = 0; i < size; i++) {
+        if (states[i].equals(pState)) {
+          System.arraycopy(states, i + 1, states, i, size - i - 1);
+          states[--size] = null;
+          modCount++;
+          return;
+        }
+      }
+    }
+
+    private void deleteAll(Set<AbstractState> pStates) {
+      int newSize = 0;
+      for (int i = 0; i < size; i++) {
+        if (!pStates.contains(states[i])) {
+          states[newSize++] = states[i];
+        }
+      }
+      Arrays.fill(states, newSize, size, null);
+      size = newSize;
+      modCount++;
+    }
+
+    private void deleteAll() {
+      states = new AbstractState[INITIAL_PARTITION_CAPACITY];
+      size = 0;
+      modCount++;
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+      return size == 0;
+    }
+
+    @Override
+    public Iterator<AbstractState> iterator() {
+      return new Iterator<AbstractState>() {
+
+        private final int expectedModCount = modCount;
+        private int next = 0;
+
+        @Override
+        public boolean hasNext() {
+          return next < size;
+        }
+
+        @Override
+        public AbstractState next() {
+          if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+          }
+          if (next >= size) {
+            throw new NoSuchElementException();
+          }
+          return states[next++];
+        }
+      };
+    }
+  }
+}
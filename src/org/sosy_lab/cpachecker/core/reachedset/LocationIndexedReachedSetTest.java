@@ -0,0 +1,226 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.reachedset;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.defaults.SingletonPrecision;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractStateWithLocation;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.waitlist.Waitlist.TraversalMethod;
+
+public class LocationIndexedReachedSetTest {
+
+  private static final Precision PRECISION = SingletonPrecision.getInstance();
+
+  private static class TestState implements AbstractStateWithLocation {
+
+    private final CFANode location;
+    private final int id;
+
+    private TestState(CFANode pLocation, int pId) {
+      location = pLocation;
+      id = pId;
+    }
+
+    @Override
+    public CFANode getLocationNode() {
+      return location;
+    }
+
+    @Override
+    public String toString() {
+      return "state " + id + " at " + location;
+    }
+  }
+
+  private LocationIndexedReachedSet reached;
+  private CFANode l1;
+  private CFANode l2;
+
+  @Before
+  public void init() {
+    reached = new LocationIndexedReachedSet(TraversalMethod.BFS);
+    l1 = new CFANode("main");
+    l2 = new CFANode("main");
+  }
+
+  @Test
+  public void testLookupAfterAdd() {
+    TestState s1 = new TestState(l1, 1);
+    TestState s2 = new TestState(l2, 2);
+    TestState s3 = new TestState(l1, 3);
+    reached.add(s1, PRECISION);
+    reached.add(s2, PRECISION);
+    reached.add(s3, PRECISION);
+    reached.add(s1, PRECISION); // already contained
+
+    assertThat(reached.getReached(l1)).containsExactly(s1, s3).inOrder();
+    assertThat(reached.getReached(l2)).containsExactly(s2);
+    assertThat(reached.getReached(s3)).containsExactly(s1, s3).inOrder();
+    assertThat(reached.getLocations()).containsExactly(l1, l2);
+    assertThat(reached.getNumberOfPartitions()).isEqualTo(2);
+  }
+
+  @Test
+  public void testLookupOfUnknownLocation() {
+    reached.add(new TestState(l1, 1), PRECISION);
+
+    assertThat(reached.getReached(l2)).isEmpty();
+    assertThat(reached.getLocations()).containsExactly(l1);
+  }
+
+  @Test
+  public void testLookupAfterRemove() {
+    TestState s1 = new TestState(l1, 1);
+    TestState s2 = new TestState(l1, 2);
+    TestState s3 = new TestState(l1, 3);
+    TestState s4 = new TestState(l2, 4);
+    reached.add(s1, PRECISION);
+    reached.add(s2, PRECISION);
+    reached.add(s3, PRECISION);
+    reached.add(s4, PRECISION);
+
+    reached.remove(s2);
+    assertThat(reached.getReached(l1)).containsExactly(s1, s3).inOrder();
+
+    reached.remove(s4);
+    assertThat(reached.getReached(l2)).isEmpty();
+    assertThat(reached.getLocations()).containsExactly(l1);
+    assertThat(reached.getNumberOfPartitions()).isEqualTo(1);
+
+    reached.add(s2, PRECISION);
+    assertThat(reached.getReached(l1)).containsExactly(s1, s3, s2).inOrder();
+  }
+
+  @Test
+  public void testLookupAfterRemoveAll() {
+    TestState s1 = new TestState(l1, 1);
+    TestState s2 = new TestState(l1, 2);
+    TestState s3 = new TestState(l2, 3);
+    TestState s4 = new TestState(l2, 4);
+    reached.add(s1, PRECISION);
+    reached.add(s2, PRECISION);
+    reached.add(s3, PRECISION);
+    reached.add(s4, PRECISION);
+
+    reached.removeAll(ImmutableList.of(s1, s4));
+
+    assertThat(reached.getReached(l1)).containsExactly(s2);
+    assertThat(reached.getReached(l2)).containsExactly(s3);
+    assertThat(reached.asCollection()).containsExactly(s2, s3);
+  }
+
+  @Test
+  public void testLookupAfterClear() {
+    reached.add(new TestState(l1, 1), PRECISION);
+    reached.add(new TestState(l2, 2), PRECISION);
+
+    reached.clear();
+
+    assertThat(reached.getReached(l1)).isEmpty();
+    assertThat(reached.getReached(l2)).isEmpty();
+    assertThat(reached.getLocations()).isEmpty();
+    assertThat(reached.getMaxPartition()).isNull();
+  }
+
+  @Test
+  public void testPartitionIsLiveView() {
+    TestState s1 = new TestState(l1, 1);
+    TestState s2 = new TestState(l1, 2);
+    Collection<AbstractState> partition = reached.getReached(l1);
+
+    reached.add(s1, PRECISION);
+    reached.add(s2, PRECISION);
+    assertThat(partition).containsExactly(s1, s2).inOrder();
+
+    reached.remove(s1);
+    assertThat(partition).containsExactly(s2);
+  }
+
+  @Test
+  public void testManyLocations() {
+    // more locations than the initial size of the index
+    List<CFANode> locations = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      locations.add(new CFANode("main"));
+    }
+    for (int i = 0; i < locations.size(); i++) {
+      reached.add(new TestState(locations.get(i), i), PRECISION);
+    }
+
+    for (CFANode location : locations) {
+      assertThat(reached.getReached(location)).hasSize(1);
+    }
+    assertThat(reached.getLocations()).containsExactlyElementsIn(locations);
+  }
+
+  /** Compare the partitions with those of {@link LocationMappedReachedSet}. */
+  @Test
+  public void testSameAsLocationMappedReachedSet() {
+    LocationMappedReachedSet expected = new LocationMappedReachedSet(TraversalMethod.BFS);
+    List<CFANode> locations = ImmutableList.of(l1, l2, new CFANode("f"), new CFANode("f"));
+    List<TestState> states = new ArrayList<>();
+    Random random = new Random(0);
+
+    for (int i = 0; i < 2000; i++) {
+      int operation = random.nextInt(10);
+      if (operation < 6 || states.isEmpty()) {
+        TestState state = new TestState(locations.get(random.nextInt(locations.size())), i);
+        states.add(state);
+        reached.add(state, PRECISION);
+        expected.add(state, PRECISION);
+      } else if (operation < 9) {
+        TestState state = states.remove(random.nextInt(states.size()));
+        reached.remove(state);
+        expected.remove(state);
+      } else {
+        List<TestState> toRemove = new ArrayList<>();
+        for (int j = 0; j < 3 && !states.isEmpty(); j++) {
+          toRemove.add(states.remove(random.nextInt(states.size())));
+        }
+        reached.removeAll(toRemove);
+        expected.removeAll(toRemove);
+      }
+
+      for (CFANode location : locations) {
+        assertThat(reached.getReached(location))
+            .containsExactlyElementsIn(expected.getReached(location))
+            .inOrder();
+      }
+    }
+    assertThat(ImmutableSet.copyOf(reached.asCollection()))
+        .containsExactlyElementsIn(expected.asCollection());
+  }
+}
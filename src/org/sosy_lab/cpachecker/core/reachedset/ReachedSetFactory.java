@@ -51,7 +51,7 @@ import org.sosy_lab.cpachecker.cpa.usage.UsageReachedSet;
 public class ReachedSetFactory {
 
   private static enum ReachedSetType {
-    NORMAL, LOCATIONMAPPED, PARTITIONED, PSEUDOPARTITIONED, USAGE
+    NORMAL, LOCATIONMAPPED, LOCATIONINDEXED, PARTITIONED, PSEUDOPARTITIONED, USAGE
   }
 
   @Option(
@@ -178,6 +178,8 @@ public class ReachedSetFactory {
             + "\nNORMAL: just a simple set"
             + "\nLOCATIONMAPPED: a different set per location "
             + "(faster, states with different locations cannot be merged)"
+            + "\nLOCATIONINDEXED: like LOCATIONMAPPED, but stores the states of each location "
+            + "in an array indexed by the location's node number (less memory and hashing)"
             + "\nPARTITIONED: partitioning depending on CPAs (e.g Location, Callstack etc.)"
             + "\nPSEUDOPARTITIONED: based on PARTITIONED, uses additional info about the states' lattice "
             + "(maybe faster for some special analyses which use merge_sep and stop_sep"
@@ -260,6 +262,9 @@ public class ReachedSetFactory {
     case LOCATIONMAPPED:
       return new LocationMappedReachedSet(waitlistFactory);
 
+    case LOCATIONINDEXED:
+      return new LocationIndexedReachedSet(waitlistFactory);
+
     case USAGE:
       return new UsageReachedSet(waitlistFactory, config, logger);
 
@@ -64,14 +64,17 @@ public class ExtendedWitnessExporter extends WitnessExporter {
             defaultFileName,
             WitnessType.VIOLATION_WITNESS,
             InvariantProvider.TrueInvariantProvider.INSTANCE);
-    writer.writePath(
+    exportWitness(
         pTarget,
-        pRootState,
-        pIsRelevantState,
-        pIsRelevantEdge,
-        Predicates.alwaysFalse(),
-        Optional.empty(),
-        Optional.of(pCounterExample),
-        GraphBuilder.ARG_PATH);
+        target ->
+            writer.writePath(
+                target,
+                pRootState,
+                pIsRelevantState,
+                pIsRelevantEdge,
+                Predicates.alwaysFalse(),
+                Optional.empty(),
+                Optional.of(pCounterExample),
+                GraphBuilder.ARG_PATH));
   }
 }
@@ -36,10 +36,14 @@ import java.util.Deque;
 import java.util.HashSet;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import org.sosy_lab.common.Appender;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.configuration.Configuration;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.common.time.Timer;
 import org.sosy_lab.cpachecker.cfa.CFA;
 import org.sosy_lab.cpachecker.cfa.ast.AExpressionStatement;
 import org.sosy_lab.cpachecker.cfa.ast.FileLocation;
@@ -86,6 +90,8 @@ public class WitnessExporter {
 
   protected final VerificationTaskMetaData verificationTaskMetaData;
 
+  private final LogManager logger;
+
   public WitnessExporter(
       final Configuration pConfig,
       final LogManager pLogger,
@@ -96,6 +102,7 @@ public class WitnessExporter {
     options = new WitnessOptions();
     pConfig.inject(options);
     this.cfa = pCFA;
+    this.logger = pLogger;
     this.fmgr = Solver.create(pConfig, pLogger, ShutdownNotifier.createDummy()).getFormulaManager();
     this.assumptionToEdgeAllocator =
         AssumptionToEdgeAllocator.create(pConfig, pLogger, pCFA.getMachineModel());
@@ -121,15 +128,18 @@ public class WitnessExporter {
             defaultFileName,
             WitnessType.VIOLATION_WITNESS,
             InvariantProvider.TrueInvariantProvider.INSTANCE);
-    writer.writePath(
+    exportWitness(
         pTarget,
-        pRootState,
-        pIsRelevantState,
-        pIsRelevantEdge,
-        Predicates.alwaysFalse(),
-        Optional.empty(),
-        Optional.of(pCounterExample),
-        GraphBuilder.ARG_PATH);
+        target ->
+            writer.writePath(
+                target,
+                pRootState,
+                pIsRelevantState,
+                pIsRelevantEdge,
+                Predicates.alwaysFalse(),
+                Optional.empty(),
+                Optional.of(pCounterExample),
+                GraphBuilder.ARG_PATH));
   }
 
   public void writeTerminationErrorWitness(
@@ -151,15 +161,18 @@ public class WitnessExporter {
             defaultFileName,
             WitnessType.VIOLATION_WITNESS,
             InvariantProvider.TrueInvariantProvider.INSTANCE);
-    writer.writePath(
+    exportWitness(
         pWriter,
-        pRoot,
-        pIsRelevantState,
-        pIsRelevantEdge,
-        pIsCycleHead,
-        Optional.of(toQuasiInvariant),
-        Optional.empty(),
-        GraphBuilder.ARG_PATH);
+        target ->
+            writer.writePath(
+                target,
+                pRoot,
+                pIsRelevantState,
+                pIsRelevantEdge,
+                pIsCycleHead,
+                Optional.of(toQuasiInvariant),
+                Optional.empty(),
+                GraphBuilder.ARG_PATH));
   }
 
   public void writeProofWitness(
@@ -298,15 +311,39 @@ public class WitnessExporter {
             defaultFileName,
             WitnessType.CORRECTNESS_WITNESS,
             pInvariantProvider);
-    writer.writePath(
+    exportWitness(
         pTarget,
-        pRootState,
-        pIsRelevantState,
-        pIsRelevantEdge,
-        Predicates.alwaysFalse(),
-        Optional.empty(),
-        Optional.empty(),
-        GraphBuilder.CFA_FULL);
+        target ->
+            writer.writePath(
+                target,
+                pRootState,
+                pIsRelevantState,
+                pIsRelevantEdge,
+                Predicates.alwaysFalse(),
+                Optional.empty(),
+                Optional.empty(),
+                GraphBuilder.CFA_FULL));
+  }
+
+  /**
+   * Write a witness to the given target and log how long the export took and how large the
+   * (uncompressed) witness is.
+   */
+  protected void exportWitness(Appendable pTarget, Appender pWitness) throws IOException {
+    CountingAppendable target = new CountingAppendable(pTarget);
+    Timer exportTime = new Timer();
+    exportTime.start();
+    try {
+      pWitness.appendTo(target);
+    } finally {
+      exportTime.stop();
+    }
+    logger.log(
+        Level.FINE,
+        "Exported witness with",
+        target.writtenCharacters,
+        "characters in",
+        exportTime.getLengthOfLastInterval().formatAs(TimeUnit.SECONDS));
   }
 
   protected String getInitialFileName(ARGState pRootState) {
@@ -331,4 +368,38 @@ public class WitnessExporter {
 
     throw new RuntimeException("Could not determine file name based on abstract state!");
   }
+
+  /** An {@link Appendable} that counts the characters written to the wrapped target. */
+  private static class CountingAppendable implements Appendable {
+
+    private final Appendable delegate;
+    private long writtenCharacters = 0;
+
+    CountingAppendable(Appendable pDelegate) {
+      delegate = pDelegate;
+    }
+
+    @Override
+    public Appendable append(CharSequence pCsq) throws IOException {
+      CharSequence csq = pCsq == null ? "null" : pCsq;
+      delegate.append(csq);
+      writtenCharacters += csq.length();
+      return this;
+    }
+
+    @Override
+    public Appendable append(CharSequence pCsq, int pStart, int pEnd) throws IOException {
+      CharSequence csq = pCsq == null ? "null" : pCsq;
+      delegate.append(csq, pStart, pEnd);
+      writtenCharacters += pEnd - pStart;
+      return this;
+    }
+
+    @Override
+    public Appendable append(char pC) throws IOException {
+      delegate.append(pC);
+      writtenCharacters++;
+      return this;
+    }
+  }
 }
@@ -32,6 +32,7 @@ import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
+import com.google.common.base.Strings;
 import com.google.common.collect.Collections2;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.HashMultimap;
@@ -72,7 +73,6 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
-import javax.xml.parsers.ParserConfigurationException;
 import org.sosy_lab.cpachecker.cfa.CFA;
 import org.sosy_lab.cpachecker.cfa.ast.AExpression;
 import org.sosy_lab.cpachecker.cfa.ast.AExpressionStatement;
@@ -126,7 +126,7 @@ import org.sosy_lab.cpachecker.util.Pair;
 import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon;
 import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.AssumeCase;
 import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.ElementType;
-import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.GraphMlBuilder;
+import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.GraphMlStreamWriter;
 import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.KeyDef;
 import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.NodeFlag;
 import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.NodeType;
@@ -138,7 +138,6 @@ import org.sosy_lab.cpachecker.util.expressions.ExpressionTrees;
 import org.sosy_lab.cpachecker.util.expressions.LeafExpression;
 import org.sosy_lab.cpachecker.util.expressions.Or;
 import org.sosy_lab.cpachecker.util.expressions.Simplifier;
-import org.w3c.dom.Element;
 
 class WitnessWriter implements EdgeAppender {
 
@@ -1054,13 +1053,6 @@ class WitnessWriter implements EdgeAppender {
       }
     }
 
-    final GraphMlBuilder doc;
-    try {
-      doc = new GraphMlBuilder(graphType, defaultSourcefileName, cfa, verificationTaskMetaData);
-    } catch (ParserConfigurationException e) {
-      throw new IOException(e);
-    }
-
     final String entryStateNodeId = pGraphBuilder.getId(pRootState);
 
     // Collect node flags in advance
@@ -1092,7 +1084,6 @@ class WitnessWriter implements EdgeAppender {
         isRelevantEdge,
         valueMap,
         additionalInfo,
-        doc,
         collectPathEdges(pRootState, ARGState::getChildren, pIsRelevantState, isRelevantEdge),
         this);
 
@@ -1113,9 +1104,16 @@ class WitnessWriter implements EdgeAppender {
     // merge redundant sibling edges leading to the sink together, if possible
     mergeRedundantSinkEdges();
 
+    // Determine what will be written, because nodes and their keys need to be known in advance
+    Set<KeyDef> usedKeys = EnumSet.noneOf(KeyDef.class);
+    Set<String> expandedNodes = collectExpandedNodes(entryStateNodeId, usedKeys);
+
     // Write elements
-    writeElementsOfGraphToDoc(doc, entryStateNodeId);
-    doc.appendTo(pTarget);
+    GraphMlStreamWriter writer =
+        new GraphMlStreamWriter(
+            pTarget, graphType, defaultSourcefileName, cfa, verificationTaskMetaData, usedKeys);
+    writeElementsOfGraph(writer, entryStateNodeId, expandedNodes);
+    writer.finish();
   }
 
   /**
@@ -1235,28 +1233,80 @@ class WitnessWriter implements EdgeAppender {
     }
   }
 
-  private void writeElementsOfGraphToDoc(GraphMlBuilder doc, String entryStateNodeId) {
-    Map<String, Element> nodes = Maps.newHashMap();
+  /**
+   * Determine the nodes whose leaving edges will be written, i.e., the nodes reachable from the
+   * entry node whose invariant is not <code>false</code>. The node-specific data of an edge is
+   * written to its target node, so this needs to be known before the first node is written.
+   *
+   * @param pEntryStateNodeId the id of the entry node.
+   * @param pUsedKeys the keys of all data that will be written to nodes and edges are added here.
+   * @return the ids of the nodes whose leaving edges will be written.
+   */
+  private Set<String> collectExpandedNodes(String pEntryStateNodeId, Set<KeyDef> pUsedKeys) {
+    Set<String> visited = Sets.newHashSet(pEntryStateNodeId);
+    Set<String> expanded = Sets.newHashSet(pEntryStateNodeId);
     Deque<String> waitlist = Queues.newArrayDeque();
-    waitlist.push(entryStateNodeId);
-    Element entryNode = createNewNode(doc, entryStateNodeId);
-    addInvariantsData(doc, entryNode, entryStateNodeId);
-    nodes.put(entryStateNodeId, entryNode);
+    waitlist.push(pEntryStateNodeId);
+    collectNodeKeys(pEntryStateNodeId, pUsedKeys);
     while (!waitlist.isEmpty()) {
       String source = waitlist.pop();
       for (Edge edge : leavingEdges.get(source)) {
-        setLoopHeadInvariantIfApplicable(edge.getTarget());
-
-        Element targetNode = nodes.get(edge.getTarget());
-        if (targetNode == null) {
-          targetNode = createNewNode(doc, edge.getTarget());
-          if (!ExpressionTrees.getFalse()
-              .equals(addInvariantsData(doc, targetNode, edge.getTarget()))) {
-            waitlist.push(edge.getTarget());
+        String target = edge.getTarget();
+        if (visited.add(target)) {
+          setLoopHeadInvariantIfApplicable(target);
+          collectNodeKeys(target, pUsedKeys);
+          if (!ExpressionTrees.getFalse().equals(getExportedInvariant(target))) {
+            expanded.add(target);
+            waitlist.push(target);
           }
-          nodes.put(edge.getTarget(), targetNode);
         }
-        createNewEdge(doc, edge, targetNode);
+        pUsedKeys.addAll(edge.getLabel().getMapping().keySet());
+      }
+    }
+    return expanded;
+  }
+
+  private void collectNodeKeys(String pNodeId, Set<KeyDef> pUsedKeys) {
+    if (witnessOptions.exportNodeLabel()) {
+      pUsedKeys.add(KeyDef.LABEL);
+    }
+    for (NodeFlag f : nodeFlags.get(pNodeId)) {
+      pUsedKeys.add(f.key);
+    }
+    if (violatedProperties.containsKey(pNodeId)) {
+      pUsedKeys.add(KeyDef.VIOLATEDPROPERTY);
+    }
+    if (stateQuasiInvariants.containsKey(pNodeId)) {
+      pUsedKeys.add(KeyDef.INVARIANT);
+    }
+    ExpressionTree<Object> invariant = getExportedInvariant(pNodeId);
+    if (!invariant.equals(ExpressionTrees.getTrue())) {
+      pUsedKeys.add(KeyDef.INVARIANT);
+      if (!Strings.isNullOrEmpty(stateScopes.get(pNodeId))
+          && !invariant.equals(ExpressionTrees.getFalse())) {
+        pUsedKeys.add(KeyDef.INVARIANTSCOPE);
+      }
+    }
+  }
+
+  private void writeElementsOfGraph(
+      GraphMlStreamWriter pWriter, String pEntryStateNodeId, Set<String> pExpandedNodes)
+      throws IOException {
+    Set<String> writtenNodes = Sets.newHashSet(pEntryStateNodeId);
+    Deque<String> waitlist = Queues.newArrayDeque();
+    waitlist.push(pEntryStateNodeId);
+    writeNode(pWriter, pEntryStateNodeId, pExpandedNodes);
+    while (!waitlist.isEmpty()) {
+      String source = waitlist.pop();
+      for (Edge edge : leavingEdges.get(source)) {
+        String target = edge.getTarget();
+        if (writtenNodes.add(target)) {
+          writeNode(pWriter, target, pExpandedNodes);
+          if (pExpandedNodes.contains(target)) {
+            waitlist.push(target);
+          }
+        }
+        writeEdge(pWriter, edge);
       }
     }
   }
@@ -1296,20 +1346,23 @@ class WitnessWriter implements EdgeAppender {
     }
   }
 
-  private ExpressionTree<Object> addInvariantsData(
-      GraphMlBuilder pDoc, Element pNode, String pStateId) {
-    if (!invariantExportStates.contains(pStateId)) {
-      return ExpressionTrees.getTrue();
-    }
-    ExpressionTree<Object> tree = getStateInvariant(pStateId);
+  private void addInvariantsData(GraphMlStreamWriter pWriter, String pStateId)
+      throws IOException {
+    ExpressionTree<Object> tree = getExportedInvariant(pStateId);
     if (!tree.equals(ExpressionTrees.getTrue())) {
-      pDoc.addDataElementChild(pNode, KeyDef.INVARIANT, tree.toString());
+      pWriter.addData(KeyDef.INVARIANT, tree.toString());
       String scope = stateScopes.get(pStateId);
       if (scope != null && !scope.isEmpty() && !tree.equals(ExpressionTrees.getFalse())) {
-        pDoc.addDataElementChild(pNode, KeyDef.INVARIANTSCOPE, scope);
+        pWriter.addData(KeyDef.INVARIANTSCOPE, scope);
       }
     }
-    return tree;
+  }
+
+  private ExpressionTree<Object> getExportedInvariant(String pStateId) {
+    if (!invariantExportStates.contains(pStateId)) {
+      return ExpressionTrees.getTrue();
+    }
+    return getStateInvariant(pStateId);
   }
 
   private boolean hasFlagsOrProperties(String pNode) {
@@ -1583,41 +1636,51 @@ class WitnessWriter implements EdgeAppender {
     return false;
   }
 
-  private Element createNewEdge(GraphMlBuilder pDoc, Edge pEdge, Element pTargetNode) {
-    Element edge = pDoc.createEdgeElement(pEdge.getSource(), pEdge.getTarget());
+  private void writeEdge(GraphMlStreamWriter pWriter, Edge pEdge) throws IOException {
+    pWriter.startEdge(pEdge.getSource(), pEdge.getTarget());
     for (Map.Entry<KeyDef, String> entry : pEdge.getLabel().getMapping().entrySet()) {
-      KeyDef keyDef = entry.getKey();
-      String value = entry.getValue();
-      if (keyDef.keyFor.equals(ElementType.EDGE)) {
-        pDoc.addDataElementChild(edge, keyDef, value);
-      } else if (keyDef.keyFor.equals(ElementType.NODE)) {
-        pDoc.addDataElementChild(pTargetNode, keyDef, value);
+      if (entry.getKey().keyFor.equals(ElementType.EDGE)) {
+        pWriter.addData(entry.getKey(), entry.getValue());
       }
     }
-    return edge;
+    pWriter.endElement();
   }
 
-  private Element createNewNode(GraphMlBuilder pDoc, String pEntryStateNodeId) {
-    Element result = pDoc.createNodeElement(pEntryStateNodeId, NodeType.ONPATH);
+  private void writeNode(GraphMlStreamWriter pWriter, String pNodeId, Set<String> pExpandedNodes)
+      throws IOException {
+    pWriter.startNode(pNodeId);
 
     if (witnessOptions.exportNodeLabel()) {
       // add a printable label that for example is shown in yEd
-      pDoc.addDataElementChild(result, KeyDef.LABEL, pEntryStateNodeId);
+      pWriter.addData(KeyDef.LABEL, pNodeId);
     }
 
-    for (NodeFlag f : nodeFlags.get(pEntryStateNodeId)) {
-      pDoc.addDataElementChild(result, f.key, "true");
+    for (NodeFlag f : nodeFlags.get(pNodeId)) {
+      pWriter.addData(f.key, "true");
     }
-    for (Property violation : violatedProperties.get(pEntryStateNodeId)) {
-      pDoc.addDataElementChild(result, KeyDef.VIOLATEDPROPERTY, violation.toString());
+    for (Property violation : violatedProperties.get(pNodeId)) {
+      pWriter.addData(KeyDef.VIOLATEDPROPERTY, violation.toString());
     }
 
-    if(stateQuasiInvariants.containsKey(pEntryStateNodeId)) {
-      ExpressionTree<Object> tree = getQuasiInvariant(pEntryStateNodeId);
-        pDoc.addDataElementChild(result, KeyDef.INVARIANT, tree.toString());
+    if (stateQuasiInvariants.containsKey(pNodeId)) {
+      ExpressionTree<Object> tree = getQuasiInvariant(pNodeId);
+      pWriter.addData(KeyDef.INVARIANT, tree.toString());
     }
 
-    return result;
+    addInvariantsData(pWriter, pNodeId);
+
+    // node-specific data is attached to the edges entering the node
+    for (Edge enteringEdge : enteringEdges.get(pNodeId)) {
+      if (pExpandedNodes.contains(enteringEdge.getSource())) {
+        for (Map.Entry<KeyDef, String> entry : enteringEdge.getLabel().getMapping().entrySet()) {
+          if (entry.getKey().keyFor.equals(ElementType.NODE)) {
+            pWriter.addData(entry.getKey(), entry.getValue());
+          }
+        }
+      }
+    }
+
+    pWriter.endElement();
   }
 
   private Collection<NodeFlag> extractNodeFlags(ARGState pState) {
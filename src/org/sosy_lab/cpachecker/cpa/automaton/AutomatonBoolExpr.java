@@ -371,6 +371,10 @@ interface AutomatonBoolExpr extends AutomatonExpression {
       return CONST_FALSE;
     }
 
+    String getFunctionName() {
+      return functionName;
+    }
+
     @Override
     public String toString() {
       return "MATCH FUNCTION CALL \"" + functionName + "\"";
@@ -875,6 +879,10 @@ interface AutomatonBoolExpr extends AutomatonExpression {
           .anyMatch(matchDescriptor);
     }
 
+    java.util.function.Predicate<FileLocation> getDescriptor() {
+      return matchDescriptor;
+    }
+
     @Override
     public String toString() {
       return "MATCH " + matchDescriptor;
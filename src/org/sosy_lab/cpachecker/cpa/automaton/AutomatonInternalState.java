@@ -86,6 +86,8 @@ public class AutomatonInternalState {
 
   private final boolean isCycleStart;
 
+  private final AutomatonTransitionIndex transitionIndex;
+
   public AutomatonInternalState(
       String pName,
       List<AutomatonTransition> pTransitions,
@@ -97,6 +99,7 @@ public class AutomatonInternalState {
     this.mIsTarget = pIsTarget;
     this.mAllTransitions = pAllTransitions;
     this.isCycleStart = pIsCycleStart;
+    this.transitionIndex = AutomatonTransitionIndex.of(pTransitions);
   }
 
   public AutomatonInternalState(
@@ -164,6 +167,11 @@ public class AutomatonInternalState {
     return transitions;
   }
 
+  /** Returns the index that pre-selects the transitions that may match an edge. */
+  AutomatonTransitionIndex getTransitionIndex() {
+    return transitionIndex;
+  }
+
   @Override
   public String toString() {
     return this.name;
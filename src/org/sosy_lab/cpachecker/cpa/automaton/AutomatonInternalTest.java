@@ -41,9 +41,11 @@ import java.io.Reader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.logging.Level;
 import java_cup.runtime.ComplexSymbolFactory;
 import java_cup.runtime.Symbol;
@@ -52,10 +54,17 @@ import org.sosy_lab.common.log.LogManager;
 import org.sosy_lab.cpachecker.cfa.CParser;
 import org.sosy_lab.cpachecker.cfa.CParser.ParserOptions;
 import org.sosy_lab.cpachecker.cfa.CProgramScope;
+import org.sosy_lab.cpachecker.cfa.ast.FileLocation;
 import org.sosy_lab.cpachecker.cfa.ast.c.CAstNode;
+import org.sosy_lab.cpachecker.cfa.ast.c.CIntegerLiteralExpression;
+import org.sosy_lab.cpachecker.cfa.model.BlankEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.cfa.model.c.CAssumeEdge;
 import org.sosy_lab.cpachecker.cfa.types.MachineModel;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
 import org.sosy_lab.cpachecker.cpa.automaton.AutomatonASTComparator.ASTMatcher;
+import org.sosy_lab.cpachecker.cpa.automaton.SourceLocationMatcher.LineMatcher;
 import org.sosy_lab.cpachecker.exceptions.CPATransferException;
 
 /**
@@ -172,6 +181,68 @@ public class AutomatonInternalTest {
     assertThat(ex.eval(args).canNotEvaluate()).isTrue();
   }
 
+  @Test
+  public void testTransitionIndex() {
+    FileLocation location = new FileLocation("test.c", "test.c", 10, 5, 2, 2, 2, 2);
+    CFANode predecessor = new CFANode("main");
+    CFAEdge assumeEdge =
+        new CAssumeEdge(
+            "1", location, predecessor, new CFANode("main"), CIntegerLiteralExpression.ONE, true);
+    CFAEdge blankEdge = new BlankEdge("", location, predecessor, new CFANode("f"), "blank");
+
+    AutomatonBoolExpr assumeCase = new AutomatonBoolExpr.MatchAssumeCase(true);
+    AutomatonBoolExpr callOfF = new AutomatonBoolExpr.MatchFunctionCall("f");
+    AutomatonBoolExpr callOfG = new AutomatonBoolExpr.MatchFunctionCall("g");
+    AutomatonBoolExpr assumeOrAssert =
+        new AutomatonBoolExpr.Or(
+            AutomatonBoolExpr.MatchAssumeEdge.INSTANCE, new AutomatonBoolExpr.MatchJavaAssert());
+    AutomatonBoolExpr cannot = new AutomatonBoolExpr.CPAQuery("none", "none");
+    AutomatonBoolExpr line2 =
+        new AutomatonBoolExpr.MatchLocationDescriptor(
+            null, new LineMatcher(Optional.empty(), 1, 2));
+    AutomatonBoolExpr line5 =
+        new AutomatonBoolExpr.MatchLocationDescriptor(
+            null, new LineMatcher(Optional.empty(), 5, 5));
+
+    AutomatonTransitionIndex index =
+        AutomatonTransitionIndex.of(
+            transitionsOn(assumeCase, callOfF, callOfG, assumeOrAssert, cannot));
+    assertThat(index.getCandidates(assumeEdge, AutomatonTransitionIndex::getLineSpan))
+        .asList()
+        .containsExactly(0, 3, 4)
+        .inOrder();
+    assertThat(index.getCandidates(blankEdge, AutomatonTransitionIndex::getLineSpan))
+        .asList()
+        .containsExactly(1, 3, 4)
+        .inOrder();
+
+    index =
+        AutomatonTransitionIndex.of(
+            transitionsOn(
+                line5,
+                line2,
+                new AutomatonBoolExpr.And(cannot, line5),
+                new AutomatonBoolExpr.And(line2, callOfF),
+                new AutomatonBoolExpr.Or(line5, assumeCase)));
+    assertThat(index.getCandidates(assumeEdge, AutomatonTransitionIndex::getLineSpan))
+        .asList()
+        .containsExactly(1, 4)
+        .inOrder();
+  }
+
+  private static List<AutomatonTransition> transitionsOn(AutomatonBoolExpr... pTriggers) {
+    List<AutomatonTransition> transitions = new ArrayList<>();
+    for (AutomatonBoolExpr trigger : pTriggers) {
+      transitions.add(
+          new AutomatonTransition(
+              trigger,
+              Collections.emptyList(),
+              Collections.emptyList(),
+              AutomatonInternalState.BOTTOM));
+    }
+    return transitions;
+  }
+
   @Test
   public void testJokerReplacementInPattern() {
     // tests the replacement of Joker expressions in the AST comparison
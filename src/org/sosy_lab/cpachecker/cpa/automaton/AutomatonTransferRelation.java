@@ -42,6 +42,7 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import org.sosy_lab.common.log.LogManager;
 import org.sosy_lab.cpachecker.cfa.model.BlankEdge;
@@ -54,6 +55,7 @@ import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
 import org.sosy_lab.cpachecker.core.interfaces.Precision;
 import org.sosy_lab.cpachecker.cpa.automaton.AutomatonExpression.ResultValue;
 import org.sosy_lab.cpachecker.cpa.automaton.AutomatonState.AutomatonUnknownState;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonTransitionIndex.LineSpan;
 import org.sosy_lab.cpachecker.cpa.threading.ThreadingState;
 import org.sosy_lab.cpachecker.cpa.threading.ThreadingTransferRelation;
 import org.sosy_lab.cpachecker.exceptions.CPATransferException;
@@ -70,27 +72,40 @@ class AutomatonTransferRelation extends SingleEdgeTransferRelation {
   private final LogManager logger;
   private final MachineModel machineModel;
 
-  private final TimerWrapper totalPostTime;
-  private final TimerWrapper matchTime;
-  private final TimerWrapper assertionsTime;
-  private final TimerWrapper actionTime;
-  private final TimerWrapper totalStrengthenTime;
+  /** The timers of the current thread, because timers must not be shared between threads. */
+  private final ThreadLocal<Timers> threadTimers;
   private final StatIntHist automatonSuccessors;
 
+  /** Line spans of the edges, used to pre-select transitions with location descriptors. */
+  private final Map<CFAEdge, LineSpan> lineSpans = new ConcurrentHashMap<>();
+
   public AutomatonTransferRelation(
       ControlAutomatonCPA pCpa, LogManager pLogger, MachineModel pMachineModel) {
     this.cpa = pCpa;
     this.logger = pLogger;
     this.machineModel = pMachineModel;
 
-    totalPostTime = pCpa.stats.totalPostTime.getNewTimer();
-    matchTime = pCpa.stats.matchTime.getNewTimer();
-    assertionsTime = pCpa.stats.assertionsTime.getNewTimer();
-    actionTime = pCpa.stats.actionTime.getNewTimer();
-    totalStrengthenTime = pCpa.stats.totalStrengthenTime.getNewTimer();
+    threadTimers = ThreadLocal.withInitial(() -> new Timers(pCpa.stats));
     automatonSuccessors = pCpa.stats.automatonSuccessors;
   }
 
+  private static class Timers {
+
+    private final TimerWrapper totalPostTime;
+    private final TimerWrapper matchTime;
+    private final TimerWrapper assertionsTime;
+    private final TimerWrapper actionTime;
+    private final TimerWrapper totalStrengthenTime;
+
+    private Timers(AutomatonStatistics pStats) {
+      totalPostTime = pStats.totalPostTime.getNewTimer();
+      matchTime = pStats.matchTime.getNewTimer();
+      assertionsTime = pStats.assertionsTime.getNewTimer();
+      actionTime = pStats.actionTime.getNewTimer();
+      totalStrengthenTime = pStats.totalStrengthenTime.getNewTimer();
+    }
+  }
+
   @Override
   public Collection<AutomatonState> getAbstractSuccessorsForEdge(
       AbstractState pElement, Precision pPrecision, CFAEdge pCfaEdge) throws CPATransferException {
@@ -111,7 +126,8 @@ class AutomatonTransferRelation extends SingleEdgeTransferRelation {
 
   private Collection<AutomatonState> getAbstractSuccessors0(
       AutomatonState pElement, CFAEdge pCfaEdge) throws CPATransferException {
-    totalPostTime.start();
+    Timers timers = threadTimers.get();
+    timers.totalPostTime.start();
     try {
       if (pElement instanceof AutomatonUnknownState) {
         // happens only inside MultiEdges,
@@ -122,7 +138,7 @@ class AutomatonTransferRelation extends SingleEdgeTransferRelation {
 
       return getFollowStates(pElement, null, pCfaEdge, false);
     } finally {
-      totalPostTime.stop();
+      timers.totalPostTime.stop();
     }
   }
 
@@ -137,6 +153,7 @@ class AutomatonTransferRelation extends SingleEdgeTransferRelation {
    */
   private Collection<AutomatonState> getFollowStates(AutomatonState state, List<AbstractState> otherElements, CFAEdge edge, boolean failOnUnknownMatch) throws CPATransferException {
     Preconditions.checkArgument(!(state instanceof AutomatonUnknownState));
+    Timers timers = threadTimers.get();
     if (state == cpa.getBottomState()) {
       return Collections.emptySet();
     }
@@ -149,7 +166,6 @@ class AutomatonTransferRelation extends SingleEdgeTransferRelation {
     Collection<AutomatonState> lSuccessors = Sets.newLinkedHashSetWithExpectedSize(2);
     AutomatonExpressionArguments exprArgs = new AutomatonExpressionArguments(state, state.getVars(), otherElements, edge, logger);
     boolean edgeMatched = false;
-    int failedMatches = 0;
     boolean nonDetState = state.getInternalState().isNonDetState();
 
     // these transitions cannot be evaluated until last, because they might have sideeffects on other CPAs (dont want to execute them twice)
@@ -157,12 +173,24 @@ class AutomatonTransferRelation extends SingleEdgeTransferRelation {
     // the list holds a Transition and the TransitionVariables generated during its match
     List<Pair<AutomatonTransition, Map<Integer, String>>> transitionsToBeTaken = new ArrayList<>(2);
 
-    for (AutomatonTransition t : state.getInternalState().getTransitions()) {
+    // all transitions that are not candidates for this edge would not match
+    List<AutomatonTransition> transitions = state.getInternalState().getTransitions();
+    timers.matchTime.start();
+    int[] candidates =
+        state
+            .getInternalState()
+            .getTransitionIndex()
+            .getCandidates(
+                edge, e -> lineSpans.computeIfAbsent(e, AutomatonTransitionIndex::getLineSpan));
+    timers.matchTime.stop();
+
+    for (int candidate : candidates) {
+      AutomatonTransition t = transitions.get(candidate);
       exprArgs.clearTransitionVariables();
 
-      matchTime.start();
+      timers.matchTime.start();
       ResultValue<Boolean> match = t.match(exprArgs);
-      matchTime.stop();
+      timers.matchTime.stop();
 
       if (match.canNotEvaluate()) {
         if (failOnUnknownMatch) {
@@ -174,9 +202,9 @@ class AutomatonTransferRelation extends SingleEdgeTransferRelation {
       } else {
         if (match.getValue()) {
           edgeMatched = true;
-          assertionsTime.start();
+          timers.assertionsTime.start();
           ResultValue<Boolean> assertionsHold = t.assertionsHold(exprArgs);
-          assertionsTime.stop();
+          timers.assertionsTime.stop();
 
           if (assertionsHold.canNotEvaluate()) {
             if (failOnUnknownMatch) {
@@ -217,9 +245,6 @@ class AutomatonTransferRelation extends SingleEdgeTransferRelation {
             // not a nondet State, break on the first matching edge
             break;
           }
-        } else {
-          // do nothing if the edge did not match
-          failedMatches++;
         }
       }
     }
@@ -230,12 +255,12 @@ class AutomatonTransferRelation extends SingleEdgeTransferRelation {
         // this transition will be taken. copy the variables
         AutomatonTransition t = pair.getFirst();
         Map<Integer, String> transitionVariables = pair.getSecond();
-        actionTime.start();
+        timers.actionTime.start();
         Map<String, AutomatonVariable> newVars = deepCloneVars(state.getVars());
         exprArgs.setAutomatonVariables(newVars);
         exprArgs.putTransitionVariables(transitionVariables);
         t.executeActions(exprArgs);
-        actionTime.stop();
+        timers.actionTime.stop();
 
         AutomatonSafetyProperty violatedProperty = null;
         if (t.getFollowState().isTarget()) {
@@ -263,6 +288,8 @@ class AutomatonTransferRelation extends SingleEdgeTransferRelation {
       return lSuccessors;
     } else {
       // stay in same state, no transitions to be executed here (no transition matched)
+      // (this includes the transitions that were skipped by the index)
+      int failedMatches = transitions.size();
       AutomatonState stateNewCounters = AutomatonState.automatonStateFactory(state.getVars(), state.getInternalState(), cpa, state.getMatches(), state.getFailedMatches() + failedMatches, null);
       return Collections.singleton(stateNewCounters);
     }
@@ -287,11 +314,12 @@ class AutomatonTransferRelation extends SingleEdgeTransferRelation {
       Precision pPrecision)
       throws CPATransferException {
     if (pElement instanceof AutomatonUnknownState) {
-      totalStrengthenTime.start();
+      Timers timers = threadTimers.get();
+      timers.totalStrengthenTime.start();
       Collection<AbstractState> successors =
           strengthenAutomatonUnknownState(
               (AutomatonUnknownState) pElement, pOtherElements, pCfaEdge);
-      totalStrengthenTime.stop();
+      timers.totalStrengthenTime.stop();
       assert !from(successors).anyMatch(instanceOf(AutomatonUnknownState.class));
       return successors;
     }
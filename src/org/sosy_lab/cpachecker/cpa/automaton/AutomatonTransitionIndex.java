@@ -0,0 +1,332 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.automaton;
+
+import com.google.common.collect.Sets;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+import org.sosy_lab.cpachecker.cfa.ast.FileLocation;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdgeType;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonBoolExpr.And;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonBoolExpr.MatchAssumeCase;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonBoolExpr.MatchAssumeEdge;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonBoolExpr.MatchFunctionCall;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonBoolExpr.MatchFunctionCallStatement;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonBoolExpr.MatchFunctionExit;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonBoolExpr.MatchFunctionPointerAssumeCase;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonBoolExpr.MatchJavaAssert;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonBoolExpr.MatchLocationDescriptor;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonBoolExpr.MatchSplitDeclaration;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonBoolExpr.Or;
+import org.sosy_lab.cpachecker.cpa.automaton.SourceLocationMatcher.LineMatcher;
+import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon;
+
+/**
+ * Pre-selects the transitions of an {@link AutomatonInternalState} that may match a given {@link
+ * CFAEdge}, so that large witness and specification automata do not need to evaluate every
+ * trigger of a state on every edge.
+ *
+ * <p>When the state is built, the trigger of each transition is reduced to a guard that consists
+ * of the edge types on which the trigger can be anything but FALSE, the function the successor of
+ * the edge must belong to, and the range of original source lines the edge must touch. Only the
+ * cheap and statically decidable parts of a trigger contribute to its guard, everything else does
+ * not restrict it. A transition whose guard rejects an edge would evaluate to FALSE on that edge
+ * and can thus be skipped without changing the result of the transfer relation.
+ */
+final class AutomatonTransitionIndex {
+
+  private static final Set<CFAEdgeType> ALL_EDGE_TYPES =
+      Sets.immutableEnumSet(EnumSet.allOf(CFAEdgeType.class));
+
+  private final int[] allTransitions;
+
+  private final EnumMap<CFAEdgeType, int[]> transitionsByEdgeType;
+
+  /** The function names required by the guards, or null if no guard requires one. */
+  private final @Nullable String[] successorFunctions;
+
+  /** The line ranges required by the guards, or null if no guard requires one. */
+  private final @Nullable int[] startLines;
+
+  private final @Nullable int[] endLines;
+
+  private AutomatonTransitionIndex(List<Guard> pGuards) {
+    int size = pGuards.size();
+    allTransitions = new int[size];
+    Arrays.setAll(allTransitions, i -> i);
+
+    transitionsByEdgeType = new EnumMap<>(CFAEdgeType.class);
+    for (CFAEdgeType edgeType : CFAEdgeType.values()) {
+      transitionsByEdgeType.put(
+          edgeType,
+          pGuards.stream().allMatch(g -> g.edgeTypes.contains(edgeType))
+              ? allTransitions
+              : Arrays.stream(allTransitions)
+                  .filter(i -> pGuards.get(i).edgeTypes.contains(edgeType))
+                  .toArray());
+    }
+
+    if (pGuards.stream().anyMatch(g -> g.successorFunction != null)) {
+      successorFunctions = pGuards.stream().map(g -> g.successorFunction).toArray(String[]::new);
+    } else {
+      successorFunctions = null;
+    }
+
+    if (pGuards.stream().anyMatch(Guard::hasLineBound)) {
+      startLines = pGuards.stream().mapToInt(g -> g.startLine).toArray();
+      endLines = pGuards.stream().mapToInt(g -> g.endLine).toArray();
+    } else {
+      startLines = null;
+      endLines = null;
+    }
+  }
+
+  static AutomatonTransitionIndex of(List<AutomatonTransition> pTransitions) {
+    return new AutomatonTransitionIndex(
+        pTransitions.stream().map(t -> guardOf(t.getTrigger())).collect(Collectors.toList()));
+  }
+
+  /**
+   * Returns the positions of the transitions that may match the given edge, in ascending order.
+   * All other transitions would not match the edge.
+   *
+   * @param pEdge the edge to match the transitions against.
+   * @param pLineSpans provides the line span of an edge, which may be cached by the caller, as its
+   *     computation is about as expensive as evaluating a location descriptor.
+   */
+  int[] getCandidates(CFAEdge pEdge, Function<CFAEdge, LineSpan> pLineSpans) {
+    int[] candidates = transitionsByEdgeType.get(pEdge.getEdgeType());
+    if (candidates == null) {
+      candidates = allTransitions;
+    }
+    if (candidates.length == 0 || (successorFunctions == null && startLines == null)) {
+      return candidates;
+    }
+
+    String successorFunction = pEdge.getSuccessor().getFunctionName();
+    LineSpan lineSpan = null;
+    int[] result = new int[candidates.length];
+    int count = 0;
+    for (int i : candidates) {
+      if (successorFunctions != null
+          && successorFunctions[i] != null
+          && !successorFunctions[i].equals(successorFunction)) {
+        continue;
+      }
+      if (startLines != null
+          && (startLines[i] != Integer.MIN_VALUE || endLines[i] != Integer.MAX_VALUE)) {
+        if (lineSpan == null) {
+          lineSpan = pLineSpans.apply(pEdge);
+        }
+        if (!lineSpan.overlaps(startLines[i], endLines[i])) {
+          continue;
+        }
+      }
+      result[count++] = i;
+    }
+    return count == candidates.length ? candidates : Arrays.copyOf(result, count);
+  }
+
+  /**
+   * Computes the range of original source lines that is covered by the file locations that a
+   * {@link MatchLocationDescriptor} considers for the given edge.
+   */
+  static LineSpan getLineSpan(CFAEdge pEdge) {
+    if (AutomatonGraphmlCommon.isMainFunctionEntry(pEdge)) {
+      // the locations of the main-function entry depend on the entry node of the descriptor
+      return LineSpan.ANY;
+    }
+    // the main-entry node is only accessed for the edge handled above
+    Set<FileLocation> locations = AutomatonGraphmlCommon.getFileLocationsFromCfaEdge(pEdge, null);
+    if (locations.isEmpty()) {
+      return LineSpan.EMPTY;
+    }
+    int first = Integer.MAX_VALUE;
+    int last = Integer.MIN_VALUE;
+    for (FileLocation location : locations) {
+      first = Math.min(first, location.getStartingLineInOrigin());
+      last = Math.max(last, location.getEndingLineInOrigin());
+    }
+    return new LineSpan(first, last);
+  }
+
+  private static Guard guardOf(AutomatonBoolExpr pTrigger) {
+    if (pTrigger == AutomatonBoolExpr.FALSE) {
+      return Guard.NEVER;
+
+    } else if (pTrigger instanceof And) {
+      And and = (And) pTrigger;
+      return guardOf(and.getA()).and(guardOf(and.getB()));
+
+    } else if (pTrigger instanceof Or) {
+      Or or = (Or) pTrigger;
+      return guardOf(or.getA()).or(guardOf(or.getB()));
+
+    } else if (pTrigger == MatchAssumeEdge.INSTANCE
+        || pTrigger instanceof MatchAssumeCase
+        || pTrigger instanceof MatchFunctionPointerAssumeCase) {
+      return Guard.ofEdgeTypes(EnumSet.of(CFAEdgeType.AssumeEdge));
+
+    } else if (pTrigger instanceof MatchFunctionCallStatement) {
+      return Guard.ofEdgeTypes(EnumSet.of(CFAEdgeType.StatementEdge));
+
+    } else if (pTrigger instanceof MatchFunctionCall) {
+      // direct calls and the entry of the main function
+      return new Guard(
+          EnumSet.of(CFAEdgeType.FunctionCallEdge, CFAEdgeType.BlankEdge),
+          ((MatchFunctionCall) pTrigger).getFunctionName(),
+          Integer.MIN_VALUE,
+          Integer.MAX_VALUE);
+
+    } else if (pTrigger instanceof MatchFunctionExit) {
+      return Guard.ofEdgeTypes(
+          EnumSet.of(
+              CFAEdgeType.FunctionReturnEdge,
+              CFAEdgeType.ReturnStatementEdge,
+              CFAEdgeType.BlankEdge));
+
+    } else if (pTrigger instanceof MatchJavaAssert) {
+      return Guard.ofEdgeTypes(EnumSet.of(CFAEdgeType.BlankEdge));
+
+    } else if (pTrigger == MatchSplitDeclaration.INSTANCE) {
+      return Guard.ofEdgeTypes(EnumSet.of(CFAEdgeType.DeclarationEdge));
+
+    } else if (pTrigger instanceof MatchLocationDescriptor) {
+      java.util.function.Predicate<FileLocation> descriptor =
+          ((MatchLocationDescriptor) pTrigger).getDescriptor();
+      if (descriptor instanceof LineMatcher && ((LineMatcher) descriptor).isOrigin()) {
+        LineMatcher lineMatcher = (LineMatcher) descriptor;
+        return new Guard(
+            ALL_EDGE_TYPES,
+            null,
+            lineMatcher.getStartLineNumber(),
+            lineMatcher.getEndLineNumber());
+      }
+    }
+    return Guard.ANY;
+  }
+
+  /** A range of lines in the original source, possibly empty. */
+  static final class LineSpan {
+
+    private static final LineSpan ANY = new LineSpan(Integer.MIN_VALUE, Integer.MAX_VALUE);
+
+    private static final LineSpan EMPTY = new LineSpan(Integer.MAX_VALUE, Integer.MIN_VALUE);
+
+    private final int first;
+    private final int last;
+
+    private LineSpan(int pFirst, int pLast) {
+      first = pFirst;
+      last = pLast;
+    }
+
+    private boolean overlaps(int pStart, int pEnd) {
+      return pStart <= last && first <= pEnd;
+    }
+  }
+
+  /**
+   * Over-approximates the edges on which a trigger does not evaluate to FALSE. Unbounded line
+   * ranges are represented by {@link Integer#MIN_VALUE} and {@link Integer#MAX_VALUE}.
+   */
+  private static final class Guard {
+
+    private static final Guard ANY =
+        new Guard(ALL_EDGE_TYPES, null, Integer.MIN_VALUE, Integer.MAX_VALUE);
+
+    private static final Guard NEVER =
+        new Guard(EnumSet.noneOf(CFAEdgeType.class), null, Integer.MIN_VALUE, Integer.MAX_VALUE);
+
+    private final Set<CFAEdgeType> edgeTypes;
+    private final @Nullable String successorFunction;
+    private final int startLine;
+    private final int endLine;
+
+    private Guard(
+        Set<CFAEdgeType> pEdgeTypes,
+        @Nullable String pSuccessorFunction,
+        int pStartLine,
+        int pEndLine) {
+      edgeTypes = Sets.immutableEnumSet(pEdgeTypes);
+      successorFunction = pSuccessorFunction;
+      startLine = pStartLine;
+      endLine = pEndLine;
+    }
+
+    private static Guard ofEdgeTypes(Set<CFAEdgeType> pEdgeTypes) {
+      return new Guard(pEdgeTypes, null, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    private boolean isNever() {
+      return edgeTypes.isEmpty();
+    }
+
+    private boolean hasLineBound() {
+      return startLine != Integer.MIN_VALUE || endLine != Integer.MAX_VALUE;
+    }
+
+    /** A conjunction is FALSE as soon as one of its operands is. */
+    private Guard and(Guard pOther) {
+      Set<CFAEdgeType> types = Sets.intersection(edgeTypes, pOther.edgeTypes);
+      if (successorFunction != null
+          && pOther.successorFunction != null
+          && !successorFunction.equals(pOther.successorFunction)) {
+        return NEVER;
+      }
+      int start = Math.max(startLine, pOther.startLine);
+      int end = Math.min(endLine, pOther.endLine);
+      if (types.isEmpty() || start > end) {
+        return NEVER;
+      }
+      return new Guard(
+          types,
+          successorFunction != null ? successorFunction : pOther.successorFunction,
+          start,
+          end);
+    }
+
+    /** A disjunction is FALSE only if both of its operands are. */
+    private Guard or(Guard pOther) {
+      if (isNever()) {
+        return pOther;
+      } else if (pOther.isNever()) {
+        return this;
+      }
+      return new Guard(
+          Sets.union(edgeTypes, pOther.edgeTypes),
+          Objects.equals(successorFunction, pOther.successorFunction) ? successorFunction : null,
+          Math.min(startLine, pOther.startLine),
+          Math.max(endLine, pOther.endLine));
+    }
+  }
+}
@@ -0,0 +1,362 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.automaton;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.google.common.collect.Sets;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.Nullable;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonGraphmlParser.WitnessParseException;
+import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.GraphMLTag;
+import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.KeyDef;
+import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.NodeFlag;
+
+/**
+ * The parts of a GraphML witness that are relevant for building a witness automaton, i.e., the
+ * graph, its nodes and its edges together with their attributes and data.
+ *
+ * <p>The document is read with a streaming StAX parser instead of building a DOM, such that the
+ * memory consumption is proportional to the size of the witness automaton and not to the size of
+ * the XML document. Strings like file names, line numbers, and assumptions occur on many edges of
+ * large witnesses and are interned while reading.
+ */
+final class GraphMLDocumentData {
+
+  private static final String TOO_MANY_GRAPHS_ERROR_MESSAGE =
+      "The witness file must describe exactly one witness automaton.";
+
+  private final GraphMLElement graph;
+
+  private final ImmutableMap<String, GraphMLElement> idToNodeMap;
+
+  private final ImmutableList<GraphMLElement> transitions;
+
+  private GraphMLDocumentData(
+      GraphMLElement pGraph,
+      ImmutableMap<String, GraphMLElement> pIdToNodeMap,
+      ImmutableList<GraphMLElement> pTransitions) {
+    graph = checkNotNull(pGraph);
+    idToNodeMap = pIdToNodeMap;
+    transitions = pTransitions;
+  }
+
+  /**
+   * Read a GraphML document from the given stream.
+   *
+   * @param pInputStream the (already decompressed) stream to read from.
+   * @param pGraphDataOnly if set, only the data of the graph itself is stored and all nodes and
+   *     edges are skipped. This is sufficient to determine the type of a witness.
+   * @throws IOException if reading from the stream fails.
+   * @throws WitnessParseException if the stream does not contain valid XML or no valid graph.
+   */
+  static GraphMLDocumentData parse(InputStream pInputStream, boolean pGraphDataOnly)
+      throws IOException, WitnessParseException {
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+    // witnesses do not need DTDs, and we do not want to access external resources
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+    XMLStreamReader reader = null;
+    try {
+      reader = factory.createXMLStreamReader(pInputStream);
+      return new StreamingReader(reader, pGraphDataOnly).read();
+    } catch (XMLStreamException e) {
+      if (e.getNestedException() instanceof IOException) {
+        throw (IOException) e.getNestedException();
+      }
+      throw new WitnessParseException(e);
+    } finally {
+      if (reader != null) {
+        try {
+          reader.close();
+        } catch (XMLStreamException e) {
+          // only frees resources of the parser, the stream is closed by the caller
+        }
+      }
+    }
+  }
+
+  GraphMLElement getGraph() {
+    return graph;
+  }
+
+  Iterable<GraphMLElement> getTransitions() {
+    return transitions;
+  }
+
+  Set<String> getNodeIds() {
+    return idToNodeMap.keySet();
+  }
+
+  EnumSet<NodeFlag> getNodeFlags(GraphMLElement pStateNode) {
+    EnumSet<NodeFlag> result = EnumSet.noneOf(NodeFlag.class);
+    for (String key : pStateNode.data.keySet()) {
+      NodeFlag flag = NodeFlag.getNodeFlagByKey(key);
+      if (flag != null) {
+        result.add(flag);
+      }
+    }
+    return result;
+  }
+
+  @Nullable GraphMLElement getNodeWithId(String nodeId) {
+    return idToNodeMap.get(nodeId);
+  }
+
+  static String getAttributeValue(
+      GraphMLElement of, String attributeName, String exceptionMessage)
+      throws WitnessParseException {
+    String attribute = of.getAttribute(attributeName);
+    if (attribute == null) {
+      throw new WitnessParseException(exceptionMessage);
+    }
+    return attribute;
+  }
+
+  static Set<String> getDataOnNode(GraphMLElement node, final KeyDef dataKey) {
+    checkNotNull(node);
+    List<String> values = node.data.get(dataKey.id);
+    if (values.isEmpty() && dataKey.equals(KeyDef.WITNESS_TYPE)) {
+      // Backwards-compatibility: type/graph-type
+      values = node.data.get("type");
+      if (!values.isEmpty()) {
+        values = values.subList(0, 1);
+      }
+    }
+    return Sets.newHashSet(values);
+  }
+
+  /** A graph, node, or edge of a GraphML document with its attributes and data values. */
+  static final class GraphMLElement {
+
+    private final GraphMLTag tag;
+
+    private final ImmutableMap<String, String> attributes;
+
+    /** the values of all data children, indexed by their key. */
+    private final ImmutableListMultimap<String, String> data;
+
+    private GraphMLElement(
+        GraphMLTag pTag,
+        ImmutableMap<String, String> pAttributes,
+        ImmutableListMultimap<String, String> pData) {
+      tag = pTag;
+      attributes = pAttributes;
+      data = pData;
+    }
+
+    @Nullable String getAttribute(String pName) {
+      return attributes.get(pName);
+    }
+
+    @Override
+    public String toString() {
+      return "<" + tag + " " + attributes + ">";
+    }
+  }
+
+  /** Reads one document, intended to be used only once. */
+  private static final class StreamingReader {
+
+    private final XMLStreamReader reader;
+    private final boolean graphDataOnly;
+
+    /** Only used while reading, such that the interned strings can be collected afterwards. */
+    private final Interner<String> interner = Interners.newStrongInterner();
+
+    private @Nullable GraphMLElement graph = null;
+    private int numberOfGraphs = 0;
+    private final ImmutableMap.Builder<String, GraphMLElement> nodes = ImmutableMap.builder();
+    private final ImmutableList.Builder<GraphMLElement> edges = ImmutableList.builder();
+
+    /** graph, node, and edge elements that are currently open. */
+    private final Deque<ElementBuilder> openElements = new ArrayDeque<>();
+
+    private StreamingReader(XMLStreamReader pReader, boolean pGraphDataOnly) {
+      reader = pReader;
+      graphDataOnly = pGraphDataOnly;
+    }
+
+    private GraphMLDocumentData read() throws XMLStreamException, WitnessParseException {
+      while (reader.hasNext()) {
+        switch (reader.next()) {
+          case XMLStreamConstants.START_ELEMENT:
+            handleStartElement();
+            break;
+          case XMLStreamConstants.END_ELEMENT:
+            handleEndElement();
+            break;
+          default:
+            // ignore whitespace, comments, etc.
+        }
+      }
+      if (numberOfGraphs != 1) {
+        throw new WitnessParseException(TOO_MANY_GRAPHS_ERROR_MESSAGE);
+      }
+      return new GraphMLDocumentData(graph, nodes.build(), edges.build());
+    }
+
+    private void handleStartElement() throws XMLStreamException, WitnessParseException {
+      String name = reader.getLocalName();
+      if (name.equals(GraphMLTag.GRAPH.text)) {
+        numberOfGraphs++;
+        openElements.push(new ElementBuilder(GraphMLTag.GRAPH, readAttributes()));
+
+      } else if (name.equals(GraphMLTag.NODE.text) || name.equals(GraphMLTag.EDGE.text)) {
+        if (graphDataOnly) {
+          skipElement();
+        } else {
+          GraphMLTag tag = name.equals(GraphMLTag.NODE.text) ? GraphMLTag.NODE : GraphMLTag.EDGE;
+          openElements.push(new ElementBuilder(tag, readAttributes()));
+        }
+
+      } else if (name.equals(GraphMLTag.DATA.text)) {
+        String key = reader.getAttributeValue(null, "key");
+        if (key == null) {
+          throw new WitnessParseException("Every data element must have a key attribute!");
+        }
+        String value = readText();
+        if (!openElements.isEmpty()) {
+          openElements.peek().data.put(interner.intern(key), interner.intern(value));
+        }
+      }
+    }
+
+    private void handleEndElement() throws WitnessParseException {
+      String name = reader.getLocalName();
+      if (name.equals(GraphMLTag.GRAPH.text)
+          || name.equals(GraphMLTag.NODE.text)
+          || name.equals(GraphMLTag.EDGE.text)) {
+        GraphMLElement element = openElements.pop().build();
+        switch (element.tag) {
+          case GRAPH:
+            graph = element;
+            break;
+          case NODE:
+            nodes.put(
+                getAttributeValue(element, "id", "Every state needs an ID!"), element);
+            break;
+          case EDGE:
+            edges.add(element);
+            break;
+          default:
+            throw new AssertionError("unexpected element " + element);
+        }
+      }
+    }
+
+    private ImmutableMap<String, String> readAttributes() {
+      int count = reader.getAttributeCount();
+      if (count == 0) {
+        return ImmutableMap.of();
+      }
+      ImmutableMap.Builder<String, String> attributes = ImmutableMap.builder();
+      for (int i = 0; i < count; i++) {
+        attributes.put(
+            interner.intern(reader.getAttributeLocalName(i)),
+            interner.intern(reader.getAttributeValue(i)));
+      }
+      return attributes.build();
+    }
+
+    /** Return the text content of the current element and move to its end. */
+    private String readText() throws XMLStreamException {
+      StringBuilder text = new StringBuilder();
+      int depth = 0;
+      while (true) {
+        switch (reader.next()) {
+          case XMLStreamConstants.CHARACTERS:
+          case XMLStreamConstants.CDATA:
+          case XMLStreamConstants.SPACE:
+            text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+            break;
+          case XMLStreamConstants.START_ELEMENT:
+            depth++;
+            break;
+          case XMLStreamConstants.END_ELEMENT:
+            if (depth == 0) {
+              return text.toString();
+            }
+            depth--;
+            break;
+          default:
+            // ignore comments and processing instructions
+        }
+      }
+    }
+
+    /** Move to the end of the current element without storing anything. */
+    private void skipElement() throws XMLStreamException {
+      int depth = 0;
+      while (true) {
+        switch (reader.next()) {
+          case XMLStreamConstants.START_ELEMENT:
+            depth++;
+            break;
+          case XMLStreamConstants.END_ELEMENT:
+            if (depth == 0) {
+              return;
+            }
+            depth--;
+            break;
+          default:
+            // ignore content
+        }
+      }
+    }
+  }
+
+  private static final class ElementBuilder {
+
+    private final GraphMLTag tag;
+    private final ImmutableMap<String, String> attributes;
+    private final ImmutableListMultimap.Builder<String, String> data =
+        ImmutableListMultimap.builder();
+
+    private ElementBuilder(GraphMLTag pTag, ImmutableMap<String, String> pAttributes) {
+      tag = pTag;
+      attributes = pAttributes;
+    }
+
+    private GraphMLElement build() {
+      return new GraphMLElement(tag, attributes, data.build());
+    }
+  }
+}
@@ -36,6 +36,7 @@ import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.logging.Level;
 import org.sosy_lab.cpachecker.cfa.blocks.Block;
@@ -49,6 +50,7 @@ import org.sosy_lab.cpachecker.cpa.arg.ARGState;
 import org.sosy_lab.cpachecker.cpa.arg.path.ARGPath;
 import org.sosy_lab.cpachecker.cpa.bam.BAMSubgraphComputer.BackwardARGState;
 import org.sosy_lab.cpachecker.cpa.bam.cache.BAMCacheAggressiveImpl;
+import org.sosy_lab.cpachecker.cpa.bam.cache.BAMDataManager;
 import org.sosy_lab.cpachecker.util.AbstractStates;
 import org.sosy_lab.cpachecker.util.Pair;
 import org.sosy_lab.cpachecker.util.Precisions;
@@ -113,7 +115,9 @@ public class ARGInPlaceSubtreeRemover extends ARGSubtreeRemover {
 
     if (mainReachedSet.asReachedSet().contains(cutPointAsArgState)) {
       assert relevantCallStates.isEmpty();
+      Set<ARGState> removedStates = getStatesToRelease(data, cutPointAsArgState);
       mainReachedSet.removeSubtree(cutPointAsArgState, pNewPrecisions, pNewPrecisionTypes);
+      data.removeStates(removedStates);
       // nothing else needed, because cutPoint is not at entry- or exit-location of a block.
 
     } else {
@@ -162,12 +166,16 @@ public class ARGInPlaceSubtreeRemover extends ARGSubtreeRemover {
         // the main-reachedset contains only the root, exit-states and targets.
         // we assume, that the current refinement was caused by a target-state.
         assert firstState.getChildren().contains(lastState);
+        Set<ARGState> removedStates = getStatesToRelease(data, lastState);
         mainReachedSet.removeSubtree(lastState);
+        data.removeStates(removedStates);
       } else {
         BackwardARGState stateToRemove = relevantCallStates.get(0);
         Pair<List<Precision>, List<Predicate<? super Precision>>> p =
             precUpdate.apply(stateToRemove.getARGState());
+        Set<ARGState> removedStates = getStatesToRelease(data, stateToRemove.getARGState());
         mainReachedSet.removeSubtree(stateToRemove.getARGState(), p.getFirst(), p.getSecond());
+        data.removeStates(removedStates);
       }
     }
   }
@@ -186,15 +194,16 @@ public class ARGInPlaceSubtreeRemover extends ARGSubtreeRemover {
   }
 
   /** just remove a state and its subtree from the given reachedSet. */
-  static void removeSubtree(ARGReachedSet reachedSet, ARGState argElement)
+  static void removeSubtree(ARGReachedSet reachedSet, ARGState argElement, BAMDataManager data)
       throws InterruptedException {
     if (AbstractBAMTransferRelation.isHeadOfMainFunction(extractLocation(argElement))) {
       assert ((ARGState)reachedSet.asReachedSet().getFirstState()).getChildren().contains(
           reachedSet.asReachedSet().getLastState());
-      reachedSet.removeSubtree((ARGState)reachedSet.asReachedSet().getLastState());
-    } else {
-      reachedSet.removeSubtree(argElement);
+      argElement = (ARGState) reachedSet.asReachedSet().getLastState();
     }
+    Set<ARGState> removedStates = getStatesToRelease(data, argElement);
+    reachedSet.removeSubtree(argElement);
+    data.removeStates(removedStates);
   }
 
   private void removeCachedSubtreeIfPossible(
@@ -240,7 +249,7 @@ public class ARGInPlaceSubtreeRemover extends ARGSubtreeRemover {
     ARGReachedSet argReachedSet = new ARGReachedSet(reachedSet);
     if (pNewPrecisions.isEmpty()) {
       // no new precision needed, simply remove the subtree
-      removeSubtree(argReachedSet, removeElement);
+      removeSubtree(argReachedSet, removeElement, data);
 
     } else {
       final Pair<Precision, Predicate<? super Precision>> newPrecision = getUpdatedPrecision(
@@ -253,7 +262,9 @@ public class ARGInPlaceSubtreeRemover extends ARGSubtreeRemover {
         logger.log(Level.FINER, "creating reached-set with new precision");
         data.createAndRegisterNewReachedSet(reducedRootState, newPrecision.getFirst(), rootSubtree);
       } else {
+        Set<ARGState> removedStates = getStatesToRelease(data, removeElement);
         argReachedSet.removeSubtree(removeElement, newPrecision.getFirst(), newPrecision.getSecond());
+        data.removeStates(removedStates);
       }
     }
 
@@ -27,12 +27,14 @@ import static org.sosy_lab.cpachecker.util.AbstractStates.extractLocation;
 
 import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Deque;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.sosy_lab.common.log.LogManager;
 import org.sosy_lab.cpachecker.cfa.blocks.BlockPartitioning;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
@@ -76,6 +78,15 @@ public abstract class ARGSubtreeRemover {
                      List<Predicate<? super Precision>> pNewPrecisionTypes)
       throws InterruptedException;
 
+  /**
+   * Return the states that will be removed together with the given state, such that their BAM data
+   * can be released afterwards via {@link BAMDataManager#removeStates}. For an unbounded cache, the
+   * data is kept and nothing is returned.
+   */
+  static Set<ARGState> getStatesToRelease(BAMDataManager pData, ARGState pState) {
+    return pData.getCache().isBounded() ? pState.getSubgraph() : ImmutableSet.of();
+  }
+
   protected ARGState getReachedState(ARGState state) {
     return (ARGState) data.getInnermostState(((BackwardARGState) state).getARGState());
   }
@@ -111,6 +111,15 @@ public class BAMCPA extends AbstractBAMCPA implements StatisticsProvider, ProofC
         this,
         data);
 
+    if (cache.isBounded()
+        && (handleRecursiveProcedures
+            || useCopyOnWriteRefinement()
+            || bamPccManager.isPCCEnabled())) {
+      throw new InvalidConfigurationException(
+          "Option cpa.bam.maxCachedStates is not supported for recursive procedures, "
+              + "copy-on-write refinement and proof generation.");
+    }
+
     if (handleRecursiveProcedures) {
 
       transfer =
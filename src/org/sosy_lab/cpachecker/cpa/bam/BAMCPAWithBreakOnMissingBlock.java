@@ -35,9 +35,7 @@ import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysis;
 import org.sosy_lab.cpachecker.core.interfaces.StopOperator;
 import org.sosy_lab.cpachecker.core.interfaces.TransferRelation;
 import org.sosy_lab.cpachecker.core.reachedset.ReachedSetFactory;
-import org.sosy_lab.cpachecker.cpa.bam.cache.BAMCache;
-import org.sosy_lab.cpachecker.cpa.bam.cache.BAMCacheImpl;
-import org.sosy_lab.cpachecker.cpa.bam.cache.BAMCacheSynchronized;
+import org.sosy_lab.cpachecker.cpa.bam.cache.BAMCacheConcurrent;
 import org.sosy_lab.cpachecker.cpa.bam.cache.BAMDataManager;
 import org.sosy_lab.cpachecker.cpa.bam.cache.BAMDataManagerImpl;
 import org.sosy_lab.cpachecker.cpa.bam.cache.BAMDataManagerSynchronized;
@@ -49,7 +47,7 @@ public class BAMCPAWithBreakOnMissingBlock extends AbstractBAMCPA {
     return AutomaticCPAFactory.forType(BAMCPAWithBreakOnMissingBlock.class);
   }
 
-  private final BAMCache cache;
+  private final BAMCacheConcurrent cache;
   private final BAMDataManager data;
 
   public BAMCPAWithBreakOnMissingBlock(
@@ -63,7 +61,7 @@ public class BAMCPAWithBreakOnMissingBlock extends AbstractBAMCPA {
       throws InvalidConfigurationException, CPAException {
     super(pCpa, pConfig, pLogger, pShutdownNotifier, pSpecification, pCfa);
 
-    cache = new BAMCacheSynchronized(new BAMCacheImpl(pConfig, getReducer(), pLogger));
+    cache = new BAMCacheConcurrent(pConfig, getReducer(), pLogger);
     data =
         new BAMDataManagerSynchronized(new BAMDataManagerImpl(cache, reachedsetFactory, pLogger));
   }
@@ -84,7 +82,7 @@ public class BAMCPAWithBreakOnMissingBlock extends AbstractBAMCPA {
     return new BAMStopOperatorWithBreakOnMissingBlock(getWrappedCpa().getStopOperator());
   }
 
-  public BAMCache getCache() {
+  public BAMCacheConcurrent getCache() {
     return cache;
   }
 
@@ -166,7 +166,7 @@ public class BAMSubgraphComputer {
         } catch (MissingBlockException e) {
           assert !useCopyOnWriteRefinement
               : "CopyOnWrite-refinement should never cause missing blocks: " + e;
-          ARGInPlaceSubtreeRemover.removeSubtree(reachedSet, currentState);
+          ARGInPlaceSubtreeRemover.removeSubtree(reachedSet, currentState, data);
           throw new MissingBlockException();
         }
 
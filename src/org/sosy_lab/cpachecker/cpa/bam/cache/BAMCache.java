@@ -24,6 +24,7 @@
 package org.sosy_lab.cpachecker.cpa.bam.cache;
 
 import java.util.Collection;
+import java.util.function.Consumer;
 import javax.annotation.Nullable;
 import org.sosy_lab.cpachecker.cfa.blocks.Block;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
@@ -91,4 +92,18 @@ public interface BAMCache extends Statistics {
    *  all intermediate cache entries can not be stored due to large memory consumption,
    *  then there is a way to clear all caches and to restore ARG completely. */
   void clear();
+
+  /**
+   * Return whether the cache evicts entries to stay within a memory budget. The {@link
+   * BAMDataManager} is informed about evicted reached-sets via the eviction listener.
+   */
+  default boolean isBounded() {
+    return false;
+  }
+
+  /**
+   * Register a listener that is called for each reached-set that is evicted from the cache. A cache
+   * that is not bounded never evicts reached-sets and ignores the listener.
+   */
+  default void setEvictionListener(@SuppressWarnings("unused") Consumer<ReachedSet> pListener) {}
 }
\ No newline at end of file
@@ -87,6 +87,11 @@ public class BAMCacheAggressiveImpl extends BAMCacheImpl {
     return super.getIfNotExistant(stateKey, precisionKey, context, hash);
   }
 
+  @Override
+  protected void onEviction(ReachedSet pReached) {
+    impreciseReachedCache.values().removeIf(reached -> reached == pReached);
+  }
+
   /** Return the cache hit with the closest precision (used for aggressive caching). */
   private Pair<ReachedSet, Collection<AbstractState>> lookForSimilarState(
       AbstractState pStateKey, Precision pPrecisionKey, Block pContext) {
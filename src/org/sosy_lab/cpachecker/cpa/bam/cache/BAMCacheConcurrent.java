@@ -0,0 +1,440 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.bam.cache;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.sosy_lab.cpachecker.util.statistics.StatisticsUtils.toPercent;
+
+import com.google.common.collect.FluentIterable;
+import java.io.PrintStream;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import javax.annotation.Nullable;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.Option;
+import org.sosy_lab.common.configuration.Options;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.blocks.Block;
+import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.interfaces.Reducer;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
+import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
+import org.sosy_lab.cpachecker.cpa.arg.ARGState;
+import org.sosy_lab.cpachecker.util.Pair;
+import org.sosy_lab.cpachecker.util.statistics.StatCounter;
+import org.sosy_lab.cpachecker.util.statistics.StatHist;
+import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer;
+import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer.TimerWrapper;
+
+/**
+ * A thread-safe implementation of {@link BAMCache} without a global lock.
+ *
+ * <p>All data for one block entry (reached-set, result-states and block-ARG) is stored in a single
+ * {@link Entry} of a {@link ConcurrentHashMap}, such that threads working on different block
+ * entries do not block each other. The reached-set of an entry is held as a future, which allows
+ * {@link #getOrCreateReachedSet} to create the reached-set for a block entry exactly once, even if
+ * several threads request it at the same time. Threads asking for an entry that is currently being
+ * created wait for the creating thread instead of creating a second reached-set.
+ *
+ * <p>The memory budget of {@link BAMCacheImpl} is not supported, because evicting an entry would
+ * race with threads that are still analyzing the evicted block.
+ */
+@Options(prefix = "cpa.bam")
+public class BAMCacheConcurrent implements BAMCache {
+
+  @Option(secure=true, description = "If enabled, the reached set cache is analysed "
+      + "for each cache miss to find the cause of the miss.")
+  private boolean gatherCacheMissStatistics = false;
+
+  @Option(
+    secure = true,
+    description =
+        "Memory budget for the BAM cache, given as maximal number of abstract states "
+            + "in all cached reached-sets (0 for unbounded). If the budget is exceeded, "
+            + "finished reached-sets with few reuses per abstract state are evicted "
+            + "and recomputed when they are needed again. Not supported for parallel BAM, "
+            + "recursive procedures, copy-on-write refinement and proof generation."
+  )
+  private int maxCachedStates = 0;
+
+  private final ConcurrentMap<BlockEntryKey, Entry> cache = new ConcurrentHashMap<>();
+
+  /** Only used for PCC, which is not run in parallel, thus we do not care for thread-locality. */
+  private volatile @Nullable BlockEntryKey lastAnalyzedBlockCache = null;
+
+  private final Reducer reducer;
+  private final LogManager logger;
+
+  private final StatCounter cacheMisses = new StatCounter("Number of cache misses");
+  private final StatCounter partialCacheHits = new StatCounter("Number of partial cache hits");
+  private final StatCounter fullCacheHits = new StatCounter("Number of full cache hits");
+  private final StatCounter createdReachedSets =
+      new StatCounter("Number of reached-sets created via cache");
+  private final StatCounter contendedAccesses =
+      new StatCounter("Number of accesses waiting for another thread");
+  private final ThreadSafeTimerContainer waitTime =
+      new ThreadSafeTimerContainer("Time for waiting on other threads");
+
+  private final StatCounter abstractionCausedMisses =
+      new StatCounter("Number of abstraction caused misses");
+  private final StatCounter precisionCausedMisses =
+      new StatCounter("Number of precision caused misses");
+  private final StatCounter noSimilarCausedMisses =
+      new StatCounter("Number of misses with no similar elements");
+
+  public BAMCacheConcurrent(Configuration pConfig, Reducer pReducer, LogManager pLogger)
+      throws InvalidConfigurationException {
+    pConfig.inject(this, BAMCacheConcurrent.class);
+    if (maxCachedStates != 0) {
+      throw new InvalidConfigurationException(
+          "Option cpa.bam.maxCachedStates is not supported by parallel BAM.");
+    }
+    reducer = checkNotNull(pReducer);
+    logger = checkNotNull(pLogger);
+  }
+
+  private BlockEntryKey getKey(AbstractState stateKey, Precision precisionKey, Block context) {
+    return new BlockEntryKey(
+        reducer.getHashCodeForState(stateKey, precisionKey), context, stateKey, precisionKey);
+  }
+
+  @Override
+  public void put(AbstractState stateKey, Precision precisionKey, Block context, ReachedSet item) {
+    checkNotNull(item);
+    cache.compute(
+        getKey(stateKey, precisionKey, context),
+        (key, old) -> {
+          if (old == null) {
+            return new Entry(item);
+          } else if (old.reached.complete(item)) {
+            // entry was reserved by getOrCreateReachedSet, the reached-set is now available.
+            return old;
+          } else {
+            // replace the reached-set, but keep the result-states like BAMCacheImpl does.
+            Entry entry = new Entry(item);
+            synchronized (old) {
+              entry.returnStates = old.returnStates;
+              entry.rootOfBlock = old.rootOfBlock;
+            }
+            return entry;
+          }
+        });
+  }
+
+  @Override
+  public void put(
+      AbstractState stateKey,
+      Precision precisionKey,
+      Block context,
+      Collection<AbstractState> item,
+      @Nullable ARGState rootOfBlock) {
+    BlockEntryKey key = getKey(stateKey, precisionKey, context);
+    Entry entry = cache.get(key);
+    assert entry != null && entry.getReachedSetIfAvailable() != null
+        : "key not found in cache: " + key;
+    assert entry.getReachedSetIfAvailable().asCollection().containsAll(item)
+        : "output-states must be in reached-set";
+    synchronized (entry) {
+      entry.returnStates = item;
+      entry.rootOfBlock = rootOfBlock;
+    }
+    lastAnalyzedBlockCache = key;
+  }
+
+  @Override
+  public void remove(AbstractState stateKey, Precision precisionKey, Block context) {
+    Entry entry = cache.get(getKey(stateKey, precisionKey, context));
+    if (entry != null) {
+      synchronized (entry) {
+        entry.returnStates = null;
+        entry.rootOfBlock = null;
+      }
+    }
+  }
+
+  @Override
+  public Pair<ReachedSet, Collection<AbstractState>> get(
+      AbstractState stateKey, Precision precisionKey, Block context) {
+    BlockEntryKey key = getKey(stateKey, precisionKey, context);
+    Entry entry = cache.get(key);
+    ReachedSet reached = entry == null ? null : await(entry);
+
+    if (reached == null) {
+      lastAnalyzedBlockCache = null;
+      logger.log(Level.FINEST, "CACHE_ACCESS: entry not available");
+      cacheMisses.inc();
+      if (gatherCacheMissStatistics) {
+        findCacheMissCause(stateKey, precisionKey, context);
+      }
+      return Pair.of(null, null);
+    }
+
+    lastAnalyzedBlockCache = key;
+    logger.log(Level.FINEST, "CACHE_ACCESS: precise entry");
+    final Collection<AbstractState> returnStates;
+    synchronized (entry) {
+      returnStates = entry.returnStates;
+    }
+    if (returnStates == null) {
+      partialCacheHits.inc();
+    } else {
+      fullCacheHits.inc();
+    }
+    return Pair.of(reached, returnStates);
+  }
+
+  /**
+   * Classify a cache miss like {@link BAMCacheImpl} does. Concurrent modifications of the cache are
+   * not a problem, the classification is only a statistic.
+   */
+  private void findCacheMissCause(AbstractState pStateKey, Precision pPrecisionKey, Block pContext) {
+    for (BlockEntryKey cacheKey : cache.keySet()) {
+      // check whether the key matches if we ignore the precision
+      if (getKey(pStateKey, cacheKey.precisionKey, pContext).equals(cacheKey)) {
+        precisionCausedMisses.inc();
+        return;
+      }
+
+      // Precision was not the cause. Check abstraction.
+      if (getKey(cacheKey.stateKey, pPrecisionKey, pContext).equals(cacheKey)) {
+        abstractionCausedMisses.inc();
+        return;
+      }
+    }
+    noSimilarCausedMisses.inc();
+  }
+
+  /**
+   * Return the reached-set for the given block entry. If there is none, the given factory is used
+   * to create it. The factory is called at most once per block entry, even if several threads call
+   * this method concurrently. The factory may register the new reached-set via {@link
+   * #put(AbstractState, Precision, Block, ReachedSet)}.
+   */
+  public ReachedSet getOrCreateReachedSet(
+      AbstractState stateKey,
+      Precision precisionKey,
+      Block context,
+      Supplier<ReachedSet> pFactory) {
+    BlockEntryKey key = getKey(stateKey, precisionKey, context);
+    while (true) {
+      Entry reservation = new Entry();
+      Entry existing = cache.putIfAbsent(key, reservation);
+      if (existing == null) {
+        try {
+          ReachedSet reached = checkNotNull(pFactory.get());
+          reservation.reached.complete(reached);
+          createdReachedSets.inc();
+          return reservation.reached.join();
+        } catch (RuntimeException | Error e) {
+          cache.remove(key, reservation);
+          reservation.reached.completeExceptionally(e);
+          throw e;
+        }
+      }
+      ReachedSet reached = await(existing);
+      if (reached != null) {
+        return reached;
+      }
+      // the creating thread failed and removed its reservation, let us try again.
+    }
+  }
+
+  /**
+   * Return the reached-set of the entry and wait if another thread is currently creating it.
+   * Returns {@code null} if the creation failed.
+   */
+  private @Nullable ReachedSet await(Entry entry) {
+    if (!entry.reached.isDone()) {
+      contendedAccesses.inc();
+      TimerWrapper timer = waitTime.getNewTimer();
+      timer.start();
+      try {
+        entry.reached.join();
+      } catch (CompletionException e) {
+        // handled by the thread that created the entry
+      } finally {
+        timer.stop();
+      }
+    }
+    return entry.getReachedSetIfAvailable();
+  }
+
+  @Override
+  public @Nullable ARGState getLastAnalyzedBlock() {
+    BlockEntryKey key = lastAnalyzedBlockCache;
+    Entry entry = key == null ? null : cache.get(key);
+    if (entry == null) {
+      return null;
+    }
+    synchronized (entry) {
+      return entry.rootOfBlock;
+    }
+  }
+
+  @Override
+  public boolean containsPreciseKey(
+      AbstractState stateKey, Precision precisionKey, Block context) {
+    Entry entry = cache.get(getKey(stateKey, precisionKey, context));
+    return entry != null && entry.getReachedSetIfAvailable() != null;
+  }
+
+  /** Returns a snapshot of all reached-sets that are currently available in the cache. */
+  @Override
+  public Collection<ReachedSet> getAllCachedReachedStates() {
+    return FluentIterable.from(cache.values())
+        .transform(Entry::getReachedSetIfAvailable)
+        .filter(Objects::nonNull)
+        .toList();
+  }
+
+  @Override
+  public void clear() {
+    cache.clear();
+    lastAnalyzedBlockCache = null;
+  }
+
+  @Override
+  public void printStatistics(PrintStream out, Result pResult, UnmodifiableReachedSet pReached) {
+    long misses = cacheMisses.getValue();
+    long partialHits = partialCacheHits.getValue();
+    long fullHits = fullCacheHits.getValue();
+    long sumCalls = misses + partialHits + fullHits;
+
+    StatHist argStats =
+        new StatHist("") {
+          @Override
+          public String toString() {
+            // overriding, because printing all sizes is not that interesting
+            return String.format(
+                "%.0f (#=%d, avg=%.2f, dev=%.2f, min=%d, max=%d)",
+                getSum(), getUpdateCount(), getAvg(), getStdDeviation(), getMin(), getMax());
+          }
+        };
+    for (UnmodifiableReachedSet subreached : getAllCachedReachedStates()) {
+      argStats.insertValue(subreached.size());
+    }
+
+    out.println("Total size of all ARGs:                              " + argStats);
+    out.println("Total number of recursive CPA calls:                 " + sumCalls);
+    out.println("  Number of cache misses:                            " + misses + " (" + toPercent(misses, sumCalls) + " of all calls)");
+    out.println("  Number of partial cache hits:                      " + partialHits + " (" + toPercent(partialHits, sumCalls) + " of all calls)");
+    out.println("  Number of full cache hits:                         " + fullHits + " (" + toPercent(fullHits, sumCalls) + " of all calls)");
+    if (gatherCacheMissStatistics) {
+      out.println("Cause for cache misses:                              ");
+      out.println("  Number of abstraction caused misses:               " + abstractionCausedMisses.getValue() + " (" + toPercent(abstractionCausedMisses.getValue(), misses) + " of all misses)");
+      out.println("  Number of precision caused misses:                 " + precisionCausedMisses.getValue() + " (" + toPercent(precisionCausedMisses.getValue(), misses) + " of all misses)");
+      out.println("  Number of misses with no similar elements:         " + noSimilarCausedMisses.getValue() + " (" + toPercent(noSimilarCausedMisses.getValue(), misses) + " of all misses)");
+    }
+    out.println("Number of reached-sets created via cache:            " + createdReachedSets.getValue());
+    out.println("Number of accesses waiting for another thread:       " + contendedAccesses.getValue());
+    out.println("Time for waiting on other threads:                   " + waitTime + " (count=" + waitTime.getUpdateCount() + ")");
+  }
+
+  @Override
+  public String getName() {
+    return "BAMCache";
+  }
+
+  /** The key of a block entry, compatible with the key used in {@link BAMCacheImpl}. */
+  private static final class BlockEntryKey {
+
+    private final Object wrappedHash;
+    private final Block context;
+    private final AbstractState stateKey;
+    private final Precision precisionKey;
+
+    /** the hashcode is used several times in the concurrent map, thus we compute it only once. */
+    private final int hashCode;
+
+    private BlockEntryKey(
+        Object pWrappedHash, Block pContext, AbstractState pStateKey, Precision pPrecisionKey) {
+      wrappedHash = checkNotNull(pWrappedHash);
+      context = checkNotNull(pContext);
+      stateKey = pStateKey;
+      precisionKey = pPrecisionKey;
+      hashCode = wrappedHash.hashCode() * 17 + context.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object pObj) {
+      if (pObj == this) {
+        return true;
+      }
+      if (!(pObj instanceof BlockEntryKey)) {
+        return false;
+      }
+      BlockEntryKey other = (BlockEntryKey) pObj;
+      return hashCode == other.hashCode
+          && context.equals(other.context)
+          && wrappedHash.equals(other.wrappedHash);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public String toString() {
+      return "BlockEntryKey [hash=" + hashCode + ", wrappedHash=" + wrappedHash + ", context="
+          + context + ", stateKey=" + stateKey + ", precisionKey=" + precisionKey + "]";
+    }
+  }
+
+  /**
+   * All cached data for one block entry. The reached-set is only set once, the other members are
+   * guarded by the entry itself.
+   */
+  private static final class Entry {
+
+    private final CompletableFuture<ReachedSet> reached;
+    private @Nullable Collection<AbstractState> returnStates = null;
+    private @Nullable ARGState rootOfBlock = null;
+
+    /** Create a reservation for a reached-set that is not yet available. */
+    private Entry() {
+      reached = new CompletableFuture<>();
+    }
+
+    private Entry(ReachedSet pReached) {
+      reached = CompletableFuture.completedFuture(pReached);
+    }
+
+    private @Nullable ReachedSet getReachedSetIfAvailable() {
+      if (reached.isDone() && !reached.isCompletedExceptionally()) {
+        return reached.join();
+      }
+      return null;
+    }
+  }
+}
@@ -30,9 +30,17 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.Iterables;
 import java.io.PrintStream;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import org.sosy_lab.common.configuration.Configuration;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
@@ -58,6 +66,17 @@ public class BAMCacheImpl implements BAMCache {
       + "for each cache miss to find the cause of the miss.")
   private boolean gatherCacheMissStatistics = false;
 
+  @Option(
+    secure = true,
+    description =
+        "Memory budget for the BAM cache, given as maximal number of abstract states "
+            + "in all cached reached-sets (0 for unbounded). If the budget is exceeded, "
+            + "finished reached-sets with few reuses per abstract state are evicted "
+            + "and recomputed when they are needed again. Not supported for parallel BAM, "
+            + "recursive procedures, copy-on-write refinement and proof generation."
+  )
+  private int maxCachedStates = 0;
+
   private final Timer hashingTimer = new Timer();
   private final Timer equalsTimer = new Timer();
 
@@ -69,6 +88,49 @@ public class BAMCacheImpl implements BAMCache {
   private int precisionCausedMisses = 0;
   private int noSimilarCausedMisses = 0;
 
+  private int evictions = 0;
+  private long evictedStates = 0;
+  private int recomputations = 0;
+
+  /** Usage data of the cached reached-sets, only tracked if the cache is bounded. */
+  private final Map<AbstractStateHash, Usage> usage = new HashMap<>();
+
+  /**
+   * Finished reached-sets that can be evicted, cheapest first. Reached-sets that are currently
+   * (re-)analyzed are not contained.
+   */
+  private final NavigableSet<Usage> evictionCandidates =
+      new TreeSet<>(
+          Comparator.comparingDouble((Usage u) -> u.priority).thenComparingLong(u -> u.id));
+
+  /** Sum of the sizes in {@link #usage}. */
+  private long cachedStates = 0;
+
+  /** Priority of the last evicted entry, used for aging the priorities of new entries. */
+  private double inflation = 0;
+
+  private long nextUsageId = 0;
+
+  private Consumer<ReachedSet> evictionListener = reached -> {};
+
+  /** Number of recently evicted entries that are remembered for counting recomputations. */
+  private static final int MAX_REMEMBERED_EVICTIONS = 10000;
+
+  /**
+   * Hashcodes of recently evicted entries, used to count recomputations. We do not store the keys
+   * themselves, because they would keep the evicted ARGs alive.
+   */
+  private final Set<Integer> evictedKeys =
+      Collections.newSetFromMap(
+          new LinkedHashMap<Integer, Boolean>() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Entry<Integer, Boolean> pEldest) {
+              return size() > MAX_REMEMBERED_EVICTIONS;
+            }
+          });
+
   // we use LinkedHashMaps to avoid non-determinism
   protected final Map<AbstractStateHash, ReachedSet> preciseReachedCache = new LinkedHashMap<>();
   protected final Map<AbstractStateHash, Collection<AbstractState>> returnCache = new HashMap<>();
@@ -83,10 +145,19 @@ public class BAMCacheImpl implements BAMCache {
       Reducer reducer,
       LogManager logger) throws InvalidConfigurationException {
     config.inject(this, BAMCacheImpl.class);
+    if (maxCachedStates < 0) {
+      throw new InvalidConfigurationException(
+          "Invalid value for option cpa.bam.maxCachedStates: " + maxCachedStates);
+    }
     this.reducer = reducer;
     this.logger = logger;
   }
 
+  @Override
+  public boolean isBounded() {
+    return maxCachedStates > 0;
+  }
+
   protected AbstractStateHash getHashCode(AbstractState stateKey, Precision precisionKey, Block context) {
     return new AbstractStateHash(stateKey, precisionKey, context);
   }
@@ -96,6 +167,9 @@ public class BAMCacheImpl implements BAMCache {
     AbstractStateHash hash = getHashCode(stateKey, precisionKey, context);
     // assert !preciseReachedCache.containsKey(hash);
     preciseReachedCache.put(hash, item);
+    if (isBounded()) {
+      forbidEviction(hash);
+    }
   }
 
   @Override
@@ -107,6 +181,67 @@ public class BAMCacheImpl implements BAMCache {
     returnCache.put(hash, item);
     blockARGCache.put(hash, rootOfBlock);
     lastAnalyzedBlockCache = hash;
+
+    if (isBounded()) {
+      ReachedSet reached = preciseReachedCache.get(hash);
+      Usage entry = usage.computeIfAbsent(hash, k -> new Usage(k, nextUsageId++));
+      evictionCandidates.remove(entry);
+      cachedStates += reached.size() - entry.size;
+      entry.size = reached.size();
+      if (!reached.hasWaitingState()) {
+        entry.updatePriority(inflation);
+        evictionCandidates.add(entry);
+      }
+      if (cachedStates > maxCachedStates) {
+        evictColdEntries(entry);
+      }
+    }
+  }
+
+  /**
+   * Evict finished reached-sets until the cache is filled to at most three quarters of its budget,
+   * such that we do not need to evict again for each new block. Unfinished reached-sets are never
+   * evicted, because they are still analyzed.
+   *
+   * <p>Reached-sets with the fewest cache hits per abstract state are evicted first. The priority
+   * of an entry is aged like in GreedyDual-Size-Frequency caching, i.e., it starts at the priority
+   * of the last evicted entry, such that entries that were popular long ago are evicted
+   * eventually.
+   *
+   * <p>The eviction listener (the BAMDataManager) drops all references to an evicted reached-set,
+   * such that its memory can be released. An evicted block is recomputed on the next cache miss or
+   * when a refinement needs it.
+   */
+  private void evictColdEntries(Usage current) {
+    final long lowWaterMark = maxCachedStates / 4 * 3;
+    Iterator<Usage> it = evictionCandidates.iterator();
+    while (cachedStates > lowWaterMark && it.hasNext()) {
+      Usage entry = it.next();
+      if (entry == current) {
+        continue;
+      }
+      it.remove();
+      usage.remove(entry.hash);
+      inflation = entry.priority;
+      ReachedSet reached = preciseReachedCache.remove(entry.hash);
+      returnCache.remove(entry.hash);
+      blockARGCache.remove(entry.hash);
+      evictedKeys.add(entry.hash.hashCode());
+      cachedStates -= entry.size;
+      evictions++;
+      evictedStates += entry.size;
+      onEviction(reached);
+      evictionListener.accept(reached);
+      logger.log(Level.FINEST, "CACHE_EVICTION: removed reached-set of size", entry.size);
+    }
+  }
+
+  /** Hook for sub-classes that have additional references to cached reached-sets. */
+  protected void onEviction(@SuppressWarnings("unused") ReachedSet pReached) {}
+
+  @Override
+  public void setEvictionListener(Consumer<ReachedSet> pListener) {
+    evictionListener = checkNotNull(pListener);
   }
 
   protected static boolean allStatesContainedInReachedSet(Collection<AbstractState> pElements, ReachedSet reached) {
@@ -118,6 +253,18 @@ public class BAMCacheImpl implements BAMCache {
     AbstractStateHash hash = getHashCode(stateKey, precisionKey, context);
     blockARGCache.remove(hash);
     returnCache.remove(hash);
+    if (isBounded()) {
+      // the reached-set will be re-explored
+      forbidEviction(hash);
+    }
+  }
+
+  /** The entry can be evicted again after its result-states are put into the cache. */
+  private void forbidEviction(AbstractStateHash hash) {
+    Usage entry = usage.get(hash);
+    if (entry != null) {
+      evictionCandidates.remove(entry);
+    }
   }
 
   @Override
@@ -148,6 +295,11 @@ public class BAMCacheImpl implements BAMCache {
       partialCacheHits++;
     } else if (returnStates == null) {
       cacheMisses++;
+      if (isBounded()
+          && evictedKeys.remove(getHashCode(stateKey, precisionKey, context).hashCode())) {
+        // approximation, because we only compare hashcodes
+        recomputations++;
+      }
       if (gatherCacheMissStatistics) {
         findCacheMissCause(stateKey, precisionKey, context);
       }
@@ -165,6 +317,14 @@ public class BAMCacheImpl implements BAMCache {
     ReachedSet result = preciseReachedCache.get(hash);
     if (result != null) {
       lastAnalyzedBlockCache = hash;
+      if (isBounded()) {
+        Usage entry = usage.get(hash);
+        if (entry != null && evictionCandidates.remove(entry)) {
+          entry.hits++;
+          entry.updatePriority(inflation);
+          evictionCandidates.add(entry);
+        }
+      }
       logger.log(Level.FINEST, "CACHE_ACCESS: precise entry");
       return Pair.of(result, returnCache.get(hash));
     }
@@ -222,6 +382,29 @@ public class BAMCacheImpl implements BAMCache {
     return preciseReachedCache.values();
   }
 
+  /** Usage data of a cached reached-set for the eviction order. */
+  private static final class Usage {
+
+    private final AbstractStateHash hash;
+
+    /** unique number, breaks ties between equal priorities deterministically. */
+    private final long id;
+
+    private int size = 0;
+    private int hits = 0;
+    private double priority = 0;
+
+    private Usage(AbstractStateHash pHash, long pId) {
+      hash = pHash;
+      id = pId;
+    }
+
+    /** Must not be called while the entry is contained in the eviction candidates. */
+    private void updatePriority(double pInflation) {
+      priority = pInflation + (hits + 1.0) / Math.max(size, 1);
+    }
+  }
+
   class AbstractStateHash {
 
     private final Object wrappedHash;
@@ -299,6 +482,11 @@ public class BAMCacheImpl implements BAMCache {
       out.println("  Number of precision caused misses:                 " + precisionCausedMisses + " (" + toPercent(precisionCausedMisses, cacheMisses) + " of all misses)");
       out.println("  Number of misses with no similar elements:         " + noSimilarCausedMisses + " (" + toPercent(noSimilarCausedMisses, cacheMisses) + " of all misses)");
     }
+    if (isBounded()) {
+      out.println("Number of abstract states in cache:                  " + cachedStates + " (budget: " + maxCachedStates + ")");
+      out.println("Number of evicted reached-sets:                      " + evictions + " (" + evictedStates + " abstract states)");
+      out.println("Number of recomputed reached-sets (approx.):         " + recomputations + " (" + toPercent(recomputations, cacheMisses) + " of all misses)");
+    }
     out.println("Time for checking equality of abstract states:       " + equalsTimer + " (Calls: " + equalsTimer.getNumberOfIntervals() + ")");
     out.println("Time for computing the hashCode of abstract states:  " + hashingTimer + " (Calls: " + hashingTimer.getNumberOfIntervals() + ")");
   }
@@ -313,6 +501,11 @@ public class BAMCacheImpl implements BAMCache {
     preciseReachedCache.clear();
     returnCache.clear();
     blockARGCache.clear();
+    usage.clear();
+    evictionCandidates.clear();
+    cachedStates = 0;
+    inflation = 0;
+    evictedKeys.clear();
     lastAnalyzedBlockCache = null;
   }
 }
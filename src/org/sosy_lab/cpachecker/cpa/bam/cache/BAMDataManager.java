@@ -123,6 +123,13 @@ public interface BAMDataManager {
    *  then there is a way to clear all caches and to restore ARG completely. */
   void clear();
 
+  /**
+   * Remove all mappings for the given states, which are removed from the ARG, e.g., during
+   * refinement. This releases reached-sets that are neither used in the ARG nor in the cache any
+   * more.
+   */
+  void removeStates(Iterable<? extends AbstractState> states);
+
   /** return a matching precision for the given state, or Null if state is not found. */
   @Nullable
   Precision getExpandedPrecisionForState(AbstractState pState);
@@ -79,6 +79,19 @@ public class BAMDataManagerImpl implements BAMDataManager {
 
   private final Map<AbstractState, BlockExitData> expandedStateToBlockExit = new HashMap<>();
 
+  /**
+   * Mapping of reached-sets to the non-reduced initial states they are registered for, only
+   * tracked if the cache is bounded, such that evicted reached-sets can be forgotten.
+   */
+  private final Multimap<ReachedSet, AbstractState> reachedSetToInitialStates =
+      HashMultimap.create();
+
+  /**
+   * Non-reduced initial states whose reached-set was evicted from the cache. The ARG still contains
+   * the expanded exit-states of these blocks.
+   */
+  private final Set<AbstractState> initialStatesOfEvictedBlocks = new HashSet<>();
+
 
   private static class BlockExitData {
 
@@ -110,6 +123,7 @@ public class BAMDataManagerImpl implements BAMDataManager {
     bamCache = pArgCache;
     reachedSetFactory = pReachedSetFactory;
     logger = pLogger;
+    bamCache.setEvictionListener(this::releaseEvictedReachedSet);
   }
 
   /**
@@ -237,6 +251,9 @@ public class BAMDataManagerImpl implements BAMDataManager {
     }
     initialStateToReachedSet.put(initialState, exitState, reachedSet);
     reducedToNonReduced.put(reachedSet.getFirstState(), initialState);
+    if (bamCache.isBounded()) {
+      reachedSetToInitialStates.put(reachedSet, initialState);
+    }
   }
 
   @Override
@@ -252,7 +269,8 @@ public class BAMDataManagerImpl implements BAMDataManager {
 
   @Override
   public boolean hasInitialState(AbstractState state) {
-    return initialStateToReachedSet.containsRow(state);
+    return initialStateToReachedSet.containsRow(state)
+        || initialStatesOfEvictedBlocks.contains(state);
   }
 
   @Override
@@ -331,6 +349,43 @@ public class BAMDataManagerImpl implements BAMDataManager {
     expandedStateToBlockExit.clear();
     bamCache.clear();
     reducedToNonReduced.clear();
+    reachedSetToInitialStates.clear();
+    initialStatesOfEvictedBlocks.clear();
+  }
+
+  @Override
+  public void removeStates(Iterable<? extends AbstractState> pStates) {
+    for (AbstractState state : pStates) {
+      Map<AbstractState, ReachedSet> row = initialStateToReachedSet.row(state);
+      for (ReachedSet reached : row.values()) {
+        reducedToNonReduced.remove(reached.getFirstState(), state);
+        reachedSetToInitialStates.remove(reached, state);
+      }
+      row.clear();
+      initialStatesOfEvictedBlocks.remove(state);
+      expandedStateToBlockExit.remove(state);
+    }
+  }
+
+  /**
+   * Forget a reached-set that was evicted from the cache and destroy its ARG, such that its memory
+   * can be released. The expanded exit-states of the block remain in the outer ARG and point to
+   * destroyed reduced states. A refinement that needs the block thus detects the missing block and
+   * removes the block entry from the outer ARG, such that the block is recomputed.
+   */
+  private void releaseEvictedReachedSet(ReachedSet pReached) {
+    for (AbstractState initialState : reachedSetToInitialStates.removeAll(pReached)) {
+      Map<AbstractState, ReachedSet> row = initialStateToReachedSet.row(initialState);
+      row.values().removeIf(reached -> reached == pReached);
+      initialStatesOfEvictedBlocks.add(initialState);
+    }
+    reducedToNonReduced.removeAll(pReached.getFirstState());
+
+    Set<ARGState> states = ((ARGState) pReached.getFirstState()).getSubgraph();
+    removeStates(states);
+    for (ARGState state : states) {
+      state.removeFromARG();
+    }
   }
 
   @Override
@@ -168,6 +168,13 @@ public class BAMDataManagerSynchronized implements BAMDataManager {
     }
   }
 
+  @Override
+  public void removeStates(Iterable<? extends AbstractState> pStates) {
+    synchronized (this) {
+      manager.removeStates(pStates);
+    }
+  }
+
   @Override
   public boolean addUncachedBlockEntry(CFANode pNode) {
     //Not sure how the option works with ParallelBAM
@@ -149,6 +149,9 @@ public class CompositeCPA implements StatisticsProvider, WrapperCPA, Configurabl
   private final CFA cfa;
   private final CompositeOptions options;
 
+  /** The layout from which the layouts of all states of this CPA are derived. */
+  private final CompositeStateLayout rootLayout = CompositeStateLayout.createRoot();
+
   private CompositeCPA(
       CFA pCfa,
       ImmutableList<ConfigurableProgramAnalysis> cpas,
@@ -268,7 +271,7 @@ public class CompositeCPA implements StatisticsProvider, WrapperCPA, Configurabl
       initialStates.add(sp.getInitialState(pNode, pPartition));
     }
 
-    return new CompositeState(initialStates.build());
+    return new CompositeState(initialStates.build(), rootLayout);
   }
 
   @Override
@@ -76,7 +76,7 @@ class CompositeMergePlainOperator implements MergeOperator {
     if (identicalStates) {
       return reachedState;
     } else {
-      return new CompositeState(mergedStates.build());
+      return new CompositeState(mergedStates.build(), compReachedState.getLayout());
     }
   }
 }
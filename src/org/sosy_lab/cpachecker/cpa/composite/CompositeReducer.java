@@ -53,7 +53,7 @@ class CompositeReducer extends GenericReducer<CompositeState, CompositePrecision
       result.add(
           wrappedReducers.get(i).getVariableReducedState(states.get(i), pContext, pLocation));
     }
-    return new CompositeState(result);
+    return new CompositeState(result, pExpandedState.getLayout());
   }
 
   @Override
@@ -71,7 +71,7 @@ class CompositeReducer extends GenericReducer<CompositeState, CompositePrecision
               .get(i)
               .getVariableExpandedState(rootStates.get(i), pReducedContext, reducedStates.get(i)));
     }
-    return new CompositeState(result);
+    return new CompositeState(result, pRootState.getLayout());
   }
 
   @Override
@@ -148,7 +148,7 @@ class CompositeReducer extends GenericReducer<CompositeState, CompositePrecision
               .get(i)
               .getVariableReducedStateForProofChecking(expandedStates.get(i), pContext, pCallNode));
     }
-    return new CompositeState(result);
+    return new CompositeState(result, pExpandedState.getLayout());
   }
 
   @Override
@@ -166,7 +166,7 @@ class CompositeReducer extends GenericReducer<CompositeState, CompositePrecision
               .getVariableExpandedStateForProofChecking(
                   rootStates.get(i), pReducedContext, reducedStates.get(i)));
     }
-    return new CompositeState(result);
+    return new CompositeState(result, pRootState.getLayout());
   }
 
   @Override
@@ -187,7 +187,7 @@ class CompositeReducer extends GenericReducer<CompositeState, CompositePrecision
               .rebuildStateAfterFunctionCall(
                   rootStates.get(i), entryStates.get(i), expandedStates.get(i), exitLocation));
     }
-    return new CompositeState(result);
+    return new CompositeState(result, pRootState.getLayout());
   }
 
   @Override
@@ -37,6 +37,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import javax.annotation.Nullable;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractWrapperState;
 import org.sosy_lab.cpachecker.core.interfaces.Graphable;
@@ -45,6 +46,7 @@ import org.sosy_lab.cpachecker.core.interfaces.Property;
 import org.sosy_lab.cpachecker.core.interfaces.PseudoPartitionable;
 import org.sosy_lab.cpachecker.core.interfaces.Targetable;
 import org.sosy_lab.cpachecker.cpa.arg.Splitable;
+import org.sosy_lab.cpachecker.util.AbstractStates;
 
 public class CompositeState
     implements AbstractWrapperState, Targetable, Partitionable, PseudoPartitionable, Serializable,
@@ -54,9 +56,20 @@ public class CompositeState
   private transient Object partitionKey; // lazily initialized
   private transient Comparable<?> pseudoPartitionKey; // lazily initialized
   private transient Object pseudoHashCode; // lazily initialized
+  private final transient @Nullable CompositeStateLayout layout; // only for states of the CPA
 
   public CompositeState(List<AbstractState> elements) {
     this.states = ImmutableList.copyOf(elements);
+    this.layout = null;
+  }
+
+  /**
+   * Creates a composite state with a layout derived from the given one (typically the layout of its
+   * predecessor or the root layout of the CPA), or without layout if none is given.
+   */
+  CompositeState(List<AbstractState> elements, @Nullable CompositeStateLayout pLayout) {
+    this.states = ImmutableList.copyOf(elements);
+    this.layout = pLayout == null ? null : pLayout.forStates(states);
   }
 
   int getNumberOfStates() {
@@ -134,6 +147,43 @@ public class CompositeState
     return states.get(idx);
   }
 
+  /**
+   * Returns the first wrapped state (searching recursively) that is an instance of the given type,
+   * or null. Use {@link AbstractStates#extractStateByType(AbstractState, Class)} instead.
+   *
+   * <p>If this state was created by {@link CompositeCPA}, only the wrapped states that can be such
+   * an instance are looked at.
+   */
+  public @Nullable <T extends AbstractState> T extractWrappedStateByType(Class<T> pType) {
+    if (layout == null) {
+      for (AbstractState state : states) {
+        T result = AbstractStates.extractStateByType(state, pType);
+        if (result != null) {
+          return result;
+        }
+      }
+      return null;
+    }
+
+    for (int index : layout.getCandidates(pType)) {
+      AbstractState state = states.get(index);
+      if (pType.isInstance(state)) {
+        return pType.cast(state);
+      }
+      T result = AbstractStates.extractStateByType(state, pType); // state wraps other states
+      if (result != null) {
+        return result;
+      }
+    }
+    return null;
+  }
+
+  /** Returns the layout of this state, or null if it was not created by {@link CompositeCPA}. */
+  @Nullable
+  CompositeStateLayout getLayout() {
+    return layout;
+  }
+
   @Override
   public ImmutableList<AbstractState> getWrappedStates() {
     return states;
@@ -304,7 +354,7 @@ public class CompositeState
         }
       }
     }
-    CompositeState newState = new CompositeState(newWrappedStates);
+    CompositeState newState = new CompositeState(newWrappedStates, layout);
     return newState;
   }
 }
@@ -0,0 +1,117 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.composite;
+
+import com.google.common.collect.ImmutableList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.sosy_lab.cpachecker.core.defaults.AbstractSingleWrapperState;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractWrapperState;
+
+/**
+ * The classes of the components of a {@link CompositeState}, together with an index that maps a
+ * type to the components that can be an instance of this type.
+ *
+ * <p>Each {@link CompositeCPA} creates a root layout, and its operators hand the layout of the input
+ * state on to the states they create. A layout is reused as long as the classes of the components
+ * stay the same, otherwise the matching layout is taken from a table that is shared by all layouts
+ * of the same CPA and freed together with them. This makes {@link
+ * org.sosy_lab.cpachecker.util.AbstractStates#extractStateByType(AbstractState, Class)} an access to
+ * the right element instead of a search through all components. Components that wrap other states
+ * are candidates for every type, because their content is only known at runtime.
+ */
+final class CompositeStateLayout {
+
+  /** All layouts that were derived from the same root layout, by their component classes. */
+  private final ConcurrentMap<ImmutableList<Class<?>>, CompositeStateLayout> relatedLayouts;
+
+  private final ImmutableList<Class<?>> componentClasses;
+
+  private final ConcurrentMap<Class<?>, int[]> candidates = new ConcurrentHashMap<>();
+
+  private CompositeStateLayout(
+      ImmutableList<Class<?>> pComponentClasses,
+      ConcurrentMap<ImmutableList<Class<?>>, CompositeStateLayout> pRelatedLayouts) {
+    componentClasses = pComponentClasses;
+    relatedLayouts = pRelatedLayouts;
+  }
+
+  /** Creates a new layout (without components) from which all layouts of a CPA are derived. */
+  static CompositeStateLayout createRoot() {
+    return new CompositeStateLayout(ImmutableList.of(), new ConcurrentHashMap<>());
+  }
+
+  /**
+   * Returns the layout for a list of component states, which is this layout if it matches the
+   * classes of the components.
+   */
+  CompositeStateLayout forStates(List<AbstractState> pStates) {
+    if (matches(pStates)) {
+      return this;
+    }
+    ImmutableList.Builder<Class<?>> classes = ImmutableList.builder();
+    for (AbstractState state : pStates) {
+      classes.add(state.getClass());
+    }
+    return relatedLayouts.computeIfAbsent(
+        classes.build(), pClasses -> new CompositeStateLayout(pClasses, relatedLayouts));
+  }
+
+  private boolean matches(List<AbstractState> pStates) {
+    if (pStates.size() != componentClasses.size()) {
+      return false;
+    }
+    for (int i = 0; i < componentClasses.size(); i++) {
+      if (pStates.get(i).getClass() != componentClasses.get(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the indices of all components that are an instance of the given type or wrap other
+   * states, in ascending order. The returned array must not be modified.
+   */
+  int[] getCandidates(Class<?> pType) {
+    return candidates.computeIfAbsent(pType, this::computeCandidates);
+  }
+
+  private int[] computeCandidates(Class<?> pType) {
+    int[] result = new int[componentClasses.size()];
+    int count = 0;
+    for (int i = 0; i < componentClasses.size(); i++) {
+      Class<?> componentClass = componentClasses.get(i);
+      if (pType.isAssignableFrom(componentClass)
+          || AbstractSingleWrapperState.class.isAssignableFrom(componentClass)
+          || AbstractWrapperState.class.isAssignableFrom(componentClass)) {
+        result[count++] = i;
+      }
+    }
+    return Arrays.copyOf(result, count);
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.composite;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.sosy_lab.cpachecker.util.AbstractStates.extractStateByType;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+
+public class CompositeStateTest {
+
+  private static class StateA implements AbstractState {}
+
+  private static class StateB implements AbstractState {}
+
+  private static class SubStateB extends StateB {}
+
+  private static class StateC implements AbstractState {}
+
+  private CompositeStateLayout root;
+
+  @Before
+  public void setUp() {
+    root = CompositeStateLayout.createRoot();
+  }
+
+  @Test
+  public void testCandidatesOfComponent() {
+    CompositeState state =
+        new CompositeState(ImmutableList.of(new StateA(), new StateB(), new StateC()), root);
+
+    assertThat(state.getLayout().getCandidates(StateA.class)).asList().containsExactly(0);
+    assertThat(state.getLayout().getCandidates(StateB.class)).asList().containsExactly(1);
+    assertThat(state.getLayout().getCandidates(StateC.class)).asList().containsExactly(2);
+    assertThat(state.getLayout().getCandidates(AbstractState.class))
+        .asList()
+        .containsExactly(0, 1, 2)
+        .inOrder();
+  }
+
+  @Test
+  public void testCandidatesOfMissingType() {
+    CompositeState state = new CompositeState(ImmutableList.of(new StateA(), new StateC()), root);
+
+    assertThat(state.getLayout().getCandidates(StateB.class)).isEmpty();
+    assertThat(extractStateByType(state, StateB.class)).isNull();
+  }
+
+  @Test
+  public void testCandidatesOfWrapper() {
+    StateB b = new StateB();
+    CompositeState inner = new CompositeState(ImmutableList.of(b));
+    CompositeState state =
+        new CompositeState(ImmutableList.of(new StateA(), inner, new StateC()), root);
+
+    // the wrapper may contain a state of any type
+    assertThat(state.getLayout().getCandidates(StateB.class)).asList().containsExactly(1);
+    assertThat(state.getLayout().getCandidates(StateC.class))
+        .asList()
+        .containsExactly(1, 2)
+        .inOrder();
+    assertThat(extractStateByType(state, StateB.class)).isSameAs(b);
+  }
+
+  @Test
+  public void testExtractStateByType() {
+    StateA a = new StateA();
+    SubStateB b = new SubStateB();
+    StateC c = new StateC();
+    CompositeState withLayout = new CompositeState(ImmutableList.of(a, b, c), root);
+    CompositeState withoutLayout = new CompositeState(ImmutableList.of(a, b, c));
+
+    assertThat(withoutLayout.getLayout()).isNull();
+    for (CompositeState state : ImmutableList.of(withLayout, withoutLayout)) {
+      assertThat(extractStateByType(state, StateA.class)).isSameAs(a);
+      assertThat(extractStateByType(state, StateB.class)).isSameAs(b);
+      assertThat(extractStateByType(state, SubStateB.class)).isSameAs(b);
+      assertThat(extractStateByType(state, StateC.class)).isSameAs(c);
+      assertThat(extractStateByType(state, AbstractState.class)).isSameAs(state);
+    }
+  }
+
+  @Test
+  public void testLayoutIsReusedForSameClasses() {
+    CompositeState state = new CompositeState(ImmutableList.of(new StateA(), new StateB()), root);
+    CompositeState successor =
+        new CompositeState(ImmutableList.of(new StateA(), new StateB()), state.getLayout());
+    CompositeState other = new CompositeState(ImmutableList.of(new StateA(), new StateB()), root);
+
+    assertThat(successor.getLayout()).isSameAs(state.getLayout());
+    assertThat(other.getLayout()).isSameAs(state.getLayout());
+  }
+
+  @Test
+  public void testLayoutIsNotReusedForDifferentClasses() {
+    CompositeState state = new CompositeState(ImmutableList.of(new StateB(), new StateA()), root);
+    CompositeState successor =
+        new CompositeState(ImmutableList.of(new SubStateB(), new StateA()), state.getLayout());
+    CompositeState next =
+        new CompositeState(ImmutableList.of(new StateB(), new StateA()), successor.getLayout());
+
+    assertThat(successor.getLayout()).isNotSameAs(state.getLayout());
+    assertThat(state.getLayout().getCandidates(SubStateB.class)).isEmpty();
+    assertThat(successor.getLayout().getCandidates(SubStateB.class)).asList().containsExactly(0);
+    assertThat(successor.getLayout().getCandidates(StateB.class)).asList().containsExactly(0);
+
+    // switching back finds the first layout again
+    assertThat(next.getLayout()).isSameAs(state.getLayout());
+  }
+
+  @Test
+  public void testLayoutsOfDifferentRootsAreNotShared() {
+    CompositeState state = new CompositeState(ImmutableList.of(new StateA()), root);
+    CompositeState other =
+        new CompositeState(ImmutableList.of(new StateA()), CompositeStateLayout.createRoot());
+
+    assertThat(other.getLayout()).isNotSameAs(state.getLayout());
+  }
+}
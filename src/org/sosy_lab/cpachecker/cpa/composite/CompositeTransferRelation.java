@@ -244,7 +244,7 @@ final class CompositeTransferRelation implements TransferRelation {
 
       // finally, create a CompositeState for each result of strengthen
       for (List<AbstractState> lList : lResultingElements) {
-        compositeSuccessors.add(new CompositeState(lList));
+        compositeSuccessors.add(new CompositeState(lList, compositeState.getLayout()));
       }
     }
   }
@@ -49,6 +49,7 @@ import org.sosy_lab.cpachecker.core.interfaces.StopOperator;
 import org.sosy_lab.cpachecker.core.interfaces.TransferRelation;
 import org.sosy_lab.cpachecker.cpa.constraints.domain.AliasedSubsetLessOrEqualOperator;
 import org.sosy_lab.cpachecker.cpa.constraints.domain.ConstraintsMergeOperator;
+import org.sosy_lab.cpachecker.cpa.constraints.domain.ConstraintsSolver;
 import org.sosy_lab.cpachecker.cpa.constraints.domain.ConstraintsState;
 import org.sosy_lab.cpachecker.cpa.constraints.domain.ImplicationLessOrEqualOperator;
 import org.sosy_lab.cpachecker.cpa.constraints.domain.SubsetLessOrEqualOperator;
@@ -83,6 +84,7 @@ public class ConstraintsCPA
   private ConstraintsPrecision precision;
 
   private final Solver solver;
+  private final ConstraintsSolver constraintsSolver;
 
   public static CPAFactory factory() {
     return AutomaticCPAFactory.forType(ConstraintsCPA.class);
@@ -95,13 +97,15 @@ public class ConstraintsCPA
 
     logger = pLogger;
     solver = Solver.create(pConfig, pLogger, pShutdownNotifier);
+    constraintsSolver = new ConstraintsSolver(pConfig, solver);
 
     SymbolicValues.initialize(lessOrEqualType);
     abstractDomain = initializeAbstractDomain();
     mergeOperator = initializeMergeOperator();
     stopOperator = initializeStopOperator();
     transferRelation =
-        new ConstraintsTransferRelation(solver, pCfa.getMachineModel(), logger, pConfig, pShutdownNotifier);
+        new ConstraintsTransferRelation(
+            constraintsSolver, pCfa.getMachineModel(), logger, pConfig, pShutdownNotifier);
     precisionAdjustment = new ConstraintsPrecisionAdjustment();
     precision = FullConstraintsPrecision.getInstance();
   }
@@ -144,6 +148,10 @@ public class ConstraintsCPA
 
   public Solver getSolver() { return solver; }
 
+  public ConstraintsSolver getConstraintsSolver() {
+    return constraintsSolver;
+  }
+
   @Override
   public AbstractDomain getAbstractDomain() {
     return abstractDomain;
@@ -186,6 +194,7 @@ public class ConstraintsCPA
   @Override
   public void collectStatistics(Collection<Statistics> statsCollection) {
     precisionAdjustment.collectStatistics(statsCollection);
+    statsCollection.add(constraintsSolver);
 
     if (mergeOperator instanceof Statistics) {
       statsCollection.add((Statistics) mergeOperator);
@@ -194,6 +203,7 @@ public class ConstraintsCPA
 
   @Override
   public void close() {
+    constraintsSolver.close();
     solver.close();
   }
 }
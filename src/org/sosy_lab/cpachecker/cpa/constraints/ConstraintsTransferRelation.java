@@ -61,6 +61,7 @@ import org.sosy_lab.cpachecker.cpa.constraints.constraint.Constraint;
 import org.sosy_lab.cpachecker.cpa.constraints.constraint.ConstraintFactory;
 import org.sosy_lab.cpachecker.cpa.constraints.constraint.ConstraintTrivialityChecker;
 import org.sosy_lab.cpachecker.cpa.constraints.constraint.IdentifierAssignment;
+import org.sosy_lab.cpachecker.cpa.constraints.domain.ConstraintsSolver;
 import org.sosy_lab.cpachecker.cpa.constraints.domain.ConstraintsState;
 import org.sosy_lab.cpachecker.cpa.constraints.util.StateSimplifier;
 import org.sosy_lab.cpachecker.cpa.value.ValueAnalysisState;
@@ -99,12 +100,13 @@ public class ConstraintsTransferRelation
   private MachineModel machineModel;
 
   private Solver solver;
+  private ConstraintsSolver constraintsSolver;
   private FormulaManagerView formulaManager;
   private CtoFormulaConverter converter;
   private StateSimplifier simplifier;
 
   public ConstraintsTransferRelation(
-      final Solver pSolver,
+      final ConstraintsSolver pSolver,
       final MachineModel pMachineModel,
       final LogManager pLogger,
       final Configuration pConfig,
@@ -117,7 +119,8 @@ public class ConstraintsTransferRelation
     machineModel = pMachineModel;
     simplifier = new StateSimplifier(pConfig);
 
-    solver = pSolver;
+    constraintsSolver = pSolver;
+    solver = pSolver.getSolver();
     formulaManager = solver.getFormulaManager();
     initializeCToFormulaConverter(pLogger, pConfig, pShutdownNotifier);
   }
@@ -210,7 +213,7 @@ public class ConstraintsTransferRelation
 
     final IdentifierAssignment definiteAssignment = pOldState.getDefiniteAssignment();
     FormulaCreator formulaCreator = getFormulaCreator(pFunctionName);
-    newState.initialize(solver, formulaManager, formulaCreator);
+    newState.initialize(constraintsSolver, formulaManager, formulaCreator);
 
     if (oNewConstraint.isPresent()) {
       final Constraint newConstraint = oNewConstraint.get();
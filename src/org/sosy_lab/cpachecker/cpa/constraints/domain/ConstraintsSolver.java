@@ -0,0 +1,407 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.constraints.domain;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.io.PrintStream;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.IntegerOption;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.Option;
+import org.sosy_lab.common.configuration.Options;
+import org.sosy_lab.common.rationals.Rational;
+import org.sosy_lab.common.time.Timer;
+import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
+import org.sosy_lab.cpachecker.core.interfaces.Statistics;
+import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
+import org.sosy_lab.cpachecker.util.predicates.smt.BooleanFormulaManagerView;
+import org.sosy_lab.cpachecker.util.predicates.smt.FormulaManagerView;
+import org.sosy_lab.cpachecker.util.predicates.smt.Solver;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.Formula;
+import org.sosy_lab.java_smt.api.FormulaType;
+import org.sosy_lab.java_smt.api.Model;
+import org.sosy_lab.java_smt.api.Model.ValueAssignment;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverContext.ProverOptions;
+import org.sosy_lab.java_smt.api.SolverException;
+
+/**
+ * Performs the satisfiability checks of {@link ConstraintsState}s.
+ *
+ * <p>Successive checks usually share most of their formulas, because a successor state only adds
+ * a single constraint to the constraints of its predecessor. With incremental solving, one prover
+ * environment is kept open and the formulas of the last check stay on its stack, one level per
+ * formula. For a new check, only the levels after the longest common prefix are popped and the
+ * missing formulas are pushed.
+ *
+ * <p>Additionally, the last few satisfying models can be cached. Before the solver is asked, each
+ * cached model is evaluated on the formulas to check. If it satisfies them, no SAT check is
+ * necessary. Cached models are also used to rule out that a symbolic identifier has only one
+ * possible value.
+ *
+ * <p>Both techniques, and the slicing of constraints by their symbols, are disabled by default.
+ * Their benefit has not been measured yet, while they add work to every satisfiability check.
+ */
+@Options(prefix = "cpa.constraints")
+public class ConstraintsSolver implements Statistics, AutoCloseable {
+
+  @Option(
+    secure = true,
+    description =
+        "Keep the constraints of the last satisfiability check on the solver stack"
+            + " and only push the constraints that changed for the next check."
+  )
+  private boolean incrementalSolving = false;
+
+  @Option(
+    secure = true,
+    description =
+        "Only check the satisfiability of constraints that share symbols with constraints"
+            + " that were not yet checked. Constraints without common symbols do not"
+            + " influence each other's satisfiability. This requires to extract the symbols"
+            + " of all constraints of a state for each check."
+  )
+  private boolean performSlicing = false;
+
+  @Option(
+    secure = true,
+    description =
+        "Number of recent satisfying models to evaluate before a satisfiability check"
+            + " is delegated to the solver. 0 disables the cache."
+  )
+  @IntegerOption(min = 0)
+  private int modelCacheSize = 0;
+
+  private final Solver solver;
+  private final FormulaManagerView formulaManager;
+  private final BooleanFormulaManagerView booleanFormulaManager;
+
+  @Nullable private ProverEnvironment prover = null;
+
+  /** The formulas currently on the stack of {@link #prover}, one formula per level. */
+  private final List<BooleanFormula> stack = new ArrayList<>();
+
+  /** Most recently used models first. */
+  private final LinkedList<CachedModel> modelCache = new LinkedList<>();
+
+  // the formulas of the last call to #findModel and the cached models satisfying them
+  private List<BooleanFormula> lastFormulas = ImmutableList.of();
+  private List<CachedModel> lastSatisfyingModels = ImmutableList.of();
+
+  // Statistics
+  private int satChecks = 0;
+  private int solverCalls = 0;
+  private int reusedStackLevels = 0;
+  private int pushedStackLevels = 0;
+  private int modelCacheHits = 0;
+  private int uniquenessChecks = 0;
+  private int uniquenessChecksByModels = 0;
+  private final Timer solverTime = new Timer();
+
+  public ConstraintsSolver(final Configuration pConfig, final Solver pSolver)
+      throws InvalidConfigurationException {
+    pConfig.inject(this);
+
+    solver = pSolver;
+    formulaManager = pSolver.getFormulaManager();
+    booleanFormulaManager = formulaManager.getBooleanFormulaManager();
+  }
+
+  public Solver getSolver() {
+    return solver;
+  }
+
+  boolean isSlicingEnabled() {
+    return performSlicing;
+  }
+
+  /**
+   * Returns a model satisfying the conjunction of the given formulas, or <code>null</code> if no
+   * such model exists.
+   *
+   * @param pFormulas the formulas to check. They should be given in a stable order, so that the
+   *     solver stack of a previous check can be reused
+   * @return the value assignments of a model of the given formulas, or <code>null</code> if the
+   *     formulas are unsatisfiable
+   */
+  @Nullable
+  Iterable<ValueAssignment> findModel(final List<BooleanFormula> pFormulas)
+      throws SolverException, InterruptedException {
+    satChecks++;
+    lastFormulas = ImmutableList.copyOf(pFormulas);
+    lastSatisfyingModels = getCachedModelsSatisfying(lastFormulas);
+
+    if (!lastSatisfyingModels.isEmpty()) {
+      modelCacheHits++;
+      CachedModel hit = lastSatisfyingModels.get(0);
+      modelCache.remove(hit);
+      modelCache.addFirst(hit);
+      return hit.assignments;
+    }
+
+    boolean success = false;
+    solverTime.start();
+    try {
+      synchronizeStack(lastFormulas);
+      solverCalls++;
+      Iterable<ValueAssignment> result = null;
+
+      if (!prover.isUnsat()) {
+        CachedModel model = cacheModel();
+        lastSatisfyingModels = ImmutableList.of(model);
+        result = model.assignments;
+      }
+      success = true;
+      return result;
+
+    } finally {
+      solverTime.stop();
+      if (!success) {
+        closeProver();
+      }
+    }
+  }
+
+  /**
+   * Returns whether the given assignment is the only value of its variable that satisfies the
+   * formulas of the last call to {@link #findModel(List)}. That call must have found a model.
+   *
+   * @param pAssignment a value assignment of a model of the last checked formulas
+   * @param pProhibitAssignment a formula that is satisfied by all values of the assigned variable
+   *     except the given one
+   */
+  boolean isOnlySatisfyingAssignment(
+      final ValueAssignment pAssignment, final BooleanFormula pProhibitAssignment)
+      throws SolverException, InterruptedException {
+    uniquenessChecks++;
+
+    for (CachedModel model : lastSatisfyingModels) {
+      Object otherValue = model.values.get(pAssignment.getName());
+      if (otherValue != null && !otherValue.equals(pAssignment.getValue())) {
+        uniquenessChecksByModels++;
+        return false;
+      }
+    }
+
+    boolean success = false;
+    solverTime.start();
+    try {
+      synchronizeStack(lastFormulas);
+      prover.push(pProhibitAssignment);
+      solverCalls++;
+      boolean isUnsat = prover.isUnsat();
+
+      if (!isUnsat) {
+        // the model is one of the formulas without the prohibited assignment,
+        // so it may rule out other identifiers with only one value, too
+        lastSatisfyingModels =
+            ImmutableList.<CachedModel>builder()
+                .addAll(lastSatisfyingModels)
+                .add(cacheModel())
+                .build();
+      }
+
+      // remove the just added formula again so we return to the checked formulas
+      // - other assignments will probably be tested next.
+      prover.pop();
+      success = true;
+      return isUnsat;
+
+    } finally {
+      solverTime.stop();
+      if (!success) {
+        closeProver();
+      }
+    }
+  }
+
+  /**
+   * Ends a sequence of calls to {@link #findModel(List)} and {@link
+   * #isOnlySatisfyingAssignment(ValueAssignment, BooleanFormula)}. Without incremental solving,
+   * the prover is closed here.
+   */
+  void finishCheck() {
+    lastFormulas = ImmutableList.of();
+    lastSatisfyingModels = ImmutableList.of();
+
+    if (!incrementalSolving) {
+      closeProver();
+    }
+  }
+
+  private void synchronizeStack(final List<BooleanFormula> pFormulas) throws InterruptedException {
+    if (prover == null) {
+      prover = solver.newProverEnvironment(ProverOptions.GENERATE_MODELS);
+      stack.clear();
+    }
+
+    int commonPrefix = 0;
+    while (commonPrefix < stack.size()
+        && commonPrefix < pFormulas.size()
+        && stack.get(commonPrefix).equals(pFormulas.get(commonPrefix))) {
+      commonPrefix++;
+    }
+
+    while (stack.size() > commonPrefix) {
+      prover.pop();
+      stack.remove(stack.size() - 1);
+    }
+    reusedStackLevels += commonPrefix;
+
+    for (BooleanFormula f : pFormulas.subList(commonPrefix, pFormulas.size())) {
+      prover.push(f);
+      stack.add(f);
+      pushedStackLevels++;
+    }
+  }
+
+  private CachedModel cacheModel() throws SolverException {
+    CachedModel model;
+    try (Model m = prover.getModel()) {
+      model = new CachedModel(m);
+    }
+
+    if (modelCacheSize > 0) {
+      modelCache.addFirst(model);
+      while (modelCache.size() > modelCacheSize) {
+        modelCache.removeLast();
+      }
+    }
+    return model;
+  }
+
+  private List<CachedModel> getCachedModelsSatisfying(final List<BooleanFormula> pFormulas)
+      throws InterruptedException {
+    if (modelCache.isEmpty()) {
+      return ImmutableList.of();
+    }
+
+    BooleanFormula conjunction = booleanFormulaManager.and(pFormulas);
+    ImmutableList.Builder<CachedModel> satisfying = ImmutableList.builder();
+
+    for (CachedModel model : modelCache) {
+      if (model.substitution.isEmpty()) {
+        continue;
+      }
+
+      BooleanFormula evaluated =
+          formulaManager.simplify(formulaManager.substitute(conjunction, model.substitution));
+      if (booleanFormulaManager.isTrue(evaluated)) {
+        satisfying.add(model);
+      }
+    }
+    return satisfying.build();
+  }
+
+  @Nullable
+  private Formula makeConstant(final Formula pVariable, final Object pValue) {
+    FormulaType<?> type = formulaManager.getFormulaType(pVariable);
+
+    if (pValue instanceof Boolean && type.isBooleanType()) {
+      return booleanFormulaManager.makeBoolean((Boolean) pValue);
+
+    } else if (pValue instanceof BigInteger
+        && (type.isIntegerType() || type.isBitvectorType())) {
+      return formulaManager.makeNumber(type, (BigInteger) pValue);
+
+    } else if (pValue instanceof Rational && type.isRationalType()) {
+      return formulaManager.makeNumber(pVariable, (Rational) pValue);
+
+    } else {
+      // floating point values and arrays are not evaluated by the cache
+      return null;
+    }
+  }
+
+  private void closeProver() {
+    if (prover != null) {
+      prover.close();
+      prover = null;
+    }
+    stack.clear();
+  }
+
+  @Override
+  public void close() {
+    closeProver();
+    modelCache.clear();
+  }
+
+  @Override
+  public void printStatistics(
+      final PrintStream pOut, final Result pResult, final UnmodifiableReachedSet pReached) {
+    pOut.println("Number of satisfiability checks: " + satChecks);
+    pOut.println("  Answered by cached models: " + modelCacheHits);
+    pOut.println("Number of uniqueness checks for identifiers: " + uniquenessChecks);
+    pOut.println("  Answered by cached models: " + uniquenessChecksByModels);
+    pOut.println("Number of solver calls: " + solverCalls);
+    pOut.println("Number of reused solver stack levels: " + reusedStackLevels);
+    pOut.println("Number of pushed solver stack levels: " + pushedStackLevels);
+    pOut.println("Time for solver calls: " + solverTime);
+  }
+
+  @Nullable
+  @Override
+  public String getName() {
+    return ConstraintsSolver.class.getSimpleName();
+  }
+
+  /** A satisfying model, together with a substitution of its variables by their values. */
+  private final class CachedModel {
+
+    private final ImmutableList<ValueAssignment> assignments;
+    private final ImmutableMap<String, Object> values;
+    private final ImmutableMap<Formula, Formula> substitution;
+
+    private CachedModel(final Iterable<ValueAssignment> pAssignments) {
+      assignments = ImmutableList.copyOf(pAssignments);
+
+      Map<String, Object> valueMap = new HashMap<>();
+      Map<Formula, Formula> substitutionMap = new HashMap<>();
+      for (ValueAssignment a : assignments) {
+        // interpretations of uninterpreted functions can't be substituted
+        if (!a.getArgumentsInterpretation().isEmpty()) {
+          continue;
+        }
+
+        valueMap.put(a.getName(), a.getValue());
+        Formula constant = makeConstant(a.getKey(), a.getValue());
+        if (constant != null) {
+          substitutionMap.put(a.getKey(), constant);
+        }
+      }
+      values = ImmutableMap.copyOf(valueMap);
+      substitution = ImmutableMap.copyOf(substitutionMap);
+    }
+  }
+}
@@ -0,0 +1,259 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.constraints.domain;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.cpachecker.cfa.types.MachineModel;
+import org.sosy_lab.cpachecker.cfa.types.Type;
+import org.sosy_lab.cpachecker.cfa.types.c.CNumericTypes;
+import org.sosy_lab.cpachecker.core.AnalysisDirection;
+import org.sosy_lab.cpachecker.cpa.constraints.FormulaCreator;
+import org.sosy_lab.cpachecker.cpa.constraints.FormulaCreatorUsingCConverter;
+import org.sosy_lab.cpachecker.cpa.constraints.constraint.Constraint;
+import org.sosy_lab.cpachecker.cpa.constraints.constraint.IdentifierAssignment;
+import org.sosy_lab.cpachecker.cpa.value.symbolic.type.SymbolicExpression;
+import org.sosy_lab.cpachecker.cpa.value.symbolic.type.SymbolicIdentifier;
+import org.sosy_lab.cpachecker.cpa.value.symbolic.type.SymbolicValueFactory;
+import org.sosy_lab.cpachecker.cpa.value.type.NumericValue;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.ctoformula.CtoFormulaConverter;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.ctoformula.CtoFormulaTypeHandler;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.ctoformula.FormulaEncodingOptions;
+import org.sosy_lab.cpachecker.util.predicates.smt.SolverViewBasedTest0;
+
+/**
+ * Tests that the satisfiability checks of {@link ConstraintsState} with a {@link
+ * ConstraintsSolver} give the same results and definite assignments for all combinations of
+ * incremental solving, slicing and model caching.
+ */
+public class ConstraintsSolverTest extends SolverViewBasedTest0 {
+
+  private final SymbolicValueFactory factory = SymbolicValueFactory.getInstance();
+  private final Type defType = CNumericTypes.INT;
+
+  private final SymbolicIdentifier idA = factory.newIdentifier();
+  private final SymbolicIdentifier idB = factory.newIdentifier();
+  private final SymbolicIdentifier idC = factory.newIdentifier();
+  private final SymbolicExpression a = factory.asConstant(idA, defType);
+  private final SymbolicExpression b = factory.asConstant(idB, defType);
+  private final SymbolicExpression c = factory.asConstant(idC, defType);
+
+  private FormulaCreator formulaCreator;
+
+  /** One solver per combination of options, the first one has all optimizations disabled. */
+  private final List<ConstraintsSolver> constraintsSolvers = new ArrayList<>();
+
+  @Before
+  public void setUpConstraintsSolvers() throws InvalidConfigurationException {
+    MachineModel machineModel = MachineModel.LINUX32;
+    CtoFormulaConverter converter =
+        new CtoFormulaConverter(
+            new FormulaEncodingOptions(config),
+            mgrv,
+            machineModel,
+            Optional.empty(),
+            logger,
+            ShutdownNotifier.createDummy(),
+            new CtoFormulaTypeHandler(logger, machineModel),
+            AnalysisDirection.FORWARD);
+    formulaCreator = new FormulaCreatorUsingCConverter(mgrv, converter, "main");
+
+    for (boolean incremental : ImmutableList.of(false, true)) {
+      for (boolean slicing : ImmutableList.of(false, true)) {
+        for (int cacheSize : ImmutableList.of(0, 8)) {
+          Configuration constraintsConfig =
+              Configuration.builder()
+                  .copyFrom(config)
+                  .setOption("cpa.constraints.incrementalSolving", Boolean.toString(incremental))
+                  .setOption("cpa.constraints.performSlicing", Boolean.toString(slicing))
+                  .setOption("cpa.constraints.modelCacheSize", Integer.toString(cacheSize))
+                  .build();
+          constraintsSolvers.add(new ConstraintsSolver(constraintsConfig, solver));
+        }
+      }
+    }
+  }
+
+  @After
+  public void closeConstraintsSolvers() {
+    // provers have to be closed before the solver context
+    for (ConstraintsSolver constraintsSolver : constraintsSolvers) {
+      constraintsSolver.close();
+    }
+  }
+
+  private Constraint lessThan(SymbolicExpression pOp1, long pOp2) {
+    return (Constraint) factory.lessThan(pOp1, constant(pOp2), defType, defType);
+  }
+
+  private Constraint greaterThan(SymbolicExpression pOp1, long pOp2) {
+    return (Constraint) factory.greaterThan(pOp1, constant(pOp2), defType, defType);
+  }
+
+  private Constraint equal(SymbolicExpression pOp1, SymbolicExpression pOp2) {
+    return factory.equal(pOp1, pOp2, defType, defType);
+  }
+
+  private SymbolicExpression constant(long pValue) {
+    return factory.asConstant(new NumericValue(pValue), defType);
+  }
+
+  /** The result of checking one state of a path, for comparison between solvers. */
+  private static final class CheckResult {
+    private final boolean unsat;
+    private final IdentifierAssignment definiteAssignment;
+
+    private CheckResult(ConstraintsState pState) throws Exception {
+      unsat = pState.isUnsat();
+      definiteAssignment = unsat ? null : pState.getDefiniteAssignment();
+    }
+
+    @Override
+    public boolean equals(Object pOther) {
+      if (!(pOther instanceof CheckResult)) {
+        return false;
+      }
+      CheckResult other = (CheckResult) pOther;
+      return unsat == other.unsat
+          && Objects.equals(definiteAssignment, other.definiteAssignment);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(unsat, definiteAssignment);
+    }
+
+    @Override
+    public String toString() {
+      return unsat ? "UNSAT" : "SAT with definite assignment " + definiteAssignment;
+    }
+  }
+
+  /**
+   * Add the given constraints one after another, like the transfer relation does on a path, and
+   * check the satisfiability of each successor. Unsatisfiable successors are not continued.
+   */
+  private List<CheckResult> checkPath(ConstraintsSolver pSolver, List<Constraint> pPath)
+      throws Exception {
+    List<CheckResult> results = new ArrayList<>();
+    ConstraintsState state = new ConstraintsState();
+    for (Constraint constraint : pPath) {
+      ConstraintsState successor = state.copyOf();
+      successor.initialize(pSolver, mgrv, formulaCreator);
+      successor.add(constraint);
+      CheckResult result = new CheckResult(successor);
+      results.add(result);
+      if (!result.unsat) {
+        state = successor;
+      }
+    }
+    return results;
+  }
+
+  /** Check all paths with each solver and assert that all solvers give the same results. */
+  private List<List<CheckResult>> checkWithAllSolvers(List<List<Constraint>> pPaths)
+      throws Exception {
+    List<List<CheckResult>> expected = new ArrayList<>();
+    for (List<Constraint> path : pPaths) {
+      expected.add(checkPath(constraintsSolvers.get(0), path));
+    }
+
+    for (ConstraintsSolver constraintsSolver :
+        constraintsSolvers.subList(1, constraintsSolvers.size())) {
+      // all paths are checked with the same solver, such that stacks and models are reused
+      for (int i = 0; i < pPaths.size(); i++) {
+        assertWithMessage("Results of path %s", i)
+            .that(checkPath(constraintsSolver, pPaths.get(i)))
+            .isEqualTo(expected.get(i));
+      }
+    }
+    return expected;
+  }
+
+  private static void assertDefiniteValue(
+      CheckResult pResult, SymbolicIdentifier pIdentifier, long pValue) {
+    assertThat(pResult.definiteAssignment.containsKey(pIdentifier)).isTrue();
+    assertThat(((NumericValue) pResult.definiteAssignment.get(pIdentifier)).longValue())
+        .isEqualTo(pValue);
+  }
+
+  @Test
+  public void testSliceSharesIdentifierThroughEarlierConstraint() throws Exception {
+    // c is independent of the other constraints and stays out of the slices
+    List<Constraint> path =
+        ImmutableList.of(
+            lessThan(c, 100), lessThan(a, 2), equal(a, b), greaterThan(b, 0));
+    List<Constraint> unsatPath =
+        ImmutableList.of(
+            lessThan(c, 100), lessThan(a, 2), equal(a, b), greaterThan(b, 5));
+
+    List<List<CheckResult>> results = checkWithAllSolvers(ImmutableList.of(path, unsatPath));
+
+    // b > 0 is only connected to a < 2 through a == b
+    CheckResult last = results.get(0).get(3);
+    assertThat(last.unsat).isFalse();
+    assertDefiniteValue(last, idA, 1);
+    assertDefiniteValue(last, idB, 1);
+    assertThat(last.definiteAssignment.containsKey(idC)).isFalse();
+
+    assertThat(results.get(1).get(3).unsat).isTrue();
+  }
+
+  @Test
+  public void testCachedModelSatisfyingOnlyPartOfFormulas() throws Exception {
+    // the model found for a > 0 is cached, but it does not have to satisfy a > 5
+    List<Constraint> path =
+        ImmutableList.of(greaterThan(a, 0), greaterThan(a, 5), lessThan(a, 7));
+    List<Constraint> unsatPath =
+        ImmutableList.of(greaterThan(a, 0), greaterThan(a, 5), lessThan(a, 6));
+    List<Constraint> independentPath =
+        ImmutableList.of(greaterThan(a, 0), greaterThan(b, 0), lessThan(b, 2));
+
+    List<List<CheckResult>> results =
+        checkWithAllSolvers(ImmutableList.of(path, unsatPath, independentPath));
+
+    CheckResult last = results.get(0).get(2);
+    assertThat(last.unsat).isFalse();
+    assertDefiniteValue(last, idA, 6);
+
+    assertThat(results.get(1).get(2).unsat).isTrue();
+
+    CheckResult independent = results.get(2).get(2);
+    assertThat(independent.unsat).isFalse();
+    assertDefiniteValue(independent, idB, 1);
+    assertThat(independent.definiteAssignment.containsKey(idA)).isFalse();
+  }
+}
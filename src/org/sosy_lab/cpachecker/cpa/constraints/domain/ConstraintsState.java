@@ -26,6 +26,7 @@ package org.sosy_lab.cpachecker.cpa.constraints.domain;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableSet;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
 import org.sosy_lab.cpachecker.core.interfaces.Graphable;
 import org.sosy_lab.cpachecker.cpa.constraints.FormulaCreator;
@@ -38,14 +39,10 @@ import org.sosy_lab.cpachecker.cpa.value.type.NumericValue;
 import org.sosy_lab.cpachecker.cpa.value.type.Value;
 import org.sosy_lab.cpachecker.exceptions.UnrecognizedCCodeException;
 import org.sosy_lab.cpachecker.util.predicates.smt.FormulaManagerView;
-import org.sosy_lab.cpachecker.util.predicates.smt.Solver;
 import org.sosy_lab.java_smt.api.SolverException;
 import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.Formula;
-import org.sosy_lab.java_smt.api.Model;
 import org.sosy_lab.java_smt.api.Model.ValueAssignment;
-import org.sosy_lab.java_smt.api.ProverEnvironment;
-import org.sosy_lab.java_smt.api.SolverContext.ProverOptions;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -77,8 +74,13 @@ public class ConstraintsState implements AbstractState, Graphable, Set<Constrain
   private Constraint lastAddedConstraint;
   private Map<Constraint, BooleanFormula> constraintFormulas;
 
-  private Solver solver;
-  private ProverEnvironment prover;
+  /**
+   * Constraints whose conjunction is known to be satisfiable. Only constraints not contained in
+   * this set, and constraints sharing symbols with them, have to be checked again.
+   */
+  private ImmutableSet<Constraint> satisfiableConstraints = ImmutableSet.of();
+
+  private ConstraintsSolver solver;
   private FormulaCreator formulaCreator;
   private FormulaManagerView formulaManager;
   private SymbolicIdentifierLocator locator;
@@ -107,10 +109,11 @@ public class ConstraintsState implements AbstractState, Graphable, Set<Constrain
 
   /**
    * Creates a new <code>ConstraintsState</code> copy of the given <code>ConstraintsState</code>.
-   * The returned copy will use the same references to {@link Solver} and {@link ProverEnvironment}
+   * The returned copy will use the same reference to the {@link ConstraintsSolver}
    * currently stored in the given state.
-   * To use new ones, {@link #initialize(Solver, FormulaManagerView, FormulaCreator)} may be
-   * called on the returned state.
+   * To use a new one,
+   * {@link #initialize(ConstraintsSolver, FormulaManagerView, FormulaCreator)} may be called
+   * on the returned state.
    *
    * <p>This constructor should only be used by {@link #copyOf()} and subtypes of this class.</p>
    *
@@ -119,8 +122,8 @@ public class ConstraintsState implements AbstractState, Graphable, Set<Constrain
   protected ConstraintsState(ConstraintsState pState) {
     constraints = new ArrayList<>(pState.constraints);
     constraintFormulas = new HashMap<>(pState.constraintFormulas);
+    satisfiableConstraints = pState.satisfiableConstraints;
     solver = pState.solver;
-    prover = pState.prover;
     formulaCreator = pState.formulaCreator;
     formulaManager = pState.formulaManager;
     locator = pState.locator;
@@ -135,7 +138,7 @@ public class ConstraintsState implements AbstractState, Graphable, Set<Constrain
    *
    * @return a new copy of the given <code>ConstraintsState</code> object
    * @see #isInitialized()
-   * @see #initialize(Solver, FormulaManagerView, FormulaCreator)
+   * @see #initialize(ConstraintsSolver, FormulaManagerView, FormulaCreator)
    */
   // We use a method here so subtypes can override it, in contrast to a public copy constructor
   public ConstraintsState copyOf() {
@@ -245,7 +248,8 @@ public class ConstraintsState implements AbstractState, Graphable, Set<Constrain
    * If a state is not initialized, calls to {@link #isUnsat()} will fail with an exception.
    *
    * <p>A state will never be initialized upon creation.
-   * It can be initialized by calling {@link #initialize(Solver, FormulaManagerView, FormulaCreator)}.</p>
+   * It can be initialized by calling
+   * {@link #initialize(ConstraintsSolver, FormulaManagerView, FormulaCreator)}.</p>
    *
    * @return <code>true</code> if the state is initialized.
    */
@@ -261,7 +265,10 @@ public class ConstraintsState implements AbstractState, Graphable, Set<Constrain
    * @param pFormulaManager the formula manager to use for creating {@link Formula}s
    * @param pFormulaCreator the formula creator to use for creating <code>Formula</code>s
    */
-  public void initialize(Solver pSolver, FormulaManagerView pFormulaManager, FormulaCreator pFormulaCreator) {
+  public void initialize(
+      ConstraintsSolver pSolver,
+      FormulaManagerView pFormulaManager,
+      FormulaCreator pFormulaCreator) {
     solver = pSolver;
     formulaManager = pFormulaManager;
     formulaCreator = pFormulaCreator;
@@ -271,68 +278,136 @@ public class ConstraintsState implements AbstractState, Graphable, Set<Constrain
    * Returns whether this state is unsatisfiable.
    * A state without constraints (that is, an empty state), is always satisfiable.
    *
+   * <p>If slicing is enabled, only constraints that were added after the last successful check,
+   * and the constraints sharing symbols with them, are checked.</p>
+   *
    * @return <code>true</code> if this state is unsatisfiable, <code>false</code> otherwise
    */
   public boolean isUnsat() throws SolverException, InterruptedException, UnrecognizedCCodeException {
-    boolean unsat = false;
-
-    try {
-      if (!constraints.isEmpty()) {
-        prover = solver.newProverEnvironment(ProverOptions.GENERATE_MODELS);
-        BooleanFormula constraintsAsFormula = getFullFormula();
+    if (constraints.isEmpty()) {
+      return false;
+    }
 
-        prover.push(constraintsAsFormula);
-        unsat = prover.isUnsat();
+    createMissingConstraintFormulas();
+    List<BooleanFormula> formulasToCheck = new ArrayList<>();
+    for (Constraint c : getConstraintsToCheck()) {
+      formulasToCheck.add(constraintFormulas.get(c));
+    }
 
-        if (!unsat) {
-          // doing this while the complete formula is still on the prover environment stack is
-          // cheaper than performing another complete SAT check when the assignment is really requested
-          resolveDefiniteAssignments();
+    if (formulasToCheck.isEmpty()) {
+      return false;
+    }
 
-        } else {
-          definiteAssignment = null;
+    try {
+      Iterable<ValueAssignment> model = solver.findModel(formulasToCheck);
+
+      if (model == null) {
+        definiteAssignment = null;
+        return true;
+
+      } else {
+        // doing this while the solver still knows the checked formulas is cheaper than
+        // performing another complete SAT check when the assignment is really requested
+        resolveDefiniteAssignments(model, formulasToCheck);
+        if (solver.isSlicingEnabled()) {
+          satisfiableConstraints = ImmutableSet.copyOf(constraints);
         }
-
+        return false;
       }
+
     } finally {
-      closeProver();
+      solver.finishCheck();
     }
-
-    return unsat;
   }
 
-  private void closeProver() {
-    if (prover != null) {
-      prover.close();
-      prover = null;
+  /**
+   * Returns the constraints whose conjunction has to be checked to decide whether this state is
+   * satisfiable. This is the set of constraints not yet known to be satisfiable, closed under
+   * sharing symbols. All other constraints are satisfiable and independent of these. Without
+   * slicing, these are all constraints.
+   */
+  private List<Constraint> getConstraintsToCheck() {
+    if (!solver.isSlicingEnabled()) {
+      return constraints;
     }
+
+    List<Constraint> unchecked = new ArrayList<>();
+    for (Constraint c : constraints) {
+      if (!satisfiableConstraints.contains(c)) {
+        unchecked.add(c);
+      }
+    }
+
+    if (unchecked.isEmpty()) {
+      return unchecked;
+    }
+
+    Map<Constraint, Set<String>> symbols = new HashMap<>();
+    for (Constraint c : constraints) {
+      symbols.put(c, formulaManager.extractFunctionNames(constraintFormulas.get(c)));
+    }
+
+    Set<Constraint> relevantConstraints = new HashSet<>(unchecked);
+    Set<String> relevantSymbols = new HashSet<>();
+    for (Constraint c : unchecked) {
+      relevantSymbols.addAll(symbols.get(c));
+    }
+
+    boolean changed = true;
+    while (changed) {
+      changed = false;
+      for (Constraint c : constraints) {
+        if (!relevantConstraints.contains(c)
+            && !Collections.disjoint(symbols.get(c), relevantSymbols)) {
+          relevantConstraints.add(c);
+          relevantSymbols.addAll(symbols.get(c));
+          changed = true;
+        }
+      }
+    }
+
+    // keep the order of the constraints, so that the solver stack of earlier checks can be reused
+    List<Constraint> toCheck = new ArrayList<>(relevantConstraints.size());
+    for (Constraint c : constraints) {
+      if (relevantConstraints.contains(c)) {
+        toCheck.add(c);
+      }
+    }
+    return toCheck;
   }
 
-  private void resolveDefiniteAssignments()
+  private void resolveDefiniteAssignments(
+      final Iterable<ValueAssignment> pModel, final List<BooleanFormula> pCheckedFormulas)
       throws InterruptedException, SolverException, UnrecognizedCCodeException {
 
     IdentifierAssignment oldDefinites = new IdentifierAssignment(definiteAssignment);
-    computeDefiniteAssignment();
+    computeDefiniteAssignment(pModel, pCheckedFormulas);
     updateOldFormulasDefinitesAppearIn(oldDefinites, definiteAssignment);
     assert definiteAssignment.entrySet().containsAll(oldDefinites.entrySet());
   }
 
-  private void computeDefiniteAssignment() throws SolverException, InterruptedException {
-    try (Model validAssignment = prover.getModel()) {
-      for (ValueAssignment val : validAssignment) {
-        if (isSymbolicTerm(val.getName())) {
+  private void computeDefiniteAssignment(
+      final Iterable<ValueAssignment> pModel, final List<BooleanFormula> pCheckedFormulas)
+      throws SolverException, InterruptedException {
 
-          SymbolicIdentifier identifier = toSymbolicIdentifier(val.getName());
-          Value concreteValue = convertToValue(val);
+    // a model may contain further variables if it was reused from an earlier check
+    Set<String> checkedVariables =
+        formulaManager.extractVariableNames(
+            formulaManager.getBooleanFormulaManager().and(pCheckedFormulas));
 
-          if (!definiteAssignment.containsKey(identifier)
-              && isOnlySatisfyingAssignment(val)) {
+    for (ValueAssignment val : pModel) {
+      if (isSymbolicTerm(val.getName()) && checkedVariables.contains(val.getName())) {
 
-            assert !definiteAssignment.containsKey(identifier) || definiteAssignment.get(identifier).equals(concreteValue)
-                : "Definite assignment can't be changed from " + definiteAssignment.get(identifier) + " to " + concreteValue;
+        SymbolicIdentifier identifier = toSymbolicIdentifier(val.getName());
+        Value concreteValue = convertToValue(val);
 
-            definiteAssignment.put(identifier, concreteValue);
-          }
+        if (!definiteAssignment.containsKey(identifier)
+            && isOnlySatisfyingAssignment(val)) {
+
+          assert !definiteAssignment.containsKey(identifier) || definiteAssignment.get(identifier).equals(concreteValue)
+              : "Definite assignment can't be changed from " + definiteAssignment.get(identifier) + " to " + concreteValue;
+
+          definiteAssignment.put(identifier, concreteValue);
         }
       }
     }
@@ -394,14 +469,7 @@ public class ConstraintsState implements AbstractState, Graphable, Set<Constrain
 
     BooleanFormula prohibitAssignment = formulaManager.makeNot(formulaCreator.transformAssignment(pTerm.getKey(), pTerm.getValue()));
 
-    prover.push(prohibitAssignment);
-    boolean isUnsat = prover.isUnsat();
-
-    // remove the just added formula again so we return to the original constraint formula
-    // - other assignments will probably be tested before closing prover.
-    prover.pop();
-
-    return isUnsat;
+    return solver.isOnlySatisfyingAssignment(pTerm, prohibitAssignment);
   }
 
   private SymbolicIdentifier toSymbolicIdentifier(String pEncoding) {
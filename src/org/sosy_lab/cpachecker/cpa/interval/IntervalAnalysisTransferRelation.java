@@ -31,10 +31,10 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.logging.Level;
 import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.ast.AExpression;
 import org.sosy_lab.cpachecker.cfa.ast.c.CAssignment;
 import org.sosy_lab.cpachecker.cfa.ast.c.CBinaryExpression;
 import org.sosy_lab.cpachecker.cfa.ast.c.CBinaryExpression.BinaryOperator;
-import org.sosy_lab.cpachecker.cfa.ast.c.CDeclaration;
 import org.sosy_lab.cpachecker.cfa.ast.c.CExpression;
 import org.sosy_lab.cpachecker.cfa.ast.c.CFunctionCall;
 import org.sosy_lab.cpachecker.cfa.ast.c.CFunctionCallAssignmentStatement;
@@ -58,11 +58,23 @@ import org.sosy_lab.cpachecker.cfa.model.c.CReturnStatementEdge;
 import org.sosy_lab.cpachecker.cfa.model.c.CStatementEdge;
 import org.sosy_lab.cpachecker.cfa.types.c.CPointerType;
 import org.sosy_lab.cpachecker.core.defaults.ForwardingTransferRelation;
+import org.sosy_lab.cpachecker.core.defaults.SingleEdgeTransferRelation;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
 import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.exceptions.CPATransferException;
 import org.sosy_lab.cpachecker.exceptions.UnrecognizedCCodeException;
+import org.sosy_lab.cpachecker.exceptions.UnrecognizedCFAEdgeException;
 import org.sosy_lab.cpachecker.exceptions.UnrecognizedCodeException;
+import org.sosy_lab.cpachecker.util.Pair;
 
-public class IntervalAnalysisTransferRelation extends ForwardingTransferRelation<Collection<IntervalAnalysisState>, IntervalAnalysisState, Precision> {
+/**
+ * Transfer relation of the interval analysis.
+ *
+ * <p>The state and the function of the current edge are passed as parameters instead of being
+ * stored in fields (like in {@link ForwardingTransferRelation}), thus the transfer relation has no
+ * mutable state and can be used by several threads at once.
+ */
+public class IntervalAnalysisTransferRelation extends SingleEdgeTransferRelation {
 
   private final boolean splitIntervals;
   private final int threshold;
@@ -77,12 +89,67 @@ public class IntervalAnalysisTransferRelation extends ForwardingTransferRelation
   }
 
   @Override
-  protected Collection<IntervalAnalysisState> postProcessing(Collection<IntervalAnalysisState> successors, CFAEdge edge) {
+  public Collection<IntervalAnalysisState> getAbstractSuccessorsForEdge(
+      AbstractState pState, Precision pPrecision, CFAEdge pCfaEdge) throws CPATransferException {
+    IntervalAnalysisState state = (IntervalAnalysisState) pState;
+    String functionName = pCfaEdge.getPredecessor().getFunctionName();
+
+    final Collection<IntervalAnalysisState> successors;
+    switch (pCfaEdge.getEdgeType()) {
+      case AssumeEdge:
+        CAssumeEdge assumeEdge = (CAssumeEdge) pCfaEdge;
+        Pair<AExpression, Boolean> assumption =
+            ForwardingTransferRelation.simplifyAssumption(
+                assumeEdge.getExpression(), assumeEdge.getTruthAssumption());
+        successors =
+            handleAssumption(
+                state, assumeEdge, (CExpression) assumption.getFirst(), assumption.getSecond());
+        break;
+
+      case FunctionCallEdge:
+        CFunctionCallEdge callEdge = (CFunctionCallEdge) pCfaEdge;
+        successors =
+            handleFunctionCallEdge(
+                state,
+                callEdge,
+                callEdge.getArguments(),
+                callEdge.getSuccessor().getFunctionParameters());
+        break;
+
+      case FunctionReturnEdge:
+        CFunctionReturnEdge returnEdge = (CFunctionReturnEdge) pCfaEdge;
+        CFunctionSummaryEdge summaryEdge = returnEdge.getSummaryEdge();
+        successors =
+            handleFunctionReturnEdge(state, returnEdge, summaryEdge, summaryEdge.getExpression());
+        break;
+
+      case DeclarationEdge:
+        successors = handleDeclarationEdge(state, (CDeclarationEdge) pCfaEdge);
+        break;
+
+      case StatementEdge:
+        CStatementEdge statementEdge = (CStatementEdge) pCfaEdge;
+        successors = handleStatementEdge(state, statementEdge, statementEdge.getStatement());
+        break;
+
+      case ReturnStatementEdge:
+        successors =
+            handleReturnStatementEdge(state, functionName, (CReturnStatementEdge) pCfaEdge);
+        break;
+
+      case BlankEdge:
+        successors = handleBlankEdge(state, functionName, (BlankEdge) pCfaEdge);
+        break;
+
+      default:
+        throw new UnrecognizedCFAEdgeException(pCfaEdge);
+    }
+
     return new HashSet<>(successors);
   }
 
-  @Override
-  protected Collection<IntervalAnalysisState> handleBlankEdge(BlankEdge cfaEdge) {
+  private Collection<IntervalAnalysisState> handleBlankEdge(
+      IntervalAnalysisState state, String functionName, BlankEdge cfaEdge) {
     IntervalAnalysisState newState = state;
     if (cfaEdge.getSuccessor() instanceof FunctionExitNode) {
       assert "default return".equals(cfaEdge.getDescription())
@@ -102,10 +169,12 @@ public class IntervalAnalysisTransferRelation extends ForwardingTransferRelation
    * @param cfaEdge return edge from a function to its call site.
    * @return new abstract state.
    */
-  @Override
-  protected Collection<IntervalAnalysisState> handleFunctionReturnEdge(CFunctionReturnEdge cfaEdge,
-      CFunctionSummaryEdge fnkCall, CFunctionCall summaryExpr, String callerFunctionName)
-    throws UnrecognizedCodeException {
+  private Collection<IntervalAnalysisState> handleFunctionReturnEdge(
+      IntervalAnalysisState state,
+      CFunctionReturnEdge cfaEdge,
+      CFunctionSummaryEdge fnkCall,
+      CFunctionCall summaryExpr)
+      throws UnrecognizedCodeException {
 
     IntervalAnalysisState newState = state;
     Optional<CVariableDeclaration> retVar = fnkCall.getFunctionEntry().getReturnVariable();
@@ -141,10 +210,12 @@ public class IntervalAnalysisTransferRelation extends ForwardingTransferRelation
    * @param callEdge the respective CFA edge
    * @return the successor state
    */
-  @Override
-  protected Collection<IntervalAnalysisState> handleFunctionCallEdge(CFunctionCallEdge callEdge,
-      List<CExpression> arguments, List<CParameterDeclaration> parameters,
-      String calledFunctionName) throws UnrecognizedCCodeException {
+  private Collection<IntervalAnalysisState> handleFunctionCallEdge(
+      IntervalAnalysisState state,
+      CFunctionCallEdge callEdge,
+      List<CExpression> arguments,
+      List<CParameterDeclaration> parameters)
+      throws UnrecognizedCCodeException {
 
     if (callEdge.getSuccessor().getFunctionDefinition().getType().takesVarArgs()) {
       assert parameters.size() <= arguments.size();
@@ -173,8 +244,8 @@ public class IntervalAnalysisTransferRelation extends ForwardingTransferRelation
    * @param returnEdge the CFA edge corresponding to this statement
    * @return the successor states
    */
-  @Override
-  protected Collection<IntervalAnalysisState> handleReturnStatementEdge(CReturnStatementEdge returnEdge)
+  private Collection<IntervalAnalysisState> handleReturnStatementEdge(
+      IntervalAnalysisState state, String functionName, CReturnStatementEdge returnEdge)
       throws UnrecognizedCCodeException {
     IntervalAnalysisState newState = state.dropFrame(functionName);
 
@@ -199,10 +270,9 @@ public class IntervalAnalysisTransferRelation extends ForwardingTransferRelation
    * @param truthValue flag to determine whether this is the then- or the else-branch of the assumption
    * @return the successor states
    */
-  @Override
-  protected Collection<IntervalAnalysisState> handleAssumption(
-      CAssumeEdge cfaEdge, CExpression expression, boolean truthValue)
-          throws UnrecognizedCCodeException {
+  private Collection<IntervalAnalysisState> handleAssumption(
+      IntervalAnalysisState state, CAssumeEdge cfaEdge, CExpression expression, boolean truthValue)
+      throws UnrecognizedCCodeException {
 
     if ((truthValue ? Interval.ZERO : Interval.ONE).equals(evaluateInterval(state, expression, cfaEdge))) {
       // the assumption is unsatisfiable
@@ -354,8 +424,8 @@ public class IntervalAnalysisTransferRelation extends ForwardingTransferRelation
    * @param declarationEdge the CFA edge
    * @return the successor state
    */
-  @Override
-  protected Collection<IntervalAnalysisState> handleDeclarationEdge(CDeclarationEdge declarationEdge, CDeclaration declaration)
+  private Collection<IntervalAnalysisState> handleDeclarationEdge(
+      IntervalAnalysisState state, CDeclarationEdge declarationEdge)
       throws UnrecognizedCCodeException {
 
     IntervalAnalysisState newState = state;
@@ -391,9 +461,9 @@ public class IntervalAnalysisTransferRelation extends ForwardingTransferRelation
    * @param cfaEdge the CFA edge
    * @return the successor
    */
-  @Override
-  protected Collection<IntervalAnalysisState> handleStatementEdge(CStatementEdge cfaEdge, CStatement expression)
-    throws UnrecognizedCodeException {
+  private Collection<IntervalAnalysisState> handleStatementEdge(
+      IntervalAnalysisState state, CStatementEdge cfaEdge, CStatement expression)
+      throws UnrecognizedCodeException {
     IntervalAnalysisState successor = state;
     // expression is an assignment operation, e.g. a = b;
     if (expression instanceof CAssignment) {
@@ -45,12 +45,28 @@ public class BitVectorInfo implements TypeInfo {
 
   private final BigInteger maxValue;
 
+  /**
+   * Whether the minimum and the maximum value fit into a long,
+   * which is the case for all bit vectors except unsigned ones with 64 bits or more.
+   */
+  private final boolean fitsInLong;
+
+  private final long minValueAsLong;
+
+  private final long maxValueAsLong;
+
+  private final BitVectorInterval range;
+
   private BitVectorInfo(int pSize, boolean pSigned) {
     Preconditions.checkArgument(pSize >= 0, "bit vector size must not be negative");
     size = pSize;
     signed = pSigned;
     minValue = !signed ? BigInteger.ZERO : BigInteger.valueOf(2).pow(size - 1).negate();
     maxValue = !signed ? BigInteger.valueOf(2).pow(size).subtract(BigInteger.ONE) : BigInteger.valueOf(2).pow(size - 1).subtract(BigInteger.ONE);
+    fitsInLong = minValue.bitLength() < Long.SIZE && maxValue.bitLength() < Long.SIZE;
+    minValueAsLong = fitsInLong ? minValue.longValue() : 0;
+    maxValueAsLong = fitsInLong ? maxValue.longValue() : 0;
+    range = BitVectorInterval.of(this, minValue, maxValue);
   }
 
   public int getSize() {
@@ -72,8 +88,26 @@ public class BitVectorInfo implements TypeInfo {
     return maxValue;
   }
 
+  /**
+   * Checks if the minimum and the maximum value fit into a long,
+   * such that {@link #getMinValueAsLong()} and {@link #getMaxValueAsLong()} may be called.
+   */
+  public boolean fitsInLong() {
+    return fitsInLong;
+  }
+
+  public long getMinValueAsLong() {
+    Preconditions.checkState(fitsInLong);
+    return minValueAsLong;
+  }
+
+  public long getMaxValueAsLong() {
+    Preconditions.checkState(fitsInLong);
+    return maxValueAsLong;
+  }
+
   public BitVectorInterval getRange() {
-    return BitVectorInterval.of(this, minValue, maxValue);
+    return range;
   }
 
   @Override
@@ -32,6 +32,7 @@ import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import javax.annotation.Nullable;
 
 /**
  * This class represents simple convex ranges of BigIntegers.
@@ -39,19 +40,41 @@ import java.util.Objects;
  * concrete value or infinity. In case of a concrete value, the bound is assumed
  * to be included in the range.
  *
+ * Bounds that fit into a long are stored as primitive values, and the
+ * BigInteger representation is only created if it is requested. Bounds that
+ * do not fit (which is only possible for unsigned 64-bit types and larger
+ * bit vectors) are stored as BigIntegers.
+ *
  * All instances of this class are immutable.
  */
 public class BitVectorInterval implements BitVectorType {
 
   /**
-   * The lower bound of the interval.
+   * The lower bound of the interval, valid if {@link #fitsInLong} is set.
+   */
+  private final long lowerBound;
+
+  /**
+   * The upper bound of the interval, valid if {@link #fitsInLong} is set.
+   */
+  private final long upperBound;
+
+  /**
+   * Whether both bounds fit into a long.
    */
-  private final BigInteger lowerBound;
+  private final boolean fitsInLong;
 
   /**
-   * The upper bound of the interval.
+   * The lower bound of the interval as BigInteger.
+   * If the bounds fit into a long, this is created lazily and only used as a cache,
+   * which is safe without synchronization because BigIntegers are immutable.
    */
-  private final BigInteger upperBound;
+  private @Nullable BigInteger bigLowerBound;
+
+  /**
+   * The upper bound of the interval as BigInteger, analogous to {@link #bigLowerBound}.
+   */
+  private @Nullable BigInteger bigUpperBound;
 
   /**
    * Size and signedness.
@@ -66,6 +89,36 @@ public class BitVectorInterval implements BitVectorType {
    * @param pLowerBound the lower bound of the interval.
    * @param pUpperBound the upper bound of the interval.
    */
+  private BitVectorInterval(BitVectorInfo pInfo, long pLowerBound, long pUpperBound) {
+    checkNotNull(pInfo);
+    checkArgument(pLowerBound <= pUpperBound, "lower endpoint greater than upper end point");
+    if (pInfo.fitsInLong()) {
+      checkArgument(
+          pLowerBound >= pInfo.getMinValueAsLong(), "lower bound must fit the bit vector");
+      checkArgument(
+          pUpperBound <= pInfo.getMaxValueAsLong(), "upper bound must fit the bit vector");
+    } else {
+      // the maximum value of such a bit vector is always larger than any long
+      checkArgument(
+          BigInteger.valueOf(pLowerBound).compareTo(pInfo.getMinValue()) >= 0,
+          "lower bound must fit the bit vector");
+    }
+
+    info = pInfo;
+    lowerBound = pLowerBound;
+    upperBound = pUpperBound;
+    fitsInLong = true;
+  }
+
+  /**
+   * Creates a new interval from the given lower bound to the given upper bound,
+   * which do not both fit into a long.
+   *
+   * The lower bound must be a value less than or equal to the upper bound.
+   *
+   * @param pLowerBound the lower bound of the interval.
+   * @param pUpperBound the upper bound of the interval.
+   */
   private BitVectorInterval(BitVectorInfo pInfo, BigInteger pLowerBound, BigInteger pUpperBound) {
     checkNotNull(pInfo);
     checkNotNull(pLowerBound);
@@ -76,8 +129,23 @@ public class BitVectorInterval implements BitVectorType {
     checkArgument(pUpperBound.compareTo(pInfo.getMaxValue()) <= 0, "upper bound must fit the bit vector");
 
     info = pInfo;
-    lowerBound = pLowerBound;
-    upperBound = pUpperBound;
+    lowerBound = 0;
+    upperBound = 0;
+    fitsInLong = false;
+    bigLowerBound = pLowerBound;
+    bigUpperBound = pUpperBound;
+  }
+
+  private static BitVectorInterval create(
+      BitVectorInfo pInfo, BigInteger pLowerBound, BigInteger pUpperBound) {
+    if (pLowerBound.bitLength() < Long.SIZE && pUpperBound.bitLength() < Long.SIZE) {
+      BitVectorInterval result =
+          new BitVectorInterval(pInfo, pLowerBound.longValue(), pUpperBound.longValue());
+      result.bigLowerBound = pLowerBound;
+      result.bigUpperBound = pUpperBound;
+      return result;
+    }
+    return new BitVectorInterval(pInfo, pLowerBound, pUpperBound);
   }
 
   /**
@@ -94,16 +162,102 @@ public class BitVectorInterval implements BitVectorType {
    * Return lower bound (may only be called if {@link #hasLowerBound()} returns true.
    */
   public BigInteger getLowerBound() {
-    return lowerBound;
+    BigInteger result = bigLowerBound;
+    if (result == null) {
+      result = BigInteger.valueOf(lowerBound);
+      bigLowerBound = result;
+    }
+    return result;
   }
 
   /**
    * Return upper bound (may only be called if {@link #hasUpperBound()} returns true.
    */
   public BigInteger getUpperBound() {
+    BigInteger result = bigUpperBound;
+    if (result == null) {
+      result = BigInteger.valueOf(upperBound);
+      bigUpperBound = result;
+    }
+    return result;
+  }
+
+  /**
+   * Checks if both bounds of this interval fit into a long,
+   * such that {@link #getLowerBoundAsLong()} and {@link #getUpperBoundAsLong()} may be called.
+   *
+   * @return <code>true</code> if both bounds fit into a long, <code>false</code> otherwise.
+   */
+  public boolean fitsInLong() {
+    return fitsInLong;
+  }
+
+  /**
+   * Return lower bound (may only be called if {@link #fitsInLong()} returns true.
+   */
+  public long getLowerBoundAsLong() {
+    checkState(fitsInLong);
+    return lowerBound;
+  }
+
+  /**
+   * Return upper bound (may only be called if {@link #fitsInLong()} returns true.
+   */
+  public long getUpperBoundAsLong() {
+    checkState(fitsInLong);
     return upperBound;
   }
 
+  /**
+   * Compares the lower bound of this interval to the lower bound of the given interval.
+   */
+  int compareLowerBoundTo(BitVectorInterval pOther) {
+    if (fitsInLong && pOther.fitsInLong) {
+      return Long.compare(lowerBound, pOther.lowerBound);
+    }
+    return getLowerBound().compareTo(pOther.getLowerBound());
+  }
+
+  /**
+   * Compares the upper bound of this interval to the upper bound of the given interval.
+   */
+  int compareUpperBoundTo(BitVectorInterval pOther) {
+    if (fitsInLong && pOther.fitsInLong) {
+      return Long.compare(upperBound, pOther.upperBound);
+    }
+    return getUpperBound().compareTo(pOther.getUpperBound());
+  }
+
+  /**
+   * Compares the lower bound of this interval to the upper bound of the given interval.
+   */
+  int compareLowerBoundToUpperBoundOf(BitVectorInterval pOther) {
+    if (fitsInLong && pOther.fitsInLong) {
+      return Long.compare(lowerBound, pOther.upperBound);
+    }
+    return getLowerBound().compareTo(pOther.getUpperBound());
+  }
+
+  /**
+   * Compares the lower bound of this interval to the given value.
+   */
+  int compareLowerBoundTo(long pValue) {
+    if (fitsInLong) {
+      return Long.compare(lowerBound, pValue);
+    }
+    return getLowerBound().compareTo(BigInteger.valueOf(pValue));
+  }
+
+  /**
+   * Compares the upper bound of this interval to the given value.
+   */
+  int compareUpperBoundTo(long pValue) {
+    if (fitsInLong) {
+      return Long.compare(upperBound, pValue);
+    }
+    return getUpperBound().compareTo(BigInteger.valueOf(pValue));
+  }
+
   /**
    * Checks if the interval includes every value.
    * @return <code>true</code> if the interval has neither a lower nor an upper bound, <code>false</code> otherwise.
@@ -135,27 +289,37 @@ public class BitVectorInterval implements BitVectorType {
     if (pOther.isSingleton() || contains(pOther)) {
       return pOther;
     }
+    if (fitsInLong && pOther.fitsInLong) {
+      return new BitVectorInterval(
+          info, Math.max(lowerBound, pOther.lowerBound), Math.min(upperBound, pOther.upperBound));
+    }
     // The lower bound of this interval is a candidate for the new lower bound
     // The lower bound of the other interval is a candidate as well
     // The new lower bound is the maximum of both lower bounds.
-    BigInteger newLowerBound = this.lowerBound.max(pOther.getLowerBound());
+    BigInteger newLowerBound = getLowerBound().max(pOther.getLowerBound());
 
     // The upper bound of this interval is a candidate for the new lower bound
     // The upper bound of the other interval is a candidate as well
     // The new upper bound is the minimum of both upper bounds.
-    BigInteger newUpperBound = this.upperBound.min(pOther.getUpperBound());
+    BigInteger newUpperBound = getUpperBound().min(pOther.getUpperBound());
 
-    return new BitVectorInterval(info, newLowerBound, newUpperBound);
+    return create(info, newLowerBound, newUpperBound);
   }
 
   public BitVectorInterval getNegativePart() {
     Preconditions.checkArgument(containsNegative(), "This interval has no negative part.");
-    return BitVectorInterval.of(info, lowerBound, BigInteger.valueOf(-1).min(upperBound));
+    if (fitsInLong) {
+      return new BitVectorInterval(info, lowerBound, Math.min(-1, upperBound));
+    }
+    return BitVectorInterval.of(info, getLowerBound(), BigInteger.valueOf(-1).min(getUpperBound()));
   }
 
   public BitVectorInterval getPositivePart() {
     Preconditions.checkArgument(containsPositive(), "This interval has no positive part.");
-    return BitVectorInterval.of(info, BigInteger.ONE.max(lowerBound), upperBound);
+    if (fitsInLong) {
+      return new BitVectorInterval(info, Math.max(1, lowerBound), upperBound);
+    }
+    return BitVectorInterval.of(info, BigInteger.ONE.max(getLowerBound()), getUpperBound());
   }
 
   /**
@@ -180,7 +344,7 @@ public class BitVectorInterval implements BitVectorType {
    * positive value, <code>false</code> otherwise.
    */
   public boolean containsPositive() {
-    return upperBound.signum() == 1;
+    return fitsInLong ? upperBound > 0 : getUpperBound().signum() == 1;
   }
 
   /**
@@ -189,8 +353,11 @@ public class BitVectorInterval implements BitVectorType {
    * <code>false</code> otherwise.
    */
   public boolean containsZero() {
-    return upperBound.signum() >= 0
-        && lowerBound.signum() <= 0;
+    if (fitsInLong) {
+      return upperBound >= 0 && lowerBound <= 0;
+    }
+    return getUpperBound().signum() >= 0
+        && getLowerBound().signum() <= 0;
   }
 
   /**
@@ -199,8 +366,21 @@ public class BitVectorInterval implements BitVectorType {
    * <code>false</code> otherwise.
    */
   public boolean contains(BigInteger pValue) {
-    return upperBound.compareTo(pValue) >= 0
-        && lowerBound.compareTo(pValue) <= 0;
+    if (fitsInLong && pValue.bitLength() < Long.SIZE) {
+      return contains(pValue.longValue());
+    }
+    return getUpperBound().compareTo(pValue) >= 0
+        && getLowerBound().compareTo(pValue) <= 0;
+  }
+
+  /**
+   * Checks if this interval contains the given value.
+   * @return <code>true</code> if this interval contains the given value,
+   * <code>false</code> otherwise.
+   */
+  public boolean contains(long pValue) {
+    return compareUpperBoundTo(pValue) >= 0
+        && compareLowerBoundTo(pValue) <= 0;
   }
 
   /**
@@ -209,7 +389,7 @@ public class BitVectorInterval implements BitVectorType {
    * negative value, <code>false</code> otherwise.
    */
   public boolean containsNegative() {
-    return lowerBound.signum() == -1;
+    return fitsInLong ? lowerBound < 0 : getLowerBound().signum() == -1;
   }
 
   /**
@@ -219,7 +399,7 @@ public class BitVectorInterval implements BitVectorType {
    * @return The upper bound minus the lower bound plus one.
    */
   public BigInteger size() {
-    return upperBound.subtract(lowerBound).add(BigInteger.ONE);
+    return getUpperBound().subtract(getLowerBound()).add(BigInteger.ONE);
   }
 
   /**
@@ -231,7 +411,7 @@ public class BitVectorInterval implements BitVectorType {
    * single value, <code>false</code> otherwise.
    */
   public boolean isSingleton() {
-    return lowerBound.equals(upperBound);
+    return fitsInLong ? lowerBound == upperBound : getLowerBound().equals(getUpperBound());
   }
 
   /**
@@ -245,8 +425,15 @@ public class BitVectorInterval implements BitVectorType {
    * @return the mathematical negation of this interval.
    */
   public BitVectorInterval negate(boolean pAllowSignedWrapAround, OverflowEventHandler pOverflowEventHandler) {
-    BigInteger newLowerBound = upperBound.negate();
-    BigInteger newUpperBound = lowerBound.negate();
+    if (fitsInLong
+        && info.fitsInLong()
+        && lowerBound != Long.MIN_VALUE
+        && -upperBound >= info.getMinValueAsLong()
+        && -lowerBound <= info.getMaxValueAsLong()) {
+      return new BitVectorInterval(info, -upperBound, -lowerBound);
+    }
+    BigInteger newLowerBound = getUpperBound().negate();
+    BigInteger newUpperBound = getLowerBound().negate();
 
     boolean lbExceedsBelow = newLowerBound.compareTo(info.getMinValue()) < 0;
     boolean lbExceedsAbove = !lbExceedsBelow && newLowerBound.compareTo(info.getMaxValue()) > 0;
@@ -282,7 +469,7 @@ public class BitVectorInterval implements BitVectorType {
       newUpperBound = fromUB;
     }
 
-    return new BitVectorInterval(info, newLowerBound, newUpperBound);
+    return create(info, newLowerBound, newUpperBound);
   }
 
   public static BitVectorInterval cast(BitVectorInfo pInfo,
@@ -307,6 +494,24 @@ public class BitVectorInterval implements BitVectorType {
     return BitVectorInterval.singleton(pInfo, value);
   }
 
+  public static BitVectorInterval cast(BitVectorInfo pInfo,
+      long pLowerBound,
+      long pUpperBound,
+      boolean pAllowSignedWrapAround,
+      OverflowEventHandler pOverflowEventHandler) {
+    if (pInfo.fitsInLong()
+        && pLowerBound >= pInfo.getMinValueAsLong()
+        && pUpperBound <= pInfo.getMaxValueAsLong()) {
+      return new BitVectorInterval(pInfo, pLowerBound, pUpperBound);
+    }
+    return cast(
+        pInfo,
+        BigInteger.valueOf(pLowerBound),
+        BigInteger.valueOf(pUpperBound),
+        pAllowSignedWrapAround,
+        pOverflowEventHandler);
+  }
+
   public static BitVectorInterval cast(BitVectorInfo pInfo,
       BigInteger pLowerBound,
       BigInteger pUpperBound,
@@ -386,10 +591,16 @@ public class BitVectorInterval implements BitVectorType {
    * allowed by the bit vector size.
    */
   public BitVectorInterval extendToMaxValue() {
-    if (upperBound.equals(info.getMaxValue())) {
+    if (fitsInLong && info.fitsInLong()) {
+      if (upperBound == info.getMaxValueAsLong()) {
+        return this;
+      }
+      return new BitVectorInterval(info, lowerBound, info.getMaxValueAsLong());
+    }
+    if (getUpperBound().equals(info.getMaxValue())) {
       return this;
     }
-    return new BitVectorInterval(info, lowerBound, info.getMaxValue());
+    return create(info, getLowerBound(), info.getMaxValue());
   }
 
   /**
@@ -400,10 +611,16 @@ public class BitVectorInterval implements BitVectorType {
    * allowed by the bit vector size.
    */
   public BitVectorInterval extendToMinValue() {
-    if (lowerBound.equals(info.getMinValue())) {
+    if (fitsInLong && info.fitsInLong()) {
+      if (lowerBound == info.getMinValueAsLong()) {
+        return this;
+      }
+      return new BitVectorInterval(info, info.getMinValueAsLong(), upperBound);
+    }
+    if (getLowerBound().equals(info.getMinValue())) {
       return this;
     }
-    return new BitVectorInterval(info, info.getMinValue(), upperBound);
+    return create(info, info.getMinValue(), getUpperBound());
   }
 
   @Override
@@ -415,18 +632,31 @@ public class BitVectorInterval implements BitVectorType {
     }
 
     BitVectorInterval other = (BitVectorInterval) pObj;
-    return Objects.equals(this.lowerBound, other.lowerBound)
-        && Objects.equals(this.upperBound, other.upperBound);
+    // the representation is unique, bounds are stored as BigInteger only if they do not fit
+    if (fitsInLong != other.fitsInLong) {
+      return false;
+    }
+    if (fitsInLong) {
+      return lowerBound == other.lowerBound && upperBound == other.upperBound;
+    }
+    return Objects.equals(this.bigLowerBound, other.bigLowerBound)
+        && Objects.equals(this.bigUpperBound, other.bigUpperBound);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(lowerBound, upperBound);
+    if (fitsInLong) {
+      return 31 * Long.hashCode(lowerBound) + Long.hashCode(upperBound);
+    }
+    return Objects.hash(bigLowerBound, bigUpperBound);
   }
 
   @Override
   public String toString() {
-    return "[" + lowerBound + ", " + upperBound + "]";
+    if (fitsInLong) {
+      return "[" + lowerBound + ", " + upperBound + "]";
+    }
+    return "[" + bigLowerBound + ", " + bigUpperBound + "]";
   }
 
   /**
@@ -443,8 +673,8 @@ public class BitVectorInterval implements BitVectorType {
       return false;
     }
 
-    return this.lowerBound.compareTo(pOther.lowerBound) <= 0
-        && this.upperBound.compareTo(pOther.upperBound) >= 0;
+    return compareLowerBoundTo(pOther) <= 0
+        && compareUpperBoundTo(pOther) >= 0;
   }
 
   /**
@@ -460,8 +690,12 @@ public class BitVectorInterval implements BitVectorType {
   public boolean touches(BitVectorInterval pOther) {
     if (pOther == null) { return false; }
     if (intersectsWith(pOther)) { return true; }
-    return pOther.upperBound.add(BigInteger.ONE).equals(this.lowerBound)
-        || this.upperBound.add(BigInteger.ONE).equals(pOther.lowerBound);
+    if (fitsInLong && pOther.fitsInLong) {
+      return (pOther.upperBound != Long.MAX_VALUE && pOther.upperBound + 1 == lowerBound)
+          || (upperBound != Long.MAX_VALUE && upperBound + 1 == pOther.lowerBound);
+    }
+    return pOther.getUpperBound().add(BigInteger.ONE).equals(getLowerBound())
+        || getUpperBound().add(BigInteger.ONE).equals(pOther.getLowerBound());
   }
 
   /**
@@ -475,8 +709,8 @@ public class BitVectorInterval implements BitVectorType {
 
     // this is [a, b]; other is [c, d]
     // result is true if a <= d and b >= c
-    boolean aLessThanOrEqB = this.lowerBound.compareTo(other.upperBound) <= 0;
-    boolean bGreaterThanOrEqC = this.upperBound.compareTo(other.lowerBound) >= 0;
+    boolean aLessThanOrEqB = compareLowerBoundToUpperBoundOf(other) <= 0;
+    boolean bGreaterThanOrEqC = other.compareLowerBoundToUpperBoundOf(this) <= 0;
     return aLessThanOrEqB && bGreaterThanOrEqC;
   }
 
@@ -489,7 +723,7 @@ public class BitVectorInterval implements BitVectorType {
   public BigInteger closestNegativeToZero() {
     checkState(containsNegative());
     if (isSingleton()) { return getLowerBound(); }
-    if (getUpperBound().signum() < 0) { return getUpperBound(); }
+    if (fitsInLong ? upperBound < 0 : getUpperBound().signum() < 0) { return getUpperBound(); }
     return BigInteger.ONE.negate();
   }
 
@@ -536,11 +770,15 @@ public class BitVectorInterval implements BitVectorType {
   public BigInteger closestPositiveToZero() {
     checkState(containsPositive());
     if (isSingleton()) { return getLowerBound(); }
-    if (getLowerBound().signum() > 0) { return getLowerBound(); }
+    if (fitsInLong ? lowerBound > 0 : getLowerBound().signum() > 0) { return getLowerBound(); }
     return BigInteger.ONE;
   }
 
   public static BitVectorInterval singleton(BitVectorInfo pInfo, BigInteger pI) {
+    return create(pInfo, pI, pI);
+  }
+
+  public static BitVectorInterval singleton(BitVectorInfo pInfo, long pI) {
     return new BitVectorInterval(pInfo, pI, pI);
   }
 
@@ -553,6 +791,10 @@ public class BitVectorInterval implements BitVectorType {
   }
 
   public static BitVectorInterval of(BitVectorInfo pInfo, BigInteger pLowerBound, BigInteger pUpperBound) {
+    return create(pInfo, pLowerBound, pUpperBound);
+  }
+
+  public static BitVectorInterval of(BitVectorInfo pInfo, long pLowerBound, long pUpperBound) {
     return new BitVectorInterval(pInfo, pLowerBound, pUpperBound);
   }
 
@@ -561,26 +803,23 @@ public class BitVectorInterval implements BitVectorType {
    */
   public static BitVectorInterval span(BitVectorInterval a, BitVectorInterval b) {
     a.checkBitVectorCompatibilityWith(b);
-    BigInteger lower;
-    if (a.lowerBound == null || b.lowerBound == null) {
-      lower = null;
-    } else {
-      lower = a.lowerBound.min(b.lowerBound);
-    }
-
-    BigInteger upper;
-    if (a.upperBound == null || b.upperBound == null) {
-      upper = null;
-    } else {
-      upper = a.upperBound.max(b.upperBound);
-    }
+    boolean aLowerIsLowest = a.compareLowerBoundTo(b) <= 0;
+    boolean aUpperIsHighest = a.compareUpperBoundTo(b) >= 0;
 
-    if (lower == a.lowerBound && upper == a.upperBound) {
+    if (aLowerIsLowest && aUpperIsHighest) {
       return a;
-    } else if (lower == b.lowerBound && upper == b.upperBound) {
+    } else if (!aLowerIsLowest && !aUpperIsHighest) {
       return b;
+    } else if (a.fitsInLong && b.fitsInLong) {
+      return new BitVectorInterval(
+          a.info,
+          aLowerIsLowest ? a.lowerBound : b.lowerBound,
+          aUpperIsHighest ? a.upperBound : b.upperBound);
     } else {
-      return new BitVectorInterval(a.info, lower, upper);
+      return create(
+          a.info,
+          aLowerIsLowest ? a.getLowerBound() : b.getLowerBound(),
+          aUpperIsHighest ? a.getUpperBound() : b.getUpperBound());
     }
   }
 }
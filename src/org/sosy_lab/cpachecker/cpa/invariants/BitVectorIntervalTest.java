@@ -0,0 +1,146 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.invariants;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import org.junit.Test;
+import org.sosy_lab.cpachecker.cpa.invariants.operators.bitvector.IIIOperatorFactory;
+import org.sosy_lab.cpachecker.cpa.invariants.operators.bitvector.ISIOperatorFactory;
+
+public class BitVectorIntervalTest {
+
+  private static final BitVectorInfo INT = BitVectorInfo.from(32, true);
+
+  private static final BitVectorInfo LONG = BitVectorInfo.from(64, true);
+
+  private static final BitVectorInfo ULONG = BitVectorInfo.from(64, false);
+
+  private static final BigInteger ULONG_MAX = ULONG.getMaxValue();
+
+  @Test
+  public void testRepresentationIsUnique() {
+    BitVectorInterval fromLong = BitVectorInterval.of(INT, -5, 7);
+    BitVectorInterval fromBigInteger =
+        BitVectorInterval.of(INT, BigInteger.valueOf(-5), BigInteger.valueOf(7));
+    assertEquals(fromLong, fromBigInteger);
+    assertEquals(fromLong.hashCode(), fromBigInteger.hashCode());
+    assertTrue(fromBigInteger.fitsInLong());
+
+    BitVectorInterval large = BitVectorInterval.of(ULONG, BigInteger.ZERO, ULONG_MAX);
+    assertFalse(large.fitsInLong());
+    assertEquals(ULONG.getRange(), large);
+    assertEquals(ULONG_MAX, large.getUpperBound());
+  }
+
+  @Test
+  public void testMixedComparisons() {
+    BitVectorInterval small = BitVectorInterval.of(ULONG, 0, 10);
+    BitVectorInterval large =
+        BitVectorInterval.of(ULONG, BigInteger.valueOf(5), ULONG_MAX.subtract(BigInteger.ONE));
+    assertTrue(small.intersectsWith(large));
+    assertEquals(BitVectorInterval.of(ULONG, 5, 10), small.intersectWith(large));
+    assertTrue(ULONG.getRange().contains(large));
+    assertFalse(large.contains(small));
+    assertTrue(large.touches(BitVectorInterval.singleton(ULONG, ULONG_MAX)));
+    assertEquals(
+        BitVectorInterval.of(ULONG, BigInteger.ZERO, ULONG_MAX.subtract(BigInteger.ONE)),
+        BitVectorInterval.span(small, large));
+  }
+
+  @Test
+  public void testTouchesAtLongBoundary() {
+    BitVectorInterval max = BitVectorInterval.singleton(LONG, Long.MAX_VALUE);
+    BitVectorInterval min = BitVectorInterval.singleton(LONG, Long.MIN_VALUE);
+    assertFalse(max.touches(min));
+    assertFalse(min.touches(max));
+    assertTrue(max.touches(BitVectorInterval.singleton(LONG, Long.MAX_VALUE - 1)));
+  }
+
+  @Test
+  public void testAddFallsBackOnOverflow() {
+    BitVectorInterval nearMax = BitVectorInterval.of(LONG, Long.MAX_VALUE - 1, Long.MAX_VALUE);
+    BitVectorInterval result =
+        IIIOperatorFactory.INSTANCE
+            .getAdd(true, OverflowEventHandler.EMPTY)
+            .apply(nearMax, BitVectorInterval.of(LONG, 1, 2));
+    // only the upper bound exceeds the range, so any value is possible
+    assertEquals(LONG.getRange(), result);
+
+    BitVectorInterval shifted =
+        ISIOperatorFactory.INSTANCE
+            .getAdd(true, OverflowEventHandler.EMPTY)
+            .apply(nearMax, BigInteger.valueOf(2));
+    assertEquals(BitVectorInterval.of(LONG, Long.MIN_VALUE, Long.MIN_VALUE + 1), shifted);
+  }
+
+  @Test
+  public void testMultiplyFallsBackOnOverflow() {
+    BitVectorInterval interval = BitVectorInterval.of(ULONG, 1, Long.MAX_VALUE);
+    BitVectorInterval result =
+        ISIOperatorFactory.INSTANCE
+            .getMultiply(true, OverflowEventHandler.EMPTY)
+            .apply(interval, BigInteger.valueOf(2));
+    assertEquals(
+        BitVectorInterval.of(ULONG, BigInteger.valueOf(2), ULONG_MAX.subtract(BigInteger.ONE)),
+        result);
+
+    BitVectorInterval doubled =
+        ISIOperatorFactory.INSTANCE
+            .getMultiply(true, OverflowEventHandler.EMPTY)
+            .apply(BitVectorInterval.of(INT, -3, 4), BigInteger.valueOf(2));
+    assertEquals(BitVectorInterval.of(INT, -6, 8), doubled);
+  }
+
+  @Test
+  public void testNegate() {
+    assertEquals(
+        BitVectorInterval.of(INT, -4, 3),
+        BitVectorInterval.of(INT, -3, 4).negate(false, OverflowEventHandler.EMPTY));
+    // -MIN does not fit into the type
+    assertEquals(
+        INT.getRange(),
+        INT.getRange().negate(false, OverflowEventHandler.EMPTY));
+  }
+
+  @Test
+  public void testCompoundContains() {
+    CompoundBitVectorInterval compound =
+        CompoundBitVectorInterval.of(BitVectorInterval.of(INT, -10, -5))
+            .unionWith(BitVectorInterval.of(INT, 5, 10));
+    assertEquals(2, compound.getNumberOfIntervals());
+    assertTrue(compound.contains(7));
+    assertFalse(compound.contains(0));
+    assertTrue(compound.contains(BigInteger.valueOf(-10)));
+    assertEquals(
+        CompoundBitVectorInterval.of(BitVectorInterval.of(INT, 5, 6)),
+        compound.intersectWith(BitVectorInterval.of(INT, 0, 6)));
+    assertEquals(
+        CompoundBitVectorInterval.of(BitVectorInterval.of(INT, -10, 10)),
+        compound.unionWith(BitVectorInterval.of(INT, -4, 4)));
+  }
+}
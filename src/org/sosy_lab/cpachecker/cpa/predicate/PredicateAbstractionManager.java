@@ -29,21 +29,22 @@ import static com.google.common.base.Predicates.equalTo;
 import com.google.common.base.Functions;
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Sets;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.io.Writer;
 import java.nio.charset.Charset;
 import java.nio.file.Path;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Deque;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -72,6 +73,7 @@ import org.sosy_lab.cpachecker.cpa.callstack.CallstackStateEqualsWrapper;
 import org.sosy_lab.cpachecker.cpa.predicate.persistence.PredicateAbstractionsStorage;
 import org.sosy_lab.cpachecker.cpa.predicate.persistence.PredicateAbstractionsStorage.AbstractionNode;
 import org.sosy_lab.cpachecker.cpa.predicate.persistence.PredicatePersistenceUtils.PredicateParsingFailedException;
+import org.sosy_lab.cpachecker.util.Caches;
 import org.sosy_lab.cpachecker.util.Pair;
 import org.sosy_lab.cpachecker.util.predicates.AbstractionFormula;
 import org.sosy_lab.cpachecker.util.predicates.AbstractionManager;
@@ -85,6 +87,7 @@ import org.sosy_lab.cpachecker.util.predicates.regions.RegionCreator;
 import org.sosy_lab.cpachecker.util.predicates.regions.RegionCreator.RegionBuilder;
 import org.sosy_lab.cpachecker.util.predicates.smt.BooleanFormulaManagerView;
 import org.sosy_lab.cpachecker.util.predicates.smt.FormulaManagerView;
+import org.sosy_lab.cpachecker.util.predicates.smt.PersistentFormulaCache;
 import org.sosy_lab.cpachecker.util.predicates.smt.Solver;
 import org.sosy_lab.cpachecker.util.predicates.weakening.InductiveWeakeningManager;
 import org.sosy_lab.cpachecker.util.statistics.StatTimer;
@@ -176,6 +179,16 @@ public class PredicateAbstractionManager {
   @Option(secure=true, name = "abs.useCache", description = "use caching of abstractions")
   private boolean useCache = true;
 
+  @Option(
+    secure = true,
+    name = "abs.cacheSize",
+    description =
+        "maximum number of entries in each of the abstraction caches, "
+            + "the least recently used entries are evicted if the limit is reached "
+            + "(non-positive values mean no limit)"
+  )
+  private long cacheSize = 0;
+
   @Option(secure=true, name="refinement.splitItpAtoms",
       description="split each arithmetic equality into two inequalities when extracting predicates from interpolants")
   private boolean splitItpAtoms = false;
@@ -192,16 +205,16 @@ public class PredicateAbstractionManager {
 
   private boolean abstractionReuseDisabledBecauseOfAmbiguity = false;
 
-  private final Map<Pair<BooleanFormula, ImmutableSet<BooleanFormula>>, AbstractionFormula>
+  private final Cache<Pair<BooleanFormula, ImmutableSet<BooleanFormula>>, AbstractionFormula>
       abstractionCache;
 
   // Cache for satisfiability queries: if formula is contained, it is unsat
-  private final Set<BooleanFormula> unsatisfiabilityCache;
+  private final Cache<BooleanFormula, Boolean> unsatisfiabilityCache;
 
   //cache for cartesian abstraction queries. For each predicate, the values
   // are -1: predicate is false, 0: predicate is don't care,
   // 1: predicate is true
-  private final Map<Pair<BooleanFormula, AbstractionPredicate>, Byte> cartesianAbstractionCache;
+  private final Cache<Pair<BooleanFormula, AbstractionPredicate>, Byte> cartesianAbstractionCache;
 
   public PredicateAbstractionManager(
       AbstractionManager pAmgr,
@@ -239,15 +252,15 @@ public class PredicateAbstractionManager {
     }
 
     if (useCache) {
-      abstractionCache = new HashMap<>();
-      unsatisfiabilityCache = new HashSet<>();
+      abstractionCache = Caches.newCache(cacheSize);
+      unsatisfiabilityCache = Caches.newCache(cacheSize);
     } else {
       abstractionCache = null;
       unsatisfiabilityCache = null;
     }
 
     if (useCache && (abstractionType != AbstractionType.BOOLEAN)) {
-      cartesianAbstractionCache = new HashMap<>();
+      cartesianAbstractionCache = Caches.newCache(cacheSize);
     } else {
       cartesianAbstractionCache = null;
     }
@@ -292,10 +305,26 @@ public class PredicateAbstractionManager {
 
   public void clear() {
     if (useCache) {
-      abstractionCache.clear();
-      unsatisfiabilityCache.clear();
+      abstractionCache.invalidateAll();
+      unsatisfiabilityCache.invalidateAll();
+    }
+  }
+
+  void printCacheStatistics(PrintStream out) {
+    if (useCache) {
+      out.println(
+          "  Abstraction cache:               " + Caches.formatStatistics(abstractionCache));
+      out.println(
+          "  Unsatisfiability cache:          "
+              + Caches.formatStatistics(unsatisfiabilityCache));
+      if (cartesianAbstractionCache != null) {
+        out.println(
+            "  Cartesian abstraction cache:     "
+                + Caches.formatStatistics(cartesianAbstractionCache));
+      }
     }
   }
+
   /**
    * Compute an abstraction of the conjunction of an AbstractionFormula and
    * a PathFormula. The AbstractionFormula will be used in its instantiated form,
@@ -367,7 +396,7 @@ public class PredicateAbstractionManager {
           Collections3.transformedImmutableSetCopy(
               remainingPredicates, pred -> instantiator.apply(pred.getSymbolicAtom()));
       absKey = Pair.of(f, instantiatedPreds);
-      AbstractionFormula result = abstractionCache.get(absKey);
+      AbstractionFormula result = abstractionCache.getIfPresent(absKey);
 
       if (result != null) {
         // create new abstraction object to have a unique abstraction id
@@ -384,8 +413,8 @@ public class PredicateAbstractionManager {
         return result;
       }
 
-      boolean unsatisfiable = unsatisfiabilityCache.contains(symbFormula)
-                            || unsatisfiabilityCache.contains(f);
+      boolean unsatisfiable = unsatisfiabilityCache.getIfPresent(symbFormula) != null
+                            || unsatisfiabilityCache.getIfPresent(f) != null;
       if (unsatisfiable) {
         // block is infeasible
         logger.log(Level.FINEST, "Block feasibility of abstraction", stats.numCallsAbstraction, "was cached and is false.");
@@ -396,6 +425,30 @@ public class PredicateAbstractionManager {
       }
     }
 
+    // Invariants are specific to the current program, so results that depend on them
+    // must not be stored for other runs.
+    final PersistentFormulaCache persistentCache =
+        invariantSupplier == TrivialInvariantSupplier.INSTANCE
+            ? solver.getPersistentCache()
+            : null;
+    String persistentCacheKey = null;
+    if (persistentCache != null) {
+      persistentCacheKey = getPersistentCacheKey(f, remainingPredicates, instantiator);
+      AbstractionFormula result =
+          getPersistentlyCachedAbstraction(persistentCache, persistentCacheKey, ssa, pathFormula);
+
+      if (result != null) {
+        logger.log(
+            Level.FINEST, "Abstraction", stats.numCallsAbstraction, "was cached persistently");
+        logger.log(Level.ALL, "Abstraction result is", result.asFormula());
+        stats.numCallsAbstractionCached++;
+        if (useCache) {
+          abstractionCache.put(absKey, result);
+        }
+        return result;
+      }
+    }
+
 
     // Compute result for those predicates
     // where we can trivially identify their truthness in the result
@@ -441,9 +494,15 @@ public class PredicateAbstractionManager {
       abstractionCache.put(absKey, result);
 
       if (result.isFalse()) {
-        unsatisfiabilityCache.add(f);
+        unsatisfiabilityCache.put(f, true);
       }
     }
+    if (persistentCache != null) {
+      persistentCache.put(
+          getPersistentCacheNamespace(),
+          persistentCacheKey,
+          fmgr.dumpFormula(result.asFormula()).toString());
+    }
 
     long abstractionTime = TimeSpan.sum(stats.abstractionSolveTime.getLengthOfLastInterval(),
                                         stats.abstractionEnumTime.getLengthOfLastOuterInterval())
@@ -459,6 +518,44 @@ public class PredicateAbstractionManager {
     return result;
   }
 
+  private String getPersistentCacheNamespace() {
+    return "abstraction-" + abstractionType;
+  }
+
+  /**
+   * Create the key for the persistent cache, which consists of the SMT-LIB representation of the
+   * (instantiated) formula and the predicates, sorted such that the key does not depend on the
+   * order of the predicates.
+   */
+  private String getPersistentCacheKey(
+      BooleanFormula f,
+      Collection<AbstractionPredicate> pPredicates,
+      Function<BooleanFormula, BooleanFormula> instantiator) {
+    List<String> predicates = new ArrayList<>(pPredicates.size());
+    for (AbstractionPredicate predicate : pPredicates) {
+      predicates.add(fmgr.dumpFormula(instantiator.apply(predicate.getSymbolicAtom())).toString());
+    }
+    Collections.sort(predicates);
+    return fmgr.dumpFormula(f) + "\n" + Joiner.on('\n').join(predicates);
+  }
+
+  private @Nullable AbstractionFormula getPersistentlyCachedAbstraction(
+      PersistentFormulaCache pCache, String pKey, SSAMap ssa, PathFormula pathFormula)
+      throws InterruptedException {
+    String cachedAbstraction = pCache.get(getPersistentCacheNamespace(), pKey);
+    if (cachedAbstraction == null) {
+      return null;
+    }
+    BooleanFormula abstraction;
+    try {
+      abstraction = fmgr.parse(cachedAbstraction);
+    } catch (IllegalArgumentException e) {
+      logger.logDebugException(e, "Could not parse abstraction from persistent cache");
+      return null;
+    }
+    return makeAbstractionFormula(amgr.convertFormulaToRegion(abstraction), ssa, pathFormula);
+  }
+
   /**
    * Compute an abstraction of a formula.
    * This is a low-level version of
@@ -483,7 +580,7 @@ public class PredicateAbstractionManager {
       return bfmgr.makeTrue();
     }
 
-    if (unsatisfiabilityCache.contains(pF)) {
+    if (unsatisfiabilityCache.getIfPresent(pF) != null) {
       stats.numCallsAbstractionCached++;
       return bfmgr.makeFalse();
     }
@@ -502,7 +599,7 @@ public class PredicateAbstractionManager {
     }
 
     if (bfmgr.isFalse(symbolicAbs)) {
-      unsatisfiabilityCache.add(pF);
+      unsatisfiabilityCache.put(pF, true);
     }
 
     return symbolicAbs;
@@ -854,8 +951,9 @@ public class PredicateAbstractionManager {
       while (predicateIt.hasNext()) {
         final AbstractionPredicate p = predicateIt.next();
         Pair<BooleanFormula, AbstractionPredicate> cacheKey = Pair.of(f, p);
-        if (useCache && cartesianAbstractionCache.containsKey(cacheKey)) {
-          byte predVal = cartesianAbstractionCache.get(cacheKey);
+        Byte cachedPredVal = useCache ? cartesianAbstractionCache.getIfPresent(cacheKey) : null;
+        if (cachedPredVal != null) {
+          byte predVal = cachedPredVal;
           stats.numCartesianAbsPredicatesCached++;
 
           stats.abstractionEnumTime.getCurentInnerTimer().start();
@@ -301,6 +301,7 @@ class PredicateCPAStatistics extends AbstractStatistics {
             "  Times inductive cache was used:  "
                 + valueWithPercentage(as.numInductivePathFormulaCacheUsed, as.numCallsAbstraction));
       }
+      amgr.printCacheStatistics(out);
     }
 
     if (trans.satCheckTimer.getNumberOfIntervals() > 0) {
@@ -319,6 +320,11 @@ class PredicateCPAStatistics extends AbstractStatistics {
     out.println("Number of SMT sat checks:          " + solver.satChecks);
     out.println("  trivial:                         " + solver.trivialSatChecks);
     out.println("  cached:                          " + solver.cachedSatChecks);
+    out.println("  Unsat cache:                     " + solver.getUnsatCacheStatistics());
+    out.println("  Grouped unsat cache:             " + solver.getGroupedUnsatCacheStatistics());
+    if (solver.getPersistentCache() != null) {
+      out.println("  Persistent cache:                " + solver.getPersistentCache().getStatistics());
+    }
     out.println();
     out.println("Max ABE block size:                       " + prec.maxBlockSize);
     out.println("Number of predicates discovered:          " + allDistinctPreds);
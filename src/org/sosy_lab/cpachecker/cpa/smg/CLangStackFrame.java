@@ -63,13 +63,18 @@ public final class CLangStackFrame {
    */
   @Nullable private final SMGRegion returnValueObject;
 
+  /** The signature of the names of the local variables, see {@link SMGFingerprint}. */
+  private final long variablesSignature;
+
   private CLangStackFrame(
       CFunctionDeclaration pDeclaration,
       PersistentMap<String, SMGRegion> pVariables,
-      SMGRegion pReturnValueObject) {
+      SMGRegion pReturnValueObject,
+      long pVariablesSignature) {
     stack_variables = pVariables;
     stack_function = pDeclaration;
     returnValueObject = pReturnValueObject;
+    variablesSignature = pVariablesSignature;
   }
 
   /**
@@ -90,6 +95,7 @@ public final class CLangStackFrame {
       int return_value_size = pMachineModel.getSizeofInBits(returnType);
       returnValueObject = new SMGRegion(return_value_size, CLangStackFrame.RETVAL_LABEL);
     }
+    variablesSignature = 0;
   }
 
   /**
@@ -101,6 +107,7 @@ public final class CLangStackFrame {
     stack_function = pFrame.stack_function;
     stack_variables = pFrame.stack_variables;
     returnValueObject = pFrame.returnValueObject;
+    variablesSignature = pFrame.variablesSignature;
   }
 
 
@@ -119,7 +126,10 @@ public final class CLangStackFrame {
         stack_function.toASTString(), pVariableName);
 
     return new CLangStackFrame(
-        stack_function, stack_variables.putAndCopy(pVariableName, pObject), returnValueObject);
+        stack_function,
+        stack_variables.putAndCopy(pVariableName, pObject),
+        returnValueObject,
+        variablesSignature | SMGFingerprint.signatureOf(pVariableName));
   }
 
   /* ********************************************* */
@@ -139,8 +149,12 @@ public final class CLangStackFrame {
       // Do nothing for the moment
       return this;
     } else {
+      PersistentMap<String, SMGRegion> variables = stack_variables.removeAndCopy(pName);
       return new CLangStackFrame(
-          stack_function, stack_variables.removeAndCopy(pName), returnValueObject);
+          stack_function,
+          variables,
+          returnValueObject,
+          SMGFingerprint.signatureOf(variables.keySet()));
     }
   }
 
@@ -193,6 +207,13 @@ public final class CLangStackFrame {
     return stack_variables;
   }
 
+  /**
+   * @return the signature of the names of the local variables, see {@link SMGFingerprint}
+   */
+  long getVariablesSignature() {
+    return variablesSignature;
+  }
+
   /**
    * @return a set of all objects: return value object, variables, parameters
    */
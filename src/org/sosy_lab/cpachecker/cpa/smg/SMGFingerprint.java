@@ -0,0 +1,242 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.smg;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Arrays;
+import java.util.Objects;
+import org.sosy_lab.cpachecker.cpa.smg.join.SMGIsLessOrEqual;
+import org.sosy_lab.cpachecker.cpa.smg.join.SMGJoin;
+import org.sosy_lab.cpachecker.cpa.smg.util.PersistentStack;
+
+/**
+ * A small summary of the memory layout of an SMG: the names of the global variables, the functions
+ * and local variables of all stack frames, and the number of heap objects.
+ *
+ * <p>Comparing two fingerprints needs time linear in the number of stack frames only, and allows
+ * to reject most pairs of SMGs for which {@link SMGIsLessOrEqual} or {@link SMGJoin} would fail
+ * anyway, without looking at the graphs. Sets of variable names are summarized as signatures with
+ * one bit per name, thus a set of names can only be a subset of another set if its signature is a
+ * subset of the other signature.
+ *
+ * <p>This is an immutable class.
+ */
+public final class SMGFingerprint {
+
+  private final int heapObjects;
+  private final long globals;
+
+  /** The signatures of the variables of each stack frame, in iteration order of the stack. */
+  private final long[] frameVariables;
+
+  /** Hash code of the list of function names of the stack frames. */
+  private final int functions;
+
+  /** Total number of global and local variables. */
+  private final int variableCount;
+
+  private SMGFingerprint(
+      int pHeapObjects,
+      long pGlobals,
+      long[] pFrameVariables,
+      int pFunctions,
+      int pVariableCount) {
+    heapObjects = pHeapObjects;
+    globals = pGlobals;
+    frameVariables = pFrameVariables;
+    functions = pFunctions;
+    variableCount = pVariableCount;
+  }
+
+  public static SMGFingerprint of(
+      int pHeapObjects,
+      long pGlobalsSignature,
+      int pGlobalsCount,
+      PersistentStack<CLangStackFrame> pFrames) {
+    long[] frameVariables = new long[pFrames.size()];
+    int functions = 1;
+    int variableCount = pGlobalsCount;
+    int i = 0;
+    for (CLangStackFrame frame : pFrames) {
+      frameVariables[i++] = frame.getVariablesSignature();
+      functions = 31 * functions + frame.getFunctionDeclaration().getOrigName().hashCode();
+      variableCount += frame.getVariables().size();
+    }
+    return new SMGFingerprint(
+        pHeapObjects, pGlobalsSignature, frameVariables, functions, variableCount);
+  }
+
+  /** Returns the signature of a set of variable names, see {@link #signatureOf(String)}. */
+  public static long signatureOf(Iterable<String> pNames) {
+    long signature = 0;
+    for (String name : pNames) {
+      signature |= signatureOf(name);
+    }
+    return signature;
+  }
+
+  /** Returns a signature with exactly one bit set, which is determined by the given name. */
+  public static long signatureOf(String pName) {
+    int hash = checkNotNull(pName).hashCode();
+    // spread the higher bits, because the lowest bits of similar names are often equal
+    hash ^= (hash >>> 16) ^ (hash >>> 6);
+    return 1L << (hash & 63);
+  }
+
+  private static boolean isSubset(long pSubset, long pSet) {
+    return (pSubset & ~pSet) == 0;
+  }
+
+  /**
+   * Returns false if {@link SMGIsLessOrEqual#isLessOrEqual} definitely fails for an SMG with this
+   * fingerprint as first and an SMG with the given fingerprint as second argument, i.e., if the
+   * number of heap objects or the stack of functions differ, or if a variable of the first SMG is
+   * missing in the second SMG.
+   */
+  public boolean mayBeLessOrEqual(SMGFingerprint pOther) {
+    if (this == pOther) {
+      return true;
+    }
+    if (heapObjects != pOther.heapObjects
+        || functions != pOther.functions
+        || frameVariables.length != pOther.frameVariables.length
+        || variableCount > pOther.variableCount
+        || !isSubset(globals, pOther.globals)) {
+      return false;
+    }
+    for (int i = 0; i < frameVariables.length; i++) {
+      if (!isSubset(frameVariables[i], pOther.frameVariables[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns false if the join of SMGs with this and the given fingerprint is definitely undefined
+   * according to {@link SMGJoin}, i.e., if the global variables or the local variables of the
+   * common stack frames differ.
+   */
+  public boolean mayBeJoinable(SMGFingerprint pOther) {
+    if (this == pOther) {
+      return true;
+    }
+    if (globals != pOther.globals) {
+      return false;
+    }
+    int frames = Math.min(frameVariables.length, pOther.frameVariables.length);
+    for (int i = 0; i < frames; i++) {
+      if (frameVariables[i] != pOther.frameVariables[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Returns the signature of the names of the global variables. */
+  public long getGlobalsSignature() {
+    return globals;
+  }
+
+  /** Returns the total number of global and local variables. */
+  public int getVariableCount() {
+    return variableCount;
+  }
+
+  /**
+   * Returns an object that is equal for fingerprints that {@link #mayBeJoinable} with the same
+   * number of variables and stack frames. If heap abstraction is disabled, it is additionally equal
+   * only for fingerprints that {@link #mayBeLessOrEqual} with the same number of variables.
+   */
+  Object getPartitionHash(boolean pHeapAbstraction) {
+    return pHeapAbstraction
+        ? new PartitionHash(0, globals, frameVariables, 0)
+        : new PartitionHash(heapObjects, globals, frameVariables, functions);
+  }
+
+  private static final class PartitionHash {
+
+    private final int heapObjects;
+    private final long globals;
+    private final long[] frameVariables;
+    private final int functions;
+
+    private PartitionHash(int pHeapObjects, long pGlobals, long[] pFrameVariables, int pFunctions) {
+      heapObjects = pHeapObjects;
+      globals = pGlobals;
+      frameVariables = pFrameVariables;
+      functions = pFunctions;
+    }
+
+    @Override
+    public boolean equals(Object pObj) {
+      if (this == pObj) {
+        return true;
+      }
+      if (!(pObj instanceof PartitionHash)) {
+        return false;
+      }
+      PartitionHash other = (PartitionHash) pObj;
+      return heapObjects == other.heapObjects
+          && globals == other.globals
+          && functions == other.functions
+          && Arrays.equals(frameVariables, other.frameVariables);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(heapObjects, globals, functions, Arrays.hashCode(frameVariables));
+    }
+  }
+
+  @Override
+  public boolean equals(Object pObj) {
+    if (this == pObj) {
+      return true;
+    }
+    if (!(pObj instanceof SMGFingerprint)) {
+      return false;
+    }
+    SMGFingerprint other = (SMGFingerprint) pObj;
+    return heapObjects == other.heapObjects
+        && globals == other.globals
+        && functions == other.functions
+        && variableCount == other.variableCount
+        && Arrays.equals(frameVariables, other.frameVariables);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(heapObjects, globals, functions, variableCount)
+        ^ Arrays.hashCode(frameVariables);
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "SMGFingerprint{heap objects=%d, variables=%d, globals=%016x, frames=%s}",
+        heapObjects, variableCount, globals, Arrays.toString(frameVariables));
+  }
+}
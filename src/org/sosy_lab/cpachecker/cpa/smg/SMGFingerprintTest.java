@@ -0,0 +1,103 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.smg;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.sosy_lab.cpachecker.cfa.ast.FileLocation;
+import org.sosy_lab.cpachecker.cfa.ast.c.CFunctionDeclaration;
+import org.sosy_lab.cpachecker.cfa.ast.c.CParameterDeclaration;
+import org.sosy_lab.cpachecker.cfa.types.MachineModel;
+import org.sosy_lab.cpachecker.cfa.types.c.CFunctionType;
+import org.sosy_lab.cpachecker.cfa.types.c.CNumericTypes;
+import org.sosy_lab.cpachecker.cpa.smg.graphs.CLangSMG;
+import org.sosy_lab.cpachecker.cpa.smg.graphs.object.SMGRegion;
+
+public class SMGFingerprintTest {
+
+  private static final CFunctionType functionType =
+      CFunctionType.functionTypeWithReturnType(CNumericTypes.UNSIGNED_LONG_INT);
+  private static final CFunctionDeclaration foo =
+      new CFunctionDeclaration(
+          FileLocation.DUMMY, functionType, "foo", ImmutableList.<CParameterDeclaration>of());
+  private static final CFunctionDeclaration bar =
+      new CFunctionDeclaration(
+          FileLocation.DUMMY, functionType, "bar", ImmutableList.<CParameterDeclaration>of());
+
+  private static CLangSMG smg(CFunctionDeclaration pFunction, String... pLocals) {
+    CLangSMG smg = new CLangSMG(MachineModel.LINUX64);
+    smg.addGlobalObject(new SMGRegion(64, "global"));
+    smg.addStackFrame(pFunction);
+    for (String local : pLocals) {
+      smg.addStackObject(new SMGRegion(64, local));
+    }
+    return smg;
+  }
+
+  @Test
+  public void testCaching() {
+    CLangSMG smg = smg(foo, "a");
+    SMGFingerprint fingerprint = smg.getFingerprint();
+    assertThat(smg.getFingerprint()).isSameAs(fingerprint);
+    assertThat(new CLangSMG(smg).getFingerprint()).isSameAs(fingerprint);
+
+    smg.addStackObject(new SMGRegion(64, "b"));
+    assertThat(smg.getFingerprint()).isNotEqualTo(fingerprint);
+    assertThat(smg.getFingerprint()).isEqualTo(smg(foo, "a", "b").getFingerprint());
+  }
+
+  @Test
+  public void testLessOrEqual() {
+    SMGFingerprint a = smg(foo, "a").getFingerprint();
+    SMGFingerprint ab = smg(foo, "a", "b").getFingerprint();
+
+    assertThat(a.mayBeLessOrEqual(a)).isTrue();
+    assertThat(a.mayBeLessOrEqual(ab)).isTrue();
+    assertThat(ab.mayBeLessOrEqual(a)).isFalse();
+    assertThat(a.mayBeLessOrEqual(smg(bar, "a").getFingerprint())).isFalse();
+
+    CLangSMG withHeap = smg(foo, "a");
+    withHeap.addHeapObject(new SMGRegion(64, "heap"));
+    assertThat(a.mayBeLessOrEqual(withHeap.getFingerprint())).isFalse();
+  }
+
+  @Test
+  public void testJoinable() {
+    SMGFingerprint a = smg(foo, "a").getFingerprint();
+    SMGFingerprint ab = smg(foo, "a", "b").getFingerprint();
+
+    assertThat(a.mayBeJoinable(smg(foo, "a").getFingerprint())).isTrue();
+    assertThat(a.mayBeJoinable(ab)).isFalse();
+    assertThat(ab.mayBeJoinable(a)).isFalse();
+
+    CLangSMG withHeap = smg(foo, "a");
+    withHeap.addHeapObject(new SMGRegion(64, "heap"));
+    assertThat(a.mayBeJoinable(withHeap.getFingerprint())).isTrue();
+    assertThat(a.getPartitionHash(true)).isEqualTo(withHeap.getFingerprint().getPartitionHash(true));
+    assertThat(a.getPartitionHash(false))
+        .isNotEqualTo(withHeap.getFingerprint().getPartitionHash(false));
+  }
+}
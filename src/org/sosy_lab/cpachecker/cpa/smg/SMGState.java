@@ -52,6 +52,7 @@ import org.sosy_lab.cpachecker.cfa.types.c.CType;
 import org.sosy_lab.cpachecker.core.counterexample.IDExpression;
 import org.sosy_lab.cpachecker.core.defaults.LatticeAbstractState;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractQueryableState;
+import org.sosy_lab.cpachecker.core.interfaces.PseudoPartitionable;
 import org.sosy_lab.cpachecker.cpa.smg.SMGIntersectStates.SMGIntersectionResult;
 import org.sosy_lab.cpachecker.cpa.smg.evaluator.SMGAbstractObjectAndState.SMGAddressValueAndState;
 import org.sosy_lab.cpachecker.cpa.smg.evaluator.SMGAbstractObjectAndState.SMGAddressValueAndStateList;
@@ -86,7 +87,8 @@ import org.sosy_lab.cpachecker.cpa.smg.refiner.SMGMemoryPath;
 import org.sosy_lab.cpachecker.exceptions.InvalidQueryException;
 import org.sosy_lab.cpachecker.util.states.MemoryLocation;
 
-public class SMGState implements AbstractQueryableState, LatticeAbstractState<SMGState> {
+public class SMGState
+    implements AbstractQueryableState, LatticeAbstractState<SMGState>, PseudoPartitionable {
 
   // Properties:
   public static final String HAS_INVALID_FREES = "has-invalid-frees";
@@ -1464,6 +1466,10 @@ public class SMGState implements AbstractQueryableState, LatticeAbstractState<SM
   public SMGState join(SMGState reachedState) throws SMGInconsistentException {
     // Not necessary if merge_SEP and stop_SEP is used.
 
+    if (!heap.getFingerprint().mayBeJoinable(reachedState.heap.getFingerprint())) {
+      return reachedState;
+    }
+
     SMGJoin join = new SMGJoin(this.heap, reachedState.heap, this, reachedState);
 
     if(join.getStatus() != SMGJoinStatus.INCOMPARABLE) {
@@ -1508,6 +1514,10 @@ public class SMGState implements AbstractQueryableState, LatticeAbstractState<SM
     }
 
     if (options.isHeapAbstractionEnabled()) {
+      if (!heap.getFingerprint().mayBeJoinable(reachedState.heap.getFingerprint())) {
+        return false;
+      }
+
       SMGJoin join = new SMGJoin(heap, reachedState.heap, this, reachedState);
 
       if (!join.isDefined()) {
@@ -1529,10 +1539,33 @@ public class SMGState implements AbstractQueryableState, LatticeAbstractState<SM
       return s1.heap.hasMemoryLeaks() == s2.heap.hasMemoryLeaks();
 
     } else {
+      if (!reachedState.heap.getFingerprint().mayBeLessOrEqual(heap.getFingerprint())) {
+        return false;
+      }
       return SMGIsLessOrEqual.isLessOrEqual(reachedState.heap, heap);
     }
   }
 
+  /**
+   * The pseudo-partition key is the number of variables, because a state can only be covered by
+   * states with at most the same variables.
+   */
+  @Override
+  public Comparable<?> getPseudoPartitionKey() {
+    return heap.getFingerprint().getVariableCount();
+  }
+
+  /**
+   * States with the same number of variables are only compared to each other if their {@link
+   * SMGFingerprint}s match. Note that with heap abstraction disabled, this also excludes states
+   * from merging that differ in their heap objects, thus the pseudo-partitioning should only be
+   * used with merge-sep in this case.
+   */
+  @Override
+  public Object getPseudoHashCode() {
+    return heap.getFingerprint().getPartitionHash(options.isHeapAbstractionEnabled());
+  }
+
   @Override
   public String getCPAName() {
     return "SMGCPA";
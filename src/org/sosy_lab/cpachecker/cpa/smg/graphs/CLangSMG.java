@@ -47,6 +47,7 @@ import org.sosy_lab.cpachecker.cfa.ast.c.CParameterDeclaration;
 import org.sosy_lab.cpachecker.cfa.types.MachineModel;
 import org.sosy_lab.cpachecker.core.counterexample.IDExpression;
 import org.sosy_lab.cpachecker.cpa.smg.CLangStackFrame;
+import org.sosy_lab.cpachecker.cpa.smg.SMGFingerprint;
 import org.sosy_lab.cpachecker.cpa.smg.SMGStateInformation;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.edge.SMGEdge;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.edge.SMGEdgeHasValue;
@@ -93,6 +94,17 @@ public class CLangSMG extends SMG {
    */
   private boolean has_leaks = false;
 
+  /**
+   * The fingerprint of this SMG and the containers it was computed for, see {@link
+   * #getFingerprint()}. The containers are persistent, thus the fingerprint is valid as long as
+   * they are identical.
+   */
+  @Nullable private SMGFingerprint fingerprint = null;
+
+  @Nullable private PersistentStack<CLangStackFrame> fingerprintStack = null;
+  @Nullable private PersistentSet<SMGObject> fingerprintHeap = null;
+  @Nullable private PersistentMap<String, SMGRegion> fingerprintGlobals = null;
+
   static private LogManager logger = null;
 
   /**
@@ -219,6 +231,10 @@ public class CLangSMG extends SMG {
     heap_objects = pHeap.heap_objects;
     global_objects = pHeap.global_objects;
     has_leaks = pHeap.has_leaks;
+    fingerprint = pHeap.fingerprint;
+    fingerprintStack = pHeap.fingerprintStack;
+    fingerprintHeap = pHeap.fingerprintHeap;
+    fingerprintGlobals = pHeap.fingerprintGlobals;
     invalidChain.addAll(pHeap.invalidChain);
     currentChain.addAll(pHeap.currentChain);
   }
@@ -557,6 +573,29 @@ public class CLangSMG extends SMG {
     return heap_objects.contains(object);
   }
 
+  /**
+   * Returns the {@link SMGFingerprint} of this SMG, which is only re-computed if global, stack, or
+   * heap objects changed since the last call.
+   */
+  public SMGFingerprint getFingerprint() {
+    if (fingerprint == null
+        || fingerprintStack != stack_objects
+        || fingerprintHeap != heap_objects
+        || fingerprintGlobals != global_objects) {
+      long globalsSignature =
+          fingerprintGlobals == global_objects && fingerprint != null
+              ? fingerprint.getGlobalsSignature()
+              : SMGFingerprint.signatureOf(global_objects.keySet());
+      fingerprint =
+          SMGFingerprint.of(
+              heap_objects.size(), globalsSignature, global_objects.size(), stack_objects);
+      fingerprintStack = stack_objects;
+      fingerprintHeap = heap_objects;
+      fingerprintGlobals = global_objects;
+    }
+    return fingerprint;
+  }
+
   /**
    * Constant.
    *
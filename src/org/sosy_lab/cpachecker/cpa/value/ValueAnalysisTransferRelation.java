@@ -249,6 +249,14 @@ public class ValueAnalysisTransferRelation
   private final Collection<String> addressedVariables;
   private final Collection<String> booleanVariables;
 
+  /**
+   * The instances that handle the edges, one for each thread that uses this transfer relation. The
+   * fields above that describe the current edge are only written in these instances, thus this
+   * transfer relation can be shared by several threads. The value is null for the instances
+   * themselves.
+   */
+  private final @Nullable ThreadLocal<ValueAnalysisTransferRelation> edgeHandlers;
+
   public ValueAnalysisTransferRelation(
       LogManager pLogger,
       CFA pCfa,
@@ -271,6 +279,32 @@ public class ValueAnalysisTransferRelation
 
     unknownValueHandler = pUnknownValueHandler;
     constraintsStrengthenOperator = pConstraintsStrengthenOperator;
+    edgeHandlers = ThreadLocal.withInitial(() -> new ValueAnalysisTransferRelation(this));
+  }
+
+  /** Creates an instance that handles the edges for the given transfer relation. */
+  private ValueAnalysisTransferRelation(ValueAnalysisTransferRelation pShared) {
+    options = pShared.options;
+    machineModel = pShared.machineModel;
+    logger = new LogManagerWithoutDuplicates(pShared.logger);
+    stats = pShared.stats;
+    addressedVariables = pShared.addressedVariables;
+    booleanVariables = pShared.booleanVariables;
+    unknownValueHandler = pShared.unknownValueHandler;
+    constraintsStrengthenOperator = pShared.constraintsStrengthenOperator;
+    edgeHandlers = null;
+  }
+
+  @Override
+  public Collection<ValueAnalysisState> getAbstractSuccessorsForEdge(
+      AbstractState pAbstractState, Precision pAbstractPrecision, CFAEdge pCfaEdge)
+      throws CPATransferException {
+    if (edgeHandlers != null) {
+      return edgeHandlers
+          .get()
+          .getAbstractSuccessorsForEdge(pAbstractState, pAbstractPrecision, pCfaEdge);
+    }
+    return super.getAbstractSuccessorsForEdge(pAbstractState, pAbstractPrecision, pCfaEdge);
   }
 
   @Override
@@ -1265,6 +1299,10 @@ public class ValueAnalysisTransferRelation
       AbstractState pElement, List<AbstractState> pElements, CFAEdge pCfaEdge, Precision pPrecision)
     throws CPATransferException {
     assert pElement instanceof ValueAnalysisState;
+    if (edgeHandlers != null) {
+      // strengthen may use information that the same thread stored while computing the successor
+      return edgeHandlers.get().strengthen(pElement, pElements, pCfaEdge, pPrecision);
+    }
 
     ArrayList<ValueAnalysisState> toStrengthen = new ArrayList<>();
     ArrayList<ValueAnalysisState> result = new ArrayList<>();
@@ -57,6 +57,7 @@ public class ValueAnalysisEdgeInterpolator
         pFeasibilityChecker,
         ValueAnalysisInterpolantManager.getInstance(),
         new ValueAnalysisState(pCfa.getMachineModel()),
+        ValueAnalysisState::copyOf,
         ValueAnalysisCPA.class,
         pConfig,
         pShutdownNotifier,
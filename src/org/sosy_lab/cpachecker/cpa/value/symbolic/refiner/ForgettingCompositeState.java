@@ -63,6 +63,13 @@ public class ForgettingCompositeState
     constraints = pConstraints.copyOf();
   }
 
+  /**
+   * Returns a copy of the given state.
+   */
+  public static ForgettingCompositeState copyOf(final ForgettingCompositeState pState) {
+    return new ForgettingCompositeState(pState.values, pState.constraints);
+  }
+
   public ValueAnalysisState getValueState() {
     return values;
   }
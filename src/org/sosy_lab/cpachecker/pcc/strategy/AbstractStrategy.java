@@ -24,6 +24,7 @@
 package org.sosy_lab.cpachecker.pcc.strategy;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.NotSerializableException;
@@ -38,6 +39,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.logging.Level;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 import org.sosy_lab.common.configuration.Configuration;
@@ -198,18 +200,28 @@ public abstract class AbstractStrategy implements PCCStrategy, StatisticsProvide
     return Triple.of(fis, zis, new ObjectInputStream(zis));
   }
 
-  public Triple<InputStream, ZipInputStream, ObjectInputStream> openAdditionalProofStream(final int index)
+  /**
+   * Opens the proof file for random access to its entries. The central directory of the zip file
+   * serves as an index of the entries, so an entry can be decompressed and deserialized without
+   * reading the entries before it. The returned file may be shared between threads that read
+   * different entries.
+   */
+  public ZipFile openProofFile() throws IOException {
+    return new ZipFile(proofFile.toFile());
+  }
+
+  /**
+   * Opens the additional proof information with the given index in a proof file that was opened
+   * with {@link #openProofFile()}.
+   */
+  public static ObjectInputStream openAdditionalProofStream(final ZipFile pProofFile, final int index)
       throws IOException {
     if (index < 0) { throw new IllegalArgumentException("Not a valid index. Indices must be at least zero."); }
-    InputStream fis = Files.newInputStream(proofFile);
-    ZipInputStream zis = new ZipInputStream(fis);
-    ZipEntry entry = null;
-    for (int i = 0; i <= 1 + index; i++) {
-      entry = zis.getNextEntry();
+    ZipEntry entry = pProofFile.getEntry(ADDITIONAL_PROOFINFO_ZIPENTRY_NAME + index);
+    if (entry == null) {
+      throw new IOException("Proof does not contain additional proof information " + index);
     }
-
-    assert entry.getName().equals("ADDITIONAL_PROOFINFO_ZIPENTRY_NAME " + index);
-    return Triple.of(fis, zis, new ObjectInputStream(zis));
+    return new ObjectInputStream(new BufferedInputStream(pProofFile.getInputStream(entry)));
   }
 
   protected abstract void readProofFromStream(ObjectInputStream in) throws ClassNotFoundException, InvalidConfigurationException, IOException;
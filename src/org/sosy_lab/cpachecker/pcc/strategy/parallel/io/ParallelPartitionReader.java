@@ -24,7 +24,6 @@
 package org.sosy_lab.cpachecker.pcc.strategy.parallel.io;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -32,9 +31,8 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
-import java.util.zip.ZipInputStream;
+import java.util.zip.ZipFile;
 
-import org.sosy_lab.cpachecker.util.Triple;
 import org.sosy_lab.common.log.LogManager;
 import org.sosy_lab.cpachecker.pcc.strategy.AbstractStrategy;
 import org.sosy_lab.cpachecker.pcc.strategy.AbstractStrategy.PCStrategyStatistics;
@@ -90,29 +88,21 @@ public class ParallelPartitionReader implements Runnable {
 
   @Override
   public void run() {
-    Triple<InputStream, ZipInputStream, ObjectInputStream> streams = null;
     int nextId;
-    while ((nextId = nextPartition.getAndIncrement()) < ioHelper.getNumPartitions()) {
-      try {
-        streams = strategy.openAdditionalProofStream(nextId);
-        ioHelper.readPartition(streams.getThird(), stats, lock);
-        waitRead.release();
-      } catch (IOException | ClassNotFoundException e) {
-        logger.logUserException(Level.SEVERE, e, "Partition reading failed. Stop checking");
-        prepareAbortion();
-      } catch (Exception e2) {
-        logger.logException(Level.SEVERE, e2, "Unexpected failure during proof reading");
-        prepareAbortion();
-      } finally {
-        if (streams != null) {
-          try {
-            streams.getThird().close();
-            streams.getSecond().close();
-            streams.getFirst().close();
-          } catch (IOException e) {
-          }
+    // every reader accesses its partitions directly instead of skipping through the proof
+    try (ZipFile proofFile = strategy.openProofFile()) {
+      while ((nextId = nextPartition.getAndIncrement()) < ioHelper.getNumPartitions()) {
+        try (ObjectInputStream in = AbstractStrategy.openAdditionalProofStream(proofFile, nextId)) {
+          ioHelper.readPartition(in, stats, lock);
         }
+        waitRead.release();
       }
+    } catch (IOException | ClassNotFoundException e) {
+      logger.logUserException(Level.SEVERE, e, "Partition reading failed. Stop checking");
+      prepareAbortion();
+    } catch (Exception e2) {
+      logger.logException(Level.SEVERE, e2, "Unexpected failure during proof reading");
+      prepareAbortion();
     }
   }
 }
@@ -45,10 +45,12 @@ import org.sosy_lab.cpachecker.core.interfaces.AbstractStateWithLocations;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractWrapperState;
 import org.sosy_lab.cpachecker.core.interfaces.FormulaReportingState;
 import org.sosy_lab.cpachecker.core.interfaces.Targetable;
+import org.sosy_lab.cpachecker.core.reachedset.LocationIndexedReachedSet;
 import org.sosy_lab.cpachecker.core.reachedset.LocationMappedReachedSet;
 import org.sosy_lab.cpachecker.cpa.assumptions.storage.AssumptionStorageState;
 import org.sosy_lab.cpachecker.cpa.callstack.CallstackState;
 import org.sosy_lab.cpachecker.cpa.callstack.CallstackStateEqualsWrapper;
+import org.sosy_lab.cpachecker.cpa.composite.CompositeState;
 import org.sosy_lab.cpachecker.util.predicates.smt.FormulaManagerView;
 import org.sosy_lab.java_smt.api.BooleanFormula;
 
@@ -83,6 +85,10 @@ public final class AbstractStates {
       AbstractState wrapped = ((AbstractSingleWrapperState)pState).getWrappedState();
       return extractStateByType(wrapped, pType);
 
+    } else if (pState instanceof CompositeState) {
+      // skips the components that cannot contain the state, without looking at them
+      return ((CompositeState) pState).extractWrappedStateByType(pType);
+
     } else if (pState instanceof AbstractWrapperState) {
       for (AbstractState wrapped : ((AbstractWrapperState)pState).getWrappedStates()) {
         T result = extractStateByType(wrapped, pType);
@@ -152,6 +158,9 @@ public final class AbstractStates {
       // because this method is imprecise for the rest
       return ((LocationMappedReachedSet)pStates).getReached(pLoc);
     }
+    if (pStates instanceof LocationIndexedReachedSet) {
+      return ((LocationIndexedReachedSet) pStates).getReached(pLoc);
+    }
 
     Predicate<AbstractState> statesWithRightLocation =
         Predicates.compose(equalTo(pLoc), AbstractStates::extractLocation);
@@ -165,6 +174,10 @@ public final class AbstractStates {
       final LocationMappedReachedSet states = (LocationMappedReachedSet)pStates;
       return from(pLocs).transformAndConcat(states::getReached);
     }
+    if (pStates instanceof LocationIndexedReachedSet) {
+      final LocationIndexedReachedSet states = (LocationIndexedReachedSet) pStates;
+      return from(pLocs).transformAndConcat(states::getReached);
+    }
 
     Predicate<AbstractState> statesWithRightLocation =
         Predicates.compose(in(pLocs), AbstractStates::extractLocation);
@@ -0,0 +1,80 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+
+/**
+ * Factory methods for the memoization caches used by analyses, e.g., for results of satisfiability
+ * checks and abstraction computations.
+ *
+ * <p>All caches created here are thread-safe, evict the least recently used entries first when
+ * their limit is reached, and record hit, miss, and eviction counts for the statistics output.
+ */
+public final class Caches {
+
+  private Caches() {}
+
+  /**
+   * Create a cache with at most the given number of entries.
+   *
+   * @param pMaximumSize the maximum number of entries, or a non-positive number for no limit.
+   */
+  public static <K, V> Cache<K, V> newCache(long pMaximumSize) {
+    CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().recordStats();
+    if (pMaximumSize > 0) {
+      builder.maximumSize(pMaximumSize);
+    }
+    return builder.build();
+  }
+
+  /**
+   * Create a cache whose entries have a total weight of at most the given limit.
+   *
+   * @param pMaximumWeight the maximum total weight, or a non-positive number for no limit.
+   * @param pWeigher computes the weight of an entry when it is inserted.
+   */
+  public static <K, V> Cache<K, V> newWeightedCache(
+      long pMaximumWeight, Weigher<? super K, ? super V> pWeigher) {
+    if (pMaximumWeight <= 0) {
+      return newCache(0);
+    }
+    return CacheBuilder.newBuilder()
+        .recordStats()
+        .maximumWeight(pMaximumWeight)
+        .<K, V>weigher(pWeigher)
+        .build();
+  }
+
+  /** Return a one-line summary of the size, hits, misses, and evictions of a cache. */
+  public static String formatStatistics(Cache<?, ?> pCache) {
+    CacheStats stats = pCache.stats();
+    return String.format(
+        "%d entries, %d hits, %d misses, %d evictions",
+        pCache.size(), stats.hitCount(), stats.missCount(), stats.evictionCount());
+  }
+}
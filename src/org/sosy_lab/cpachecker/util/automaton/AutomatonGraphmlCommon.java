@@ -34,6 +34,7 @@ import com.google.common.hash.Hashing;
 import com.google.common.io.BaseEncoding;
 import com.google.common.io.CharStreams;
 import com.google.common.io.MoreFiles;
+import com.google.common.xml.XmlEscapers;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.time.ZonedDateTime;
@@ -371,47 +372,10 @@ public class AutomatonGraphmlCommon {
       graph = doc.createElement("graph");
       root.appendChild(graph);
       graph.setAttribute("edgedefault", "directed");
-      graph.appendChild(createDataElement(KeyDef.WITNESS_TYPE, pGraphType.toString()));
-      graph.appendChild(
-          createDataElement(KeyDef.SOURCECODELANGUAGE, pCfa.getLanguage().toString()));
-      graph.appendChild(
-          createDataElement(KeyDef.PRODUCER, "CPAchecker " + CPAchecker.getCPAcheckerVersion()));
-
-      int nSpecs = 0;
-      for (SpecificationProperty property : pVerificationTaskMetaData.getProperties()) {
-        graph.appendChild(createDataElement(KeyDef.SPECIFICATION, property.toString()));
-        ++nSpecs;
+      for (Map.Entry<KeyDef, String> data :
+          getGraphData(pGraphType, pCfa, pVerificationTaskMetaData)) {
+        graph.appendChild(createDataElement(data.getKey(), data.getValue()));
       }
-
-      for (Path specFile : pVerificationTaskMetaData.getNonPropertySpecificationFiles()) {
-        graph.appendChild(
-            createDataElement(
-                KeyDef.SPECIFICATION,
-                MoreFiles.asCharSource(specFile, Charsets.UTF_8).read().trim()));
-        ++nSpecs;
-      }
-
-      if (nSpecs == 0) {
-        graph.appendChild(createDataElement(KeyDef.SPECIFICATION, "TRUE"));
-      }
-
-      for (Path inputWitness : pVerificationTaskMetaData.getInputWitnessFiles()) {
-        graph.appendChild(createDataElement(KeyDef.INPUTWITNESSHASH, computeHash(inputWitness)));
-      }
-
-      for (Path programFile : pCfa.getFileNames()) {
-        graph.appendChild(createDataElement(KeyDef.PROGRAMFILE, programFile.toString()));
-      }
-      for (Path programFile : pCfa.getFileNames()) {
-        graph.appendChild(createDataElement(KeyDef.PROGRAMHASH, computeHash(programFile)));
-      }
-
-      graph.appendChild(
-          createDataElement(KeyDef.ARCHITECTURE, getArchitecture(pCfa.getMachineModel())));
-      ZonedDateTime now = ZonedDateTime.now().withNano(0);
-      graph.appendChild(
-          createDataElement(
-              KeyDef.CREATIONTIME, now.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME)));
     }
 
     private void defineKey(KeyDef pKeyDef) {
@@ -516,6 +480,210 @@ public class AutomatonGraphmlCommon {
 
   }
 
+  /** Returns the data elements that describe the witness graph itself, in the order of output. */
+  private static List<Map.Entry<KeyDef, String>> getGraphData(
+      WitnessType pGraphType, CFA pCfa, VerificationTaskMetaData pVerificationTaskMetaData)
+      throws IOException {
+    List<Map.Entry<KeyDef, String>> result = new ArrayList<>();
+    result.add(Maps.immutableEntry(KeyDef.WITNESS_TYPE, pGraphType.toString()));
+    result.add(Maps.immutableEntry(KeyDef.SOURCECODELANGUAGE, pCfa.getLanguage().toString()));
+    result.add(
+        Maps.immutableEntry(KeyDef.PRODUCER, "CPAchecker " + CPAchecker.getCPAcheckerVersion()));
+
+    int nSpecs = 0;
+    for (SpecificationProperty property : pVerificationTaskMetaData.getProperties()) {
+      result.add(Maps.immutableEntry(KeyDef.SPECIFICATION, property.toString()));
+      ++nSpecs;
+    }
+
+    for (Path specFile : pVerificationTaskMetaData.getNonPropertySpecificationFiles()) {
+      result.add(
+          Maps.immutableEntry(
+              KeyDef.SPECIFICATION,
+              MoreFiles.asCharSource(specFile, Charsets.UTF_8).read().trim()));
+      ++nSpecs;
+    }
+
+    if (nSpecs == 0) {
+      result.add(Maps.immutableEntry(KeyDef.SPECIFICATION, "TRUE"));
+    }
+
+    for (Path inputWitness : pVerificationTaskMetaData.getInputWitnessFiles()) {
+      result.add(Maps.immutableEntry(KeyDef.INPUTWITNESSHASH, computeHash(inputWitness)));
+    }
+
+    for (Path programFile : pCfa.getFileNames()) {
+      result.add(Maps.immutableEntry(KeyDef.PROGRAMFILE, programFile.toString()));
+    }
+    for (Path programFile : pCfa.getFileNames()) {
+      result.add(Maps.immutableEntry(KeyDef.PROGRAMHASH, computeHash(programFile)));
+    }
+
+    result.add(Maps.immutableEntry(KeyDef.ARCHITECTURE, getArchitecture(pCfa.getMachineModel())));
+    ZonedDateTime now = ZonedDateTime.now().withNano(0);
+    result.add(
+        Maps.immutableEntry(
+            KeyDef.CREATIONTIME, now.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME)));
+    return result;
+  }
+
+  /**
+   * Writes a witness in GraphML format incrementally to an {@link Appendable}. In contrast to
+   * {@link GraphMlBuilder}, no DOM of the whole document is kept in memory, so nodes and edges
+   * need to be written in the order in which they should appear in the output, and all data of a
+   * node or edge needs to be added before the next node or edge is started.
+   *
+   * <p>GraphML requires all keys to be defined before the graph, so the keys used by nodes and
+   * edges need to be given in advance.
+   */
+  public static class GraphMlStreamWriter {
+
+    private static final String INDENT = " ";
+
+    private final Appendable target;
+    private final Set<KeyDef> definedKeys = EnumSet.noneOf(KeyDef.class);
+
+    private @Nullable GraphMLTag currentElement = null;
+    private boolean currentElementHasChildren = false;
+
+    public GraphMlStreamWriter(
+        Appendable pTarget,
+        WitnessType pGraphType,
+        @Nullable String pDefaultSourceFileName,
+        CFA pCfa,
+        VerificationTaskMetaData pVerificationTaskMetaData,
+        Set<KeyDef> pUsedKeys)
+        throws IOException {
+      target = Preconditions.checkNotNull(pTarget);
+      List<Map.Entry<KeyDef, String>> graphData =
+          getGraphData(pGraphType, pCfa, pVerificationTaskMetaData);
+
+      definedKeys.add(KeyDef.ORIGINFILE);
+      for (KeyDef keyDef : KeyDef.values()) {
+        if (keyDef.keyFor == ElementType.GRAPH) {
+          definedKeys.add(keyDef);
+        }
+      }
+      for (Map.Entry<KeyDef, String> data : graphData) {
+        definedKeys.add(data.getKey());
+      }
+      definedKeys.addAll(pUsedKeys);
+
+      target.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n");
+      target.append(
+          "<graphml xmlns=\"http://graphml.graphdrawing.org/xmlns\""
+              + " xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">\n");
+      for (KeyDef keyDef : definedKeys) {
+        String defaultValue = keyDef.defaultValue;
+        if (keyDef == KeyDef.ORIGINFILE && pDefaultSourceFileName != null) {
+          defaultValue = pDefaultSourceFileName;
+        }
+        writeKeyDef(keyDef, defaultValue);
+      }
+      target.append(INDENT).append("<graph edgedefault=\"directed\">\n");
+      for (Map.Entry<KeyDef, String> data : graphData) {
+        writeData(INDENT + INDENT, data.getKey(), data.getValue());
+      }
+    }
+
+    private void writeKeyDef(KeyDef pKeyDef, @Nullable String pDefaultValue) throws IOException {
+      target
+          .append(INDENT)
+          .append("<key attr.name=\"")
+          .append(escapeAttribute(pKeyDef.attrName))
+          .append("\" attr.type=\"")
+          .append(escapeAttribute(pKeyDef.attrType))
+          .append("\" for=\"")
+          .append(pKeyDef.keyFor.toString())
+          .append("\" id=\"")
+          .append(escapeAttribute(pKeyDef.id))
+          .append('"');
+      if (pDefaultValue == null) {
+        target.append("/>\n");
+      } else {
+        target
+            .append(">\n")
+            .append(INDENT + INDENT)
+            .append("<default>")
+            .append(escapeContent(pDefaultValue))
+            .append("</default>\n")
+            .append(INDENT)
+            .append("</key>\n");
+      }
+    }
+
+    private void writeData(String pIndent, KeyDef pKey, String pValue) throws IOException {
+      target
+          .append(pIndent)
+          .append("<data key=\"")
+          .append(escapeAttribute(pKey.id))
+          .append("\">")
+          .append(escapeContent(pValue))
+          .append("</data>\n");
+    }
+
+    public void startNode(String pNodeId) throws IOException {
+      startElement(GraphMLTag.NODE);
+      target.append("id=\"").append(escapeAttribute(pNodeId)).append('"');
+    }
+
+    public void startEdge(String pFrom, String pTo) throws IOException {
+      startElement(GraphMLTag.EDGE);
+      target
+          .append("source=\"")
+          .append(escapeAttribute(pFrom))
+          .append("\" target=\"")
+          .append(escapeAttribute(pTo))
+          .append('"');
+    }
+
+    private void startElement(GraphMLTag pTag) throws IOException {
+      Preconditions.checkState(
+          currentElement == null, "Element %s needs to be ended first", currentElement);
+      currentElement = pTag;
+      currentElementHasChildren = false;
+      target.append(INDENT + INDENT).append('<').append(pTag.text).append(' ');
+    }
+
+    /** Add a data element to the current node or edge. */
+    public void addData(KeyDef pKey, String pValue) throws IOException {
+      Preconditions.checkState(currentElement != null, "No node or edge was started");
+      Preconditions.checkArgument(
+          definedKeys.contains(pKey), "Key %s was not defined in advance", pKey);
+      if (!currentElementHasChildren) {
+        target.append(">\n");
+        currentElementHasChildren = true;
+      }
+      writeData(INDENT + INDENT + INDENT, pKey, pValue);
+    }
+
+    /** End the current node or edge. */
+    public void endElement() throws IOException {
+      Preconditions.checkState(currentElement != null, "No node or edge was started");
+      if (currentElementHasChildren) {
+        target.append(INDENT + INDENT).append("</").append(currentElement.text).append(">\n");
+      } else {
+        target.append("/>\n");
+      }
+      currentElement = null;
+    }
+
+    /** Close the graph and the document. No elements can be written afterwards. */
+    public void finish() throws IOException {
+      Preconditions.checkState(
+          currentElement == null, "Element %s needs to be ended first", currentElement);
+      target.append(INDENT).append("</graph>\n").append("</graphml>\n");
+    }
+
+    private static String escapeAttribute(String pValue) {
+      return XmlEscapers.xmlAttributeEscaper().escape(pValue);
+    }
+
+    private static String escapeContent(String pValue) {
+      return XmlEscapers.xmlContentEscaper().escape(pValue);
+    }
+  }
+
   public static boolean handleAsEpsilonEdge(CFAEdge pEdge, CFAEdgeWithAdditionalInfo
       pAdditionalInfo) {
     if (pAdditionalInfo != null && !pAdditionalInfo.getInfos().isEmpty()) {
@@ -24,7 +24,6 @@
 package org.sosy_lab.cpachecker.util.dependencegraph;
 
 import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.base.Preconditions.checkState;
 
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ForwardingTable;
@@ -42,10 +41,8 @@ import java.nio.file.Paths;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Queue;
@@ -63,7 +60,9 @@ import org.sosy_lab.common.log.LogManager;
 import org.sosy_lab.cpachecker.cfa.CFA;
 import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
 import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.cfa.model.FunctionCallEdge;
 import org.sosy_lab.cpachecker.cfa.model.FunctionEntryNode;
+import org.sosy_lab.cpachecker.cfa.model.FunctionReturnEdge;
 import org.sosy_lab.cpachecker.cfa.model.c.CAssumeEdge;
 import org.sosy_lab.cpachecker.cfa.model.c.CFunctionCallEdge;
 import org.sosy_lab.cpachecker.core.CPABuilder;
@@ -81,7 +80,6 @@ import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
 import org.sosy_lab.cpachecker.core.reachedset.ReachedSetFactory;
 import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
 import org.sosy_lab.cpachecker.cpa.arg.ARGState;
-import org.sosy_lab.cpachecker.cpa.dominator.DominatorState;
 import org.sosy_lab.cpachecker.cpa.flowdep.FlowDependenceState;
 import org.sosy_lab.cpachecker.cpa.reachdef.ReachingDefState;
 import org.sosy_lab.cpachecker.cpa.reachdef.ReachingDefState.ProgramDefinitionPoint;
@@ -171,9 +169,8 @@ public class DGBuilder {
   /**
    * Adds control dependencies to dependence graph.
    */
-  private void addControlDependences()
-      throws InterruptedException, InvalidConfigurationException, CPAException {
-    PostDominators postDoms = PostDominators.create(cfa, logger, shutdownNotifier);
+  private void addControlDependences() {
+    PostDominators postDoms = PostDominators.create(cfa);
     Set<CFANode> reachableNodes = postDoms.getNodes();
     List<CFANode> branchingNodes =
         reachableNodes
@@ -183,7 +180,6 @@ public class DGBuilder {
             .collect(Collectors.toList());
 
     for (CFANode branch : branchingNodes) {
-      Set<CFANode> postDominatorsOfBranchingNode = postDoms.getPostDominators(branch);
       FluentIterable<CFAEdge> assumeEdges = CFAUtils.leavingEdges(branch);
       assert assumeEdges.size() == 2;
       for (CFAEdge g : assumeEdges) {
@@ -209,7 +205,7 @@ public class DGBuilder {
 
             } else
             // branch node is not post-dominated by current node (condition 2 of control dependence)
-            if (!postDominatorsOfBranchingNode.contains(precessorNode)) {
+            if (!postDoms.isPostDominatedBy(branch, precessorNode)) {
               // all nodes on path from branch to current are post-dominated by current
               // (condition 1 of control dependence)
               if (isPostDomOfAll(precessorNode, nodesOnPath, postDoms)) {
@@ -259,7 +255,7 @@ public class DGBuilder {
       final PostDominators pPostDominators) {
 
     for (CFANode n : pNodeSet) {
-      if (!pPostDominators.getPostDominators(n).contains(pNode)) {
+      if (!pPostDominators.isPostDominatedBy(n, pNode)) {
         return false;
       }
     }
@@ -502,86 +498,71 @@ public class DGBuilder {
   }
 
   /**
-   * Map of {@link CFANode CFANodes} to their post-dominators.
+   * Post-dominator tree of the {@link CFANode CFANodes} of all functions.
    *
    * <p>Node <code>I</code> is post-dominated by node <code>J</code> if every path from <code>I
-   * </code> to the program exit goes through <code>J</code>.
+   * </code> to the exit of its function goes through <code>J</code>. Function calls are
+   * represented by their summary edges, endless loops are treated like additional exits.
    */
   private static class PostDominators {
 
-    private Map<CFANode, Set<CFANode>> postDominatorMap;
+    private final DominatorTree<CFANode> tree;
 
-    private PostDominators(final Map<CFANode, Set<CFANode>> pPostDominatorMap) {
-      postDominatorMap = pPostDominatorMap;
+    private PostDominators(final DominatorTree<CFANode> pTree) {
+      tree = pTree;
     }
 
     /**
-     * Get all post-dominators of the given node.
+     * Returns whether the given node is post-dominated by the given other node.
      *
-     * <p>Node <code>I</code> is post-dominated by node <code>J</code> if every path from <code>I
-     * </code> to the program exit goes through <code>J</code>.
-     *
-     * <p>That means that every program path from the given node to the program exit has to go
-     * through each node that is in the returned collection
+     * <p>That means that every program path from <code>pNode</code> to the function exit has to
+     * go through <code>pPostDominator</code>. Each node post-dominates itself, nodes without
+     * path to a function exit are not post-dominated by any node.
      */
-    private Set<CFANode> getPostDominators(final CFANode pNode) {
-      checkState(
-          postDominatorMap.containsKey(pNode), "Node " + pNode + " not in post-dominator map");
-      return postDominatorMap.get(pNode);
+    private boolean isPostDominatedBy(final CFANode pNode, final CFANode pPostDominator) {
+      return tree.contains(pNode) && tree.isDominatedBy(pNode, pPostDominator);
     }
 
-    public static PostDominators create(
-        final CFA pCfa, final LogManager pLogger, final ShutdownNotifier pShutdownNotifier)
-        throws InvalidConfigurationException, CPAException, InterruptedException {
-      String configFile = "postDominators.properties";
-
-      Configuration config =
-          Configuration.builder().loadFromResource(PostDominators.class, configFile).build();
-      ReachedSetFactory reachedFactory = new ReachedSetFactory(config, pLogger);
-      ConfigurableProgramAnalysis cpa =
-          new CPABuilder(config, pLogger, pShutdownNotifier, reachedFactory)
-              .buildCPAs(pCfa, Specification.alwaysSatisfied(), new AggregatedReachedSets());
-      Algorithm algorithm = CPAAlgorithm.create(cpa, pLogger, config, pShutdownNotifier);
-      ReachedSet reached = reachedFactory.create();
-
-      FunctionEntryNode mainFunction = pCfa.getMainFunction();
-      Collection<CFANode> startNodes =
-          CFAUtils.getProgramSinks(pCfa, pCfa.getLoopStructure().get(), mainFunction);
-
-      for (CFANode n : startNodes) {
-        StateSpacePartition partition = StateSpacePartition.getDefaultPartition();
-        AbstractState initialState = cpa.getInitialState(n, partition);
-        Precision initialPrecision = cpa.getInitialPrecision(n, partition);
-        reached.add(initialState, initialPrecision);
+    public static PostDominators create(final CFA pCfa) {
+      Set<CFANode> programNodes =
+          CFATraversal.dfs().collectNodesReachableFrom(pCfa.getMainFunction());
+      Set<String> functions = new HashSet<>();
+      for (CFANode n : programNodes) {
+        functions.add(n.getFunctionName());
       }
 
-      // populate reached set
-      algorithm.run(reached);
-      assert !reached.hasWaitingState()
-          : "CPA algorithm finished, but waitlist not empty: " + reached.getWaitlist();
-
-      Map<CFANode, Set<CFANode>> dependencyMap = new HashMap<>();
-      for (AbstractState s : reached) {
-        assert s instanceof ARGState : "AbstractState of reached set not a composite state: " + s;
-        DominatorState postDomState = AbstractStates.extractStateByType(s, DominatorState.class);
-        if (postDomState == null) {
-          throw new InvalidConfigurationException("No dominator state in computed composite "
-              + "states");
+      List<CFANode> sinks = new ArrayList<>();
+      for (String function : functions) {
+        CFANode exitNode = pCfa.getFunctionHead(function).getExitNode();
+        if (programNodes.contains(exitNode)) {
+          sinks.add(exitNode);
         }
-        CFANode currNode = AbstractStates.extractLocation(s);
-
-        if (dependencyMap.containsKey(currNode)) {
-          dependencyMap.get(currNode).addAll(postDomState);
-        } else {
-          dependencyMap.put(currNode, postDomState);
+      }
+      if (pCfa.getLoopStructure().isPresent()) {
+        for (CFANode loopHead : CFAUtils.getEndlessLoopHeads(pCfa.getLoopStructure().get())) {
+          if (programNodes.contains(loopHead)) {
+            sinks.add(loopHead);
+          }
         }
       }
 
-      return new PostDominators(dependencyMap);
+      return new PostDominators(
+          DominatorTree.create(
+              sinks,
+              n -> CFAUtils.allEnteringEdges(n)
+                      .filter(PostDominators::isIntraproceduralEdge)
+                      .transform(CFAEdge::getPredecessor),
+              n -> CFAUtils.allLeavingEdges(n)
+                      .filter(PostDominators::isIntraproceduralEdge)
+                      .transform(CFAEdge::getSuccessor)));
+    }
+
+    private static boolean isIntraproceduralEdge(final CFAEdge pEdge) {
+      return !(pEdge instanceof FunctionCallEdge) && !(pEdge instanceof FunctionReturnEdge);
     }
 
     public Set<CFANode> getNodes() {
-      return postDominatorMap.keySet();
+      return tree.getNodes();
     }
   }
 }
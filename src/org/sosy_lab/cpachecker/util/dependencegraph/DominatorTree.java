@@ -0,0 +1,288 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.dependencegraph;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+
+/**
+ * Dominator tree of a graph, computed with the iterative algorithm of Cooper, Harvey, and Kennedy
+ * ("A Simple, Fast Dominance Algorithm").
+ *
+ * <p>Node <code>J</code> dominates node <code>I</code> if every path from one of the roots to
+ * <code>I</code> goes through <code>J</code>. Every node dominates itself. The roots are treated
+ * as successors of a single virtual root that is not part of the tree. Post-dominators can be
+ * computed by using the sinks of a graph as roots and swapping successors and predecessors.
+ *
+ * <p>Only nodes that are reachable from the roots are part of the tree. Dominance queries are
+ * answered in constant time by comparing the pre- and post-order numbers of both nodes in the
+ * tree.
+ *
+ * @param <T> the type of the nodes of the graph
+ */
+public final class DominatorTree<T> {
+
+  private static final int VIRTUAL_ROOT = 0;
+  private static final int UNDEFINED = -1;
+
+  /** Maps each node to its index, the indices are the reverse post-order of the graph. */
+  private final ImmutableMap<T, Integer> ids;
+
+  private final List<T> nodes;
+
+  /** Immediate dominator of each node, the virtual root for roots of the graph. */
+  private final int[] immediateDominators;
+
+  /** Number of each node in a pre-order traversal of the tree. */
+  private final int[] preOrder;
+
+  /** Number of each node in a post-order traversal of the tree. */
+  private final int[] postOrder;
+
+  private DominatorTree(
+      ImmutableMap<T, Integer> pIds,
+      List<T> pNodes,
+      int[] pImmediateDominators,
+      int[] pPreOrder,
+      int[] pPostOrder) {
+    ids = pIds;
+    nodes = pNodes;
+    immediateDominators = pImmediateDominators;
+    preOrder = pPreOrder;
+    postOrder = pPostOrder;
+  }
+
+  /**
+   * Compute the dominator tree of the graph that is reachable from the given roots.
+   *
+   * @param pRoots the roots of the graph
+   * @param pSuccessors the successors of each node
+   * @param pPredecessors the predecessors of each node, needs to be consistent with pSuccessors
+   */
+  public static <T> DominatorTree<T> create(
+      Collection<? extends T> pRoots,
+      Function<? super T, ? extends Iterable<? extends T>> pSuccessors,
+      Function<? super T, ? extends Iterable<? extends T>> pPredecessors) {
+
+    // Node indices are assigned in reverse post-order, the virtual root gets index 0.
+    List<T> postOrderNodes = computePostOrder(pRoots, pSuccessors);
+    int size = postOrderNodes.size() + 1;
+    List<T> nodes = new ArrayList<>(size);
+    nodes.add(null);
+    Map<T, Integer> idMap = new HashMap<>();
+    for (int i = postOrderNodes.size() - 1; i >= 0; i--) {
+      T node = postOrderNodes.get(i);
+      idMap.put(node, nodes.size());
+      nodes.add(node);
+    }
+    ImmutableMap<T, Integer> ids = ImmutableMap.copyOf(idMap);
+
+    int[][] predecessors = new int[size][];
+    predecessors[VIRTUAL_ROOT] = new int[0];
+    for (int i = 1; i < size; i++) {
+      predecessors[i] = predecessorIds(nodes.get(i), pPredecessors, ids);
+    }
+    for (T root : pRoots) {
+      int id = ids.get(root);
+      predecessors[id] = Arrays.copyOf(predecessors[id], predecessors[id].length + 1);
+      predecessors[id][predecessors[id].length - 1] = VIRTUAL_ROOT;
+    }
+
+    int[] immediateDominators = new int[size];
+    Arrays.fill(immediateDominators, UNDEFINED);
+    immediateDominators[VIRTUAL_ROOT] = VIRTUAL_ROOT;
+    boolean changed = true;
+    while (changed) {
+      changed = false;
+      for (int node = 1; node < size; node++) {
+        int newDominator = UNDEFINED;
+        for (int predecessor : predecessors[node]) {
+          if (immediateDominators[predecessor] == UNDEFINED) {
+            continue;
+          }
+          newDominator =
+              newDominator == UNDEFINED
+                  ? predecessor
+                  : intersect(predecessor, newDominator, immediateDominators);
+        }
+        if (newDominator != immediateDominators[node]) {
+          immediateDominators[node] = newDominator;
+          changed = true;
+        }
+      }
+    }
+
+    // number the nodes of the tree for constant-time ancestor queries
+    int[][] children = computeChildren(immediateDominators);
+    int[] preOrder = new int[size];
+    int[] postOrder = new int[size];
+    int preCounter = 0;
+    int postCounter = 0;
+    Deque<int[]> stack = new ArrayDeque<>();
+    preOrder[VIRTUAL_ROOT] = preCounter++;
+    stack.push(new int[] {VIRTUAL_ROOT, 0});
+    while (!stack.isEmpty()) {
+      int[] top = stack.peek();
+      int node = top[0];
+      if (top[1] < children[node].length) {
+        int child = children[node][top[1]++];
+        preOrder[child] = preCounter++;
+        stack.push(new int[] {child, 0});
+      } else {
+        postOrder[node] = postCounter++;
+        stack.pop();
+      }
+    }
+
+    return new DominatorTree<>(ids, nodes, immediateDominators, preOrder, postOrder);
+  }
+
+  private static <T> List<T> computePostOrder(
+      Collection<? extends T> pRoots,
+      Function<? super T, ? extends Iterable<? extends T>> pSuccessors) {
+    List<T> result = new ArrayList<>();
+    Set<T> visited = new HashSet<>();
+    Deque<T> nodeStack = new ArrayDeque<>();
+    Deque<Iterator<? extends T>> iteratorStack = new ArrayDeque<>();
+    for (T root : pRoots) {
+      if (!visited.add(root)) {
+        continue;
+      }
+      nodeStack.push(root);
+      iteratorStack.push(pSuccessors.apply(root).iterator());
+      while (!nodeStack.isEmpty()) {
+        Iterator<? extends T> successors = iteratorStack.peek();
+        if (successors.hasNext()) {
+          T successor = successors.next();
+          if (visited.add(successor)) {
+            nodeStack.push(successor);
+            iteratorStack.push(pSuccessors.apply(successor).iterator());
+          }
+        } else {
+          result.add(nodeStack.pop());
+          iteratorStack.pop();
+        }
+      }
+    }
+    return result;
+  }
+
+  private static <T> int[] predecessorIds(
+      T pNode,
+      Function<? super T, ? extends Iterable<? extends T>> pPredecessors,
+      Map<T, Integer> pIds) {
+    List<Integer> result = new ArrayList<>();
+    for (T predecessor : pPredecessors.apply(pNode)) {
+      Integer id = pIds.get(predecessor);
+      if (id != null) {
+        result.add(id);
+      }
+    }
+    return result.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  /** Find the nearest common dominator, nodes with lower index come first in reverse post-order. */
+  private static int intersect(int pNode1, int pNode2, int[] pImmediateDominators) {
+    int finger1 = pNode1;
+    int finger2 = pNode2;
+    while (finger1 != finger2) {
+      while (finger1 > finger2) {
+        finger1 = pImmediateDominators[finger1];
+      }
+      while (finger2 > finger1) {
+        finger2 = pImmediateDominators[finger2];
+      }
+    }
+    return finger1;
+  }
+
+  private static int[][] computeChildren(int[] pImmediateDominators) {
+    int[] childCount = new int[pImmediateDominators.length];
+    for (int node = 1; node < pImmediateDominators.length; node++) {
+      childCount[pImmediateDominators[node]]++;
+    }
+    int[][] children = new int[pImmediateDominators.length][];
+    for (int node = 0; node < pImmediateDominators.length; node++) {
+      children[node] = new int[childCount[node]];
+      childCount[node] = 0;
+    }
+    for (int node = 1; node < pImmediateDominators.length; node++) {
+      int parent = pImmediateDominators[node];
+      children[parent][childCount[parent]++] = node;
+    }
+    return children;
+  }
+
+  /** Returns whether the given node is reachable from the roots and thus part of the tree. */
+  public boolean contains(T pNode) {
+    return ids.containsKey(pNode);
+  }
+
+  /** Returns all nodes of the tree. */
+  public Set<T> getNodes() {
+    return ids.keySet();
+  }
+
+  /**
+   * Returns the immediate dominator of the given node, or null if the node is one of the roots of
+   * the graph (or not part of the tree).
+   */
+  public @Nullable T getImmediateDominator(T pNode) {
+    Integer id = ids.get(pNode);
+    if (id == null) {
+      return null;
+    }
+    return nodes.get(immediateDominators[id]);
+  }
+
+  /**
+   * Returns whether <code>pDominator</code> dominates <code>pNode</code>. Each node dominates
+   * itself.
+   *
+   * @throws IllegalArgumentException if <code>pNode</code> is not part of the tree
+   */
+  public boolean isDominatedBy(T pNode, T pDominator) {
+    Integer node = ids.get(pNode);
+    checkArgument(node != null, "Node %s not in dominator tree", pNode);
+    Integer dominator = ids.get(pDominator);
+    if (dominator == null) {
+      return false;
+    }
+    return preOrder[dominator] <= preOrder[node] && postOrder[node] <= postOrder[dominator];
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.dependencegraph;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import org.junit.Test;
+
+public class DominatorTreeTest {
+
+  /**
+   * <pre>
+   *        a
+   *       / \
+   *      b   c
+   *      |  / \
+   *      | d   e
+   *      |  \ /
+   *      |   f <-+
+   *       \ /    |
+   *        g ----+
+   *        |
+   *        h
+   * </pre>
+   */
+  private static final ImmutableListMultimap<String, String> EDGES =
+      ImmutableListMultimap.<String, String>builder()
+          .putAll("a", "b", "c")
+          .putAll("b", "g")
+          .putAll("c", "d", "e")
+          .putAll("d", "f")
+          .putAll("e", "f")
+          .putAll("f", "g")
+          .putAll("g", "f", "h")
+          .build();
+
+  private static DominatorTree<String> dominators(String... pRoots) {
+    return DominatorTree.create(ImmutableList.copyOf(pRoots), EDGES::get, EDGES.inverse()::get);
+  }
+
+  private static DominatorTree<String> postDominators(String... pRoots) {
+    return DominatorTree.create(ImmutableList.copyOf(pRoots), EDGES.inverse()::get, EDGES::get);
+  }
+
+  @Test
+  public void testDominators() {
+    DominatorTree<String> tree = dominators("a");
+
+    assertThat(tree.getNodes()).containsExactly("a", "b", "c", "d", "e", "f", "g", "h");
+    assertThat(tree.getImmediateDominator("a")).isNull();
+    assertThat(tree.getImmediateDominator("b")).isEqualTo("a");
+    assertThat(tree.getImmediateDominator("d")).isEqualTo("c");
+    assertThat(tree.getImmediateDominator("f")).isEqualTo("a");
+    assertThat(tree.getImmediateDominator("g")).isEqualTo("a");
+    assertThat(tree.getImmediateDominator("h")).isEqualTo("g");
+
+    assertThat(tree.isDominatedBy("h", "a")).isTrue();
+    assertThat(tree.isDominatedBy("h", "g")).isTrue();
+    assertThat(tree.isDominatedBy("h", "h")).isTrue();
+    assertThat(tree.isDominatedBy("e", "c")).isTrue();
+    assertThat(tree.isDominatedBy("f", "c")).isFalse();
+    assertThat(tree.isDominatedBy("a", "b")).isFalse();
+  }
+
+  @Test
+  public void testPostDominators() {
+    DominatorTree<String> tree = postDominators("h");
+
+    assertThat(tree.getImmediateDominator("h")).isNull();
+    assertThat(tree.getImmediateDominator("a")).isEqualTo("g");
+    assertThat(tree.getImmediateDominator("c")).isEqualTo("f");
+    assertThat(tree.getImmediateDominator("f")).isEqualTo("g");
+
+    assertThat(tree.isDominatedBy("a", "g")).isTrue();
+    assertThat(tree.isDominatedBy("d", "f")).isTrue();
+    assertThat(tree.isDominatedBy("a", "c")).isFalse();
+    assertThat(tree.isDominatedBy("b", "f")).isFalse();
+  }
+
+  @Test
+  public void testMultipleRoots() {
+    DominatorTree<String> tree = postDominators("b", "e");
+
+    assertThat(tree.getNodes()).containsExactly("a", "b", "c", "e");
+    assertThat(tree.contains("f")).isFalse();
+    assertThat(tree.getImmediateDominator("c")).isEqualTo("e");
+    assertThat(tree.getImmediateDominator("a")).isNull();
+    assertThat(tree.isDominatedBy("a", "c")).isFalse();
+    assertThat(tree.isDominatedBy("c", "e")).isTrue();
+    assertThat(tree.isDominatedBy("c", "f")).isFalse();
+  }
+}
@@ -0,0 +1,244 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.octagon;
+
+import java.util.Arrays;
+
+/** The bounds of an octagon over rationals. */
+final class DoubleHalfMatrix extends HalfMatrix {
+
+  private final double[] m;
+
+  /** creates a half-matrix without any bounds, including the diagonal */
+  DoubleHalfMatrix(int pN) {
+    this(pN, new double[size(pN)]);
+    Arrays.fill(m, INF);
+  }
+
+  private DoubleHalfMatrix(int pN, double[] pM) {
+    super(pN);
+    m = pM;
+  }
+
+  @Override
+  boolean isInteger() {
+    return false;
+  }
+
+  @Override
+  double get(int p) {
+    return m[p];
+  }
+
+  @Override
+  void set(int p, double value) {
+    m[p] = value;
+  }
+
+  @Override
+  void copyEntry(int i, int j, HalfMatrix pSource, int pSourceI, int pSourceJ) {
+    m[pos(i, j)] = ((DoubleHalfMatrix) pSource).m[pos(pSourceI, pSourceJ)];
+  }
+
+  @Override
+  DoubleHalfMatrix copy() {
+    return new DoubleHalfMatrix(n, m.clone());
+  }
+
+  @Override
+  DoubleHalfMatrix resize(int pN) {
+    double[] result = Arrays.copyOf(m, size(pN));
+    if (pN > n) {
+      Arrays.fill(result, m.length, result.length, INF);
+      for (int i = 2 * n; i < 2 * pN; i++) {
+        result[pos(i, i)] = 0;
+      }
+    }
+    return new DoubleHalfMatrix(pN, result);
+  }
+
+  @Override
+  boolean strongClosure() {
+    double[] c = m;
+    int size = 2 * n;
+    double[] toK = new double[size];
+    double[] toNotK = new double[size];
+    double[] fromK = new double[size];
+    double[] fromNotK = new double[size];
+    for (int k = 0; k < size; k += 2) {
+      int nk = k + 1;
+      for (int i = 0; i < size; i++) {
+        toK[i] = c[pos(i, k)];
+        toNotK[i] = c[pos(i, nk)];
+        fromK[i] = c[pos(k, i)];
+        fromNotK[i] = c[pos(nk, i)];
+      }
+      double kToNotK = c[pos(k, nk)];
+      double notKToK = c[pos(nk, k)];
+      for (int i = 0; i < size; i++) {
+        if (toK[i] == INF && toNotK[i] == INF) {
+          continue;
+        }
+        int rowStart = rowStart(i);
+        for (int j = 0, last = i | 1; j <= last; j++) {
+          double value = c[rowStart + j];
+          value = Math.min(value, toK[i] + fromK[j]);
+          value = Math.min(value, toNotK[i] + fromNotK[j]);
+          value = Math.min(value, toK[i] + kToNotK + fromNotK[j]);
+          value = Math.min(value, toNotK[i] + notKToK + fromK[j]);
+          c[rowStart + j] = value;
+        }
+      }
+    }
+    return strengthen();
+  }
+
+  @Override
+  boolean incrementalClosure(int a, int b, double bound) {
+    double[] c = m;
+    int size = 2 * n;
+    int na = a ^ 1;
+    int nb = b ^ 1;
+    double[] toA = new double[size];
+    double[] toNotB = new double[size];
+    double[] fromB = new double[size];
+    double[] fromNotA = new double[size];
+    for (int k = 0; k < size; k++) {
+      toA[k] = c[pos(k, a)];
+      toNotB[k] = c[pos(k, nb)];
+      fromB[k] = c[pos(b, k)];
+      fromNotA[k] = c[pos(na, k)];
+    }
+    // paths that use the new edge a->b (or its coherent twin nb->na) once or twice
+    double viaBoth = bound + c[pos(b, nb)] + bound;
+    double viaBothReverse = bound + c[pos(na, a)] + bound;
+    for (int i = 0; i < size; i++) {
+      int rowStart = rowStart(i);
+      for (int j = 0, last = i | 1; j <= last; j++) {
+        double value = c[rowStart + j];
+        value = Math.min(value, toA[i] + bound + fromB[j]);
+        value = Math.min(value, toNotB[i] + bound + fromNotA[j]);
+        value = Math.min(value, toA[i] + viaBoth + fromNotA[j]);
+        value = Math.min(value, toNotB[i] + viaBothReverse + fromB[j]);
+        c[rowStart + j] = value;
+      }
+    }
+    return strengthen();
+  }
+
+  private boolean strengthen() {
+    double[] c = m;
+    int size = 2 * n;
+    double[] unary = new double[size];
+    for (int i = 0; i < size; i++) {
+      unary[i] = c[pos(i, i ^ 1)];
+    }
+    for (int i = 0; i < size; i++) {
+      if (unary[i] == INF) {
+        continue;
+      }
+      int rowStart = rowStart(i);
+      for (int j = 0, last = i | 1; j <= last; j++) {
+        double bound = (unary[i] + unary[j ^ 1]) / 2;
+        if (bound < c[rowStart + j]) {
+          c[rowStart + j] = bound;
+        }
+      }
+    }
+    for (int i = 0; i < size; i++) {
+      int p = pos(i, i);
+      if (c[p] < 0) {
+        return false;
+      }
+      c[p] = 0;
+    }
+    return true;
+  }
+
+  @Override
+  boolean isLessOrEqual(HalfMatrix pOther) {
+    double[] a = m;
+    double[] b = ((DoubleHalfMatrix) pOther).m;
+    if (a == b) {
+      return true;
+    }
+    for (int p = 0; p < a.length; p++) {
+      if (a[p] > b[p]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  boolean hasSameBounds(HalfMatrix pOther) {
+    return Arrays.equals(m, ((DoubleHalfMatrix) pOther).m);
+  }
+
+  @Override
+  DoubleHalfMatrix meet(HalfMatrix pOther) {
+    double[] b = ((DoubleHalfMatrix) pOther).m;
+    double[] result = new double[m.length];
+    for (int p = 0; p < m.length; p++) {
+      result[p] = Math.min(m[p], b[p]);
+    }
+    return new DoubleHalfMatrix(n, result);
+  }
+
+  @Override
+  DoubleHalfMatrix join(HalfMatrix pOther) {
+    double[] b = ((DoubleHalfMatrix) pOther).m;
+    double[] result = new double[m.length];
+    for (int p = 0; p < m.length; p++) {
+      result[p] = Math.max(m[p], b[p]);
+    }
+    return new DoubleHalfMatrix(n, result);
+  }
+
+  @Override
+  DoubleHalfMatrix widen(HalfMatrix pOther) {
+    double[] b = ((DoubleHalfMatrix) pOther).m;
+    double[] result = new double[m.length];
+    for (int p = 0; p < m.length; p++) {
+      if (b[p] <= m[p]) {
+        result[p] = m[p];
+      } else if (b[p] <= 0) {
+        result[p] = 0;
+      } else {
+        result[p] = INF;
+      }
+    }
+    return new DoubleHalfMatrix(n, result);
+  }
+
+  @Override
+  DoubleHalfMatrix narrow(HalfMatrix pOther) {
+    double[] b = ((DoubleHalfMatrix) pOther).m;
+    double[] result = new double[m.length];
+    for (int p = 0; p < m.length; p++) {
+      result[p] = m[p] == INF ? b[p] : m[p];
+    }
+    return new DoubleHalfMatrix(n, result);
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.octagon;
+
+/**
+ * The bounds of an octagon, stored as flat half-matrix in the layout of the octagon library of
+ * Antoine Mine (see {@link OctagonMatrix}). Octagons over rationals store the bounds as doubles,
+ * octagons over integers as longs, which keeps large integer bounds exact.
+ *
+ * <p>A half-matrix is only modified by the operation that creates it, and never after it was
+ * handed to an {@link OctagonMatrix}. Entries are read and written as doubles, where positive
+ * infinity stands for a missing bound. The closure and the pointwise operators work directly on
+ * the primitive array.
+ */
+abstract class HalfMatrix {
+
+  static final double INF = Double.POSITIVE_INFINITY;
+
+  /** the number of variables */
+  final int n;
+
+  HalfMatrix(int pN) {
+    n = pN;
+  }
+
+  /** the unconstrained half-matrix with the given number of variables */
+  static HalfMatrix universe(int pN, boolean pIntegers) {
+    HalfMatrix result = pIntegers ? new LongHalfMatrix(pN) : new DoubleHalfMatrix(pN);
+    for (int i = 0; i < 2 * pN; i++) {
+      result.set(i, i, 0);
+    }
+    return result;
+  }
+
+  /** number of stored entries for an octagon with the given number of variables */
+  static int size(int pN) {
+    return 2 * pN * (pN + 1);
+  }
+
+  /** position of the entry (i, j) in the half-matrix */
+  static int pos(int i, int j) {
+    if (j <= (i | 1)) {
+      return j + ((i + 1) * (i + 1)) / 2;
+    } else {
+      int row = j ^ 1;
+      return (i ^ 1) + ((row + 1) * (row + 1)) / 2;
+    }
+  }
+
+  /** position of the first entry of row i, the row has the entries up to (i, i|1) */
+  static int rowStart(int i) {
+    return ((i + 1) * (i + 1)) / 2;
+  }
+
+  final double get(int i, int j) {
+    return get(pos(i, j));
+  }
+
+  final void set(int i, int j, double value) {
+    set(pos(i, j), value);
+  }
+
+  /** lowers the entry (i, j) to the given bound if it is smaller */
+  final void lower(int i, int j, double bound) {
+    int p = pos(i, j);
+    if (bound < get(p)) {
+      set(p, bound);
+    }
+  }
+
+  /** whether the bounds are integers */
+  abstract boolean isInteger();
+
+  abstract double get(int p);
+
+  /** sets the entry, integer bounds are rounded down */
+  abstract void set(int p, double value);
+
+  /** sets the entry (i, j) to the entry (pSourceI, pSourceJ) of a half-matrix of the same type */
+  abstract void copyEntry(int i, int j, HalfMatrix pSource, int pSourceI, int pSourceJ);
+
+  abstract HalfMatrix copy();
+
+  /**
+   * Returns a copy with the given number of variables. The layout does not depend on the
+   * dimension, so additional variables are unconstrained and removed variables are the last ones.
+   */
+  abstract HalfMatrix resize(int pN);
+
+  /**
+   * Computes the strong closure in place with the modified Floyd-Warshall algorithm of Mine, which
+   * uses both indices of a variable in each step, followed by tightening and strengthening.
+   * Returns false if the octagon is empty.
+   */
+  abstract boolean strongClosure();
+
+  /**
+   * Updates a strongly closed matrix in place after the entry (a, b) was lowered to the given
+   * bound, such that the result is strongly closed again. Returns false if the octagon is empty.
+   */
+  abstract boolean incrementalClosure(int a, int b, double bound);
+
+  /** whether every entry is less or equal than the entry of the other half-matrix */
+  abstract boolean isLessOrEqual(HalfMatrix pOther);
+
+  abstract boolean hasSameBounds(HalfMatrix pOther);
+
+  /** the pointwise minimum */
+  abstract HalfMatrix meet(HalfMatrix pOther);
+
+  /** the pointwise maximum */
+  abstract HalfMatrix join(HalfMatrix pOther);
+
+  /**
+   * Keeps the entries that are stable and moves the others to the thresholds 0 and infinity
+   * (OCT_WIDENING_ZERO in the octagon library).
+   */
+  abstract HalfMatrix widen(HalfMatrix pOther);
+
+  /** replaces the infinite entries by those of the other half-matrix */
+  abstract HalfMatrix narrow(HalfMatrix pOther);
+}
@@ -0,0 +1,364 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.octagon;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.collect.BiMap;
+import java.util.Arrays;
+import org.sosy_lab.cpachecker.cpa.octagon.values.OctagonDoubleValue;
+import org.sosy_lab.cpachecker.cpa.octagon.values.OctagonIntValue;
+import org.sosy_lab.cpachecker.cpa.octagon.values.OctagonInterval;
+import org.sosy_lab.cpachecker.util.states.MemoryLocation;
+
+/**
+ * Implementation of the octagon domain in Java, based on {@link OctagonMatrix}. In contrast to
+ * the native managers, this does not need a native library and no finalization of octagons, and
+ * unchanged matrices are shared between octagons instead of being copied. Octagons over integers
+ * store their bounds as longs, octagons over rationals as doubles.
+ */
+public final class JavaOctagonManager extends OctagonManager {
+
+  private static final int TRUE = 1;
+  private static final int FALSE = 2;
+  private static final int TOP = 3;
+
+  private final boolean integers;
+
+  private JavaOctagonManager(boolean pIntegers) {
+    integers = pIntegers;
+  }
+
+  /** Creates a manager for octagons over integer variables, like {@link OctagonIntManager}. */
+  public static JavaOctagonManager forIntegers() {
+    return new JavaOctagonManager(true);
+  }
+
+  /** Creates a manager for octagons over rational variables, like {@link OctagonFloatManager}. */
+  public static JavaOctagonManager forFloats() {
+    return new JavaOctagonManager(false);
+  }
+
+  private Octagon wrap(OctagonMatrix pMatrix) {
+    return new Octagon(pMatrix, this);
+  }
+
+  private static int toTbool(Boolean pValue) {
+    if (pValue == null) {
+      return TOP;
+    }
+    return pValue ? TRUE : FALSE;
+  }
+
+  /* num handling function*/
+
+  @Override
+  public NumArray init_num_t(int n) {
+    return new NumArray(new double[n]);
+  }
+
+  @Override
+  public void num_set(NumArray n1, NumArray n2) {
+    n1.getValues()[0] = n2.getValues()[0];
+  }
+
+  @Override
+  public Octagon set_bounds(Octagon oct, int pos, NumArray lower, NumArray upper) {
+    return wrap(
+        oct.getMatrix()
+            .forget(pos)
+            .addConstraint(2 * pos + 1, 2 * pos, 2 * upper.getValues()[0])
+            .addConstraint(2 * pos, 2 * pos + 1, 2 * lower.getValues()[0]));
+  }
+
+  @Override
+  public void num_set_int(NumArray n, int pos, long i) {
+    n.getValues()[pos] = i;
+  }
+
+  @Override
+  public void num_set_float(NumArray n, int pos, double d) {
+    n.getValues()[pos] = integers ? Math.ceil(d) : d;
+  }
+
+  @Override
+  public void num_set_inf(NumArray n, int pos) {
+    n.getValues()[pos] = Double.POSITIVE_INFINITY;
+  }
+
+  @Override
+  public long num_get_int(NumArray n, int pos) {
+    return (long) n.getValues()[pos];
+  }
+
+  @Override
+  public double num_get_float(NumArray n, int pos) {
+    return n.getValues()[pos];
+  }
+
+  @Override
+  public boolean num_infty(NumArray n, int pos) {
+    return Double.isInfinite(n.getValues()[pos]);
+  }
+
+  @Override
+  public void num_clear_n(NumArray n, int size) {
+    // memory is managed by the garbage collector
+  }
+
+  /* Octagon handling functions */
+
+  @Override
+  public Octagon empty(int n) {
+    return wrap(OctagonMatrix.bottom(n, integers));
+  }
+
+  @Override
+  public Octagon universe(int n) {
+    return wrap(OctagonMatrix.universe(n, integers));
+  }
+
+  @Override
+  public Octagon copy(Octagon oct) {
+    // matrices are never modified, so they can be shared
+    return wrap(oct.getMatrix());
+  }
+
+  @Override
+  public Octagon full_copy(Octagon oct) {
+    return wrap(oct.getMatrix());
+  }
+
+  @Override
+  public int dimension(Octagon oct) {
+    return oct.getMatrix().getDimension();
+  }
+
+  @Override
+  public int nbconstraints(Octagon oct) {
+    return oct.getMatrix().getNumberOfConstraints();
+  }
+
+  @Override
+  public boolean isEmpty(Octagon oct) {
+    return oct.getMatrix().isEmpty();
+  }
+
+  @Override
+  public int isEmptyLazy(Octagon oct) {
+    return toTbool(oct.getMatrix().isEmptyLazy());
+  }
+
+  @Override
+  public boolean isUniverse(Octagon oct) {
+    return oct.getMatrix().isUniverse();
+  }
+
+  @Override
+  public boolean isIncludedIn(Octagon oct1, Octagon oct2) {
+    return oct1.getMatrix().isIncludedIn(oct2.getMatrix());
+  }
+
+  @Override
+  public int isIncludedInLazy(Octagon oct1, Octagon oct2) {
+    return toTbool(oct1.getMatrix().isIncludedInLazy(oct2.getMatrix()));
+  }
+
+  @Override
+  public boolean isEqual(Octagon oct1, Octagon oct2) {
+    return oct1.getMatrix().isEqual(oct2.getMatrix());
+  }
+
+  @Override
+  public int isEqualLazy(Octagon oct1, Octagon oct2) {
+    return toTbool(oct1.getMatrix().isEqualLazy(oct2.getMatrix()));
+  }
+
+  @Override
+  public boolean isIn(Octagon oct1, NumArray array) {
+    return oct1.getMatrix().contains(array.getValues());
+  }
+
+  @Override
+  public Octagon intersection(Octagon oct1, Octagon oct2) {
+    return wrap(oct1.getMatrix().intersection(oct2.getMatrix()));
+  }
+
+  @Override
+  public Octagon union(Octagon oct1, Octagon oct2) {
+    return wrap(oct1.getMatrix().union(oct2.getMatrix()));
+  }
+
+  @Override
+  public Octagon widening(Octagon oct1, Octagon oct2) {
+    return wrap(oct1.getMatrix().widening(oct2.getMatrix()));
+  }
+
+  @Override
+  public Octagon narrowing(Octagon oct1, Octagon oct2) {
+    return wrap(oct1.getMatrix().narrowing(oct2.getMatrix()));
+  }
+
+  @Override
+  public Octagon forget(Octagon oct, int k) {
+    return wrap(oct.getMatrix().forget(k));
+  }
+
+  @Override
+  public Octagon assingVar(Octagon oct, int k, NumArray array) {
+    return wrap(oct.getMatrix().assign(k, array.getValues()));
+  }
+
+  @Override
+  public Octagon addBinConstraint(Octagon oct, int noOfConstraints, NumArray array) {
+    double[] values = array.getValues();
+    checkArgument(values.length >= 4 * noOfConstraints, "not enough values for the constraints");
+    OctagonMatrix result = oct.getMatrix();
+    for (int i = 0; i < noOfConstraints; i++) {
+      int x = (int) values[4 * i + 1];
+      int y = (int) values[4 * i + 2];
+      double c = values[4 * i + 3];
+      switch ((int) values[4 * i]) {
+        case 0: // x <= c
+          result = result.addConstraint(2 * x + 1, 2 * x, 2 * c);
+          break;
+        case 1: // -x <= c
+          result = result.addConstraint(2 * x, 2 * x + 1, 2 * c);
+          break;
+        case 2: // x + y <= c
+          result = result.addConstraint(2 * y + 1, 2 * x, c);
+          break;
+        case 3: // x - y <= c
+          result = result.addConstraint(2 * y, 2 * x, c);
+          break;
+        case 4: // -x + y <= c
+          result = result.addConstraint(2 * x, 2 * y, c);
+          break;
+        case 5: // -x - y <= c
+          result = result.addConstraint(2 * y, 2 * x + 1, c);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown type of constraint " + values[4 * i]);
+      }
+    }
+    return wrap(result);
+  }
+
+  @Override
+  public Octagon substituteVar(Octagon oct, int x, NumArray array) {
+    return wrap(oct.getMatrix().substitute(x, array.getValues()));
+  }
+
+  @Override
+  public Octagon addConstraint(Octagon oct, NumArray array) {
+    return wrap(oct.getMatrix().addLinearConstraint(array.getValues()));
+  }
+
+  @Override
+  public Octagon intervAssingVar(Octagon oct, int k, NumArray array) {
+    return wrap(oct.getMatrix().assignInterval(k, array.getValues()));
+  }
+
+  @Override
+  public Octagon intervSubstituteVar(Octagon oct, int x, NumArray array) {
+    return wrap(oct.getMatrix().substituteInterval(x, array.getValues()));
+  }
+
+  @Override
+  public Octagon intervAddConstraint(Octagon oct, NumArray array) {
+    return wrap(oct.getMatrix().addIntervalConstraint(array.getValues()));
+  }
+
+  @Override
+  public Octagon addDimensionAndEmbed(Octagon oct, int k) {
+    return wrap(oct.getMatrix().addDimensions(k, false));
+  }
+
+  @Override
+  public Octagon addDimensionAndProject(Octagon oct, int k) {
+    return wrap(oct.getMatrix().addDimensions(k, true));
+  }
+
+  @Override
+  public Octagon removeDimension(Octagon oct, int k) {
+    return wrap(oct.getMatrix().removeDimensions(k));
+  }
+
+  @Override
+  public void printNum(NumArray arr, int size) {
+    System.out.println(Arrays.toString(Arrays.copyOf(arr.getValues(), size)));
+  }
+
+  @Override
+  public void printOct(Octagon oct) {
+    System.out.println(oct);
+  }
+
+  @Override
+  public String print(Octagon oct, BiMap<Integer, MemoryLocation> map) {
+    StringBuilder str = new StringBuilder();
+    OctagonMatrix matrix = oct.getMatrix();
+    str.append("Octagon (dimension: " + matrix.getDimension() + ")\n");
+    if (matrix.isEmpty()) {
+      str.append("[Empty]\n");
+      return str.toString();
+    }
+
+    for (int i = 0; i < map.size(); i++) {
+      str.append(" ").append(map.get(i)).append(" -> [");
+      double lower = -matrix.getNegatedLowerBound(i);
+      double upper = matrix.getUpperBound(i);
+      if (Double.isInfinite(lower)) {
+        str.append("-INFINITY, ");
+      } else {
+        str.append(integers ? (Object) (long) lower : (Object) lower).append(", ");
+      }
+      if (Double.isInfinite(upper)) {
+        str.append("INFINITY]\n");
+      } else {
+        str.append(integers ? (Object) (long) upper : (Object) upper).append("]\n");
+      }
+    }
+    return str.toString();
+  }
+
+  @Override
+  public OctagonInterval getVariableBounds(Octagon oct, int id) {
+    OctagonMatrix matrix = oct.getMatrix();
+    assert id < matrix.getDimension();
+    double lower = -matrix.getNegatedLowerBound(id);
+    double upper = matrix.getUpperBound(id);
+    if (!integers || (Double.isInfinite(lower) && Double.isInfinite(upper))) {
+      return new OctagonInterval(lower, upper);
+    } else if (Double.isInfinite(lower)) {
+      return new OctagonInterval(
+          new OctagonDoubleValue(Double.NEGATIVE_INFINITY), OctagonIntValue.of((long) upper));
+    } else if (Double.isInfinite(upper)) {
+      return new OctagonInterval(
+          OctagonIntValue.of((long) lower), new OctagonDoubleValue(Double.POSITIVE_INFINITY));
+    } else {
+      return new OctagonInterval((long) lower, (long) upper);
+    }
+  }
+}
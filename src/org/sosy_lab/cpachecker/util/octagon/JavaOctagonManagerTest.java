@@ -0,0 +1,256 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.octagon;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+import org.sosy_lab.cpachecker.cpa.octagon.values.OctagonInterval;
+
+public class JavaOctagonManagerTest {
+
+  private static final int TRUE = 1;
+  private static final int FALSE = 2;
+
+  private final OctagonManager manager = JavaOctagonManager.forIntegers();
+
+  /** adds the constraints given as quadruples of type, first and second variable, and constant */
+  private Octagon addConstraints(Octagon oct, long... values) {
+    NumArray arr = manager.init_num_t(values.length);
+    for (int i = 0; i < values.length; i++) {
+      manager.num_set_int(arr, i, values[i]);
+    }
+    return manager.addBinConstraint(oct, values.length / 4, arr);
+  }
+
+  /** assigns a0*v0 + ... + an */
+  private Octagon assign(Octagon oct, int var, long... coefficients) {
+    NumArray arr = manager.init_num_t(coefficients.length);
+    for (int i = 0; i < coefficients.length; i++) {
+      manager.num_set_int(arr, i, coefficients[i]);
+    }
+    return manager.assingVar(oct, var, arr);
+  }
+
+  private static NumArray values(OctagonManager pManager, long... values) {
+    NumArray arr = pManager.init_num_t(values.length);
+    for (int i = 0; i < values.length; i++) {
+      pManager.num_set_int(arr, i, values[i]);
+    }
+    return arr;
+  }
+
+  private void assertBounds(Octagon oct, int var, double low, double high) {
+    OctagonInterval bounds = manager.getVariableBounds(oct, var);
+    assertThat(bounds.getLow().getValue().doubleValue()).isEqualTo(low);
+    assertThat(bounds.getHigh().getValue().doubleValue()).isEqualTo(high);
+  }
+
+  @Test
+  public void testUniverseAndEmpty() {
+    assertThat(manager.isUniverse(manager.universe(3))).isTrue();
+    assertThat(manager.isEmpty(manager.universe(3))).isFalse();
+    assertThat(manager.isEmpty(manager.empty(3))).isTrue();
+    assertBounds(manager.universe(1), 0, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+  }
+
+  @Test
+  public void testIncrementalClosure() {
+    Octagon oct = manager.universe(2);
+    // x - y <= 0, y <= 3, -y <= 1
+    oct = addConstraints(oct, 3, 0, 1, 0, 0, 1, 0, 3, 1, 1, 0, 1);
+    assertBounds(oct, 0, Double.NEGATIVE_INFINITY, 3);
+    assertBounds(oct, 1, -1, 3);
+
+    // x + y <= 6 is already implied by the closure, so the octagon is shared
+    Octagon implied = addConstraints(oct, 2, 0, 1, 6);
+    assertThat(manager.isEqual(implied, oct)).isTrue();
+
+    // -x <= -5 contradicts x <= 3
+    assertThat(manager.isEmpty(addConstraints(oct, 1, 0, 0, -5))).isTrue();
+  }
+
+  @Test
+  public void testIntegerTightening() {
+    // 2x <= 3 is tightened to x <= 1 for integers
+    Octagon oct = addConstraints(manager.universe(2), 2, 0, 0, 3);
+    assertBounds(oct, 0, Double.NEGATIVE_INFINITY, 1);
+  }
+
+  @Test
+  public void testAssignment() {
+    Octagon oct = assign(manager.universe(3), 0, 0, 0, 0, 5);
+    assertBounds(oct, 0, 5, 5);
+
+    // y = x + 1
+    oct = assign(oct, 1, 1, 0, 0, 1);
+    assertBounds(oct, 1, 6, 6);
+
+    // x = x + 2 keeps the relation to y
+    oct = assign(oct, 0, 1, 0, 0, 2);
+    assertBounds(oct, 0, 7, 7);
+    assertBounds(oct, 1, 6, 6);
+
+    // x = -x
+    oct = assign(oct, 0, -1, 0, 0, 0);
+    assertBounds(oct, 0, -7, -7);
+
+    // z = 2x + y
+    oct = assign(oct, 2, 2, 1, 0, 0);
+    assertBounds(oct, 2, -8, -8);
+  }
+
+  @Test
+  public void testAssignmentOfUnboundedVariable() {
+    Octagon oct = addConstraints(manager.universe(2), 0, 0, 0, 10);
+    // y = x - 3 keeps the relation although x has no lower bound
+    oct = assign(oct, 1, 1, 0, -3);
+    assertBounds(oct, 1, Double.NEGATIVE_INFINITY, 7);
+    oct = addConstraints(oct, 1, 1, 0, 0);
+    assertBounds(oct, 0, 3, 10);
+  }
+
+  @Test
+  public void testAssignmentUsesRelationsOfOperands() {
+    // y + z <= 5 and y + z >= 0, but neither y nor z is bounded
+    Octagon oct = addConstraints(manager.universe(3), 2, 1, 2, 5, 5, 1, 2, 0);
+    assertBounds(oct, 1, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+
+    // x = y + z
+    oct = assign(oct, 0, 0, 1, 1, 0);
+    assertBounds(oct, 0, 0, 5);
+  }
+
+  @Test
+  public void testSubstitution() {
+    // x in [0, 10]
+    Octagon oct = addConstraints(manager.universe(2), 0, 0, 0, 10, 1, 0, 0, 0);
+
+    // before x = y + 3, x in [0, 10] held iff y in [-3, 7]
+    Octagon substituted = manager.substituteVar(oct, 0, values(manager, 0, 1, 3));
+    assertBounds(substituted, 0, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+    assertBounds(substituted, 1, -3, 7);
+
+    // before x = x - 4, x was in [4, 14]
+    substituted = manager.substituteVar(oct, 0, values(manager, 1, 0, -4));
+    assertBounds(substituted, 0, 4, 14);
+
+    // before x = 11, x in [0, 10] could not hold
+    assertThat(manager.isEmpty(manager.substituteVar(oct, 0, values(manager, 0, 0, 11)))).isTrue();
+
+    // before x = 2y, x in [0, 10] held iff y in [0, 5]
+    substituted = manager.substituteVar(oct, 0, values(manager, 0, 2, 0));
+    assertBounds(substituted, 1, 0, 5);
+  }
+
+  @Test
+  public void testLinearConstraint() {
+    Octagon oct = addConstraints(manager.universe(3), 0, 0, 0, 4, 1, 0, 0, 0);
+
+    // x - y >= 0 is octagonal
+    Octagon constrained = manager.addConstraint(oct, values(manager, 1, -1, 0, 0));
+    assertBounds(constrained, 1, Double.NEGATIVE_INFINITY, 4);
+
+    // with y >= 0, -x - 2y + z - 1 >= 0 implies z >= 1
+    constrained = addConstraints(constrained, 1, 1, 0, 0);
+    constrained = manager.addConstraint(constrained, values(manager, -1, -2, 1, -1));
+    assertBounds(constrained, 2, 1, Double.POSITIVE_INFINITY);
+
+    // x - 5 >= 0 contradicts x <= 4
+    assertThat(manager.isEmpty(manager.addConstraint(oct, values(manager, 1, 0, 0, -5)))).isTrue();
+  }
+
+  @Test
+  public void testIntervalCoefficients() {
+    Octagon oct = addConstraints(manager.universe(2), 0, 0, 0, 4, 1, 0, 0, 0);
+
+    // y = [1, 2] * x + [0, 1], given as pairs of upper bound and negated lower bound
+    Octagon assigned = manager.intervAssingVar(oct, 1, values(manager, 2, -1, 0, 0, 1, 0));
+    assertBounds(assigned, 1, 0, 9);
+
+    // [-1, 1] * x - 3 >= 0 holds for some coefficient only if x >= 3
+    Octagon constrained =
+        manager.intervAddConstraint(oct, values(manager, 1, 1, 0, 0, -3, 3));
+    assertBounds(constrained, 0, 3, 4);
+
+    // before x = [1, 2] * y, x in [0, 4] held only if y in [0, 4]
+    Octagon substituted =
+        manager.intervSubstituteVar(oct, 0, values(manager, 0, 0, 2, -1, 0, 0));
+    assertBounds(substituted, 1, 0, 4);
+  }
+
+  @Test
+  public void testFloatOctagons() {
+    OctagonManager floats = JavaOctagonManager.forFloats();
+    NumArray half = floats.init_num_t(3);
+    floats.num_set_float(half, 0, 0);
+    floats.num_set_float(half, 1, 0.5);
+    floats.num_set_float(half, 2, 0.25);
+    // x = 0.5y + 0.25 with y in [0, 1]
+    Octagon oct =
+        floats.set_bounds(floats.universe(2), 1, values(floats, 0), values(floats, 1));
+    oct = floats.assingVar(oct, 0, half);
+    OctagonInterval bounds = floats.getVariableBounds(oct, 0);
+    assertThat(bounds.getLow().getValue().doubleValue()).isEqualTo(0.25);
+    assertThat(bounds.getHigh().getValue().doubleValue()).isEqualTo(0.75);
+  }
+
+  @Test
+  public void testLatticeOperations() {
+    Octagon zero = assign(manager.universe(1), 0, 0, 0);
+    Octagon one = assign(manager.universe(1), 0, 0, 1);
+
+    Octagon union = manager.union(zero, one);
+    assertBounds(union, 0, 0, 1);
+    assertThat(manager.isIncludedInLazy(zero, union)).isEqualTo(TRUE);
+    assertThat(manager.isIncludedInLazy(union, zero)).isEqualTo(FALSE);
+    assertThat(manager.isEmpty(manager.intersection(zero, one))).isTrue();
+
+    // bottom is stored with an unconstrained matrix
+    Octagon bottom = manager.empty(1);
+    assertThat(manager.isIncludedInLazy(zero, bottom)).isEqualTo(FALSE);
+    assertThat(manager.isIncludedInLazy(manager.universe(1), bottom)).isEqualTo(FALSE);
+    assertThat(manager.isIncludedInLazy(bottom, zero)).isEqualTo(TRUE);
+    assertThat(manager.isIncludedIn(zero, bottom)).isFalse();
+
+    Octagon widened = manager.widening(zero, union);
+    assertBounds(widened, 0, 0, Double.POSITIVE_INFINITY);
+    assertBounds(manager.narrowing(widened, union), 0, 0, 1);
+  }
+
+  @Test
+  public void testDimensions() {
+    Octagon oct = assign(manager.universe(1), 0, 0, 4);
+    Octagon embedded = manager.addDimensionAndEmbed(oct, 2);
+    assertThat(manager.dimension(embedded)).isEqualTo(3);
+    assertBounds(embedded, 0, 4, 4);
+    assertBounds(embedded, 2, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+
+    Octagon projected = manager.addDimensionAndProject(oct, 1);
+    assertBounds(projected, 1, 0, 0);
+
+    Octagon removed = manager.removeDimension(embedded, 2);
+    assertThat(manager.isEqual(removed, oct)).isTrue();
+  }
+}
@@ -0,0 +1,274 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.octagon;
+
+import java.util.Arrays;
+
+/**
+ * The bounds of an octagon over integers. {@link Long#MAX_VALUE} stands for a missing bound, and
+ * all additions saturate, so an overflow can only weaken a bound.
+ */
+final class LongHalfMatrix extends HalfMatrix {
+
+  private static final long UNBOUNDED = Long.MAX_VALUE;
+
+  private final long[] m;
+
+  /** creates a half-matrix without any bounds, including the diagonal */
+  LongHalfMatrix(int pN) {
+    this(pN, new long[size(pN)]);
+    Arrays.fill(m, UNBOUNDED);
+  }
+
+  private LongHalfMatrix(int pN, long[] pM) {
+    super(pN);
+    m = pM;
+  }
+
+  /** addition where an unbounded summand or a positive overflow gives an unbounded result */
+  private static long add(long a, long b) {
+    if (a == UNBOUNDED || b == UNBOUNDED) {
+      return UNBOUNDED;
+    }
+    long sum = a + b;
+    if (((a ^ sum) & (b ^ sum)) < 0) {
+      return a > 0 ? UNBOUNDED : Long.MIN_VALUE;
+    }
+    return sum;
+  }
+
+  @Override
+  boolean isInteger() {
+    return true;
+  }
+
+  @Override
+  double get(int p) {
+    return m[p] == UNBOUNDED ? INF : m[p];
+  }
+
+  @Override
+  void set(int p, double value) {
+    // the conversion saturates, so bounds beyond the range of long become unbounded
+    m[p] = (long) Math.floor(value);
+  }
+
+  @Override
+  void copyEntry(int i, int j, HalfMatrix pSource, int pSourceI, int pSourceJ) {
+    m[pos(i, j)] = ((LongHalfMatrix) pSource).m[pos(pSourceI, pSourceJ)];
+  }
+
+  @Override
+  LongHalfMatrix copy() {
+    return new LongHalfMatrix(n, m.clone());
+  }
+
+  @Override
+  LongHalfMatrix resize(int pN) {
+    long[] result = Arrays.copyOf(m, size(pN));
+    if (pN > n) {
+      Arrays.fill(result, m.length, result.length, UNBOUNDED);
+      for (int i = 2 * n; i < 2 * pN; i++) {
+        result[pos(i, i)] = 0;
+      }
+    }
+    return new LongHalfMatrix(pN, result);
+  }
+
+  @Override
+  boolean strongClosure() {
+    long[] c = m;
+    int size = 2 * n;
+    long[] toK = new long[size];
+    long[] toNotK = new long[size];
+    long[] fromK = new long[size];
+    long[] fromNotK = new long[size];
+    for (int k = 0; k < size; k += 2) {
+      int nk = k + 1;
+      for (int i = 0; i < size; i++) {
+        toK[i] = c[pos(i, k)];
+        toNotK[i] = c[pos(i, nk)];
+        fromK[i] = c[pos(k, i)];
+        fromNotK[i] = c[pos(nk, i)];
+      }
+      long kToNotK = c[pos(k, nk)];
+      long notKToK = c[pos(nk, k)];
+      for (int i = 0; i < size; i++) {
+        if (toK[i] == UNBOUNDED && toNotK[i] == UNBOUNDED) {
+          continue;
+        }
+        long toKAndNotK = add(toK[i], kToNotK);
+        long toNotKAndK = add(toNotK[i], notKToK);
+        int rowStart = rowStart(i);
+        for (int j = 0, last = i | 1; j <= last; j++) {
+          long value = c[rowStart + j];
+          value = Math.min(value, add(toK[i], fromK[j]));
+          value = Math.min(value, add(toNotK[i], fromNotK[j]));
+          value = Math.min(value, add(toKAndNotK, fromNotK[j]));
+          value = Math.min(value, add(toNotKAndK, fromK[j]));
+          c[rowStart + j] = value;
+        }
+      }
+    }
+    return tightenAndStrengthen();
+  }
+
+  @Override
+  boolean incrementalClosure(int a, int b, double pBound) {
+    long[] c = m;
+    long bound = (long) Math.floor(pBound);
+    int size = 2 * n;
+    int na = a ^ 1;
+    int nb = b ^ 1;
+    long[] toA = new long[size];
+    long[] toNotB = new long[size];
+    long[] fromB = new long[size];
+    long[] fromNotA = new long[size];
+    for (int k = 0; k < size; k++) {
+      toA[k] = c[pos(k, a)];
+      toNotB[k] = c[pos(k, nb)];
+      fromB[k] = c[pos(b, k)];
+      fromNotA[k] = c[pos(na, k)];
+    }
+    // paths that use the new edge a->b (or its coherent twin nb->na) once or twice
+    long viaBoth = add(add(bound, c[pos(b, nb)]), bound);
+    long viaBothReverse = add(add(bound, c[pos(na, a)]), bound);
+    for (int i = 0; i < size; i++) {
+      long toAWithBound = add(toA[i], bound);
+      long toNotBWithBound = add(toNotB[i], bound);
+      long toAViaBoth = add(toA[i], viaBoth);
+      long toNotBViaBoth = add(toNotB[i], viaBothReverse);
+      int rowStart = rowStart(i);
+      for (int j = 0, last = i | 1; j <= last; j++) {
+        long value = c[rowStart + j];
+        value = Math.min(value, add(toAWithBound, fromB[j]));
+        value = Math.min(value, add(toNotBWithBound, fromNotA[j]));
+        value = Math.min(value, add(toAViaBoth, fromNotA[j]));
+        value = Math.min(value, add(toNotBViaBoth, fromB[j]));
+        c[rowStart + j] = value;
+      }
+    }
+    return tightenAndStrengthen();
+  }
+
+  private boolean tightenAndStrengthen() {
+    long[] c = m;
+    int size = 2 * n;
+    long[] unary = new long[size];
+    for (int i = 0; i < size; i++) {
+      int p = pos(i, i ^ 1);
+      if (c[p] != UNBOUNDED) {
+        // 2x <= c implies 2x <= 2*floor(c/2) for integers
+        c[p] = 2 * Math.floorDiv(c[p], 2);
+      }
+      unary[i] = c[p];
+    }
+    for (int i = 0; i < size; i++) {
+      if (unary[i] == UNBOUNDED) {
+        continue;
+      }
+      int rowStart = rowStart(i);
+      for (int j = 0, last = i | 1; j <= last; j++) {
+        long sum = add(unary[i], unary[j ^ 1]);
+        if (sum != UNBOUNDED && sum / 2 < c[rowStart + j]) {
+          c[rowStart + j] = sum / 2;
+        }
+      }
+    }
+    for (int i = 0; i < size; i++) {
+      int p = pos(i, i);
+      if (c[p] < 0) {
+        return false;
+      }
+      c[p] = 0;
+    }
+    return true;
+  }
+
+  @Override
+  boolean isLessOrEqual(HalfMatrix pOther) {
+    long[] a = m;
+    long[] b = ((LongHalfMatrix) pOther).m;
+    if (a == b) {
+      return true;
+    }
+    for (int p = 0; p < a.length; p++) {
+      if (a[p] > b[p]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  boolean hasSameBounds(HalfMatrix pOther) {
+    return Arrays.equals(m, ((LongHalfMatrix) pOther).m);
+  }
+
+  @Override
+  LongHalfMatrix meet(HalfMatrix pOther) {
+    long[] b = ((LongHalfMatrix) pOther).m;
+    long[] result = new long[m.length];
+    for (int p = 0; p < m.length; p++) {
+      result[p] = Math.min(m[p], b[p]);
+    }
+    return new LongHalfMatrix(n, result);
+  }
+
+  @Override
+  LongHalfMatrix join(HalfMatrix pOther) {
+    long[] b = ((LongHalfMatrix) pOther).m;
+    long[] result = new long[m.length];
+    for (int p = 0; p < m.length; p++) {
+      result[p] = Math.max(m[p], b[p]);
+    }
+    return new LongHalfMatrix(n, result);
+  }
+
+  @Override
+  LongHalfMatrix widen(HalfMatrix pOther) {
+    long[] b = ((LongHalfMatrix) pOther).m;
+    long[] result = new long[m.length];
+    for (int p = 0; p < m.length; p++) {
+      if (b[p] <= m[p]) {
+        result[p] = m[p];
+      } else if (b[p] <= 0) {
+        result[p] = 0;
+      } else {
+        result[p] = UNBOUNDED;
+      }
+    }
+    return new LongHalfMatrix(n, result);
+  }
+
+  @Override
+  LongHalfMatrix narrow(HalfMatrix pOther) {
+    long[] b = ((LongHalfMatrix) pOther).m;
+    long[] result = new long[m.length];
+    for (int p = 0; p < m.length; p++) {
+      result[p] = m[p] == UNBOUNDED ? b[p] : m[p];
+    }
+    return new LongHalfMatrix(n, result);
+  }
+}
@@ -23,18 +23,35 @@
  */
 package org.sosy_lab.cpachecker.util.octagon;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import javax.annotation.Nullable;
+
 public class NumArray {
 
   private final long array;
 
+  /** the numbers of an array of the {@link JavaOctagonManager}, null for native arrays */
+  private final @Nullable double[] values;
+
   NumArray(long l) {
     array = l;
+    values = null;
+  }
+
+  NumArray(double[] pValues) {
+    array = 0;
+    values = pValues;
   }
 
   long getArray() {
     return array;
   }
 
+  double[] getValues() {
+    return checkNotNull(values);
+  }
+
   @Override
   public String toString() {
     // TODO
@@ -47,11 +64,17 @@ public class NumArray {
       return false;
     }
     NumArray otherArr = (NumArray) pObj;
+    if (values != null) {
+      return this == otherArr;
+    }
     return this.array == otherArr.array;
   }
 
   @Override
   public int hashCode() {
+    if (values != null) {
+      return System.identityHashCode(this);
+    }
     return (int)array;
   }
 }
\ No newline at end of file
@@ -23,25 +23,39 @@
  */
 package org.sosy_lab.cpachecker.util.octagon;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
 import java.lang.ref.Reference;
 import java.lang.ref.ReferenceQueue;
 import java.util.ArrayList;
 import java.util.List;
+import javax.annotation.Nullable;
 
 
 public class Octagon {
 
   private final long octId;
   private final OctagonManager manager;
+
+  /** the matrix of an octagon of the {@link JavaOctagonManager}, null for native octagons */
+  private final @Nullable OctagonMatrix matrix;
+
   private static List<OctagonPhantomReference> phantomReferences = new ArrayList<>();
   private static ReferenceQueue<Octagon> referenceQueue = new ReferenceQueue<>();
 
-  Octagon(long l, OctagonManager manager) {
+  Octagon(long l, NativeOctagonManager manager) {
     octId = l;
     this.manager = manager;
+    matrix = null;
     registerPhantomReference(this);
   }
 
+  Octagon(OctagonMatrix pMatrix, JavaOctagonManager pManager) {
+    octId = 0;
+    manager = pManager;
+    matrix = pMatrix;
+  }
+
   private static void registerPhantomReference(Octagon oct) {
     phantomReferences.add(new OctagonPhantomReference(oct, referenceQueue));
   }
@@ -57,13 +71,17 @@ public class Octagon {
     return octId;
   }
 
+  OctagonMatrix getMatrix() {
+    return checkNotNull(matrix);
+  }
+
   public OctagonManager getManager() {
     return manager;
   }
 
   @Override
   public int hashCode() {
-    return (int)octId;
+    return matrix == null ? (int)octId : matrix.getDimension();
   }
 
   @Override
@@ -78,6 +96,9 @@ public class Octagon {
 
   @Override
   public String toString() {
+    if (matrix != null) {
+      return "octagon with dimension: " + matrix.getDimension();
+    }
     return "octagon with id: " + octId;
   }
 }
\ No newline at end of file
@@ -0,0 +1,786 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.octagon;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Arrays;
+import javax.annotation.Nullable;
+
+/**
+ * The difference-bound matrix of an octagon, stored as flat half-matrix in the same layout as in
+ * the octagon library of Antoine Mine, with double bounds for rationals and long bounds for
+ * integers (see {@link HalfMatrix}).
+ *
+ * <p>For n variables the matrix has 2n rows and columns, index 2k stands for +v_k and index 2k+1
+ * for -v_k. The entry (i, j) is an upper bound for V_j - V_i. The entries (i, j) and (j^1, i^1)
+ * always describe the same constraint, so only the entries with j <= (i|1) are stored.
+ *
+ * <p>A matrix never changes the octagon it represents: all operations return a new matrix, or the
+ * same instance if the result is equal, such that unchanged matrices are shared between octagons.
+ * Only the strong closure is computed lazily and cached. Operations that start from a closed
+ * matrix and add a single constraint keep the result closed with an incremental closure in
+ * quadratic time, instead of the cubic time of a full closure.
+ */
+final class OctagonMatrix {
+
+  private static final double INF = Double.POSITIVE_INFINITY;
+
+  /** the number of variables */
+  private final int n;
+
+  /** whether all variables are integers, which allows to tighten the bounds */
+  private final boolean integers;
+
+  /** the constraints of the octagon as created by the operation, never modified */
+  private final HalfMatrix m;
+
+  /** the strong closure of {@link #m}, or null if not yet computed or if the octagon is empty */
+  private @Nullable HalfMatrix closed;
+
+  /** whether the octagon is known to be empty */
+  private boolean empty;
+
+  private OctagonMatrix(HalfMatrix pM, boolean pIsClosed, boolean pEmpty) {
+    n = pM.n;
+    integers = pM.isInteger();
+    m = pM;
+    closed = pIsClosed && !pEmpty ? pM : null;
+    empty = pEmpty;
+  }
+
+  static OctagonMatrix universe(int pN, boolean pIntegers) {
+    return new OctagonMatrix(HalfMatrix.universe(pN, pIntegers), true, false);
+  }
+
+  static OctagonMatrix bottom(int pN, boolean pIntegers) {
+    return new OctagonMatrix(HalfMatrix.universe(pN, pIntegers), false, true);
+  }
+
+  private OctagonMatrix derive(HalfMatrix pM, boolean pIsClosed) {
+    return new OctagonMatrix(pM, pIsClosed, false);
+  }
+
+  int getDimension() {
+    return n;
+  }
+
+  /* closure */
+
+  private void close() {
+    if (closed != null || empty) {
+      return;
+    }
+    HalfMatrix result = m.copy();
+    if (result.strongClosure()) {
+      closed = result;
+    } else {
+      empty = true;
+    }
+  }
+
+  /** returns the strong closure, which must not be modified; only for non-empty octagons */
+  private HalfMatrix closedMatrix() {
+    close();
+    return checkNotNull(closed);
+  }
+
+  /** returns the closure if it is available, or the original constraints otherwise */
+  private HalfMatrix matrix() {
+    return closed != null ? closed : m;
+  }
+
+  /* tests */
+
+  boolean isEmpty() {
+    close();
+    return empty;
+  }
+
+  /** returns whether the octagon is empty, or null if this is unknown without a closure */
+  @Nullable Boolean isEmptyLazy() {
+    if (empty) {
+      return true;
+    }
+    return closed != null ? Boolean.FALSE : null;
+  }
+
+  boolean isUniverse() {
+    if (isEmpty()) {
+      return false;
+    }
+    HalfMatrix c = closedMatrix();
+    for (int i = 0; i < 2 * n; i++) {
+      for (int j = 0, last = i | 1; j <= last; j++) {
+        if (i != j && c.get(i, j) != INF) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  boolean isIncludedIn(OctagonMatrix pOther) {
+    checkArgument(n == pOther.n, "octagons of different dimensions");
+    if (isEmpty()) {
+      return true;
+    }
+    if (pOther.isEmpty()) {
+      return false;
+    }
+    return closedMatrix().isLessOrEqual(pOther.matrix());
+  }
+
+  /** returns whether this octagon is included in the other, or null if this is unknown */
+  @Nullable Boolean isIncludedInLazy(OctagonMatrix pOther) {
+    checkArgument(n == pOther.n, "octagons of different dimensions");
+    if (empty) {
+      return true;
+    }
+    if (pOther.empty) {
+      // the matrix of a known empty octagon may be the universe, so comparing with it is not valid
+      return Boolean.FALSE;
+    }
+    if (matrix().isLessOrEqual(pOther.matrix())) {
+      return true;
+    }
+    // the closure of a non-empty octagon is included iff it is pointwise less or equal
+    return closed != null ? Boolean.FALSE : null;
+  }
+
+  boolean isEqual(OctagonMatrix pOther) {
+    if (n != pOther.n) {
+      return false;
+    }
+    if (isEmpty() || pOther.isEmpty()) {
+      return empty == pOther.empty;
+    }
+    return closedMatrix().hasSameBounds(pOther.closedMatrix());
+  }
+
+  /** returns whether the octagons are equal, or null if this is unknown */
+  @Nullable Boolean isEqualLazy(OctagonMatrix pOther) {
+    if (n != pOther.n) {
+      return false;
+    }
+    if (this == pOther || m == pOther.m) {
+      return true;
+    }
+    if ((closed != null || empty) && (pOther.closed != null || pOther.empty)) {
+      return isEqual(pOther);
+    }
+    return null;
+  }
+
+  boolean contains(double[] pPoint) {
+    if (isEmpty()) {
+      return false;
+    }
+    HalfMatrix c = closedMatrix();
+    for (int i = 0; i < 2 * n; i++) {
+      for (int j = 0, last = i | 1; j <= last; j++) {
+        if (value(pPoint, j) - value(pPoint, i) > c.get(i, j)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private static double value(double[] pPoint, int i) {
+    return (i & 1) == 0 ? pPoint[i / 2] : -pPoint[i / 2];
+  }
+
+  /* queries */
+
+  int getNumberOfConstraints() {
+    HalfMatrix c = matrix();
+    int count = 0;
+    for (int i = 0; i < 2 * n; i++) {
+      for (int j = 0, last = i | 1; j <= last; j++) {
+        if (i != j && c.get(i, j) != INF) {
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+
+  /** returns the upper bound of the variable, the raw constraint if the octagon is empty */
+  double getUpperBound(int k) {
+    HalfMatrix c = isEmpty() ? m : closedMatrix();
+    return c.get(2 * k + 1, 2 * k) / 2;
+  }
+
+  /** returns the negated lower bound of the variable, as used in the octagon library */
+  double getNegatedLowerBound(int k) {
+    HalfMatrix c = isEmpty() ? m : closedMatrix();
+    return c.get(2 * k, 2 * k + 1) / 2;
+  }
+
+  /* operators */
+
+  OctagonMatrix intersection(OctagonMatrix pOther) {
+    checkArgument(n == pOther.n, "octagons of different dimensions");
+    if (empty) {
+      return this;
+    }
+    if (pOther.empty) {
+      return pOther;
+    }
+    HalfMatrix a = matrix();
+    HalfMatrix b = pOther.matrix();
+    if (a.isLessOrEqual(b)) {
+      return this;
+    }
+    if (b.isLessOrEqual(a)) {
+      return pOther;
+    }
+    return derive(a.meet(b), false);
+  }
+
+  /** the convex hull, the result is closed */
+  OctagonMatrix union(OctagonMatrix pOther) {
+    checkArgument(n == pOther.n, "octagons of different dimensions");
+    if (isEmpty()) {
+      return pOther;
+    }
+    if (pOther.isEmpty()) {
+      return this;
+    }
+    HalfMatrix a = closedMatrix();
+    HalfMatrix b = pOther.closedMatrix();
+    if (a.isLessOrEqual(b)) {
+      return pOther;
+    }
+    if (b.isLessOrEqual(a)) {
+      return this;
+    }
+    return derive(a.join(b), true);
+  }
+
+  /**
+   * Widening with the thresholds 0 and infinity (OCT_WIDENING_ZERO in the octagon library). Only
+   * the right-hand side is closed, closing the left-hand side could prevent termination.
+   */
+  OctagonMatrix widening(OctagonMatrix pOther) {
+    checkArgument(n == pOther.n, "octagons of different dimensions");
+    if (isEmpty()) {
+      return pOther;
+    }
+    if (pOther.isEmpty()) {
+      return this;
+    }
+    HalfMatrix b = pOther.closedMatrix();
+    if (b.isLessOrEqual(m)) {
+      return this;
+    }
+    return derive(m.widen(b), false);
+  }
+
+  OctagonMatrix narrowing(OctagonMatrix pOther) {
+    checkArgument(n == pOther.n, "octagons of different dimensions");
+    if (isEmpty()) {
+      return this;
+    }
+    if (pOther.isEmpty()) {
+      return pOther;
+    }
+    return derive(closedMatrix().narrow(pOther.closedMatrix()), false);
+  }
+
+  /* transfer functions */
+
+  /** adds the constraint V_j - V_i <= bound */
+  OctagonMatrix addConstraint(int i, int j, double bound) {
+    if (empty) {
+      return this;
+    }
+    double tightBound = tighten(i, j, bound);
+    HalfMatrix base = matrix();
+    if (tightBound >= base.get(i, j)) {
+      return this;
+    }
+    HalfMatrix result = base.copy();
+    if (closed == null) {
+      result.set(i, j, tightBound);
+      return derive(result, false);
+    }
+    if (!result.incrementalClosure(i, j, tightBound)) {
+      return bottom(n, integers);
+    }
+    return derive(result, true);
+  }
+
+  private double tighten(int i, int j, double bound) {
+    if (!integers || bound == INF) {
+      return bound;
+    }
+    return i == (j ^ 1) ? 2 * Math.floor(bound / 2) : Math.floor(bound);
+  }
+
+  /**
+   * Adds the constraint a_0*v_0 + ... + a_{n-1}*v_{n-1} + a_n >= 0, like oct_add_constraint of the
+   * octagon library. Constraints over at most two variables with unit coefficients are exact.
+   */
+  OctagonMatrix addLinearConstraint(double[] a) {
+    checkArgument(a.length >= n + 1, "not enough coefficients");
+    return addLinearConstraint(Arrays.copyOf(a, n), Arrays.copyOf(a, n), a[n]);
+  }
+
+  /** adds a constraint with interval coefficients, given like for {@link #assignInterval} */
+  OctagonMatrix addIntervalConstraint(double[] t) {
+    checkArgument(t.length >= 2 * (n + 1), "not enough coefficients");
+    double[] low = new double[n];
+    double[] high = new double[n];
+    for (int k = 0; k < n; k++) {
+      low[k] = -t[2 * k + 1];
+      high[k] = t[2 * k];
+    }
+    // the constraint holds if it holds for some choice of the coefficients
+    return addLinearConstraint(low, high, t[2 * n]);
+  }
+
+  /**
+   * Adds the constraint [low_0, high_0]*v_0 + ... + [low_{n-1}, high_{n-1}]*v_{n-1} + constant >= 0
+   * for some choice of the coefficients. In the general case, each constraint u <= b with a unit
+   * form u over one or two variables of the expression e is added, where b is an upper bound of
+   * u + e, as proposed by Mine. Variables with coefficients of one sign are additionally bounded by
+   * dividing the bound of the remaining expression, which also works for non-unit coefficients.
+   */
+  private OctagonMatrix addLinearConstraint(double[] low, double[] high, double constant) {
+    if (isEmpty()) {
+      return this;
+    }
+    int nonZero = 0;
+    int first = -1;
+    int second = -1;
+    boolean units = true;
+    for (int k = 0; k < n; k++) {
+      if (low[k] != 0 || high[k] != 0) {
+        nonZero++;
+        second = first < 0 ? -1 : k;
+        first = first < 0 ? k : first;
+        units &= isUnit(low[k], high[k]);
+      }
+    }
+
+    if (nonZero == 0) {
+      return constant >= 0 ? this : bottom(n, integers);
+    } else if (units && nonZero == 1) {
+      // -a_i*v_i <= c
+      int q = index(first, -low[first]);
+      return addConstraint(q ^ 1, q, 2 * constant);
+    } else if (units && nonZero == 2) {
+      // -a_i*v_i - a_j*v_j <= c
+      return addConstraint(index(first, low[first]), index(second, -low[second]), constant);
+    }
+
+    HalfMatrix c = closedMatrix();
+    if (upperBound(c, low, high) + constant < 0) {
+      return bottom(n, integers);
+    }
+    HalfMatrix result = c.copy();
+    double[] formLow = low.clone();
+    double[] formHigh = high.clone();
+    for (int i = 0; i < n; i++) {
+      if (low[i] == 0 && high[i] == 0) {
+        continue;
+      }
+      if (low[i] > 0 || high[i] < 0) {
+        // a_i*v_i >= -(rest + c), so -sign(a_i)*v_i <= (sup(rest) + c) / |a_i|
+        formLow[i] = 0;
+        formHigh[i] = 0;
+        double bound = upperBound(c, formLow, formHigh) + constant;
+        double divisor =
+            bound >= 0
+                ? Math.min(Math.abs(low[i]), Math.abs(high[i]))
+                : Math.max(Math.abs(low[i]), Math.abs(high[i]));
+        int q = index(i, low[i] > 0 ? -1 : 1);
+        addTo(result, q ^ 1, q, 2 * bound / divisor);
+      }
+      for (int si = -1; si <= 1; si += 2) {
+        formLow[i] = low[i] + si;
+        formHigh[i] = high[i] + si;
+        int q = index(i, si);
+        // 2 * si*v_i <= 2 * (sup(si*v_i + e) + c)
+        addTo(result, q ^ 1, q, 2 * (upperBound(c, formLow, formHigh) + constant));
+        for (int j = i + 1; j < n; j++) {
+          if (low[j] == 0 && high[j] == 0) {
+            continue;
+          }
+          for (int sj = -1; sj <= 1; sj += 2) {
+            formLow[j] = low[j] + sj;
+            formHigh[j] = high[j] + sj;
+            // si*v_i + sj*v_j <= sup(si*v_i + sj*v_j + e) + c
+            addTo(result, q ^ 1, index(j, sj), upperBound(c, formLow, formHigh) + constant);
+          }
+          formLow[j] = low[j];
+          formHigh[j] = high[j];
+        }
+      }
+      formLow[i] = low[i];
+      formHigh[i] = high[i];
+    }
+    return derive(result, false);
+  }
+
+  OctagonMatrix forget(int k) {
+    if (isEmpty()) {
+      return this;
+    }
+    HalfMatrix c = closedMatrix();
+    HalfMatrix result = null;
+    for (int v = 2 * k; v <= 2 * k + 1; v++) {
+      for (int i = 0; i < 2 * n; i++) {
+        if (i != v && c.get(i, v) != INF) {
+          if (result == null) {
+            result = c.copy();
+          }
+          result.set(i, v, INF);
+        }
+      }
+    }
+    // forgetting a variable of a closed octagon keeps the octagon closed
+    return result == null ? this : derive(result, true);
+  }
+
+  /** assigns the linear expression a_0*v_0 + ... + a_{n-1}*v_{n-1} + a_n to the variable */
+  OctagonMatrix assign(int x, double[] a) {
+    checkArgument(a.length >= n + 1, "not enough coefficients");
+    if (isEmpty()) {
+      return this;
+    }
+    double constant = a[n];
+    int nonZero = 0;
+    int var = -1;
+    for (int i = 0; i < n; i++) {
+      if (a[i] != 0) {
+        nonZero++;
+        var = i;
+      }
+    }
+
+    if (nonZero == 0) {
+      // x = c
+      return forget(x)
+          .addConstraint(2 * x + 1, 2 * x, 2 * constant)
+          .addConstraint(2 * x, 2 * x + 1, -2 * constant);
+
+    } else if (nonZero == 1 && (a[var] == 1 || a[var] == -1)) {
+      if (var == x) {
+        // x = x + c or x = -x + c, which keeps the octagon closed
+        return derive(shift(closedMatrix(), x, a[x] < 0, constant), true);
+      } else if (a[var] == 1) {
+        // x - y = c
+        return forget(x)
+            .addConstraint(2 * var, 2 * x, constant)
+            .addConstraint(2 * x, 2 * var, -constant);
+      } else {
+        // x + y = c
+        return forget(x)
+            .addConstraint(2 * var + 1, 2 * x, constant)
+            .addConstraint(2 * x, 2 * var + 1, -constant);
+      }
+    }
+
+    double[] coefficients = Arrays.copyOf(a, n);
+    return assignLinearForm(x, coefficients, coefficients, constant, constant);
+  }
+
+  /** computes the matrix after x = x + c, or x = -x + c if negate is set */
+  private HalfMatrix shift(HalfMatrix c, int x, boolean negate, double constant) {
+    HalfMatrix result = c.copy();
+    for (int i = 0; i < 2 * n; i++) {
+      int oldI = negate && (i >> 1) == x ? i ^ 1 : i;
+      for (int j = 0, last = i | 1; j <= last; j++) {
+        int oldJ = negate && (j >> 1) == x ? j ^ 1 : j;
+        double offset = offset(j, x, constant) - offset(i, x, constant);
+        if (offset == 0) {
+          result.copyEntry(i, j, c, oldI, oldJ);
+        } else {
+          result.set(i, j, c.get(oldI, oldJ) + offset);
+        }
+      }
+    }
+    return result;
+  }
+
+  private static double offset(int i, int x, double constant) {
+    if ((i >> 1) != x) {
+      return 0;
+    }
+    return (i & 1) == 0 ? constant : -constant;
+  }
+
+  /**
+   * Assigns a general linear expression e with the coefficients [low_k, high_k] and the constant in
+   * [constantLow, constantHigh]. As proposed by Mine, x is bounded by the bounds of e, and x+v and
+   * x-v for each other variable v by the bounds of e+v and e-v, where the coefficient of v is
+   * combined first. The bounds are taken from the octagonal constraints between two variables of
+   * the expression where this is more precise than interval arithmetic.
+   */
+  private OctagonMatrix assignLinearForm(
+      int x, double[] low, double[] high, double constantLow, double constantHigh) {
+    HalfMatrix c = closedMatrix();
+    HalfMatrix result = forget(x).matrix().copy();
+    double[] form = high.clone();
+    double[] formLow = low.clone();
+    double[] negated = new double[n];
+    double[] negatedLow = new double[n];
+    for (int k = 0; k < n; k++) {
+      negated[k] = -low[k];
+      negatedLow[k] = -high[k];
+    }
+
+    addTo(result, 2 * x + 1, 2 * x, 2 * (upperBound(c, formLow, form) + constantHigh));
+    addTo(result, 2 * x, 2 * x + 1, 2 * (upperBound(c, negatedLow, negated) - constantLow));
+
+    for (int k = 0; k < n; k++) {
+      if (k == x) {
+        continue;
+      }
+      // x - v_k <= sup(e - v_k)
+      formLow[k] = low[k] - 1;
+      form[k] = high[k] - 1;
+      addTo(result, 2 * k, 2 * x, upperBound(c, formLow, form) + constantHigh);
+      // x + v_k <= sup(e + v_k)
+      formLow[k] = low[k] + 1;
+      form[k] = high[k] + 1;
+      addTo(result, 2 * k + 1, 2 * x, upperBound(c, formLow, form) + constantHigh);
+      formLow[k] = low[k];
+      form[k] = high[k];
+
+      // v_k - x <= sup(v_k - e)
+      negatedLow[k] = -high[k] + 1;
+      negated[k] = -low[k] + 1;
+      addTo(result, 2 * x, 2 * k, upperBound(c, negatedLow, negated) - constantLow);
+      // -x - v_k <= sup(-e - v_k)
+      negatedLow[k] = -high[k] - 1;
+      negated[k] = -low[k] - 1;
+      addTo(result, 2 * x, 2 * k + 1, upperBound(c, negatedLow, negated) - constantLow);
+      negatedLow[k] = -high[k];
+      negated[k] = -low[k];
+    }
+    return derive(result, false);
+  }
+
+  /**
+   * Assigns an expression with interval coefficients, given as pairs of the upper bound and the
+   * negated lower bound. Expressions with only exact coefficients are handled by {@link #assign}.
+   */
+  OctagonMatrix assignInterval(int x, double[] t) {
+    checkArgument(t.length >= 2 * (n + 1), "not enough coefficients");
+    double[] exact = new double[n + 1];
+    boolean isExact = true;
+    for (int k = 0; k <= n && isExact; k++) {
+      isExact = t[2 * k] == -t[2 * k + 1];
+      exact[k] = t[2 * k];
+    }
+    if (isExact) {
+      return assign(x, exact);
+    }
+    if (isEmpty()) {
+      return this;
+    }
+    double[] low = new double[n];
+    double[] high = new double[n];
+    for (int k = 0; k < n; k++) {
+      low[k] = -t[2 * k + 1];
+      high[k] = t[2 * k];
+    }
+    return assignLinearForm(x, low, high, -t[2 * n + 1], t[2 * n]);
+  }
+
+  /**
+   * Substitutes the linear expression a_0*v_0 + ... + a_{n-1}*v_{n-1} + a_n for the variable, like
+   * oct_substitute_variable of the octagon library. The result contains all points that are in
+   * this octagon after assigning the expression to the variable.
+   */
+  OctagonMatrix substitute(int x, double[] a) {
+    checkArgument(a.length >= n + 1, "not enough coefficients");
+    double[] coefficients = Arrays.copyOf(a, n);
+    return substitute(x, coefficients, coefficients, a[n], a[n]);
+  }
+
+  /** substitutes an expression with interval coefficients, given as for {@link #assignInterval} */
+  OctagonMatrix substituteInterval(int x, double[] t) {
+    checkArgument(t.length >= 2 * (n + 1), "not enough coefficients");
+    double[] low = new double[n];
+    double[] high = new double[n];
+    for (int k = 0; k < n; k++) {
+      low[k] = -t[2 * k + 1];
+      high[k] = t[2 * k];
+    }
+    return substitute(x, low, high, -t[2 * n + 1], t[2 * n]);
+  }
+
+  /**
+   * The constraints of x are moved to a new variable y, which is then constrained by y = e and
+   * removed. For expressions over at most one other variable with a unit coefficient, the
+   * constraint y = e is octagonal and the result is exact.
+   */
+  private OctagonMatrix substitute(
+      int x, double[] low, double[] high, double constantLow, double constantHigh) {
+    if (isEmpty()) {
+      return this;
+    }
+    OctagonMatrix extended = addDimensions(1, false).swap(x, n);
+    // e - y >= 0
+    double[] below = Arrays.copyOf(low, n + 1);
+    double[] belowHigh = Arrays.copyOf(high, n + 1);
+    below[n] = -1;
+    belowHigh[n] = -1;
+    extended = extended.addLinearConstraint(below, belowHigh, constantHigh);
+    // y - e >= 0
+    double[] above = new double[n + 1];
+    double[] aboveHigh = new double[n + 1];
+    for (int k = 0; k < n; k++) {
+      above[k] = -high[k];
+      aboveHigh[k] = -low[k];
+    }
+    above[n] = 1;
+    aboveHigh[n] = 1;
+    extended = extended.addLinearConstraint(above, aboveHigh, -constantLow);
+    return extended.removeDimensions(1);
+  }
+
+  /** returns the octagon with the variables x and y exchanged */
+  private OctagonMatrix swap(int x, int y) {
+    HalfMatrix c = matrix();
+    HalfMatrix result = c.copy();
+    for (int i = 0; i < 2 * n; i++) {
+      for (int j = 0, last = i | 1; j <= last; j++) {
+        result.copyEntry(i, j, c, rename(i, x, y), rename(j, x, y));
+      }
+    }
+    return derive(result, closed != null);
+  }
+
+  private static int rename(int i, int x, int y) {
+    int var = i >> 1;
+    if (var == x) {
+      return 2 * y | (i & 1);
+    } else if (var == y) {
+      return 2 * x | (i & 1);
+    }
+    return i;
+  }
+
+  /**
+   * Returns an upper bound of the linear form with the coefficients [low_k, high_k] over the
+   * closed matrix. The bounds of the variables are combined by interval arithmetic, but for two
+   * variables with exact unit coefficients, their octagonal constraint is used if it is tighter.
+   */
+  private double upperBound(HalfMatrix c, double[] low, double[] high) {
+    double[] terms = new double[n];
+    int[] units = new int[n];
+    int unitCount = 0;
+    double sum = 0;
+    int infinite = 0;
+    for (int k = 0; k < n; k++) {
+      if (low[k] == 0 && high[k] == 0) {
+        continue;
+      }
+      double lower = -c.get(2 * k, 2 * k + 1) / 2;
+      double upper = c.get(2 * k + 1, 2 * k) / 2;
+      terms[k] =
+          Math.max(
+              Math.max(mul(low[k], lower), mul(low[k], upper)),
+              Math.max(mul(high[k], lower), mul(high[k], upper)));
+      if (terms[k] == INF) {
+        infinite++;
+      } else {
+        sum += terms[k];
+      }
+      if (isUnit(low[k], high[k])) {
+        units[unitCount++] = k;
+      }
+    }
+
+    double result = infinite == 0 ? sum : INF;
+    for (int a = 0; a < unitCount; a++) {
+      int i = units[a];
+      for (int b = a + 1; b < unitCount; b++) {
+        int j = units[b];
+        // a_i*v_i + a_j*v_j = V_q - V_p
+        double pair = c.get(index(i, -low[i]), index(j, low[j]));
+        int restInfinite = infinite - (terms[i] == INF ? 1 : 0) - (terms[j] == INF ? 1 : 0);
+        if (pair != INF && restInfinite == 0) {
+          double rest = sum - (terms[i] == INF ? 0 : terms[i]) - (terms[j] == INF ? 0 : terms[j]);
+          result = Math.min(result, pair + rest);
+        }
+      }
+    }
+    return result;
+  }
+
+  private static boolean isUnit(double low, double high) {
+    return low == high && (low == 1 || low == -1);
+  }
+
+  /** the index of +v_k for a positive sign, and of -v_k otherwise */
+  private static int index(int k, double sign) {
+    return sign > 0 ? 2 * k : 2 * k + 1;
+  }
+
+  /** lowers the entry (i, j) of the not yet closed matrix to the given bound */
+  private void addTo(HalfMatrix c, int i, int j, double bound) {
+    if (Double.isNaN(bound)) {
+      return;
+    }
+    c.lower(i, j, tighten(i, j, bound));
+  }
+
+  /** multiplication where zero times infinity is zero */
+  private static double mul(double a, double b) {
+    return a == 0 || b == 0 ? 0 : a * b;
+  }
+
+  /* change of dimensions */
+
+  OctagonMatrix addDimensions(int k, boolean pProject) {
+    int newN = n + k;
+    if (empty) {
+      return bottom(newN, integers);
+    }
+    HalfMatrix result = matrix().resize(newN);
+    if (pProject) {
+      for (int i = 2 * n; i < 2 * newN; i++) {
+        result.set(i, i ^ 1, 0);
+      }
+    }
+    return new OctagonMatrix(result, closed != null && !pProject, false);
+  }
+
+  OctagonMatrix removeDimensions(int k) {
+    int newN = n - k;
+    checkArgument(newN >= 0, "cannot remove more dimensions than available");
+    if (isEmpty()) {
+      return bottom(newN, integers);
+    }
+    return new OctagonMatrix(closedMatrix().resize(newN), true, false);
+  }
+}
@@ -48,6 +48,7 @@ import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.logging.Level;
+import javax.annotation.Nullable;
 import org.sosy_lab.common.Classes.UnexpectedCheckedException;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.configuration.Configuration;
@@ -111,6 +112,9 @@ public final class InterpolationManager {
     if (interpolantVerificationTimer.getNumberOfIntervals() > 0) {
       w1.put("Interpolant verification", interpolantVerificationTimer);
     }
+    if (portfolio != null) {
+      portfolio.printStatistics(w1);
+    }
   }
 
 
@@ -182,7 +186,19 @@ public final class InterpolationManager {
   @Option(secure=true, description="Use a single SMT solver environment for several interpolation queries")
   private boolean reuseInterpolationEnvironment = false;
 
+  @Option(
+    secure = true,
+    name = "parallelCexTraceCheckDirections",
+    description =
+        "Analyze infeasible counterexamples concurrently in each of the given directions "
+            + "(cf. option cexTraceCheckDirection), each on a separate solver instance, "
+            + "and use the interpolants of the direction that finishes first. "
+            + "If empty, counterexamples are analyzed sequentially on the main solver."
+  )
+  private List<CexTraceAnalysisDirection> parallelDirections = ImmutableList.of();
+
   private final ExecutorService executor;
+  private final @Nullable InterpolationPortfolio portfolio;
   private final LoopStructure loopStructure;
   private final VariableClassification variableClassification;
 
@@ -194,6 +210,35 @@ public final class InterpolationManager {
       Configuration config,
       ShutdownNotifier pShutdownNotifier,
       LogManager pLogger) throws InvalidConfigurationException {
+    this(
+        pPmgr,
+        pSolver,
+        pLoopStructure,
+        pVarClassification,
+        config,
+        pShutdownNotifier,
+        pLogger,
+        Optional.empty());
+  }
+
+  /**
+   * Create an InterpolationManager.
+   *
+   * @param pWorkerDirection if present, create a worker for an {@link InterpolationPortfolio}
+   *     that analyzes counterexamples in the given direction. Workers are only used via {@link
+   *     #interpolate(BlockFormulas, List)} and do not compute branching information for feasible
+   *     counterexamples, so the path-formula manager is not used by them.
+   */
+  InterpolationManager(
+      PathFormulaManager pPmgr,
+      Solver pSolver,
+      Optional<LoopStructure> pLoopStructure,
+      Optional<VariableClassification> pVarClassification,
+      Configuration config,
+      ShutdownNotifier pShutdownNotifier,
+      LogManager pLogger,
+      Optional<CexTraceAnalysisDirection> pWorkerDirection)
+      throws InvalidConfigurationException {
     config.inject(this, InterpolationManager.class);
 
     logger = pLogger;
@@ -218,6 +263,23 @@ public final class InterpolationManager {
     } else {
       interpolator = null;
     }
+
+    if (pWorkerDirection.isPresent()) {
+      direction = pWorkerDirection.get();
+      portfolio = null;
+    } else if (parallelDirections.isEmpty()) {
+      portfolio = null;
+    } else {
+      portfolio =
+          new InterpolationPortfolio(
+              parallelDirections,
+              pPmgr,
+              pLoopStructure,
+              pVarClassification,
+              config,
+              pShutdownNotifier,
+              pLogger);
+    }
   }
 
   /**
@@ -288,22 +350,16 @@ public final class InterpolationManager {
     try {
       final BlockFormulas f = prepareCounterexampleFormulas(pFormulas);
 
-      final Interpolator<?> currentInterpolator;
-      if (reuseInterpolationEnvironment) {
-        currentInterpolator = checkNotNull(interpolator);
-      } else {
-        currentInterpolator = new Interpolator<>();
+      if (portfolio != null) {
+        Optional<CounterexampleTraceInfo> result =
+            portfolio.buildCounterexampleTrace(f, pAbstractionStates, fmgr);
+        if (result.isPresent()) {
+          return result.get();
+        }
       }
 
       try {
-        try {
-          return currentInterpolator.buildCounterexampleTrace(
-              f, pAbstractionStates);
-        } finally {
-          if (!reuseInterpolationEnvironment) {
-            currentInterpolator.close();
-          }
-        }
+        return interpolate(f, pAbstractionStates);
       } catch (SolverException itpException) {
         logger.logUserException(
             Level.FINEST,
@@ -317,6 +373,30 @@ public final class InterpolationManager {
     }
   }
 
+  /**
+   * Check the prepared formulas of a counterexample for feasibility and compute interpolants or
+   * the error path, without any fallback. Also called by the workers of {@link
+   * InterpolationPortfolio}.
+   */
+  CounterexampleTraceInfo interpolate(
+      final BlockFormulas f, final List<AbstractState> pAbstractionStates)
+      throws SolverException, InterruptedException {
+    final Interpolator<?> currentInterpolator;
+    if (reuseInterpolationEnvironment) {
+      currentInterpolator = checkNotNull(interpolator);
+    } else {
+      currentInterpolator = new Interpolator<>();
+    }
+
+    try {
+      return currentInterpolator.buildCounterexampleTrace(f, pAbstractionStates);
+    } finally {
+      if (!reuseInterpolationEnvironment) {
+        currentInterpolator.close();
+      }
+    }
+  }
+
   /**
    * Counterexample analysis without interpolation. Use this method if you want to check a
    * counterexample for feasibility and in case of a feasible counterexample want the proper path
@@ -0,0 +1,301 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.interpolation;
+
+import static com.google.common.collect.FluentIterable.from;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.EnumMultiset;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Multiset;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import org.sosy_lab.common.ShutdownManager;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.cpa.predicate.BlockFormulaStrategy.BlockFormulas;
+import org.sosy_lab.cpachecker.util.LoopStructure;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormulaManager;
+import org.sosy_lab.cpachecker.util.predicates.smt.FormulaManagerView;
+import org.sosy_lab.cpachecker.util.predicates.smt.Solver;
+import org.sosy_lab.cpachecker.util.statistics.StatisticsWriter;
+import org.sosy_lab.cpachecker.util.variableclassification.VariableClassification;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+
+/**
+ * Analyzes an infeasible counterexample concurrently in several {@link
+ * CexTraceAnalysisDirection}s and returns the interpolants of the direction that finishes first.
+ *
+ * <p>Each direction has its own worker with a separate solver instance, because solver contexts
+ * are not thread-safe. Formulas are translated between the solver of the caller and the solvers
+ * of the workers, and the solver of the caller is only accessed from the calling thread. Workers
+ * that did not finish when the result is known are cancelled. The solver of a cancelled worker
+ * cannot be used anymore and is replaced by a new one before the next counterexample, if the
+ * worker has stopped until then (otherwise its direction is skipped once).
+ */
+final class InterpolationPortfolio {
+
+  private final ImmutableList<CexTraceAnalysisDirection> directions;
+
+  private final PathFormulaManager pmgr;
+  private final Optional<LoopStructure> loopStructure;
+  private final Optional<VariableClassification> variableClassification;
+  private final Configuration config;
+  private final ShutdownNotifier shutdownNotifier;
+  private final LogManager logger;
+
+  private final ExecutorService executor;
+
+  /** The current worker for each direction. Guarded by the lock of this map. */
+  private final Map<CexTraceAnalysisDirection, Worker> workers =
+      new EnumMap<>(CexTraceAnalysisDirection.class);
+
+  // statistics, only accessed from the calling thread
+  private int parallelAnalyses = 0;
+  private int sequentialFallbacks = 0;
+  private int replacedWorkers = 0; // guarded by the lock of workers
+  private final Multiset<CexTraceAnalysisDirection> winningDirections =
+      EnumMultiset.create(CexTraceAnalysisDirection.class);
+
+  InterpolationPortfolio(
+      List<CexTraceAnalysisDirection> pDirections,
+      PathFormulaManager pPmgr,
+      Optional<LoopStructure> pLoopStructure,
+      Optional<VariableClassification> pVarClassification,
+      Configuration pConfig,
+      ShutdownNotifier pShutdownNotifier,
+      LogManager pLogger)
+      throws InvalidConfigurationException {
+    directions = ImmutableList.copyOf(pDirections);
+    pmgr = pPmgr;
+    loopStructure = pLoopStructure;
+    variableClassification = pVarClassification;
+    config = pConfig;
+    shutdownNotifier = pShutdownNotifier;
+    logger = pLogger;
+
+    // important to use daemon threads here, because we never have the chance to stop the executor
+    executor =
+        Executors.newFixedThreadPool(
+            directions.size(),
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("cex-analysis-%d").build());
+
+    for (CexTraceAnalysisDirection direction : directions) {
+      workers.put(direction, new Worker(direction));
+    }
+  }
+
+  /**
+   * Analyze a counterexample with all workers that are currently available.
+   *
+   * @param pFormulas the prepared formulas of the counterexample, created by the given formula
+   *     manager.
+   * @param pAbstractionStates the abstraction states along the counterexample.
+   * @param pFmgr the formula manager of the caller.
+   * @return the result of the first worker that proved the counterexample infeasible, with
+   *     interpolants for the given formula manager, or an empty Optional if the counterexample is
+   *     feasible, no worker was available, or all workers failed. In this case the caller needs to
+   *     analyze the counterexample itself.
+   */
+  Optional<CounterexampleTraceInfo> buildCounterexampleTrace(
+      BlockFormulas pFormulas, List<AbstractState> pAbstractionStates, FormulaManagerView pFmgr)
+      throws InterruptedException {
+
+    List<Worker> availableWorkers = acquireWorkers();
+    if (availableWorkers.isEmpty()) {
+      sequentialFallbacks++;
+      return Optional.empty();
+    }
+    parallelAnalyses++;
+
+    CompletionService<CounterexampleTraceInfo> completionService =
+        new ExecutorCompletionService<>(executor);
+    Map<Future<CounterexampleTraceInfo>, Worker> runningWorkers = new HashMap<>();
+    try {
+      for (Worker worker : availableWorkers) {
+        // the solver of the caller must only be accessed from this thread, so translate here
+        BlockFormulas formulas =
+            new BlockFormulas(
+                from(pFormulas.getFormulas())
+                    .transform(f -> worker.fmgr.translateFrom(f, pFmgr))
+                    .toList());
+        runningWorkers.put(
+            completionService.submit(() -> worker.analyze(formulas, pAbstractionStates)), worker);
+      }
+
+      for (int i = 0; i < runningWorkers.size(); i++) {
+        Future<CounterexampleTraceInfo> future = completionService.take();
+        Worker worker = runningWorkers.get(future);
+        CounterexampleTraceInfo result;
+        try {
+          result = future.get();
+        } catch (ExecutionException e) {
+          Throwable t = e.getCause();
+          Throwables.throwIfUnchecked(t);
+          logger.logDebugException(
+              t, "Counterexample analysis in direction " + worker.direction + " failed");
+          continue;
+        }
+
+        if (!result.isSpurious()) {
+          // the model and the branching information of the caller's solver is needed
+          return Optional.empty();
+        }
+
+        winningDirections.add(worker.direction);
+        List<BooleanFormula> interpolants =
+            from(result.getInterpolants())
+                .transform(f -> pFmgr.translateFrom(f, worker.fmgr))
+                .toList();
+        return Optional.of(CounterexampleTraceInfo.infeasible(interpolants));
+      }
+
+      shutdownNotifier.shutdownIfNecessary();
+      sequentialFallbacks++;
+      return Optional.empty();
+
+    } finally {
+      for (Map.Entry<Future<CounterexampleTraceInfo>, Worker> entry : runningWorkers.entrySet()) {
+        if (!entry.getKey().isDone()) {
+          entry.getValue().shutdownManager.requestShutdown("counterexample was already analyzed");
+        }
+      }
+    }
+  }
+
+  /** Take all workers that are not busy, and replace cancelled workers by new ones. */
+  private List<Worker> acquireWorkers() {
+    List<Worker> result = new ArrayList<>(directions.size());
+    synchronized (workers) {
+      for (CexTraceAnalysisDirection direction : directions) {
+        Worker worker = workers.get(direction);
+        if (worker.busy) {
+          continue;
+        }
+        if (worker.isCancelled()) {
+          // cancellation happened after the worker was already finished
+          worker.solver.close();
+          worker = createReplacement(direction);
+        }
+        worker.busy = true;
+        result.add(worker);
+      }
+    }
+    return result;
+  }
+
+  private void releaseWorker(Worker pWorker) {
+    synchronized (workers) {
+      if (pWorker.isCancelled()) {
+        pWorker.solver.close();
+        createReplacement(pWorker.direction);
+      } else {
+        pWorker.busy = false;
+      }
+    }
+  }
+
+  private Worker createReplacement(CexTraceAnalysisDirection pDirection) {
+    assert Thread.holdsLock(workers);
+    Worker worker;
+    try {
+      worker = new Worker(pDirection);
+    } catch (InvalidConfigurationException e) {
+      throw new AssertionError("Creating a worker with the same configuration succeeded before", e);
+    }
+    workers.put(pDirection, worker);
+    replacedWorkers++;
+    return worker;
+  }
+
+  void printStatistics(StatisticsWriter w) {
+    w.put("Parallel counterexample analyses", parallelAnalyses);
+    StatisticsWriter w1 = w.beginLevel();
+    for (CexTraceAnalysisDirection direction : directions) {
+      w1.put("Won by direction " + direction, winningDirections.count(direction));
+    }
+    w1.put("Sequential fallbacks", sequentialFallbacks);
+    synchronized (workers) {
+      w1.put("Replaced solvers of cancelled workers", replacedWorkers);
+    }
+  }
+
+  private final class Worker {
+
+    private final CexTraceAnalysisDirection direction;
+    private final ShutdownManager shutdownManager;
+    private final Solver solver;
+    private final FormulaManagerView fmgr;
+    private final InterpolationManager itpManager;
+
+    /** Whether the worker is currently analyzing a counterexample. Guarded by {@link #workers}. */
+    private boolean busy = false;
+
+    private Worker(CexTraceAnalysisDirection pDirection) throws InvalidConfigurationException {
+      direction = pDirection;
+      shutdownManager = ShutdownManager.createWithParent(shutdownNotifier);
+      solver = Solver.create(config, logger, shutdownManager.getNotifier());
+      fmgr = solver.getFormulaManager();
+      itpManager =
+          new InterpolationManager(
+              pmgr,
+              solver,
+              loopStructure,
+              variableClassification,
+              config,
+              shutdownManager.getNotifier(),
+              logger,
+              Optional.of(pDirection));
+    }
+
+    private boolean isCancelled() {
+      return shutdownManager.getNotifier().shouldShutdown();
+    }
+
+    private CounterexampleTraceInfo analyze(
+        BlockFormulas pFormulas, List<AbstractState> pAbstractionStates) throws Exception {
+      try {
+        logger.log(Level.ALL, "Analyzing counterexample in direction", direction);
+        return itpManager.interpolate(pFormulas, pAbstractionStates);
+      } finally {
+        releaseWorker(this);
+      }
+    }
+  }
+}
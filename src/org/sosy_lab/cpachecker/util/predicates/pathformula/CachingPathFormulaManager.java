@@ -29,7 +29,13 @@ import java.io.PrintStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import javax.annotation.Nullable;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.Option;
+import org.sosy_lab.common.configuration.Options;
 import org.sosy_lab.common.time.Timer;
 import org.sosy_lab.cpachecker.cfa.ast.c.CExpression;
 import org.sosy_lab.cpachecker.cfa.ast.c.CIdExpression;
@@ -41,6 +47,7 @@ import org.sosy_lab.cpachecker.exceptions.UnrecognizedCCodeException;
 import org.sosy_lab.cpachecker.exceptions.UnrecognizedCFAEdgeException;
 import org.sosy_lab.cpachecker.util.Pair;
 import org.sosy_lab.cpachecker.util.predicates.pathformula.pointeraliasing.PointerTargetSet;
+import org.sosy_lab.cpachecker.util.predicates.smt.FormulaManagerView;
 import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.Formula;
 import org.sosy_lab.java_smt.api.Model.ValueAssignment;
@@ -48,11 +55,28 @@ import org.sosy_lab.java_smt.api.Model.ValueAssignment;
  * Implementation of {@link PathFormulaManager} that delegates to another
  * instance but caches results of some methods.
  */
+@Options(prefix = "cpa.predicate")
 public class CachingPathFormulaManager implements PathFormulaManager {
 
+  @Option(
+    secure = true,
+    description =
+        "Cache the formula of each CFA edge as a template and re-use it for other path formulas "
+            + "by shifting the SSA indices, instead of caching path formulas per edge and "
+            + "predecessor. Only edges without pointer-target sets are handled this way. "
+            + "Each use of a template traverses the whole edge formula to rename its variables, "
+            + "so this only pays off for edges whose encoding is more expensive than that."
+  )
+  private boolean useEdgeFormulaTemplates = false;
+
   public final Timer pathFormulaComputationTimer = new Timer();
   public int pathFormulaCacheHits = 0;
 
+  private final Timer templateInstantiationTimer = new Timer();
+  private int templateUses = 0;
+  private int templatesCreated = 0;
+  private int templatesNotApplicable = 0;
+
   public final PathFormulaManager delegate;
 
   private final Map<Pair<CFAEdge, PathFormula>, Pair<PathFormula, ErrorConditions>> andFormulaWithConditionsCache
@@ -66,11 +90,28 @@ public class CachingPathFormulaManager implements PathFormulaManager {
   private final Map<PathFormula, PathFormula> emptyFormulaCache
             = new HashMap<>();
 
+  /** The latest edge-formula template for each edge, if templates are enabled. */
+  private final @Nullable Map<CFAEdge, EdgeFormulaTemplate> edgeFormulaTemplates;
+
+  private final @Nullable FormulaManagerView fmgr;
+
   private final PathFormula emptyFormula;
 
   public CachingPathFormulaManager(PathFormulaManager pDelegate) {
     delegate = pDelegate;
     emptyFormula = delegate.makeEmptyPathFormula();
+    fmgr = null;
+    edgeFormulaTemplates = null;
+  }
+
+  public CachingPathFormulaManager(
+      PathFormulaManager pDelegate, FormulaManagerView pFmgr, Configuration pConfig)
+      throws InvalidConfigurationException {
+    pConfig.inject(this, CachingPathFormulaManager.class);
+    delegate = pDelegate;
+    emptyFormula = delegate.makeEmptyPathFormula();
+    fmgr = pFmgr;
+    edgeFormulaTemplates = useEdgeFormulaTemplates ? new HashMap<>() : null;
   }
 
   @Override
@@ -93,6 +134,9 @@ public class CachingPathFormulaManager implements PathFormulaManager {
 
   @Override
   public PathFormula makeAnd(PathFormula pOldFormula, CFAEdge pEdge) throws CPATransferException, InterruptedException {
+    if (edgeFormulaTemplates != null) {
+      return makeAndWithTemplate(pOldFormula, pEdge);
+    }
     final Pair<CFAEdge, PathFormula> formulaCacheKey = Pair.of(pEdge, pOldFormula);
     PathFormula result = andFormulaCache.get(formulaCacheKey);
     if (result == null) {
@@ -111,6 +155,53 @@ public class CachingPathFormulaManager implements PathFormulaManager {
     return result;
   }
 
+  private PathFormula makeAndWithTemplate(PathFormula pOldFormula, CFAEdge pEdge)
+      throws CPATransferException, InterruptedException {
+    EdgeFormulaTemplate template = edgeFormulaTemplates.get(pEdge);
+    if (template != null) {
+      PathFormula result;
+      templateInstantiationTimer.start();
+      try {
+        result = template.instantiate(pOldFormula, fmgr);
+      } finally {
+        templateInstantiationTimer.stop();
+      }
+      if (result != null) {
+        templateUses++;
+        return result;
+      }
+      templatesNotApplicable++;
+    }
+
+    pathFormulaComputationTimer.start();
+    try {
+      if (!pOldFormula.getPointerTargetSet().equals(PointerTargetSet.emptyPointerTargetSet())) {
+        return delegate.makeAnd(pOldFormula, pEdge);
+      }
+
+      // Encode the edge on its own and conjoin it with the old formula afterwards,
+      // such that the edge formula can be stored as template.
+      PathFormula empty = delegate.makeEmptyPathFormula(pOldFormula);
+      PathFormula edgeResult = delegate.makeAnd(empty, pEdge);
+      Optional<EdgeFormulaTemplate> newTemplate =
+          EdgeFormulaTemplate.create(empty, edgeResult, fmgr);
+      if (newTemplate.isPresent()) {
+        templatesCreated++;
+        edgeFormulaTemplates.put(pEdge, newTemplate.get());
+      }
+      if (edgeResult == empty) {
+        return pOldFormula;
+      }
+      return new PathFormula(
+          fmgr.getBooleanFormulaManager().and(pOldFormula.getFormula(), edgeResult.getFormula()),
+          edgeResult.getSsa(),
+          edgeResult.getPointerTargetSet(),
+          pOldFormula.getLength() + 1);
+    } finally {
+      pathFormulaComputationTimer.stop();
+    }
+  }
+
   @Override
   public PathFormula makeOr(PathFormula pF1, PathFormula pF2) throws InterruptedException {
     final Pair<PathFormula, PathFormula> formulaCacheKey = Pair.of(pF1, pF2);
@@ -199,6 +290,9 @@ public class CachingPathFormulaManager implements PathFormulaManager {
     andFormulaCache.clear();
     orFormulaCache.clear();
     emptyFormulaCache.clear();
+    if (edgeFormulaTemplates != null) {
+      edgeFormulaTemplates.clear();
+    }
     delegate.clearCaches();
   }
 
@@ -218,11 +312,19 @@ public class CachingPathFormulaManager implements PathFormulaManager {
     int pathFormulaCacheHits = this.pathFormulaCacheHits;
     int totalPathFormulaComputations = this.pathFormulaComputationTimer.getNumberOfIntervals() + pathFormulaCacheHits;
     out.println("Number of path formula cache hits:   " + pathFormulaCacheHits + " (" + toPercent(pathFormulaCacheHits, totalPathFormulaComputations) + ")");
+    if (edgeFormulaTemplates != null) {
+      out.println("Number of edge formula template uses: " + templateUses);
+      out.println("Number of edge formula templates:     " + templatesCreated);
+      out.println("Number of non-applicable templates:   " + templatesNotApplicable);
+    }
     out.println();
 
     out.println("Inside post operator:                  ");
     out.println("  Inside path formula creation:        ");
     out.println("    Time for path formula computation: " + pathFormulaComputationTimer);
+    if (edgeFormulaTemplates != null) {
+      out.println("    Time for template instantiation:   " + templateInstantiationTimer);
+    }
     out.println();
 
     delegate.printStatistics(out);
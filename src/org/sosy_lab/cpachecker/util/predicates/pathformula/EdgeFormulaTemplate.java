@@ -0,0 +1,243 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.pathformula;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import javax.annotation.Nullable;
+import org.sosy_lab.common.collect.MapsDifference;
+import org.sosy_lab.cpachecker.util.Pair;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.SSAMap.SSAMapBuilder;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.pointeraliasing.PointerTargetSet;
+import org.sosy_lab.cpachecker.util.predicates.smt.FormulaManagerView;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+
+/**
+ * The formula of a single CFA edge, created for some SSA map,
+ * that can be re-used for other SSA maps by shifting the SSA indices of the variables.
+ *
+ * The formula of an edge depends on the SSA map only through the indices and types
+ * of the variables that the edge reads and writes.
+ * If these variables exist in another SSA map with the same types,
+ * and assigning them produces the next index in both maps,
+ * the formula for the other map differs only in the indices of these variables.
+ *
+ * Templates are only created for edges that neither use nor produce a pointer-target set
+ * and do not touch the nondet flag of {@link PathFormulaManagerImpl},
+ * because in these cases the formula depends on more than the SSA indices.
+ */
+final class EdgeFormulaTemplate {
+
+  private final BooleanFormula edgeFormula;
+
+  /** The SSA map for which the edge formula was created. */
+  private final SSAMap oldSsa;
+
+  /** The SSA map after the edge. */
+  private final SSAMap newSsa;
+
+  /** Variables that occur in the edge formula or get a new index from the edge. */
+  private final ImmutableSet<String> variables;
+
+  /** Variables that get a new index from the edge, with the new index. */
+  private final ImmutableMap<String, Integer> writtenVariables;
+
+  /** Whether the edge does not change the path formula at all. */
+  private final boolean unchanged;
+
+  private EdgeFormulaTemplate(
+      BooleanFormula pEdgeFormula,
+      SSAMap pOldSsa,
+      SSAMap pNewSsa,
+      ImmutableSet<String> pVariables,
+      ImmutableMap<String, Integer> pWrittenVariables,
+      boolean pUnchanged) {
+    edgeFormula = pEdgeFormula;
+    oldSsa = pOldSsa;
+    newSsa = pNewSsa;
+    variables = pVariables;
+    writtenVariables = pWrittenVariables;
+    unchanged = pUnchanged;
+  }
+
+  /**
+   * Create a template from the result of encoding an edge for an empty path formula.
+   *
+   * @param pEmpty The empty path formula (with SSA map) for which the edge was encoded.
+   * @param pResult The result of encoding the edge for pEmpty.
+   * @return A template, or an empty Optional if the edge formula cannot be re-used.
+   */
+  static Optional<EdgeFormulaTemplate> create(
+      PathFormula pEmpty, PathFormula pResult, FormulaManagerView fmgr) {
+    final PointerTargetSet emptyPts = PointerTargetSet.emptyPointerTargetSet();
+    if (!pEmpty.getPointerTargetSet().equals(emptyPts)
+        || !pResult.getPointerTargetSet().equals(emptyPts)) {
+      return Optional.empty();
+    }
+    final SSAMap oldSsa = pEmpty.getSsa();
+    final SSAMap newSsa = pResult.getSsa();
+    if (pResult == pEmpty) {
+      return Optional.of(
+          new EdgeFormulaTemplate(
+              pResult.getFormula(), oldSsa, newSsa, ImmutableSet.of(), ImmutableMap.of(), true));
+    }
+
+    // collect variables that get a new index, removed variables are not supported
+    final ImmutableMap.Builder<String, Integer> written = ImmutableMap.builder();
+    final boolean[] removedVariables = {false};
+    SSAMap.merge(
+        oldSsa,
+        newSsa,
+        new MapsDifference.Visitor<String, Integer>() {
+          @Override
+          public void leftValueOnly(String pName, Integer pLeftValue) {
+            removedVariables[0] = true;
+          }
+
+          @Override
+          public void rightValueOnly(String pName, Integer pRightValue) {
+            written.put(pName, pRightValue);
+          }
+
+          @Override
+          public void differingValues(String pName, Integer pLeftValue, Integer pRightValue) {
+            written.put(pName, pRightValue);
+          }
+        });
+    if (removedVariables[0]) {
+      return Optional.empty();
+    }
+    final ImmutableMap<String, Integer> writtenVariables = written.build();
+
+    final ImmutableSet.Builder<String> variables = ImmutableSet.builder();
+    variables.addAll(writtenVariables.keySet());
+    for (String name : fmgr.extractFunctionNames(pResult.getFormula())) {
+      final Pair<String, OptionalInt> parsed;
+      try {
+        parsed = FormulaManagerView.parseName(name);
+      } catch (IllegalArgumentException e) {
+        return Optional.empty();
+      }
+      final String variable = parsed.getFirst();
+      if (variable.equals(PathFormulaManagerImpl.NONDET_FLAG_VARIABLE)) {
+        return Optional.empty();
+      }
+      if (!parsed.getSecond().isPresent()) {
+        continue;
+      }
+      if (oldSsa.containsVariable(variable)) {
+        // indices outside of the range of the edge cannot be shifted safely
+        int index = parsed.getSecond().getAsInt();
+        if (index < oldSsa.getIndex(variable) || index > newSsa.getIndex(variable)) {
+          return Optional.empty();
+        }
+      }
+      variables.add(variable);
+    }
+
+    // written variables need to get exactly the next index,
+    // otherwise the fresh-value provider influenced the formula
+    final SSAMapBuilder oldSsaBuilder = oldSsa.builder();
+    for (String variable : writtenVariables.keySet()) {
+      if (oldSsa.containsVariable(variable)
+          && oldSsaBuilder.getFreshIndex(variable) != oldSsa.getIndex(variable) + 1) {
+        return Optional.empty();
+      }
+    }
+
+    return Optional.of(
+        new EdgeFormulaTemplate(
+            pResult.getFormula(),
+            oldSsa,
+            newSsa,
+            variables.build(),
+            writtenVariables,
+            false));
+  }
+
+  /**
+   * Instantiate the template for a given path formula,
+   * i.e., compute the conjunction of the path formula with the formula of the edge.
+   *
+   * @return The resulting path formula, or null if the template is not applicable.
+   */
+  @Nullable PathFormula instantiate(PathFormula pOldFormula, FormulaManagerView fmgr) {
+    if (unchanged) {
+      return pOldFormula;
+    }
+    if (!pOldFormula.getPointerTargetSet().equals(PointerTargetSet.emptyPointerTargetSet())) {
+      return null;
+    }
+    final SSAMap ssa = pOldFormula.getSsa();
+    final SSAMapBuilder ssaBuilder = ssa.builder();
+    final SSAMapBuilder oldSsaBuilder = oldSsa.builder();
+
+    final Map<String, Integer> offsets = new HashMap<>();
+    for (String variable : variables) {
+      boolean present = oldSsa.containsVariable(variable);
+      if (present != ssa.containsVariable(variable)) {
+        return null;
+      }
+      if (present) {
+        if (!oldSsa.getType(variable).equals(ssa.getType(variable))) {
+          return null;
+        }
+        int offset = ssa.getIndex(variable) - oldSsa.getIndex(variable);
+        if (offset != 0) {
+          offsets.put(variable, offset);
+        }
+      } else if (oldSsa.getIndex(variable) != ssa.getIndex(variable)) {
+        return null;
+      }
+    }
+
+    for (Map.Entry<String, Integer> entry : writtenVariables.entrySet()) {
+      String variable = entry.getKey();
+      int newIndex;
+      if (oldSsa.containsVariable(variable)) {
+        if (ssaBuilder.getFreshIndex(variable) != ssa.getIndex(variable) + 1) {
+          return null;
+        }
+        newIndex = entry.getValue() + offsets.getOrDefault(variable, 0);
+      } else {
+        if (ssaBuilder.getFreshIndex(variable) != oldSsaBuilder.getFreshIndex(variable)) {
+          return null;
+        }
+        newIndex = entry.getValue();
+      }
+      ssaBuilder.setIndex(variable, newSsa.getType(variable), newIndex);
+    }
+
+    BooleanFormula formula = fmgr.shiftIndices(edgeFormula, offsets);
+    return new PathFormula(
+        fmgr.getBooleanFormulaManager().and(pOldFormula.getFormula(), formula),
+        ssaBuilder.build(),
+        pOldFormula.getPointerTargetSet(),
+        pOldFormula.getLength() + 1);
+  }
+}
@@ -0,0 +1,244 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.pathformula;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.cfa.types.c.CNumericTypes;
+import org.sosy_lab.cpachecker.core.AnalysisDirection;
+import org.sosy_lab.cpachecker.util.CFAUtils;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.SSAMap.SSAMapBuilder;
+import org.sosy_lab.cpachecker.util.predicates.smt.SolverViewBasedTest0;
+import org.sosy_lab.cpachecker.util.test.TestDataTools;
+
+/**
+ * Tests that instantiating an {@link EdgeFormulaTemplate} gives the same result as encoding the
+ * edge with the delegate path-formula manager, and that templates are rejected where this would
+ * not be the case.
+ */
+@SuppressFBWarnings("NP_NONNULL_FIELD_NOT_INITIALIZED_IN_CONSTRUCTOR")
+public class EdgeFormulaTemplateTest extends SolverViewBasedTest0 {
+
+  private static final String ASSIGNMENT = "x = x + 1;";
+  private static final String UF_CALL = "y = f(x);";
+  private static final String POINTER_WRITE = "*p = x;";
+  private static final String POINTER_READ = "y = *p;";
+
+  private PathFormulaManager delegate;
+
+  /** The path formula after the declarations of the program. */
+  private PathFormula start;
+
+  private List<CFAEdge> edges;
+
+  @Before
+  public void setup() throws Exception {
+    CFA cfa =
+        TestDataTools.makeCFA(
+            "int f(int);",
+            "void main() {",
+            "  int x;",
+            "  int y;",
+            "  int *p;",
+            "  " + ASSIGNMENT,
+            "  " + UF_CALL,
+            "  " + POINTER_WRITE,
+            "  " + POINTER_READ,
+            "}");
+
+    // with the variable classification of the CFA, only addressed variables are put on the heap
+    delegate =
+        new PathFormulaManagerImpl(
+            mgrv, config, logger, ShutdownNotifier.createDummy(), cfa, AnalysisDirection.FORWARD);
+
+    // the CFA of main is a single path, encode everything before the first statement
+    edges = new ArrayList<>();
+    CFANode node = cfa.getMainFunction();
+    while (node.getNumLeavingEdges() > 0) {
+      CFAEdge edge = Iterables.getOnlyElement(CFAUtils.leavingEdges(node));
+      edges.add(edge);
+      node = edge.getSuccessor();
+    }
+    start = delegate.makeEmptyPathFormula();
+    for (CFAEdge edge : edges) {
+      if (edge.getCode().equals(ASSIGNMENT)) {
+        break;
+      }
+      start = delegate.makeAnd(start, edge);
+    }
+  }
+
+  private CFAEdge getEdge(String pCode) {
+    return Iterables.find(edges, edge -> edge.getCode().equals(pCode));
+  }
+
+  private Optional<EdgeFormulaTemplate> createTemplate(PathFormula pFormula, CFAEdge pEdge)
+      throws Exception {
+    PathFormula empty = delegate.makeEmptyPathFormula(pFormula);
+    return EdgeFormulaTemplate.create(empty, delegate.makeAnd(empty, pEdge), mgrv);
+  }
+
+  /**
+   * Create a template for pEdge after the given prefix of statements, and check that it gives the
+   * same result as the delegate after a different prefix of statements.
+   */
+  private void assertTemplateMatchesMakeAnd(
+      String pEdge, List<String> pTemplatePrefix, List<String> pInstantiationPrefix)
+      throws Exception {
+    CFAEdge edge = getEdge(pEdge);
+
+    PathFormula templateFormula = start;
+    for (String statement : pTemplatePrefix) {
+      templateFormula = delegate.makeAnd(templateFormula, getEdge(statement));
+    }
+    Optional<EdgeFormulaTemplate> template = createTemplate(templateFormula, edge);
+    assertThat(template.isPresent()).isTrue();
+
+    PathFormula formula = start;
+    for (String statement : pInstantiationPrefix) {
+      formula = delegate.makeAnd(formula, getEdge(statement));
+    }
+    PathFormula result = template.get().instantiate(formula, mgrv);
+    PathFormula expected = delegate.makeAnd(formula, edge);
+
+    assertThat(result).isNotNull();
+    assertThatFormula(result.getFormula()).isEquivalentTo(expected.getFormula());
+    assertThat(result.getSsa()).isEqualTo(expected.getSsa());
+    assertThat(result.getPointerTargetSet()).isEqualTo(expected.getPointerTargetSet());
+    assertThat(result.getLength()).isEqualTo(expected.getLength());
+  }
+
+  @Test
+  public void testAssignment() throws Exception {
+    assertTemplateMatchesMakeAnd(
+        ASSIGNMENT, ImmutableList.of(), ImmutableList.of(ASSIGNMENT, ASSIGNMENT, UF_CALL));
+  }
+
+  @Test
+  public void testAssignmentToOtherIndices() throws Exception {
+    assertTemplateMatchesMakeAnd(
+        ASSIGNMENT, ImmutableList.of(ASSIGNMENT, ASSIGNMENT), ImmutableList.of(ASSIGNMENT));
+  }
+
+  @Test
+  public void testUFEdge() throws Exception {
+    assertTemplateMatchesMakeAnd(
+        UF_CALL, ImmutableList.of(), ImmutableList.of(ASSIGNMENT, UF_CALL, ASSIGNMENT));
+  }
+
+  @Test
+  public void testPointerWrite() throws Exception {
+    assertTemplateMatchesMakeAnd(
+        POINTER_WRITE,
+        ImmutableList.of(POINTER_WRITE),
+        ImmutableList.of(POINTER_WRITE, ASSIGNMENT, POINTER_WRITE, POINTER_READ));
+  }
+
+  @Test
+  public void testPointerRead() throws Exception {
+    assertTemplateMatchesMakeAnd(
+        POINTER_READ,
+        ImmutableList.of(POINTER_WRITE),
+        ImmutableList.of(POINTER_WRITE, POINTER_READ, POINTER_WRITE, UF_CALL));
+  }
+
+  @Test
+  public void testRejectedOnFreshIndex() throws Exception {
+    EdgeFormulaTemplate template = createTemplate(start, getEdge(ASSIGNMENT)).get();
+
+    // the next index of x is not the current index plus one
+    FreshValueProvider freshValues = new FreshValueProvider();
+    freshValues.put("main::x", 10);
+    SSAMapBuilder ssa = start.getSsa().builder();
+    ssa.mergeFreshValueProviderWith(freshValues);
+    PathFormula formula =
+        delegate.makeNewPathFormula(start, ssa.build(), start.getPointerTargetSet());
+
+    assertThat(template.instantiate(formula, mgrv)).isNull();
+    assertThat(delegate.makeAnd(formula, getEdge(ASSIGNMENT)).getSsa().getIndex("main::x"))
+        .isEqualTo(11);
+  }
+
+  @Test
+  public void testRejectedOnVariableWithoutIndex() throws Exception {
+    PathFormula formula = delegate.makeAnd(start, getEdge(POINTER_WRITE));
+    EdgeFormulaTemplate template = createTemplate(formula, getEdge(POINTER_READ)).get();
+
+    // the memory of int was not written before, so it does not have an index yet
+    assertThat(template.instantiate(start, mgrv)).isNull();
+  }
+
+  @Test
+  public void testRejectedOnTypeMismatch() throws Exception {
+    EdgeFormulaTemplate template = createTemplate(start, getEdge(ASSIGNMENT)).get();
+
+    SSAMapBuilder ssa = SSAMap.emptySSAMap().builder();
+    for (String variable : start.getSsa().allVariables()) {
+      ssa.setIndex(
+          variable,
+          variable.equals("main::x") ? CNumericTypes.LONG_INT : start.getSsa().getType(variable),
+          start.getSsa().getIndex(variable));
+    }
+    PathFormula formula =
+        delegate.makeNewPathFormula(start, ssa.build(), start.getPointerTargetSet());
+
+    assertThat(template.instantiate(formula, mgrv)).isNull();
+  }
+
+  @Test
+  public void testCachingPathFormulaManager() throws Exception {
+    Configuration templateConfig =
+        Configuration.builder()
+            .copyFrom(config)
+            .setOption("cpa.predicate.useEdgeFormulaTemplates", "true")
+            .build();
+    PathFormulaManager caching = new CachingPathFormulaManager(delegate, mgrv, templateConfig);
+
+    PathFormula expected = start;
+    PathFormula result = start;
+    for (int i = 0; i < 3; i++) {
+      for (String statement : ImmutableList.of(ASSIGNMENT, UF_CALL, POINTER_WRITE, POINTER_READ)) {
+        expected = delegate.makeAnd(expected, getEdge(statement));
+        result = caching.makeAnd(result, getEdge(statement));
+      }
+    }
+
+    assertThatFormula(result.getFormula()).isEquivalentTo(expected.getFormula());
+    assertThat(result.getSsa()).isEqualTo(expected.getSsa());
+    assertThat(result.getLength()).isEqualTo(expected.getLength());
+  }
+}
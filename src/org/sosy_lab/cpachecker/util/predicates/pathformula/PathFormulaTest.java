@@ -24,14 +24,19 @@
 package org.sosy_lab.cpachecker.util.predicates.pathformula;
 
 import static com.google.common.truth.Truth.assertThat;
+import static org.sosy_lab.common.collect.MapsDifference.collectMapsDifferenceTo;
 
+import com.google.common.collect.Lists;
 import com.google.common.testing.ClassSanityTester;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.sosy_lab.common.collect.MapsDifference;
 import org.sosy_lab.common.collect.PathCopyingPersistentTreeMap;
 import org.sosy_lab.common.collect.PersistentLinkedList;
 import org.sosy_lab.cpachecker.cfa.types.c.CNumericTypes;
@@ -173,4 +178,81 @@ public class PathFormulaTest {
     thrown.expect(IllegalArgumentException.class);
     builder.setIndex("a", CNumericTypes.INT, 1);
   }
+
+  @Test
+  public void testSSAMerge() {
+    SSAMap base =
+        builder
+            .setIndex("a", CNumericTypes.INT, 1)
+            .setIndex("b", CNumericTypes.INT, 1)
+            .setIndex("c", CNumericTypes.INT, 1)
+            .build();
+    SSAMap left = base.builder().setIndex("c", CNumericTypes.INT, 3).build();
+    SSAMap right =
+        base.builder()
+            .setIndex("a", CNumericTypes.INT, 2)
+            .setIndex("d", CNumericTypes.INT, 1)
+            .build();
+
+    List<MapsDifference.Entry<String, Integer>> differences = new ArrayList<>();
+    SSAMap merged = SSAMap.merge(left, right, collectMapsDifferenceTo(differences));
+
+    SSAMap expected =
+        base.builder()
+            .setIndex("a", CNumericTypes.INT, 2)
+            .setIndex("c", CNumericTypes.INT, 3)
+            .setIndex("d", CNumericTypes.INT, 1)
+            .build();
+    assertThat(merged).isEqualTo(expected);
+    assertThat(merged.hashCode()).isEqualTo(expected.hashCode());
+    assertThat(merged.allVariables()).containsExactly("a", "b", "c", "d").inOrder();
+    assertThat(Lists.transform(differences, MapsDifference.Entry::getKey))
+        .containsExactly("a", "c", "d")
+        .inOrder();
+  }
+
+  @Test
+  public void testSSADeleteVariable() {
+    SSAMap ssa =
+        builder
+            .setIndex("a", CNumericTypes.INT, 1)
+            .setIndex("b", CNumericTypes.INT, 2)
+            .build();
+    SSAMap deleted = ssa.builder().deleteVariable("a").build();
+
+    assertThat(deleted.containsVariable("a")).isFalse();
+    assertThat(deleted.getIndex("b")).isEqualTo(2);
+    assertThat(deleted)
+        .isEqualTo(SSAMap.emptySSAMap().builder().setIndex("b", CNumericTypes.INT, 2).build());
+  }
+
+  @Test
+  public void testSSABuilderAllVariables() {
+    SSAMap ssa =
+        builder
+            .setIndex("b", CNumericTypes.INT, 1)
+            .setIndex("a::x", CNumericTypes.INT, 1)
+            .build();
+    SSAMapBuilder ssaBuilder = ssa.builder();
+    assertThat(ssaBuilder.allVariables()).containsExactly("a::x", "b").inOrder();
+
+    ssaBuilder.setIndex("b", CNumericTypes.INT, 2);
+    assertThat(ssaBuilder.allVariables()).containsExactly("a::x", "b").inOrder();
+
+    ssaBuilder.setIndex("a::y", CNumericTypes.CHAR, 1);
+    assertThat(ssaBuilder.allVariables()).containsExactly("a::x", "a::y", "b").inOrder();
+    assertThat(ssaBuilder.allVariablesWithPrefix("a::"))
+        .containsExactly("a::x", CNumericTypes.INT, "a::y", CNumericTypes.CHAR)
+        .inOrder();
+
+    ssaBuilder.deleteVariable("a::x");
+    assertThat(ssaBuilder.allVariables()).containsExactly("a::y", "b").inOrder();
+    assertThat(ssaBuilder.allVariablesWithPrefix("a::"))
+        .containsExactly("a::y", CNumericTypes.CHAR);
+
+    SSAMap changed = ssaBuilder.build();
+    assertThat(changed.allVariables()).containsExactly("a::y", "b").inOrder();
+    assertThat(changed.builder().allVariables()).containsExactly("a::y", "b").inOrder();
+    assertThat(ssa.allVariables()).containsExactly("a::x", "b").inOrder();
+  }
 }
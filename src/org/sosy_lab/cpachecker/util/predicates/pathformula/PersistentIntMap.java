@@ -0,0 +1,385 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.pathformula;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.Equivalence;
+import javax.annotation.Nullable;
+
+/**
+ * Immutable map from non-negative int keys to non-null values, implemented as a persistent hash
+ * array mapped trie (HAMT) that uses the key itself as hash. It is intended for dense keys like
+ * those from {@link VariableIds}, for which the trie is shallow and well balanced.
+ *
+ * <p>Modifications copy only the path from the root to the changed entry. The trie has a canonical
+ * shape (it depends only on the set of keys), so {@link #merge} can skip subtrees that are shared
+ * by both maps, and {@link #equivalent} can compare the tries structurally.
+ *
+ * @param <V> the type of values
+ */
+final class PersistentIntMap<V> {
+
+  private static final int BITS = 5;
+  private static final int MASK = (1 << BITS) - 1;
+
+  private static final Object[] NO_SLOTS = new Object[0];
+
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  private static final PersistentIntMap EMPTY = new PersistentIntMap(new Node(0, NO_SLOTS), 0);
+
+  /** Callback for {@link PersistentIntMap#forEach}. */
+  interface EntryVisitor<V> {
+    void visit(int key, V value);
+  }
+
+  /** Callback for {@link PersistentIntMap#merge}. */
+  interface MergeHandler<V> {
+
+    /** Return the value for a key that is present in both maps with non-equivalent values. */
+    V mergeValues(int key, V leftValue, V rightValue);
+
+    /** Called for each key that is present only in the left map. */
+    void leftValueOnly(int key, V leftValue);
+
+    /** Called for each key that is present only in the right map. */
+    void rightValueOnly(int key, V rightValue);
+  }
+
+  private static final class Leaf<V> {
+    private final int key;
+    private final V value;
+
+    private Leaf(int pKey, V pValue) {
+      key = pKey;
+      value = pValue;
+    }
+  }
+
+  /**
+   * Inner node of the trie. Each slot contains a {@link Leaf} or a {@link Node}, slots are stored
+   * in the order of the set bits of the bitmap. A node other than the root has at least two
+   * entries below it, and a slot holds a leaf whenever there is only one entry below it.
+   */
+  private static final class Node<V> {
+    private final int bitmap;
+    private final Object[] slots;
+
+    private Node(int pBitmap, Object[] pSlots) {
+      bitmap = pBitmap;
+      slots = pSlots;
+    }
+
+    private Node<V> insertSlot(int bit, int idx, Object slot) {
+      Object[] newSlots = new Object[slots.length + 1];
+      System.arraycopy(slots, 0, newSlots, 0, idx);
+      newSlots[idx] = slot;
+      System.arraycopy(slots, idx, newSlots, idx + 1, slots.length - idx);
+      return new Node<>(bitmap | bit, newSlots);
+    }
+
+    private Node<V> replaceSlot(int idx, Object slot) {
+      Object[] newSlots = slots.clone();
+      newSlots[idx] = slot;
+      return new Node<>(bitmap, newSlots);
+    }
+
+    private Node<V> removeSlot(int bit, int idx) {
+      Object[] newSlots = new Object[slots.length - 1];
+      System.arraycopy(slots, 0, newSlots, 0, idx);
+      System.arraycopy(slots, idx + 1, newSlots, idx, slots.length - idx - 1);
+      return new Node<>(bitmap & ~bit, newSlots);
+    }
+
+    private @Nullable Object getSlot(int bit) {
+      return (bitmap & bit) == 0 ? null : slots[index(bitmap, bit)];
+    }
+  }
+
+  private final Node<V> root;
+  private final int size;
+
+  private PersistentIntMap(Node<V> pRoot, int pSize) {
+    root = pRoot;
+    size = pSize;
+  }
+
+  @SuppressWarnings("unchecked")
+  static <V> PersistentIntMap<V> of() {
+    return EMPTY;
+  }
+
+  private static int position(int key, int shift) {
+    return (key >>> shift) & MASK;
+  }
+
+  private static int bit(int key, int shift) {
+    return 1 << position(key, shift);
+  }
+
+  private static int index(int bitmap, int bit) {
+    return Integer.bitCount(bitmap & (bit - 1));
+  }
+
+  int size() {
+    return size;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Nullable V get(int key) {
+    Node<V> node = root;
+    int shift = 0;
+    while (true) {
+      Object slot = node.getSlot(bit(key, shift));
+      if (slot == null) {
+        return null;
+      } else if (slot instanceof Leaf) {
+        Leaf<V> leaf = (Leaf<V>) slot;
+        return leaf.key == key ? leaf.value : null;
+      }
+      node = (Node<V>) slot;
+      shift += BITS;
+    }
+  }
+
+  PersistentIntMap<V> putAndCopy(int key, V value) {
+    checkArgument(key >= 0, "Negative key %s", key);
+    checkNotNull(value);
+    V oldValue = get(key);
+    if (oldValue == value) {
+      return this;
+    }
+    Node<V> newRoot = put(root, 0, new Leaf<>(key, value));
+    return new PersistentIntMap<>(newRoot, oldValue == null ? size + 1 : size);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <V> Node<V> put(Node<V> node, int shift, Leaf<V> newLeaf) {
+    int bit = bit(newLeaf.key, shift);
+    int idx = index(node.bitmap, bit);
+    if ((node.bitmap & bit) == 0) {
+      return node.insertSlot(bit, idx, newLeaf);
+    }
+
+    Object slot = node.slots[idx];
+    Object newSlot;
+    if (slot instanceof Leaf) {
+      Leaf<V> leaf = (Leaf<V>) slot;
+      newSlot = leaf.key == newLeaf.key ? newLeaf : pair(leaf, newLeaf, shift + BITS);
+    } else {
+      newSlot = put((Node<V>) slot, shift + BITS, newLeaf);
+    }
+    return node.replaceSlot(idx, newSlot);
+  }
+
+  /** Create the subtree for two leaves with different keys whose paths agree up to shift. */
+  private static <V> Node<V> pair(Leaf<V> a, Leaf<V> b, int shift) {
+    int posA = position(a.key, shift);
+    int posB = position(b.key, shift);
+    if (posA == posB) {
+      return new Node<>(1 << posA, new Object[] {pair(a, b, shift + BITS)});
+    }
+    Object[] slots = posA < posB ? new Object[] {a, b} : new Object[] {b, a};
+    return new Node<>((1 << posA) | (1 << posB), slots);
+  }
+
+  PersistentIntMap<V> removeAndCopy(int key) {
+    if (key < 0 || get(key) == null) {
+      return this;
+    }
+    Object newRoot = remove(root, 0, key);
+    return new PersistentIntMap<>(asNode(newRoot, 0), size - 1);
+  }
+
+  /**
+   * Remove the key (which needs to be present) from the subtree, and return the new content for
+   * the slot that held the subtree: null if it is empty, a leaf if there is one entry left, or a
+   * node.
+   */
+  @SuppressWarnings("unchecked")
+  private static <V> @Nullable Object remove(Node<V> node, int shift, int key) {
+    int bit = bit(key, shift);
+    int idx = index(node.bitmap, bit);
+    Object slot = node.slots[idx];
+    Object newSlot = (slot instanceof Leaf) ? null : remove((Node<V>) slot, shift + BITS, key);
+
+    Node<V> result = newSlot == null ? node.removeSlot(bit, idx) : node.replaceSlot(idx, newSlot);
+    if (result.slots.length == 0) {
+      return null;
+    } else if (result.slots.length == 1 && result.slots[0] instanceof Leaf) {
+      return result.slots[0];
+    }
+    return result;
+  }
+
+  /** Convert the content of a slot at the given level into a node. */
+  @SuppressWarnings("unchecked")
+  private static <V> Node<V> asNode(@Nullable Object slot, int shift) {
+    if (slot == null) {
+      return new Node<>(0, NO_SLOTS);
+    } else if (slot instanceof Leaf) {
+      return new Node<>(bit(((Leaf<V>) slot).key, shift), new Object[] {slot});
+    }
+    return (Node<V>) slot;
+  }
+
+  /** Visit all entries (in an unspecified, but deterministic order). */
+  void forEach(EntryVisitor<? super V> visitor) {
+    forEach(root, visitor);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <V> void forEach(Object slot, EntryVisitor<? super V> visitor) {
+    if (slot instanceof Leaf) {
+      Leaf<V> leaf = (Leaf<V>) slot;
+      visitor.visit(leaf.key, leaf.value);
+    } else {
+      for (Object child : ((Node<V>) slot).slots) {
+        forEach(child, visitor);
+      }
+    }
+  }
+
+  /**
+   * Check whether two maps have the same keys and equivalent values. Shared subtrees are not
+   * compared.
+   */
+  static <V> boolean equivalent(
+      PersistentIntMap<V> map1, PersistentIntMap<V> map2, Equivalence<? super V> equivalence) {
+    return map1.size == map2.size && equivalent(map1.root, map2.root, equivalence);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <V> boolean equivalent(
+      Object slot1, Object slot2, Equivalence<? super V> equivalence) {
+    if (slot1 == slot2) {
+      return true;
+    } else if (slot1 instanceof Leaf && slot2 instanceof Leaf) {
+      Leaf<V> leaf1 = (Leaf<V>) slot1;
+      Leaf<V> leaf2 = (Leaf<V>) slot2;
+      return leaf1.key == leaf2.key && equivalence.equivalent(leaf1.value, leaf2.value);
+    } else if (slot1 instanceof Node && slot2 instanceof Node) {
+      Node<V> node1 = (Node<V>) slot1;
+      Node<V> node2 = (Node<V>) slot2;
+      if (node1.bitmap != node2.bitmap) {
+        return false;
+      }
+      for (int i = 0; i < node1.slots.length; i++) {
+        if (!equivalent(node1.slots[i], node2.slots[i], equivalence)) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Create a map that contains the entries of both maps. For keys that are present in both maps
+   * with non-equivalent values, the handler determines the value. The handler is also informed
+   * about all keys that are present in only one of the maps. Subtrees that are shared by both maps
+   * are skipped, so the cost depends only on the parts in which the maps differ.
+   */
+  static <V> PersistentIntMap<V> merge(
+      PersistentIntMap<V> left,
+      PersistentIntMap<V> right,
+      Equivalence<? super V> equivalence,
+      MergeHandler<V> handler) {
+    if (left.root == right.root) {
+      return left;
+    }
+    Merger<V> merger = new Merger<>(equivalence, handler);
+    Node<V> newRoot = merger.mergeNodes(left.root, right.root, 0);
+    if (newRoot == left.root) {
+      return left;
+    }
+    return new PersistentIntMap<>(newRoot, left.size + merger.rightOnlyCount);
+  }
+
+  private static final class Merger<V> {
+
+    private final Equivalence<? super V> equivalence;
+    private final MergeHandler<V> handler;
+    private int rightOnlyCount = 0;
+
+    private Merger(Equivalence<? super V> pEquivalence, MergeHandler<V> pHandler) {
+      equivalence = pEquivalence;
+      handler = pHandler;
+    }
+
+    private Node<V> mergeNodes(Node<V> node1, Node<V> node2, int shift) {
+      if (node1 == node2) {
+        return node1;
+      }
+      int bitmap = node1.bitmap | node2.bitmap;
+      Object[] slots = new Object[Integer.bitCount(bitmap)];
+      boolean sameAsLeft = bitmap == node1.bitmap;
+      int i = 0;
+      for (int remaining = bitmap; remaining != 0; remaining &= remaining - 1) {
+        int bit = Integer.lowestOneBit(remaining);
+        Object slot1 = node1.getSlot(bit);
+        Object merged = mergeSlots(slot1, node2.getSlot(bit), shift + BITS);
+        sameAsLeft &= merged == slot1;
+        slots[i++] = merged;
+      }
+      return sameAsLeft ? node1 : new Node<>(bitmap, slots);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object mergeSlots(@Nullable Object slot1, @Nullable Object slot2, int shift) {
+      if (slot1 == slot2) {
+        return slot1;
+      } else if (slot2 == null) {
+        forEach(slot1, handler::leftValueOnly);
+        return slot1;
+      } else if (slot1 == null) {
+        forEach(slot2, this::rightValueOnly);
+        return slot2;
+      } else if (slot1 instanceof Leaf && slot2 instanceof Leaf) {
+        Leaf<V> leaf1 = (Leaf<V>) slot1;
+        Leaf<V> leaf2 = (Leaf<V>) slot2;
+        if (leaf1.key != leaf2.key) {
+          handler.leftValueOnly(leaf1.key, leaf1.value);
+          rightValueOnly(leaf2.key, leaf2.value);
+          return pair(leaf1, leaf2, shift);
+        } else if (equivalence.equivalent(leaf1.value, leaf2.value)) {
+          return leaf1;
+        }
+        V merged = handler.mergeValues(leaf1.key, leaf1.value, leaf2.value);
+        return merged == leaf1.value ? leaf1 : new Leaf<>(leaf1.key, checkNotNull(merged));
+      }
+      return mergeNodes(asNode(slot1, shift), asNode(slot2, shift), shift);
+    }
+
+    private void rightValueOnly(int key, V value) {
+      rightOnlyCount++;
+      handler.rightValueOnly(key, value);
+    }
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.pathformula;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.base.Equivalence;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.Test;
+
+public class PersistentIntMapTest {
+
+  private static PersistentIntMap<Integer> toMap(TreeMap<Integer, Integer> pEntries) {
+    PersistentIntMap<Integer> result = PersistentIntMap.of();
+    for (Integer key : pEntries.descendingKeySet()) {
+      result = result.putAndCopy(key, pEntries.get(key));
+    }
+    return result;
+  }
+
+  private static TreeMap<Integer, Integer> toTreeMap(PersistentIntMap<Integer> pMap) {
+    TreeMap<Integer, Integer> result = new TreeMap<>();
+    pMap.forEach(result::put);
+    return result;
+  }
+
+  @Test
+  public void testRandomOperations() {
+    Random random = new Random(0);
+    PersistentIntMap<Integer> map = PersistentIntMap.of();
+    TreeMap<Integer, Integer> expected = new TreeMap<>();
+
+    for (int i = 0; i < 10000; i++) {
+      int key = random.nextInt(2000);
+      if (random.nextInt(4) == 0) {
+        map = map.removeAndCopy(key);
+        expected.remove(key);
+      } else {
+        int value = random.nextInt(10);
+        map = map.putAndCopy(key, value);
+        expected.put(key, value);
+      }
+      assertThat(map.get(key)).isEqualTo(expected.get(key));
+      assertThat(map.size()).isEqualTo(expected.size());
+    }
+
+    assertThat(toTreeMap(map)).isEqualTo(expected);
+    // the shape of the trie does not depend on the order of operations
+    assertThat(PersistentIntMap.equivalent(map, toMap(expected), Equivalence.equals())).isTrue();
+  }
+
+  @Test
+  public void testPersistence() {
+    PersistentIntMap<Integer> map1 = PersistentIntMap.<Integer>of().putAndCopy(1, 1);
+    PersistentIntMap<Integer> map2 = map1.putAndCopy(33, 2).putAndCopy(1, 3);
+
+    assertThat(map1.size()).isEqualTo(1);
+    assertThat(map1.get(1)).isEqualTo(1);
+    assertThat(map1.get(33)).isNull();
+    assertThat(map2.get(1)).isEqualTo(3);
+    assertThat(map2.get(33)).isEqualTo(2);
+    assertThat(map2.removeAndCopy(33).removeAndCopy(1).isEmpty()).isTrue();
+  }
+
+  @Test
+  public void testMerge() {
+    PersistentIntMap<Integer> base = PersistentIntMap.of();
+    for (int i = 0; i < 100; i++) {
+      base = base.putAndCopy(i, 0);
+    }
+    PersistentIntMap<Integer> left = base.putAndCopy(5, 2).removeAndCopy(7);
+    PersistentIntMap<Integer> right = base.putAndCopy(5, 1).putAndCopy(1000, 1).putAndCopy(6, 1);
+
+    List<String> events = new ArrayList<>();
+    PersistentIntMap<Integer> merged =
+        PersistentIntMap.merge(
+            left,
+            right,
+            Equivalence.equals(),
+            new PersistentIntMap.MergeHandler<Integer>() {
+              @Override
+              public Integer mergeValues(int key, Integer leftValue, Integer rightValue) {
+                events.add("both " + key);
+                return Math.max(leftValue, rightValue);
+              }
+
+              @Override
+              public void leftValueOnly(int key, Integer leftValue) {
+                events.add("left " + key);
+              }
+
+              @Override
+              public void rightValueOnly(int key, Integer rightValue) {
+                events.add("right " + key);
+              }
+            });
+
+    assertThat(events).containsExactly("both 5", "both 6", "right 7", "right 1000");
+    assertThat(merged.size()).isEqualTo(101);
+    assertThat(merged.get(5)).isEqualTo(2);
+    assertThat(merged.get(6)).isEqualTo(1);
+    assertThat(merged.get(7)).isEqualTo(0);
+    assertThat(merged.get(1000)).isEqualTo(1);
+  }
+
+  @Test
+  public void testMergeIdentical() {
+    PersistentIntMap<Integer> map = PersistentIntMap.<Integer>of().putAndCopy(1, 1);
+    assertThat(
+            PersistentIntMap.merge(
+                map,
+                map,
+                Equivalence.equals(),
+                new PersistentIntMap.MergeHandler<Integer>() {
+                  @Override
+                  public Integer mergeValues(int key, Integer leftValue, Integer rightValue) {
+                    throw new AssertionError();
+                  }
+
+                  @Override
+                  public void leftValueOnly(int key, Integer leftValue) {
+                    throw new AssertionError();
+                  }
+
+                  @Override
+                  public void rightValueOnly(int key, Integer rightValue) {
+                    throw new AssertionError();
+                  }
+                }))
+        .isSameAs(map);
+  }
+}
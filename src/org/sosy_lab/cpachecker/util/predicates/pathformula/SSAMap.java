@@ -28,12 +28,18 @@ import static com.google.common.base.Preconditions.checkArgument;
 import com.google.common.base.Equivalence;
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
-
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedMap;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import javax.annotation.Nullable;
 import org.sosy_lab.common.collect.Collections3;
 import org.sosy_lab.common.collect.MapsDifference;
-import org.sosy_lab.common.collect.PathCopyingPersistentTreeMap;
-import org.sosy_lab.common.collect.PersistentSortedMap;
-import org.sosy_lab.common.collect.PersistentSortedMaps;
 import org.sosy_lab.common.collect.PersistentSortedMaps.MergeConflictHandler;
 import org.sosy_lab.cpachecker.cfa.types.c.CComplexType;
 import org.sosy_lab.cpachecker.cfa.types.c.CComplexType.ComplexTypeKind;
@@ -43,15 +49,14 @@ import org.sosy_lab.cpachecker.cfa.types.c.CPointerType;
 import org.sosy_lab.cpachecker.cfa.types.c.CType;
 import org.sosy_lab.cpachecker.cfa.types.c.CTypes;
 
-import java.io.Serializable;
-import java.util.AbstractMap.SimpleImmutableEntry;
-import java.util.Map;
-import java.util.SortedMap;
-import java.util.SortedSet;
-
 /**
  * Maps a variable name to its latest "SSA index", that should be used when
  * referring to that variable.
+ *
+ * <p>Internally, variable names are interned to integer ids (cf. {@link VariableIds}), and index
+ * and type of each variable are stored together in a {@link PersistentIntMap}. This makes lookups
+ * and updates independent of string comparisons, and merges can skip all parts that two maps
+ * share. All methods that expose sets of variable names still return them sorted by name.
  */
 public class SSAMap implements Serializable {
 
@@ -91,6 +96,43 @@ public class SSAMap implements Serializable {
         }
       };
 
+  /** The information stored for each variable. */
+  private static final class VariableEntry {
+    private final int index;
+    private final CType type;
+
+    private VariableEntry(int pIndex, CType pType) {
+      index = pIndex;
+      type = pType;
+    }
+  }
+
+  private static final Equivalence<VariableEntry> INDEX_EQUIVALENCE =
+      new Equivalence<VariableEntry>() {
+        @Override
+        protected boolean doEquivalent(VariableEntry a, VariableEntry b) {
+          return a.index == b.index;
+        }
+
+        @Override
+        protected int doHash(VariableEntry entry) {
+          return entry.index;
+        }
+      };
+
+  private static final Equivalence<VariableEntry> ENTRY_EQUIVALENCE =
+      new Equivalence<VariableEntry>() {
+        @Override
+        protected boolean doEquivalent(VariableEntry a, VariableEntry b) {
+          return a.index == b.index && a.type == b.type;
+        }
+
+        @Override
+        protected int doHash(VariableEntry entry) {
+          return entry.index;
+        }
+      };
+
   /**
    * Builder for SSAMaps. Its state starts with an existing SSAMap, but may be
    * changed later. It supports read access, but it is not recommended to use
@@ -102,21 +144,23 @@ public class SSAMap implements Serializable {
   public static class SSAMapBuilder {
 
     private SSAMap ssa;
-    private PersistentSortedMap<String, Integer> vars; // Do not update without updating varsHashCode!
+    private PersistentIntMap<VariableEntry> vars; // Do not update without updating varsHashCode!
     private FreshValueProvider freshValueProvider;
-    private PersistentSortedMap<String, CType> varTypes;
 
     // Instead of computing vars.hashCode(),
     // we calculate the hashCode ourselves incrementally
     // (this is possible because a Map's hashCode is clearly defined).
     private int varsHashCode;
 
+    // Sorted names and types of all variables, null if not yet computed for the current vars.
+    // Only adding and deleting variables invalidates this, index updates keep names and types.
+    private @Nullable ImmutableSortedMap<String, CType> variableTypes = null;
+    private boolean variablesChanged = false; // compared to ssa
+
     private SSAMapBuilder(SSAMap ssa) {
       this.ssa = ssa;
       this.vars = ssa.vars;
       this.freshValueProvider = ssa.freshValueProvider;
-
-      this.varTypes = ssa.varTypes;
       this.varsHashCode = ssa.varsHashCode;
     }
 
@@ -130,27 +174,30 @@ public class SSAMap implements Serializable {
     }
 
     public CType getType(String name) {
-      return varTypes.get(name);
+      return SSAMap.getType(name, vars);
     }
 
     @SuppressWarnings("CheckReturnValue")
     public SSAMapBuilder setIndex(String name, CType type, int idx) {
       Preconditions.checkArgument(idx > 0, "Indices need to be positive for this SSAMap implementation:", name, type, idx);
-      int oldIdx = getIndex(name);
+      int id = VariableIds.getId(name);
+      VariableEntry oldEntry = vars.get(id);
+      int oldIdx = oldEntry == null ? ssa.defaultValue : oldEntry.index;
       Preconditions.checkArgument(idx >= oldIdx, "SSAMap updates need to be strictly monotone:", name, type, idx);
 
       type = type.getCanonicalType();
-      CType oldType = varTypes.get(name);
-      if (oldType != null) {
-        TYPE_CONFLICT_CHECKER.resolveConflict(name, type, oldType);
-      } else {
-        varTypes = varTypes.putAndCopy(name, type);
+      if (oldEntry != null) {
+        TYPE_CONFLICT_CHECKER.resolveConflict(name, type, oldEntry.type);
+        type = oldEntry.type;
       }
 
-      if (idx > oldIdx || idx == ssa.defaultValue) {
-        vars = vars.putAndCopy(name, idx);
-        if (oldIdx != ssa.defaultValue) {
+      if (oldEntry == null || idx > oldIdx || idx == ssa.defaultValue) {
+        vars = vars.putAndCopy(id, new VariableEntry(idx, type));
+        if (oldEntry != null) {
           varsHashCode -= mapEntryHashCode(name, oldIdx);
+        } else {
+          variableTypes = null;
+          variablesChanged = true;
         }
         varsHashCode += mapEntryHashCode(name, idx);
       }
@@ -163,23 +210,33 @@ public class SSAMap implements Serializable {
     }
 
     public SSAMapBuilder deleteVariable(String variable) {
-      int index = getIndex(variable);
-      if (index != ssa.defaultValue) {
-        vars = vars.removeAndCopy(variable);
-        varsHashCode -= mapEntryHashCode(variable, index);
-
-        varTypes = varTypes.removeAndCopy(variable);
+      int id = VariableIds.getIdIfPresent(variable);
+      VariableEntry entry = id < 0 ? null : vars.get(id);
+      if (entry != null) {
+        vars = vars.removeAndCopy(id);
+        varsHashCode -= mapEntryHashCode(variable, entry.index);
+        variableTypes = null;
+        variablesChanged = true;
       }
 
       return this;
     }
 
+    private ImmutableSortedMap<String, CType> getVariableTypes() {
+      if (variableTypes == null) {
+        // share the result with the SSAMap if nothing was added or deleted since
+        variableTypes =
+            variablesChanged ? SSAMap.computeVariableTypes(vars) : ssa.getVariableTypes();
+      }
+      return variableTypes;
+    }
+
     public SortedSet<String> allVariables() {
-      return varTypes.keySet();
+      return getVariableTypes().keySet();
     }
 
     public SortedMap<String, CType> allVariablesWithPrefix(String prefix) {
-      return Collections3.subMapWithPrefix(varTypes, prefix);
+      return Collections3.subMapWithPrefix(getVariableTypes(), prefix);
     }
 
     /**
@@ -190,24 +247,23 @@ public class SSAMap implements Serializable {
         return ssa;
       }
 
-      ssa = new SSAMap(vars, freshValueProvider, varsHashCode, varTypes, ssa.defaultValue);
+      ssa = new SSAMap(vars, freshValueProvider, varsHashCode, ssa.defaultValue);
+      ssa.variableTypes = variableTypes;
+      variablesChanged = false;
       return ssa;
     }
+  }
 
-    /**
-     * Not-null safe copy of {@link SimpleImmutableEntry#hashCode()}
-     * for Object-to-int maps.
-     */
-    private static int mapEntryHashCode(Object key, int value) {
-      return key.hashCode() ^ value;
-    }
+  /**
+   * Not-null safe copy of {@link SimpleImmutableEntry#hashCode()}
+   * for Object-to-int maps.
+   */
+  private static int mapEntryHashCode(Object key, int value) {
+    return key.hashCode() ^ value;
   }
 
-  private static final SSAMap EMPTY_SSA_MAP = new SSAMap(
-      PathCopyingPersistentTreeMap.of(),
-      new FreshValueProvider(),
-      0,
-      PathCopyingPersistentTreeMap.of());
+  private static final SSAMap EMPTY_SSA_MAP =
+      new SSAMap(PersistentIntMap.of(), new FreshValueProvider(), 0, DEFAULT_DEFAULT_IDX);
 
   /**
    * Returns an empty immutable SSAMap.
@@ -217,7 +273,10 @@ public class SSAMap implements Serializable {
   }
 
   public SSAMap withDefault(final int pDefaultValue) {
-    return new SSAMap(this.vars, this.freshValueProvider, this.varsHashCode, this.varTypes, pDefaultValue);
+    SSAMap result =
+        new SSAMap(this.vars, this.freshValueProvider, this.varsHashCode, pDefaultValue);
+    result.variableTypes = this.variableTypes;
+    return result;
   }
 
   /**
@@ -225,78 +284,128 @@ public class SSAMap implements Serializable {
    * If there are conflicting indices, the maximum of both is used.
    * Further returns a list with all variables for which different indices
    * were found, together with the two conflicting indices.
+   * The differences are reported in the order of the variable names.
    */
   public static SSAMap merge(
       SSAMap s1, SSAMap s2, MapsDifference.Visitor<String, Integer> collectDifferences) {
-    // This method uses some optimizations to avoid work when parts of both SSAMaps
-    // are equal. These checks use == instead of equals() because it is much faster
-    // and we create sets lazily (so when they are not identical, they are
-    // probably not equal, too).
-    // We don't bother checking the vars set for emptiness, because this will
-    // probably never be the case on a merge.
+    // The merge of the underlying tries skips all subtrees that are shared by both maps,
+    // so the cost depends only on the variables that were changed since the last common
+    // ancestor of both maps.
 
     checkArgument(s1.defaultValue == s2.defaultValue);
-    PersistentSortedMap<String, Integer> vars;
-    FreshValueProvider freshValueProvider;
-    int defaultIndex;
     if (s1.vars == s2.vars && s1.freshValueProvider == s2.freshValueProvider) {
       // both are absolutely identical
       return s1;
+    }
 
-    } else {
-      vars =
-          PersistentSortedMaps.merge(
-              s1.vars,
-              s2.vars,
-              Equivalence.equals(),
-              PersistentSortedMaps.getMaximumMergeConflictHandler(),
-              collectDifferences);
-      freshValueProvider = s1.freshValueProvider.merge(s2.freshValueProvider);
-      defaultIndex = s1.defaultValue;
+    SSAMapMergeHandler handler = new SSAMapMergeHandler(s1.varsHashCode);
+    PersistentIntMap<VariableEntry> vars =
+        PersistentIntMap.merge(s1.vars, s2.vars, ENTRY_EQUIVALENCE, handler);
+    FreshValueProvider freshValueProvider = s1.freshValueProvider.merge(s2.freshValueProvider);
+
+    handler.reportDifferences(collectDifferences);
+    return new SSAMap(vars, freshValueProvider, handler.varsHashCode, s1.defaultValue);
+  }
+
+  /**
+   * Merges the entries of two SSAMaps, keeps track of the hash code of the result,
+   * and records the differences between both maps.
+   */
+  private static final class SSAMapMergeHandler
+      implements PersistentIntMap.MergeHandler<VariableEntry> {
+
+    /** A variable with different indices, absent indices are represented by null. */
+    private static final class Difference {
+      private final String name;
+      private final @Nullable Integer left;
+      private final @Nullable Integer right;
+
+      private Difference(String pName, @Nullable Integer pLeft, @Nullable Integer pRight) {
+        name = pName;
+        left = pLeft;
+        right = pRight;
+      }
+    }
+
+    private final List<Difference> differences = new ArrayList<>();
+    private int varsHashCode;
+
+    private SSAMapMergeHandler(int pLeftHashCode) {
+      varsHashCode = pLeftHashCode;
+    }
+
+    @Override
+    public VariableEntry mergeValues(int id, VariableEntry left, VariableEntry right) {
+      String name = VariableIds.getName(id);
+      CType type = left.type;
+      if (type != right.type && !CTypes.canonicalTypeEquivalence().equivalent(type, right.type)) {
+        type = TYPE_CONFLICT_CHECKER.resolveConflict(name, left.type, right.type);
+      }
+
+      int index = left.index;
+      if (left.index != right.index) {
+        differences.add(new Difference(name, left.index, right.index));
+        if (right.index > left.index) {
+          index = right.index;
+          varsHashCode += mapEntryHashCode(name, right.index) - mapEntryHashCode(name, left.index);
+        }
+      }
+      return (index == left.index && type == left.type) ? left : new VariableEntry(index, type);
     }
 
-    PersistentSortedMap<String, CType> varTypes =
-        PersistentSortedMaps.merge(
-            s1.varTypes,
-            s2.varTypes,
-            CTypes.canonicalTypeEquivalence(),
-            TYPE_CONFLICT_CHECKER,
-            MapsDifference.ignoreMapsDifference());
+    @Override
+    public void leftValueOnly(int id, VariableEntry left) {
+      differences.add(new Difference(VariableIds.getName(id), left.index, null));
+    }
 
-    return new SSAMap(vars, freshValueProvider, 0, varTypes, defaultIndex);
+    @Override
+    public void rightValueOnly(int id, VariableEntry right) {
+      String name = VariableIds.getName(id);
+      differences.add(new Difference(name, null, right.index));
+      varsHashCode += mapEntryHashCode(name, right.index);
+    }
+
+    private void reportDifferences(MapsDifference.Visitor<String, Integer> visitor) {
+      differences.sort(Comparator.comparing((Difference d) -> d.name));
+      for (Difference d : differences) {
+        if (d.right == null) {
+          visitor.leftValueOnly(d.name, d.left);
+        } else if (d.left == null) {
+          visitor.rightValueOnly(d.name, d.right);
+        } else {
+          visitor.differingValues(d.name, d.left, d.right);
+        }
+      }
+    }
   }
 
-  private final PersistentSortedMap<String, Integer> vars;
+  private final PersistentIntMap<VariableEntry> vars;
   private final FreshValueProvider freshValueProvider;
-  private final PersistentSortedMap<String, CType> varTypes;
 
   // Cache hashCode of potentially big map
   private final int varsHashCode;
 
-  private SSAMap(PersistentSortedMap<String, Integer> vars,
-                 FreshValueProvider freshValueProvider,
-                 int varsHashCode,
-                 PersistentSortedMap<String, CType> varTypes,
-                 int defaultSSAIdx) {
+  // lazily computed, sorted names and types of all variables
+  private transient volatile @Nullable ImmutableSortedMap<String, CType> variableTypes = null;
+
+  private SSAMap(
+      PersistentIntMap<VariableEntry> vars,
+      FreshValueProvider freshValueProvider,
+      int varsHashCode,
+      int defaultSSAIdx) {
     this.vars = vars;
     this.freshValueProvider = freshValueProvider;
-    this.varTypes = varTypes;
-
-    if (varsHashCode == 0) {
-      this.varsHashCode = vars.hashCode();
-    } else {
-      this.varsHashCode = varsHashCode;
-      assert varsHashCode == vars.hashCode();
-    }
+    this.varsHashCode = varsHashCode;
+    assert varsHashCode == computeHashCode(vars);
 
     defaultValue = defaultSSAIdx;
   }
 
-  private SSAMap(PersistentSortedMap<String, Integer> vars,
-                 FreshValueProvider freshValueProvider,
-                 int varsHashCode,
-                 PersistentSortedMap<String, CType> varTypes) {
-    this(vars, freshValueProvider, varsHashCode, varTypes, DEFAULT_DEFAULT_IDX);
+  private static int computeHashCode(PersistentIntMap<VariableEntry> vars) {
+    int[] result = {0};
+    vars.forEach(
+        (id, entry) -> result[0] += mapEntryHashCode(VariableIds.getName(id), entry.index));
+    return result[0];
   }
 
   /**
@@ -306,12 +415,36 @@ public class SSAMap implements Serializable {
     return new SSAMapBuilder(this);
   }
 
-  private static int getIndex(String variable, Map<String, Integer> vars, int defaultValue) {
-    Integer value = vars.get(variable);
-    if (value == null) {
+  private static int getIndex(
+      String variable, PersistentIntMap<VariableEntry> vars, int defaultValue) {
+    int id = VariableIds.getIdIfPresent(variable);
+    VariableEntry entry = id < 0 ? null : vars.get(id);
+    if (entry == null) {
       return defaultValue;
     }
-    return value;
+    return entry.index;
+  }
+
+  private static @Nullable CType getType(String variable, PersistentIntMap<VariableEntry> vars) {
+    int id = VariableIds.getIdIfPresent(variable);
+    VariableEntry entry = id < 0 ? null : vars.get(id);
+    return entry == null ? null : entry.type;
+  }
+
+  private static ImmutableSortedMap<String, CType> computeVariableTypes(
+      PersistentIntMap<VariableEntry> vars) {
+    ImmutableSortedMap.Builder<String, CType> result = ImmutableSortedMap.naturalOrder();
+    vars.forEach((id, entry) -> result.put(VariableIds.getName(id), entry.type));
+    return result.build();
+  }
+
+  private ImmutableSortedMap<String, CType> getVariableTypes() {
+    ImmutableSortedMap<String, CType> result = variableTypes;
+    if (result == null) {
+      result = computeVariableTypes(vars);
+      variableTypes = result;
+    }
+    return result;
   }
 
   /**
@@ -323,22 +456,24 @@ public class SSAMap implements Serializable {
   }
 
   public boolean containsVariable(String variable) {
-    return vars.containsKey(variable);
+    int id = VariableIds.getIdIfPresent(variable);
+    return id >= 0 && vars.get(id) != null;
   }
 
   public CType getType(String name) {
-    return varTypes.get(name);
+    return getType(name, vars);
   }
 
   public SortedSet<String> allVariables() {
-    return vars.keySet();
+    return getVariableTypes().keySet();
   }
 
   private static final Joiner joiner = Joiner.on(" ");
 
   @Override
   public String toString() {
-    return joiner.join(vars.entrySet());
+    return joiner.join(
+        allVariables().stream().map(name -> name + "=" + getIndex(name)).iterator());
   }
 
   @Override
@@ -356,8 +491,56 @@ public class SSAMap implements Serializable {
       SSAMap other = (SSAMap)obj;
       // Do a few cheap checks before the expensive ones.
       return varsHashCode == other.varsHashCode
-          && vars.equals(other.vars)
+          && PersistentIntMap.equivalent(vars, other.vars, INDEX_EQUIVALENCE)
           && freshValueProvider.equals(other.freshValueProvider);
     }
   }
+
+  private Object writeReplace() {
+    return new SerialProxy(this);
+  }
+
+  /**
+   * Variable ids are only valid within one JVM,
+   * so we serialize the names of all variables together with index and type.
+   */
+  private static class SerialProxy implements Serializable {
+
+    private static final long serialVersionUID = -4329148640128519722L;
+
+    private final ImmutableList<String> names;
+    private final ImmutableList<Integer> indices;
+    private final ImmutableList<CType> types;
+    private final FreshValueProvider freshValueProvider;
+    private final int defaultValue;
+
+    private SerialProxy(SSAMap pSsa) {
+      ImmutableList.Builder<String> namesBuilder = ImmutableList.builder();
+      ImmutableList.Builder<Integer> indicesBuilder = ImmutableList.builder();
+      ImmutableList.Builder<CType> typesBuilder = ImmutableList.builder();
+      pSsa.vars.forEach(
+          (id, entry) -> {
+            namesBuilder.add(VariableIds.getName(id));
+            indicesBuilder.add(entry.index);
+            typesBuilder.add(entry.type);
+          });
+      names = namesBuilder.build();
+      indices = indicesBuilder.build();
+      types = typesBuilder.build();
+      freshValueProvider = pSsa.freshValueProvider;
+      defaultValue = pSsa.defaultValue;
+    }
+
+    private Object readResolve() {
+      PersistentIntMap<VariableEntry> vars = PersistentIntMap.of();
+      int varsHashCode = 0;
+      for (int i = 0; i < names.size(); i++) {
+        String name = names.get(i);
+        int index = indices.get(i);
+        vars = vars.putAndCopy(VariableIds.getId(name), new VariableEntry(index, types.get(i)));
+        varsHashCode += mapEntryHashCode(name, index);
+      }
+      return new SSAMap(vars, freshValueProvider, varsHashCode, defaultValue);
+    }
+  }
 }
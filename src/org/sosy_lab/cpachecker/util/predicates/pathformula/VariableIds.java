@@ -0,0 +1,88 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.pathformula;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Global interner that assigns dense, non-negative integer ids to variable names, such that
+ * {@link SSAMap} can use integer keys instead of comparing strings.
+ *
+ * <p>Ids are never released, which is fine because the set of variable names is bounded by the
+ * analyzed program(s). Ids are only valid within the current JVM and must not be serialized.
+ *
+ * <p>This class is thread-safe.
+ */
+final class VariableIds {
+
+  private static final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<>();
+
+  // written only while holding the class lock,
+  // an entry is written before the corresponding id is published via ids
+  private static volatile String[] names = new String[1024];
+  private static int nextId = 0;
+
+  private VariableIds() {}
+
+  /** Return the id of the given name, assigning a new id if necessary. */
+  static int getId(String name) {
+    Integer id = ids.get(name);
+    if (id != null) {
+      return id;
+    }
+    return assignId(name);
+  }
+
+  private static synchronized int assignId(String name) {
+    Integer id = ids.get(name);
+    if (id != null) {
+      return id;
+    }
+    String[] currentNames = names;
+    if (nextId == currentNames.length) {
+      currentNames = Arrays.copyOf(currentNames, currentNames.length * 2);
+      names = currentNames;
+    }
+    int newId = nextId++;
+    currentNames[newId] = name;
+    ids.put(name, newId);
+    return newId;
+  }
+
+  /**
+   * Return the id of the given name, or -1 if the name has no id yet (and thus does not occur in
+   * any SSAMap). This does not assign new ids, so lookups do not fill the interner.
+   */
+  static int getIdIfPresent(String name) {
+    Integer id = ids.get(name);
+    return id == null ? -1 : id;
+  }
+
+  /** Return the name for an id returned by {@link #getId(String)}. */
+  static String getName(int id) {
+    return names[id];
+  }
+}
@@ -1008,6 +1008,26 @@ public class FormulaManagerView {
             }));
   }
 
+  /**
+   * Shift the SSA indices of the instantiated variables and UFs in pF by the given offsets.
+   * Variables without an offset in pOffsets and variables without index are not changed.
+   */
+  public <F extends Formula> F shiftIndices(F pF, final Map<String, Integer> pOffsets) {
+    if (pOffsets.isEmpty()) {
+      return pF;
+    }
+    return renameFreeVariablesAndUFs(
+        pF,
+        pFullSymbolName -> {
+          Pair<String, OptionalInt> parsed = parseName(pFullSymbolName);
+          Integer offset = pOffsets.get(parsed.getFirst());
+          if (offset == null || !parsed.getSecond().isPresent()) {
+            return pFullSymbolName;
+          }
+          return makeName(parsed.getFirst(), parsed.getSecond().getAsInt() + offset);
+        });
+  }
+
   // various caches for speeding up expensive tasks
   //
 
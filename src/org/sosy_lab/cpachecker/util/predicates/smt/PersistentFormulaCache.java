@@ -0,0 +1,320 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.smt;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.zip.CRC32;
+import javax.annotation.Nullable;
+import org.sosy_lab.common.log.LogManager;
+
+/**
+ * A cache for results of expensive solver queries that is stored in a file and survives across
+ * runs of CPAchecker, e.g., for verifying slightly changed versions of the same program.
+ *
+ * <p>Queries are identified by a namespace (the kind of query) and a textual, solver-independent
+ * representation of the query (usually SMT-LIB). Only the SHA-256 digest of both is stored, such
+ * that the file stays small. Results are arbitrary strings.
+ *
+ * <p>The file is append-only: it starts with a header and contains one record per result, each
+ * consisting of the digest, the length of the result, the UTF-8 encoded result, and a CRC32
+ * checksum of the record. Existing records are memory-mapped when the file is opened, only their
+ * positions are kept on the heap. Records with a wrong checksum are ignored. New records are
+ * appended immediately while holding a lock on the file, such that several processes can share
+ * the file. A truncated record at the end of the file (e.g., after a crash) is ignored and
+ * overwritten.
+ *
+ * <p>All users of the same file within one process share one instance, which is closed when all
+ * of them have closed it. This class is thread-safe.
+ */
+public final class PersistentFormulaCache implements AutoCloseable {
+
+  private static final byte[] MAGIC = "CPACACHE".getBytes(UTF_8);
+  private static final int VERSION = 2;
+  private static final int HEADER_SIZE = MAGIC.length + Integer.BYTES;
+
+  private static final HashFunction HASH_FUNCTION = Hashing.sha256();
+  private static final int DIGEST_SIZE = HASH_FUNCTION.bits() / Byte.SIZE;
+
+  /** Size of a record without the result: digest, length, and checksum. */
+  private static final int RECORD_OVERHEAD = DIGEST_SIZE + Integer.BYTES + Integer.BYTES;
+
+  /** The currently open caches, indexed by their normalized absolute path. */
+  private static final Map<Path, PersistentFormulaCache> openCaches = new HashMap<>();
+
+  private final Path file;
+  private final LogManager logger;
+  private final FileChannel channel;
+
+  /** Number of users of this instance, guarded by {@link #openCaches}. */
+  private int references = 1;
+
+  /** Records that were present when the file was opened. */
+  private final @Nullable MappedByteBuffer existingRecords;
+
+  /** Position of the result length of each record in {@link #existingRecords}. */
+  private final Map<HashCode, Integer> existingRecordPositions = new HashMap<>();
+
+  /** Records that were added since the file was opened. */
+  private final Map<HashCode, String> newRecords = new HashMap<>();
+
+  private boolean writable = true;
+
+  // stats
+  private int hits = 0;
+  private int misses = 0;
+  private int corruptRecords = 0;
+
+  private PersistentFormulaCache(Path pFile, LogManager pLogger) throws IOException {
+    file = pFile;
+    logger = pLogger;
+    channel =
+        FileChannel.open(
+            pFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+    try (FileLock lock = channel.lock()) {
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("Cache file " + pFile + " is too large");
+      }
+
+      if (size == 0) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.put(MAGIC).putInt(VERSION).flip();
+        writeFully(header, 0);
+        existingRecords = null;
+
+      } else {
+        existingRecords = channel.map(MapMode.READ_ONLY, 0, size);
+        checkHeader(existingRecords);
+        int end = indexRecords(existingRecords);
+        if (corruptRecords > 0) {
+          logger.log(
+              Level.WARNING,
+              "Ignoring",
+              corruptRecords,
+              "records with wrong checksum in the cache file",
+              pFile);
+        }
+        if (end < size) {
+          logger.log(
+              Level.WARNING,
+              "Ignoring incomplete record at the end of the cache file",
+              pFile,
+              "it will be overwritten.");
+          channel.truncate(end);
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Open a cache file, creating it if it does not exist. If the file is already opened in this
+   * process, the existing instance is returned, and it has to be closed once more.
+   *
+   * @throws IOException If the file cannot be opened or is not a valid cache file.
+   */
+  public static PersistentFormulaCache open(Path pFile, LogManager pLogger) throws IOException {
+    Path path = pFile.toAbsolutePath().normalize();
+    synchronized (openCaches) {
+      PersistentFormulaCache cache = openCaches.get(path);
+      if (cache != null) {
+        cache.references++;
+      } else {
+        cache = new PersistentFormulaCache(path, pLogger);
+        openCaches.put(path, cache);
+      }
+      return cache;
+    }
+  }
+
+  private void checkHeader(ByteBuffer pBuffer) throws IOException {
+    byte[] magic = new byte[MAGIC.length];
+    if (pBuffer.remaining() < HEADER_SIZE) {
+      throw new IOException(file + " is not a valid cache file");
+    }
+    pBuffer.get(magic);
+    if (!Arrays.equals(magic, MAGIC)) {
+      throw new IOException(file + " is not a valid cache file");
+    }
+    int version = pBuffer.getInt();
+    if (version != VERSION) {
+      throw new IOException(
+          "Cache file " + file + " has unsupported version " + version + ", expected " + VERSION);
+    }
+  }
+
+  /**
+   * Read the positions of all complete records with a valid checksum and return the end of the
+   * last complete record.
+   */
+  private int indexRecords(ByteBuffer pBuffer) {
+    int end = pBuffer.position();
+    byte[] digest = new byte[DIGEST_SIZE];
+    while (pBuffer.remaining() >= RECORD_OVERHEAD) {
+      int start = pBuffer.position();
+      pBuffer.get(digest);
+      int lengthPosition = pBuffer.position();
+      int length = pBuffer.getInt();
+      if (length < 0 || length > pBuffer.remaining() - Integer.BYTES) {
+        break;
+      }
+      pBuffer.position(pBuffer.position() + length);
+      int checksum = pBuffer.getInt();
+      end = pBuffer.position();
+
+      ByteBuffer content = pBuffer.duplicate();
+      content.position(start).limit(end - Integer.BYTES);
+      if (checksum(content) == checksum) {
+        existingRecordPositions.put(HashCode.fromBytes(digest), lengthPosition);
+      } else {
+        corruptRecords++;
+      }
+    }
+    return end;
+  }
+
+  private static int checksum(ByteBuffer pContent) {
+    CRC32 crc = new CRC32();
+    crc.update(pContent);
+    return (int) crc.getValue();
+  }
+
+  private static HashCode digest(String pNamespace, String pQuery) {
+    return HASH_FUNCTION
+        .newHasher()
+        .putString(pNamespace, UTF_8)
+        .putByte((byte) 0)
+        .putString(pQuery, UTF_8)
+        .hash();
+  }
+
+  /** Return the stored result for a query, or null if there is none. */
+  public synchronized @Nullable String get(String pNamespace, String pQuery) {
+    HashCode key = digest(pNamespace, pQuery);
+
+    String result = newRecords.get(key);
+    if (result == null) {
+      Integer position = existingRecordPositions.get(key);
+      if (position != null) {
+        result = readResult(position);
+      }
+    }
+
+    if (result == null) {
+      misses++;
+    } else {
+      hits++;
+    }
+    return result;
+  }
+
+  private String readResult(int pLengthPosition) {
+    ByteBuffer buffer = existingRecords.duplicate();
+    buffer.position(pLengthPosition);
+    byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return new String(bytes, UTF_8);
+  }
+
+  /**
+   * Store the result for a query. If writing to the file fails, a warning is logged and the
+   * result is only kept for the current run.
+   */
+  public synchronized void put(String pNamespace, String pQuery, String pResult) {
+    HashCode key = digest(pNamespace, pQuery);
+    if (newRecords.containsKey(key) || existingRecordPositions.containsKey(key)) {
+      return;
+    }
+    newRecords.put(key, pResult);
+
+    if (writable) {
+      byte[] result = pResult.getBytes(UTF_8);
+      ByteBuffer record = ByteBuffer.allocate(RECORD_OVERHEAD + result.length);
+      record.put(key.asBytes()).putInt(result.length).put(result).flip();
+      int checksum = checksum(record.duplicate());
+      record.limit(record.capacity());
+      record.position(record.capacity() - Integer.BYTES);
+      record.putInt(checksum).flip();
+
+      // other processes may append to the same file
+      try (FileLock lock = channel.lock()) {
+        writeFully(record, channel.size());
+      } catch (IOException e) {
+        logger.logUserException(
+            Level.WARNING, e, "Could not write to cache file, results will not be persisted");
+        writable = false;
+      }
+    }
+  }
+
+  private void writeFully(ByteBuffer pBuffer, long pPosition) throws IOException {
+    long position = pPosition;
+    while (pBuffer.hasRemaining()) {
+      position += channel.write(pBuffer, position);
+    }
+  }
+
+  /** Return a one-line summary of the usage of this cache. */
+  public synchronized String getStatistics() {
+    return String.format(
+        "%d stored results (%d from previous runs), %d hits, %d misses",
+        existingRecordPositions.size() + newRecords.size(),
+        existingRecordPositions.size(),
+        hits,
+        misses);
+  }
+
+  @Override
+  public void close() throws IOException {
+    synchronized (openCaches) {
+      references--;
+      if (references > 0) {
+        return;
+      }
+      openCaches.remove(file);
+    }
+    synchronized (this) {
+      channel.close();
+    }
+  }
+}
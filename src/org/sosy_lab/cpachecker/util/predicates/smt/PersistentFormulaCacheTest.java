@@ -0,0 +1,141 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.smt;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sosy_lab.common.log.LogManager;
+
+public class PersistentFormulaCacheTest {
+
+  @Rule public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private final LogManager logger = LogManager.createTestLogManager();
+
+  private Path newCacheFile() throws IOException {
+    return tempFolder.newFolder().toPath().resolve("cache.bin");
+  }
+
+  @Test
+  public void storeAndRetrieve() throws IOException {
+    try (PersistentFormulaCache cache = PersistentFormulaCache.open(newCacheFile(), logger)) {
+      assertThat(cache.get("unsat", "(assert false)")).isNull();
+      cache.put("unsat", "(assert false)", "true");
+      assertThat(cache.get("unsat", "(assert false)")).isEqualTo("true");
+      assertThat(cache.get("abstraction", "(assert false)")).isNull();
+    }
+  }
+
+  @Test
+  public void resultsSurviveReopening() throws IOException {
+    Path file = newCacheFile();
+    try (PersistentFormulaCache cache = PersistentFormulaCache.open(file, logger)) {
+      cache.put("unsat", "(assert false)", "true");
+      cache.put("unsat", "(assert true)", "false");
+    }
+    try (PersistentFormulaCache cache = PersistentFormulaCache.open(file, logger)) {
+      assertThat(cache.get("unsat", "(assert false)")).isEqualTo("true");
+      assertThat(cache.get("unsat", "(assert true)")).isEqualTo("false");
+      cache.put("abstraction", "(assert true)", "(assert true)");
+    }
+    try (PersistentFormulaCache cache = PersistentFormulaCache.open(file, logger)) {
+      assertThat(cache.get("unsat", "(assert false)")).isEqualTo("true");
+      assertThat(cache.get("abstraction", "(assert true)")).isEqualTo("(assert true)");
+    }
+  }
+
+  @Test
+  public void incompleteRecordIsIgnored() throws IOException {
+    Path file = newCacheFile();
+    try (PersistentFormulaCache cache = PersistentFormulaCache.open(file, logger)) {
+      cache.put("unsat", "(assert false)", "true");
+      cache.put("unsat", "(assert true)", "false");
+    }
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      channel.truncate(channel.size() - 2);
+    }
+    try (PersistentFormulaCache cache = PersistentFormulaCache.open(file, logger)) {
+      assertThat(cache.get("unsat", "(assert false)")).isEqualTo("true");
+      assertThat(cache.get("unsat", "(assert true)")).isNull();
+      cache.put("unsat", "(assert true)", "false");
+    }
+    try (PersistentFormulaCache cache = PersistentFormulaCache.open(file, logger)) {
+      assertThat(cache.get("unsat", "(assert true)")).isEqualTo("false");
+    }
+  }
+
+  @Test
+  public void corruptRecordIsIgnored() throws IOException {
+    Path file = newCacheFile();
+    try (PersistentFormulaCache cache = PersistentFormulaCache.open(file, logger)) {
+      cache.put("unsat", "(assert false)", "true");
+      cache.put("unsat", "(assert true)", "false");
+    }
+    try (FileChannel channel =
+        FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      // flip the last byte of the result of the second record, which is followed by the checksum
+      ByteBuffer lastByte = ByteBuffer.allocate(1);
+      long position = channel.size() - Integer.BYTES - 1;
+      channel.read(lastByte, position);
+      lastByte.put(0, (byte) ~lastByte.get(0));
+      lastByte.rewind();
+      channel.write(lastByte, position);
+    }
+    try (PersistentFormulaCache cache = PersistentFormulaCache.open(file, logger)) {
+      assertThat(cache.get("unsat", "(assert false)")).isEqualTo("true");
+      assertThat(cache.get("unsat", "(assert true)")).isNull();
+    }
+  }
+
+  @Test
+  public void instanceIsSharedWithinProcess() throws IOException {
+    Path file = newCacheFile();
+    try (PersistentFormulaCache cache1 = PersistentFormulaCache.open(file, logger);
+        PersistentFormulaCache cache2 = PersistentFormulaCache.open(file, logger)) {
+      assertThat(cache2).isSameAs(cache1);
+      cache1.put("unsat", "(assert false)", "true");
+      assertThat(cache2.get("unsat", "(assert false)")).isEqualTo("true");
+    }
+    try (PersistentFormulaCache cache = PersistentFormulaCache.open(file, logger)) {
+      assertThat(cache.get("unsat", "(assert false)")).isEqualTo("true");
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void invalidFileIsRejected() throws IOException {
+    Path file = newCacheFile();
+    Files.write(file, "not a cache file".getBytes(UTF_8));
+    PersistentFormulaCache.open(file, logger).close();
+  }
+}
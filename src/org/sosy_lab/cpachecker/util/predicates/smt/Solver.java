@@ -28,23 +28,27 @@ import static org.sosy_lab.java_smt.api.SolverContext.ProverOptions.GENERATE_UNS
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Verify;
-import com.google.common.collect.ImmutableMap;
+import com.google.common.cache.Cache;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Maps;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
-import java.util.HashMap;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
 import javax.annotation.Nullable;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.FileOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.configuration.Option;
 import org.sosy_lab.common.configuration.Options;
 import org.sosy_lab.common.log.LogManager;
 import org.sosy_lab.common.time.Timer;
+import org.sosy_lab.cpachecker.util.Caches;
 import org.sosy_lab.cpachecker.util.predicates.interpolation.SeparateInterpolatingProverEnvironment;
 import org.sosy_lab.cpachecker.util.predicates.ufCheckingProver.UFCheckingBasicProverEnvironment.UFCheckingProverOptions;
 import org.sosy_lab.cpachecker.util.predicates.ufCheckingProver.UFCheckingInterpolatingProverEnvironment;
@@ -94,6 +98,41 @@ public final class Solver implements AutoCloseable {
   description="Extract and cache unsat cores for satisfiability checking")
   private boolean cacheUnsatCores = true;
 
+  @Option(
+    secure = true,
+    description =
+        "Maximum number of formulas for which the result of a satisfiability check is cached. "
+            + "If the limit is reached, the least recently used results are evicted. "
+            + "Non-positive values mean no limit."
+  )
+  private long unsatCacheSize = 0;
+
+  @Option(
+    secure = true,
+    description =
+        "Maximum number of sets of constraints for which the result of a satisfiability check "
+            + "is cached in the grouped cache (used for example by the formula slicing). "
+            + "If the limit is reached, the least recently used groups are evicted. "
+            + "Non-positive values mean no limit."
+  )
+  private long groupedUnsatCacheSize = 0;
+
+  @Option(
+    secure = true,
+    name = "persistentCache.file",
+    description =
+        "File for storing results of satisfiability checks and abstraction computations "
+            + "across runs (created if it does not exist, results are appended). "
+            + "Queries are identified by a digest of their SMT-LIB representation, "
+            + "such that results can be reused when analyzing a slightly changed program. "
+            + "Relative paths are resolved against the output directory. "
+            + "Empty for no persistent cache."
+  )
+  @FileOption(FileOption.Type.OUTPUT_FILE)
+  private @Nullable Path persistentCacheFile = null;
+
+  private static final String PERSISTENT_CACHE_UNSAT = "unsat";
+
   private final @Nullable UFCheckingProverOptions ufCheckingProverOptions;
 
   private final FormulaManagerView fmgr;
@@ -102,7 +141,7 @@ public final class Solver implements AutoCloseable {
   private final SolverContext solvingContext;
   private final SolverContext interpolatingContext;
 
-  private final Map<BooleanFormula, Boolean> unsatCache = Maps.newHashMap();
+  private final Cache<BooleanFormula, Boolean> unsatCache;
 
   /**
    * More complex unsat cache, grouped by an arbitrary key.
@@ -113,9 +152,12 @@ public final class Solver implements AutoCloseable {
    * satisfiable.
    * If a set of constraints is unsatisfiable, any superset of it is also
    * unsatisfiable.
+   * The weight of each group is its number of stored constraint sets.
+   * The groups are concurrent maps that are modified in place.
    */
-  private final Map<Object, Map<Set<BooleanFormula>, Boolean>>
-      groupedUnsatCache = new HashMap<>();
+  private final Cache<Object, Map<Set<BooleanFormula>, Boolean>> groupedUnsatCache;
+
+  private final @Nullable PersistentFormulaCache persistentCache;
 
   private final LogManager logger;
 
@@ -152,6 +194,11 @@ public final class Solver implements AutoCloseable {
     bfmgr = fmgr.getBooleanFormulaManager();
     logger = pLogger;
 
+    unsatCache = Caches.newCache(unsatCacheSize);
+    groupedUnsatCache =
+        Caches.newWeightedCache(groupedUnsatCacheSize, (key, stored) -> stored.size());
+    persistentCache = openPersistentCache(persistentCacheFile, pLogger);
+
     if (checkUFs) {
       ufCheckingProverOptions = new UFCheckingProverOptions(config);
     } else {
@@ -159,6 +206,20 @@ public final class Solver implements AutoCloseable {
     }
   }
 
+  private static @Nullable PersistentFormulaCache openPersistentCache(
+      @Nullable Path pFile, LogManager pLogger) {
+    if (pFile == null) {
+      return null;
+    }
+    try {
+      return PersistentFormulaCache.open(pFile, pLogger);
+    } catch (IOException e) {
+      pLogger.logUserException(
+          Level.WARNING, e, "Could not open persistent cache, continuing without it");
+      return null;
+    }
+  }
+
   /**
    * Please use {@link #create(Configuration, LogManager, ShutdownNotifier)} in normal code. This
    * constructor is only for test code.
@@ -197,6 +258,11 @@ public final class Solver implements AutoCloseable {
     bfmgr = fmgr.getBooleanFormulaManager();
     logger = pLogger;
 
+    unsatCache = Caches.newCache(unsatCacheSize);
+    groupedUnsatCache =
+        Caches.newWeightedCache(groupedUnsatCacheSize, (key, stored) -> stored.size());
+    persistentCache = openPersistentCache(persistentCacheFile, pLogger);
+
     if (checkUFs) {
       ufCheckingProverOptions = new UFCheckingProverOptions(pConfig);
     } else {
@@ -310,7 +376,7 @@ public final class Solver implements AutoCloseable {
       trivialSatChecks++;
       return true;
     }
-    Boolean result = unsatCache.get(f);
+    Boolean result = unsatCache.getIfPresent(f);
     if (result != null) {
       cachedSatChecks++;
       return result;
@@ -318,7 +384,19 @@ public final class Solver implements AutoCloseable {
 
     solverTime.start();
     try {
-      result = isUnsatUncached(f);
+      if (persistentCache != null) {
+        String query = fmgr.dumpFormula(f).toString();
+        String persistentResult = persistentCache.get(PERSISTENT_CACHE_UNSAT, query);
+        if (persistentResult != null) {
+          cachedSatChecks++;
+          result = Boolean.valueOf(persistentResult);
+        } else {
+          result = isUnsatUncached(f);
+          persistentCache.put(PERSISTENT_CACHE_UNSAT, query, result.toString());
+        }
+      } else {
+        result = isUnsatUncached(f);
+      }
 
       unsatCache.put(f, result);
       return result;
@@ -351,7 +429,7 @@ public final class Solver implements AutoCloseable {
       throws InterruptedException, SolverException {
     satChecks++;
 
-    Map<Set<BooleanFormula>, Boolean> stored = groupedUnsatCache.get(cacheKey);
+    Map<Set<BooleanFormula>, Boolean> stored = groupedUnsatCache.getIfPresent(cacheKey);
     if (stored != null) {
       for (Entry<Set<BooleanFormula>, Boolean> isUnsatResults : stored
           .entrySet()) {
@@ -374,9 +452,7 @@ public final class Solver implements AutoCloseable {
     }
 
     if (stored == null) {
-      stored = new HashMap<>();
-    } else {
-      stored = new HashMap<>(stored);
+      stored = new ConcurrentHashMap<>();
     }
 
     ProverOptions opts[];
@@ -403,7 +479,9 @@ public final class Solver implements AutoCloseable {
         return false;
       }
     } finally {
-      groupedUnsatCache.put(cacheKey, ImmutableMap.copyOf(stored));
+      // The group is updated in place. Putting it again lets the cache re-compute its weight,
+      // which is just the size of the group, and re-adds it if it was evicted meanwhile.
+      groupedUnsatCache.put(cacheKey, stored);
     }
   }
 
@@ -472,6 +550,14 @@ public final class Solver implements AutoCloseable {
     // such that no exception gets lost and both managers get closed.
     // Taken from https://stackoverflow.com/questions/24705055/wrapping-multiple-autocloseables
     // Guava has Closer, but it does not yet support AutoCloseables.
+    if (persistentCache != null) {
+      try {
+        persistentCache.close();
+      } catch (IOException e) {
+        logger.logUserException(Level.WARNING, e, "Could not close persistent cache");
+      }
+    }
+
     Throwable t = null;
     try {
       solvingContext.close();
@@ -494,6 +580,25 @@ public final class Solver implements AutoCloseable {
     }
   }
 
+  /** Return a summary of the usage of the cache for {@link #isUnsat(BooleanFormula)}. */
+  public String getUnsatCacheStatistics() {
+    return Caches.formatStatistics(unsatCache);
+  }
+
+  /** Return a summary of the usage of the cache for {@link #isUnsat(Set, Object)}. */
+  public String getGroupedUnsatCacheStatistics() {
+    return Caches.formatStatistics(groupedUnsatCache);
+  }
+
+  /**
+   * Return the cache that stores results across runs, if enabled. Components that compute
+   * expensive results based on this solver may use it for their own queries with a separate
+   * namespace.
+   */
+  public @Nullable PersistentFormulaCache getPersistentCache() {
+    return persistentCache;
+  }
+
   public String getVersion() {
     return solvingContext.getVersion();
   }
@@ -508,7 +613,7 @@ public final class Solver implements AutoCloseable {
    * @param unsat An unsatisfiable formula.
    */
   public void addUnsatisfiableFormulaToCache(BooleanFormula unsat) {
-    if (unsatCache.containsKey(unsat) || bfmgr.isFalse(unsat)) {
+    if (unsatCache.getIfPresent(unsat) != null || bfmgr.isFalse(unsat)) {
       return;
     }
     try {
@@ -24,9 +24,15 @@
  */
 package org.sosy_lab.cpachecker.util.refinement;
 
+import java.util.ArrayList;
 import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
+import javax.annotation.Nullable;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.configuration.Configuration;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
@@ -41,6 +47,7 @@ import org.sosy_lab.cpachecker.cpa.arg.path.ARGPath;
 import org.sosy_lab.cpachecker.cpa.arg.path.PathIterator;
 import org.sosy_lab.cpachecker.cpa.arg.path.PathPosition;
 import org.sosy_lab.cpachecker.exceptions.CPAException;
+import org.sosy_lab.cpachecker.util.Pair;
 import org.sosy_lab.cpachecker.util.states.MemoryLocation;
 
 /**
@@ -67,6 +74,15 @@ public class GenericEdgeInterpolator<S extends ForgetfulState<T>, T, I extends I
   @Option(secure=true, description="whether or not to manage the callstack, which is needed for BAM")
   private boolean manageCallstack = true;
 
+  @Option(secure=true, description="try to remove groups of memory locations from the candidate"
+      + " interpolant at once, and split a group into halves only if it cannot be removed,"
+      + " instead of checking each memory location separately")
+  private boolean applyBatchedInterpolation = false;
+
+  @Option(secure=true, description="cache the results of feasibility checks of path suffixes"
+      + " for the error path that is currently interpolated")
+  private boolean cacheSuffixFeasibility = false;
+
   /**
    * the shutdownNotifier in use
    */
@@ -81,6 +97,11 @@ public class GenericEdgeInterpolator<S extends ForgetfulState<T>, T, I extends I
 
   private final S initialState;
 
+  /**
+   * creates a copy of a state that is not affected by later changes of the original state
+   */
+  private final Function<S, S> stateCopier;
+
   /**
    * the precision in use
    */
@@ -96,6 +117,17 @@ public class GenericEdgeInterpolator<S extends ForgetfulState<T>, T, I extends I
    */
   private final FeasibilityChecker<S> checker;
 
+  /**
+   * the results of feasibility checks, keyed by the position in the error path where the checked
+   * suffix starts and a copy of the state the check started with
+   */
+  private final Map<Pair<Integer, S>, Boolean> feasibilityCache = new HashMap<>();
+
+  /**
+   * the error path for which the entries in {@link #feasibilityCache} are valid
+   */
+  private @Nullable ARGPath cachedErrorPath = null;
+
   /**
    * This method acts as the constructor of the class.
    */
@@ -104,6 +136,7 @@ public class GenericEdgeInterpolator<S extends ForgetfulState<T>, T, I extends I
       final FeasibilityChecker<S> pFeasibilityChecker,
       final InterpolantManager<S, I> pInterpolantManager,
       final S pInitialState,
+      final Function<S, S> pStateCopier,
       final Class<? extends ConfigurableProgramAnalysis> pCpaToRefine,
       final Configuration pConfig,
       final ShutdownNotifier pShutdownNotifier,
@@ -117,6 +150,7 @@ public class GenericEdgeInterpolator<S extends ForgetfulState<T>, T, I extends I
       postOperator       = pStrongestPostOperator;
       interpolantManager = pInterpolantManager;
       initialState       = pInitialState;
+      stateCopier        = pStateCopier;
 
       precision          = VariableTrackingPrecision.createStaticPrecision(
           pConfig, pCfa.getVarClassification(), pCpaToRefine);
@@ -149,6 +183,11 @@ public class GenericEdgeInterpolator<S extends ForgetfulState<T>, T, I extends I
 
     numberOfInterpolationQueries = 0;
 
+    if (pErrorPath != cachedErrorPath) {
+      feasibilityCache.clear();
+      cachedErrorPath = pErrorPath;
+    }
+
     // create initial state, based on input interpolant, and create initial successor by consuming
     // the next edge
     S stateFromOldInterpolant = pInputInterpolant.reconstructState();
@@ -193,17 +232,27 @@ public class GenericEdgeInterpolator<S extends ForgetfulState<T>, T, I extends I
       return interpolantManager.createInterpolant(initialSuccessor);
     }
 
-    ARGPath remainingErrorPath = pOffset.iterator().getSuffixExclusive();
+    PathIterator offsetIterator = pOffset.iterator();
+    ARGPath remainingErrorPath = offsetIterator.getSuffixExclusive();
+    int suffixPosition = offsetIterator.getIndex();
 
     // if the remaining path, i.e., the suffix, is contradicting by itself, then return the TRUE
     // interpolant
     if (applyUnsatSuffixOptimization
         && pInputInterpolant.isTrue()
         && initialSuccessor.getSize() > 1
-        && isSuffixContradicting(remainingErrorPath)) {
+        && isSuffixContradicting(remainingErrorPath, suffixPosition)) {
       return interpolantManager.getTrueInterpolant();
     }
 
+    if (applyBatchedInterpolation) {
+      List<MemoryLocation> memoryLocations =
+          new ArrayList<>(determineMemoryLocationsToInterpolateOn(initialSuccessor));
+      interpolateOnMemoryLocations(
+          remainingErrorPath, suffixPosition, initialSuccessor, memoryLocations);
+      return interpolantManager.createInterpolant(initialSuccessor);
+    }
+
     for (MemoryLocation currentMemoryLocation : determineMemoryLocationsToInterpolateOn(initialSuccessor)) {
       shutdownNotifier.shutdownIfNecessary();
 
@@ -212,7 +261,7 @@ public class GenericEdgeInterpolator<S extends ForgetfulState<T>, T, I extends I
       T forgottenInformation = initialSuccessor.forget(currentMemoryLocation);
 
       // check if the remaining path now becomes feasible
-      if (isRemainingPathFeasible(remainingErrorPath, initialSuccessor)) {
+      if (isRemainingPathFeasible(remainingErrorPath, suffixPosition, initialSuccessor)) {
         initialSuccessor.remember(currentMemoryLocation, forgottenInformation);
       }
     }
@@ -220,6 +269,61 @@ public class GenericEdgeInterpolator<S extends ForgetfulState<T>, T, I extends I
     return interpolantManager.createInterpolant(initialSuccessor);
   }
 
+  /**
+   * This method removes the given memory locations from the candidate interpolant, as long as the
+   * remaining error path stays infeasible. All memory locations are removed at once if possible,
+   * otherwise both halves of the list are tried separately, down to single memory locations.
+   *
+   * <p>Because forgetting information can only make the remaining path feasible and never
+   * infeasible, this leads to the same interpolant as checking each memory location on its own,
+   * but needs far fewer feasibility checks if most memory locations are irrelevant for the suffix.
+   *
+   * @param pRemainingErrorPath the suffix of the error path that has to remain infeasible
+   * @param pSuffixPosition the position in the error path where the suffix starts
+   * @param pCandidateInterpolant the candidate interpolant, which is modified by this method
+   * @param pMemoryLocations the memory locations to remove from the candidate interpolant
+   */
+  private void interpolateOnMemoryLocations(
+      final ARGPath pRemainingErrorPath,
+      final int pSuffixPosition,
+      final S pCandidateInterpolant,
+      final List<MemoryLocation> pMemoryLocations)
+      throws CPAException, InterruptedException {
+
+    if (pMemoryLocations.isEmpty()) {
+      return;
+    }
+
+    shutdownNotifier.shutdownIfNecessary();
+
+    List<T> forgottenInformation = new ArrayList<>(pMemoryLocations.size());
+    for (MemoryLocation memoryLocation : pMemoryLocations) {
+      forgottenInformation.add(pCandidateInterpolant.forget(memoryLocation));
+    }
+
+    if (!isRemainingPathFeasible(pRemainingErrorPath, pSuffixPosition, pCandidateInterpolant)) {
+      return;
+    }
+
+    for (int i = pMemoryLocations.size() - 1; i >= 0; i--) {
+      pCandidateInterpolant.remember(pMemoryLocations.get(i), forgottenInformation.get(i));
+    }
+
+    if (pMemoryLocations.size() > 1) {
+      int middle = pMemoryLocations.size() / 2;
+      interpolateOnMemoryLocations(
+          pRemainingErrorPath,
+          pSuffixPosition,
+          pCandidateInterpolant,
+          pMemoryLocations.subList(0, middle));
+      interpolateOnMemoryLocations(
+          pRemainingErrorPath,
+          pSuffixPosition,
+          pCandidateInterpolant,
+          pMemoryLocations.subList(middle, pMemoryLocations.size()));
+    }
+  }
+
   /**
    * Interpolation on (long) error paths may be expensive, so it might pay off to limit the set of
    * memory locations on which to interpolate.
@@ -245,11 +349,12 @@ public class GenericEdgeInterpolator<S extends ForgetfulState<T>, T, I extends I
    * This method checks, if the given error path is contradicting in itself.
    *
    * @param errorPath the error path to check.
+   * @param suffixPosition the position in the complete error path where the given path starts
    * @return true, if the given error path is contradicting in itself, else false
    */
-  private boolean isSuffixContradicting(ARGPath errorPath)
+  private boolean isSuffixContradicting(ARGPath errorPath, int suffixPosition)
       throws CPAException, InterruptedException {
-    return !isRemainingPathFeasible(errorPath, initialState);
+    return !isRemainingPathFeasible(errorPath, suffixPosition, initialState);
   }
 
   /**
@@ -304,6 +409,32 @@ public class GenericEdgeInterpolator<S extends ForgetfulState<T>, T, I extends I
     return checker.isFeasible(remainingErrorPath, state);
   }
 
+  /**
+   * This method checks, whether or not the (remaining) error path is feasible when starting with
+   * the given (pseudo) initial state, and caches the result if {@link #cacheSuffixFeasibility} is
+   * enabled.
+   *
+   * @param remainingErrorPath the error path to check feasibility on
+   * @param suffixPosition the position in the complete error path where the given path starts
+   * @param state the (pseudo) initial state
+   * @return true, it the path is feasible, else false
+   */
+  private boolean isRemainingPathFeasible(ARGPath remainingErrorPath, int suffixPosition, S state)
+      throws CPAException, InterruptedException {
+    if (!cacheSuffixFeasibility) {
+      return isRemainingPathFeasible(remainingErrorPath, state);
+    }
+
+    // the state is modified later on, so the key has to contain a copy of it
+    Pair<Integer, S> key = Pair.of(suffixPosition, stateCopier.apply(state));
+    Boolean isFeasible = feasibilityCache.get(key);
+    if (isFeasible == null) {
+      isFeasible = isRemainingPathFeasible(remainingErrorPath, state);
+      feasibilityCache.put(key, isFeasible);
+    }
+    return isFeasible;
+  }
+
 
   /**
    * This method checks, if the given edge is only renaming variables.
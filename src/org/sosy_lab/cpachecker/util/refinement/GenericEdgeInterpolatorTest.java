@@ -0,0 +1,214 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.refinement;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.ImmutableSet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.cfa.ast.FileLocation;
+import org.sosy_lab.cpachecker.cfa.model.BlankEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.cfa.types.MachineModel;
+import org.sosy_lab.cpachecker.cfa.types.c.CNumericTypes;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.cpa.arg.ARGState;
+import org.sosy_lab.cpachecker.cpa.arg.path.ARGPath;
+import org.sosy_lab.cpachecker.cpa.arg.path.PathIterator;
+import org.sosy_lab.cpachecker.cpa.location.LocationState;
+import org.sosy_lab.cpachecker.cpa.value.ValueAnalysisState;
+import org.sosy_lab.cpachecker.cpa.value.refiner.ValueAnalysisInterpolant;
+import org.sosy_lab.cpachecker.cpa.value.refiner.utils.ValueAnalysisEdgeInterpolator;
+import org.sosy_lab.cpachecker.cpa.value.refiner.utils.ValueAnalysisInterpolantManager;
+import org.sosy_lab.cpachecker.cpa.value.type.NumericValue;
+import org.sosy_lab.cpachecker.util.states.MemoryLocation;
+import org.sosy_lab.cpachecker.util.test.TestDataTools;
+
+/**
+ * Checks that the optional optimizations of {@link GenericEdgeInterpolator} lead to the same
+ * interpolants as the plain interpolation.
+ */
+public class GenericEdgeInterpolatorTest {
+
+  private static final int NUMBER_OF_VARIABLES = 16;
+
+  /** The suffix of the error path is infeasible as long as these memory locations are known. */
+  private static final ImmutableSet<MemoryLocation> RELEVANT_LOCATIONS =
+      ImmutableSet.of(variable(2), variable(5), variable(6), variable(13));
+
+  private CFA cfa;
+  private FeasibilityChecker<ValueAnalysisState> checker;
+  private ARGPath errorPath;
+
+  private static MemoryLocation variable(int i) {
+    return MemoryLocation.valueOf("main", "x" + i);
+  }
+
+  @Before
+  @SuppressWarnings("unchecked")
+  public void setUp() throws Exception {
+    cfa = mock(CFA.class);
+    when(cfa.getMachineModel()).thenReturn(MachineModel.LINUX32);
+    when(cfa.getVarClassification()).thenReturn(Optional.empty());
+
+    checker = mock(FeasibilityChecker.class);
+    when(checker.isFeasible(any(ARGPath.class), any(ValueAnalysisState.class)))
+        .thenAnswer(
+            invocation -> {
+              ValueAnalysisState state = invocation.getArgument(1);
+              return !state.getTrackedMemoryLocations().containsAll(RELEVANT_LOCATIONS);
+            });
+
+    // a chain of three edges
+    List<CFAEdge> edges = new ArrayList<>();
+    List<ARGState> states = new ArrayList<>();
+    CFANode node = new CFANode("main");
+    states.add(createArgState(node));
+    for (int i = 0; i < 3; i++) {
+      CFANode successor = new CFANode("main");
+      CFAEdge edge = new BlankEdge("", FileLocation.DUMMY, node, successor, "edge " + i);
+      node.addLeavingEdge(edge);
+      successor.addEnteringEdge(edge);
+      edges.add(edge);
+      states.add(createArgState(successor));
+      node = successor;
+    }
+    errorPath = new ARGPath(states, edges);
+  }
+
+  private static ARGState createArgState(CFANode pNode) {
+    LocationState locationState = mock(LocationState.class);
+    when(locationState.getLocationNode()).thenReturn(pNode);
+    when(locationState.getLocationNodes()).thenReturn(Collections.singleton(pNode));
+    return new ARGState(locationState, null);
+  }
+
+  private ValueAnalysisEdgeInterpolator createInterpolator(boolean pBatched, boolean pCached)
+      throws InvalidConfigurationException {
+    Configuration config =
+        TestDataTools.configurationForTest()
+            .setOption(
+                "cpa.value.interpolation.applyBatchedInterpolation", Boolean.toString(pBatched))
+            .setOption("cpa.value.interpolation.cacheSuffixFeasibility", Boolean.toString(pCached))
+            .build();
+    return new ValueAnalysisEdgeInterpolator(
+        checker, new AssigningStrongestPost(), config, ShutdownNotifier.createDummy(), cfa);
+  }
+
+  private ValueAnalysisInterpolant deriveInterpolant(ValueAnalysisEdgeInterpolator pInterpolator)
+      throws Exception {
+    PathIterator iterator = errorPath.pathIterator();
+    return pInterpolator.deriveInterpolant(
+        errorPath,
+        iterator.getOutgoingEdge(),
+        new ArrayDeque<>(),
+        iterator.getPosition(),
+        ValueAnalysisInterpolantManager.getInstance().createInitialInterpolant());
+  }
+
+  @Test
+  public void testPlainInterpolation() throws Exception {
+    ValueAnalysisInterpolant interpolant = deriveInterpolant(createInterpolator(false, false));
+
+    assertThat(interpolant.getMemoryLocations()).containsExactlyElementsIn(RELEVANT_LOCATIONS);
+  }
+
+  @Test
+  public void testBatchedInterpolation() throws Exception {
+    ValueAnalysisInterpolant expected = deriveInterpolant(createInterpolator(false, false));
+    ValueAnalysisEdgeInterpolator interpolator = createInterpolator(true, false);
+
+    assertThat(deriveInterpolant(interpolator)).isEqualTo(expected);
+  }
+
+  @Test
+  public void testCachedSuffixFeasibility() throws Exception {
+    ValueAnalysisInterpolant expected = deriveInterpolant(createInterpolator(false, false));
+    ValueAnalysisEdgeInterpolator interpolator = createInterpolator(false, true);
+
+    assertThat(deriveInterpolant(interpolator)).isEqualTo(expected);
+    assertThat(interpolator.getNumberOfInterpolationQueries()).isGreaterThan(0);
+
+    // the same interpolation again is answered from the cache
+    assertThat(deriveInterpolant(interpolator)).isEqualTo(expected);
+    assertThat(interpolator.getNumberOfInterpolationQueries()).isEqualTo(0);
+  }
+
+  @Test
+  public void testBatchedInterpolationWithCachedSuffixFeasibility() throws Exception {
+    ValueAnalysisInterpolant expected = deriveInterpolant(createInterpolator(false, false));
+    ValueAnalysisEdgeInterpolator interpolator = createInterpolator(true, true);
+
+    assertThat(deriveInterpolant(interpolator)).isEqualTo(expected);
+    assertThat(deriveInterpolant(interpolator)).isEqualTo(expected);
+  }
+
+  /** Strongest-post operator that assigns a value to each of the variables on every edge. */
+  private static class AssigningStrongestPost
+      implements StrongestPostOperator<ValueAnalysisState> {
+
+    @Override
+    public Optional<ValueAnalysisState> getStrongestPost(
+        ValueAnalysisState pOrigin, Precision pPrecision, CFAEdge pOperation) {
+      ValueAnalysisState successor = ValueAnalysisState.copyOf(pOrigin);
+      for (int i = 0; i < NUMBER_OF_VARIABLES; i++) {
+        successor.assignConstant(variable(i), new NumericValue(i), CNumericTypes.INT);
+      }
+      return Optional.of(successor);
+    }
+
+    @Override
+    public ValueAnalysisState handleFunctionCall(
+        ValueAnalysisState pState, CFAEdge pEdge, Deque<ValueAnalysisState> pCallstack) {
+      return pState;
+    }
+
+    @Override
+    public ValueAnalysisState handleFunctionReturn(
+        ValueAnalysisState pNext, CFAEdge pEdge, Deque<ValueAnalysisState> pCallstack) {
+      return pNext;
+    }
+
+    @Override
+    public ValueAnalysisState performAbstraction(
+        ValueAnalysisState pNext, CFANode pCurrNode, ARGPath pErrorPath, Precision pPrecision) {
+      return pNext;
+    }
+  }
+}